@@ -0,0 +1,111 @@
+package com.banking.benchmark;
+
+import com.banking.model.Account;
+import com.banking.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the balance arithmetic on {@link Account} and {@link Money}, with the equivalent
+ * {@link BigDecimal} operations as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark {
+
+    private Account account;
+    private Money amount;
+    private Money balance;
+    private BigDecimal decimalBalance;
+    private BigDecimal decimalAmount;
+    private BigDecimal unscaledAmount;
+    private BigDecimal fractionalAmount;
+
+    @Setup
+    public void setUp() {
+        account = Account.builder().balance(Money.of(new BigDecimal("1000000.00"), "USD")).build();
+        amount = Money.of(new BigDecimal("125.50"), "USD");
+        balance = account.getBalance();
+        decimalBalance = new BigDecimal("1000000.00");
+        decimalAmount = new BigDecimal("125.50");
+        unscaledAmount = new BigDecimal("125.5");
+        fractionalAmount = new BigDecimal("0.125");
+    }
+
+    @Benchmark
+    public Account depositThenWithdraw() {
+        // Paired so the balance, and with it the cost of each operation, stays constant across invocations.
+        return account.deposit(amount).withdraw(amount);
+    }
+
+    @Benchmark
+    public boolean hasSufficientFunds() {
+        return account.hasSufficientFunds(amount);
+    }
+
+    @Benchmark
+    public Money moneyPlus() {
+        return balance.plus(amount);
+    }
+
+    @Benchmark
+    public boolean moneyIsAtLeast() {
+        return balance.isAtLeast(amount);
+    }
+
+    @Benchmark
+    public Money moneyOfDecimal() {
+        return Money.of(decimalAmount, "USD");
+    }
+
+    @Benchmark
+    public BigDecimal moneyToDecimal() {
+        return amount.toBigDecimal();
+    }
+
+    @Benchmark
+    public BigDecimal decimalAddSameScale() {
+        return decimalBalance.add(decimalAmount);
+    }
+
+    @Benchmark
+    public BigDecimal decimalAddMixedScale() {
+        return decimalBalance.add(fractionalAmount);
+    }
+
+    @Benchmark
+    public int decimalCompare() {
+        return decimalBalance.compareTo(decimalAmount);
+    }
+
+    @Benchmark
+    public BigDecimal decimalSetScaleExact() {
+        return unscaledAmount.setScale(2, RoundingMode.UNNECESSARY);
+    }
+
+    @Benchmark
+    public BigDecimal decimalSetScaleRounded() {
+        return fractionalAmount.setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public BigDecimal decimalParse() {
+        return new BigDecimal("125.50");
+    }
+}
@@ -0,0 +1,92 @@
+package com.banking.benchmark;
+
+import com.banking.model.Bill;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import com.banking.model.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds detached entities for the benchmarks.
+ * <p>
+ * Back-references ({@code Transaction.account}, {@code Bill.user}) are left unset: the Lombok
+ * {@code equals}/{@code hashCode} on these entities include them, and following
+ * {@code Account.transactions} back to the transaction never terminates.
+ */
+final class BenchmarkData {
+
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    private BenchmarkData() {
+    }
+
+    static TransactionType transactionType() {
+        return TransactionType.builder().id(1L).name("DEPOSIT").description("Deposit").build();
+    }
+
+    static Transaction transaction(TransactionType type, long id) {
+        return Transaction.builder()
+                .id(id)
+                .transactionReference("TX" + String.format("%030d", id))
+                .transactionType(type)
+                .amount(Money.ofMinor(id % 10_000 + 1, "USD"))
+                .direction(Transaction.Direction.CREDIT)
+                .description("Benchmark posting " + id)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .transactionDate(BASE_DATE.plusMinutes(id))
+                .createdAt(BASE_DATE.plusMinutes(id))
+                .updatedAt(BASE_DATE.plusMinutes(id))
+                .build();
+    }
+
+    static List<Transaction> transactions(int count) {
+        TransactionType type = transactionType();
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transactions.add(transaction(type, i + 1));
+        }
+        return transactions;
+    }
+
+    static Bill bill(long id) {
+        return Bill.builder()
+                .id(id)
+                .name("Bill " + id)
+                .category("UTILITIES")
+                .accountNumber("ACC" + String.format("%010d", id))
+                .amount(BigDecimal.valueOf(id % 50_000 + 1, 2))
+                .dueDate(LocalDate.of(2024, 1, 1).plusDays(id % 365))
+                .status("PENDING")
+                .icon("bolt")
+                .createdAt(BASE_DATE)
+                .updatedAt(BASE_DATE)
+                .build();
+    }
+
+    static List<Bill> bills(int count) {
+        List<Bill> bills = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            bills.add(bill(i + 1));
+        }
+        return bills;
+    }
+
+    static User user(long id) {
+        return User.builder()
+                .id(id)
+                .firstName("First" + id)
+                .lastName("Last" + id)
+                .email("user" + id + "@example.com")
+                .password("{noop}password")
+                .role(User.Role.USER)
+                .createdAt(BASE_DATE)
+                .updatedAt(BASE_DATE)
+                .build();
+    }
+}
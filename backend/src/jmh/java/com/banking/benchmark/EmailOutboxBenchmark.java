@@ -0,0 +1,197 @@
+package com.banking.benchmark;
+
+import com.banking.BankingApplication;
+import com.banking.model.OutboxEmail;
+import com.banking.repository.OutboxEmailRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of registration, which queues a welcome email, with email notifications off and on.
+ * <p>
+ * Each trial starts the application on a random port against the in-memory database and points
+ * it at an in-process SMTP stand-in that takes {@value #SMTP_LATENCY_MS} ms to accept every
+ * message. With the outbox the request only pays for the outbox row, so both modes should show
+ * the same latency; the teardown prints how many emails the stand-in received and how many are
+ * still pending.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(4)
+public class EmailOutboxBenchmark {
+
+    private static final long SMTP_LATENCY_MS = 200;
+
+    @Param({"false", "true"})
+    private boolean email;
+
+    private SmtpStandIn smtp;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI registerUri;
+    private final AtomicLong users = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        smtp = new SmtpStandIn(SMTP_LATENCY_MS);
+        context = new SpringApplicationBuilder(BankingApplication.class)
+                .run("--server.port=0",
+                        "--app.notification.email.enabled=" + email,
+                        "--app.notification.email.from=bench@localhost",
+                        "--app.notification.email.poll-interval-ms=100",
+                        "--spring.mail.host=localhost",
+                        "--spring.mail.port=" + smtp.port(),
+                        "--spring.mail.username=",
+                        "--spring.mail.password=",
+                        "--spring.mail.properties.mail.smtp.auth=false",
+                        "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.banking=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        registerUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + "/api/auth/register");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        OutboxEmailRepository outbox = context.getBean(OutboxEmailRepository.class);
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (email && System.currentTimeMillis() < deadline
+                && outbox.findAll().stream().anyMatch(row -> row.getStatus() == OutboxEmail.Status.PENDING)) {
+            Thread.sleep(500);
+        }
+        long pending = outbox.findAll().stream().filter(row -> row.getStatus() == OutboxEmail.Status.PENDING).count();
+        System.out.printf("%nemail=%s: %d users registered, %d emails received by the SMTP stand-in, %d pending%n",
+                email, users.get(), smtp.received(), pending);
+        context.close();
+        smtp.close();
+    }
+
+    @Benchmark
+    public int register() throws Exception {
+        long n = users.incrementAndGet();
+        HttpRequest request = HttpRequest.newBuilder(registerUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"firstName\":\"Bench\",\"lastName\":\"Mark\",\"email\":\"bench"
+                        + n + "@example.com\",\"password\":\"benchmark\"}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Minimal SMTP server that accepts every message after a fixed delay.
+     */
+    private static final class SmtpStandIn implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+        private final long latencyMs;
+        private final AtomicInteger received = new AtomicInteger();
+
+        SmtpStandIn(long latencyMs) throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            this.latencyMs = latencyMs;
+            Thread acceptor = new Thread(this::accept, "smtp-stand-in");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        int received() {
+            return received.get();
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread session = new Thread(() -> serve(socket), "smtp-stand-in-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 localhost SMTP stand-in");
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    String command = line.length() < 4 ? line : line.substring(0, 4).toUpperCase(Locale.ROOT);
+                    switch (command) {
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            for (String data = in.readLine(); data != null && !data.equals("."); data = in.readLine()) {
+                                // Discard the message.
+                            }
+                            Thread.sleep(latencyMs);
+                            received.incrementAndGet();
+                            reply(out, "250 OK");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
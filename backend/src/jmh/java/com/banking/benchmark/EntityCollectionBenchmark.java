@@ -0,0 +1,88 @@
+package com.banking.benchmark;
+
+import com.banking.model.Bill;
+import com.banking.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the Lombok-generated {@code equals}/{@code hashCode} of entities held in the
+ * {@code HashSet} collections of the model, such as {@code Account.transactions}, and of bills held in sets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityCollectionBenchmark {
+
+    @Param({"10", "1000"})
+    private int size;
+
+    private Set<Transaction> transactionSet;
+    private Set<Bill> billSet;
+    private Transaction extraTransaction;
+    private Transaction memberTransaction;
+    private Bill extraBill;
+    private Bill memberBill;
+
+    @Setup
+    public void setUp() {
+        List<Transaction> transactions = BenchmarkData.transactions(size);
+        transactionSet = new HashSet<>(transactions);
+        memberTransaction = transactions.get(size / 2);
+        extraTransaction = BenchmarkData.transaction(memberTransaction.getTransactionType(), size + 1L);
+
+        List<Bill> bills = BenchmarkData.bills(size);
+        billSet = new HashSet<>(bills);
+        memberBill = bills.get(size / 2);
+        extraBill = BenchmarkData.bill(size + 1L);
+    }
+
+    @Benchmark
+    public int transactionHashCode() {
+        return extraTransaction.hashCode();
+    }
+
+    @Benchmark
+    public int billHashCode() {
+        return extraBill.hashCode();
+    }
+
+    @Benchmark
+    public boolean transactionAddRemove() {
+        transactionSet.add(extraTransaction);
+        return transactionSet.remove(extraTransaction);
+    }
+
+    @Benchmark
+    public boolean transactionContains() {
+        return transactionSet.contains(memberTransaction);
+    }
+
+    @Benchmark
+    public boolean billAddRemove() {
+        billSet.add(extraBill);
+        return billSet.remove(extraBill);
+    }
+
+    @Benchmark
+    public boolean billContains() {
+        return billSet.contains(memberBill);
+    }
+}
@@ -0,0 +1,150 @@
+package com.banking.benchmark;
+
+import com.banking.BankingApplication;
+import com.banking.dto.BatchIngestionResult;
+import com.banking.dto.BatchPostingRequest;
+import com.banking.model.Account;
+import com.banking.model.AccountType;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.repository.UserRepository;
+import com.banking.service.TransactionFactory;
+import com.banking.service.TransactionIngestionService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of bulk transaction ingestion against saving the same postings one row at a time,
+ * on the in-memory H2 database.
+ * <p>
+ * {@code batched} goes through {@link TransactionIngestionService#ingest}, which persists
+ * {@value #ROWS} credit postings in one transaction with JDBC insert batching. {@code rowByRow} posts
+ * the same rows in one transaction but saves and flushes each of them, one INSERT and one balance
+ * UPDATE round trip per row, which is what {@code IDENTITY} ids forced before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IngestionBenchmark {
+
+    private static final int ROWS = 1_000;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    private ConfigurableApplicationContext context;
+    private TransactionIngestionService ingestionService;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private TransactionFactory transactionFactory;
+    private TransactionRepository transactionRepository;
+    private Long accountId;
+    private List<BatchPostingRequest> postings;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(BankingApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.banking=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        ingestionService = context.getBean(TransactionIngestionService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        transactionFactory = context.getBean(TransactionFactory.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        accountId = seed();
+
+        postings = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            postings.add(BatchPostingRequest.builder()
+                    .accountId(accountId)
+                    .transactionType("DEPOSIT")
+                    .direction(Transaction.Direction.CREDIT)
+                    .amount(AMOUNT)
+                    .description("Benchmark posting " + i)
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        System.out.printf("%n%d transactions ingested%n", transactionRepository.count());
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BatchIngestionResult batched() {
+        BatchIngestionResult result = ingestionService.ingest(postings);
+        if (result.accepted() != ROWS) {
+            throw new IllegalStateException("Rejected postings: " + result.errors());
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Integer rowByRow() {
+        return transactionTemplate.execute(status -> {
+            Account account = entityManager.find(Account.class, accountId);
+            TransactionType type = transactionFactory.resolveType("DEPOSIT");
+            LocalDateTime now = LocalDateTime.now();
+            for (BatchPostingRequest posting : postings) {
+                Money amount = Money.of(posting.getAmount(), account.getCurrency());
+                account.deposit(amount);
+                transactionRepository.save(transactionFactory.build(account, type, posting.getDirection(), amount,
+                        posting.getDescription(), transactionFactory.newReference(), now));
+                entityManager.flush();
+            }
+            entityManager.clear();
+            return postings.size();
+        });
+    }
+
+    private Long seed() {
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        return transactionTemplate.execute(status -> {
+            User user = BenchmarkData.user(0);
+            user.setId(null);
+            user.setEmail("ingestion@example.com");
+            user = context.getBean(UserRepository.class).save(user);
+            AccountType accountType = AccountType.builder().name("CHECKING").minimumBalance(BigDecimal.ZERO)
+                    .interestRate(BigDecimal.ZERO).monthlyFee(BigDecimal.ZERO).build();
+            entityManager.persist(accountType);
+            return accountRepository.save(Account.builder()
+                    .accountNumber("INGEST000001").user(user).accountType(accountType)
+                    .balance(Money.zero("USD")).isActive(true).openedDate(LocalDateTime.now()).build()).getId();
+        });
+    }
+}
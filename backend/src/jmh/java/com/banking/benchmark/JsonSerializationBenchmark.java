@@ -0,0 +1,80 @@
+package com.banking.benchmark;
+
+import com.banking.dto.BillView;
+import com.banking.dto.TransactionView;
+import com.banking.model.Bill;
+import com.banking.model.Transaction;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for Jackson serialization of transaction and bill lists, configured the way Spring Boot
+ * configures the application's {@link ObjectMapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<Transaction> transactions;
+    private List<TransactionView> transactionViews;
+    private List<Bill> bills;
+    private List<BillView> billViews;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        transactions = BenchmarkData.transactions(size);
+        transactionViews = transactions.stream()
+                .map(t -> new TransactionView(t.getId(), t.getTransactionReference(), 1L,
+                        t.getTransactionType().getName(), t.getAmount(), t.getCurrency(), t.getDescription(),
+                        t.getStatus(), null, null, t.getTransactionDate()))
+                .toList();
+        bills = BenchmarkData.bills(size);
+        billViews = bills.stream().map(BillView::of).toList();
+    }
+
+    @Benchmark
+    public byte[] transactionEntities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transactions);
+    }
+
+    @Benchmark
+    public byte[] transactionViews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transactionViews);
+    }
+
+    @Benchmark
+    public byte[] billEntities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bills);
+    }
+
+    @Benchmark
+    public byte[] billViews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(billViews);
+    }
+}
@@ -0,0 +1,75 @@
+package com.banking.benchmark;
+
+import com.banking.model.User;
+import com.banking.security.JwtAuthenticationFilter;
+import com.banking.security.JwtService;
+import com.banking.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of bearer token authentication through {@link JwtAuthenticationFilter}, with
+ * the verified-token cache on and off. Requests rotate over a fixed set of user tokens.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET = "benchmark_jwt_secret_key_of_at_least_32_characters";
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"true", "false"})
+    private boolean cached;
+
+    @Param({"1000"})
+    private int users;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest[] requests;
+    private MockHttpServletResponse response;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = new JwtService(SECRET, TimeUnit.HOURS.toMillis(1));
+        filter = new JwtAuthenticationFilter(new VerifiedTokenCache(jwtService, cached, 10_000, new SimpleMeterRegistry()));
+        requests = new MockHttpServletRequest[users];
+        for (int i = 0; i < users; i++) {
+            User user = BenchmarkData.user(i + 1L);
+            requests[i] = new MockHttpServletRequest("GET", "/api/accounts");
+            requests[i].addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.issue(user));
+        }
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object authenticate() throws Exception {
+        MockHttpServletRequest request = requests[next];
+        next = next + 1 == requests.length ? 0 : next + 1;
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+}
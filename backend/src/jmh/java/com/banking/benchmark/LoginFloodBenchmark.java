@@ -0,0 +1,179 @@
+package com.banking.benchmark;
+
+import com.banking.BankingApplication;
+import com.banking.model.Account;
+import com.banking.model.AccountType;
+import com.banking.model.Bill;
+import com.banking.model.Money;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.BillRepository;
+import com.banking.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the balance and bills endpoints on their own and during a flood of logins.
+ * <p>
+ * The trial starts the application on a random port against the in-memory database and seeds one
+ * user with an account and a few bills. The {@code idle} group times balance and bills reads from
+ * one client each. The {@code flood} group does the same while {@value #FLOOD_CLIENTS} clients log
+ * in as fast as they can; logins the hashing pool rejects are answered with 503 straight away and
+ * count as flood traffic too. Compare the p99 of {@code flood:balance} and {@code flood:bills}
+ * with {@code idle:balance} and {@code idle:bills}.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class LoginFloodBenchmark {
+
+    private static final int FLOOD_CLIENTS = 64;
+    private static final String EMAIL = "flood@example.com";
+    private static final String PASSWORD = "benchmark";
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest loginRequest;
+    private HttpRequest balanceRequest;
+    private HttpRequest billsRequest;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        context = new SpringApplicationBuilder(BankingApplication.class)
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.banking=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        String credentials = "{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}";
+        HttpResponse<String> registered = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"firstName\":\"Login\",\"lastName\":\"Flood\",\"email\":\"" + EMAIL
+                                        + "\",\"password\":\"" + PASSWORD + "\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        String token = new ObjectMapper().readTree(registered.body()).get("token").asText();
+        Long accountId = seed();
+
+        loginRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials)).build();
+        balanceRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/accounts/" + accountId + "/balance?at=" + LocalDate.now().plusDays(1).atStartOfDay()))
+                .header("Authorization", "Bearer " + token).GET().build();
+        billsRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/bills"))
+                .header("Authorization", "Bearer " + token).GET().build();
+        for (HttpRequest request : new HttpRequest[] {loginRequest, balanceRequest, billsRequest}) {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status != 200) {
+                throw new IllegalStateException(request.uri() + " answered " + status);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("idle")
+    @GroupThreads(1)
+    public int idleBalance() throws Exception {
+        return send(balanceRequest);
+    }
+
+    @Benchmark
+    @Group("idle")
+    @GroupThreads(1)
+    public int idleBills() throws Exception {
+        return send(billsRequest);
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(FLOOD_CLIENTS)
+    public int login() throws Exception {
+        return client.send(loginRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(1)
+    public int balance() throws Exception {
+        return send(balanceRequest);
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(1)
+    public int bills() throws Exception {
+        return send(billsRequest);
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException(request.uri() + " answered " + status);
+        }
+        return status;
+    }
+
+    private Long seed() {
+        User user = context.getBean(UserRepository.class).findByEmail(EMAIL).orElseThrow();
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        AccountType type = context.getBean(TransactionTemplate.class).execute(status -> {
+            AccountType accountType = AccountType.builder().name("CHECKING").minimumBalance(BigDecimal.ZERO)
+                    .interestRate(BigDecimal.ZERO).monthlyFee(BigDecimal.ZERO).build();
+            entityManager.persist(accountType);
+            return accountType;
+        });
+        Account account = context.getBean(AccountRepository.class).save(Account.builder()
+                .accountNumber("FLOOD0000001").user(user).accountType(type)
+                .balance(Money.of(new BigDecimal("1000.00"), "USD")).isActive(true).openedDate(LocalDateTime.now())
+                .build());
+        BillRepository billRepository = context.getBean(BillRepository.class);
+        for (int i = 0; i < 10; i++) {
+            billRepository.save(Bill.builder().name("Bill " + i).category("UTILITIES")
+                    .amount(new BigDecimal("25.00")).dueDate(LocalDate.now().plusDays(i))
+                    .status(Bill.STATUS_PENDING).user(user).build());
+        }
+        return account.getId();
+    }
+}
@@ -0,0 +1,175 @@
+package com.banking.benchmark;
+
+import com.banking.BankingApplication;
+import com.banking.model.Account;
+import com.banking.model.AccountType;
+import com.banking.model.Bill;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.BillRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.repository.UserRepository;
+import com.banking.service.PostingService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of answering the bills and transaction history lists from entities and from projections.
+ * <p>
+ * Each trial starts the application against the in-memory database and seeds one user with
+ * {@code size} bills and an account with {@code size} transactions. Every operation is the work
+ * of one request without the HTTP layer: read the list in a read-only transaction and serialize
+ * it with the application's {@link ObjectMapper}. The entity variants read the rows the way the
+ * endpoints used to, as entities with their user and account fetched; the view variants use the
+ * record projections the endpoints use now. Run with {@code -prof gc} for the allocations per
+ * request ({@code gc.alloc.rate.norm}); the teardown prints the response sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseProjectionBenchmark {
+
+    private static final String TRANSACTION_ENTITY_PAGE = "select t from Transaction t "
+            + "join fetch t.account a join fetch a.user "
+            + "where a.id = :accountId order by t.transactionDate desc, t.id desc";
+
+    @Param({"50", "200"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private ObjectMapper objectMapper;
+    private EntityManager entityManager;
+    private UserRepository userRepository;
+    private BillRepository billRepository;
+    private TransactionRepository transactionRepository;
+    private Long userId;
+    private Long accountId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(BankingApplication.class)
+                .run("--server.port=0",
+                        "--app.notification.email.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.banking=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        readOnly = new TransactionTemplate(context.getBean(TransactionTemplate.class).getTransactionManager());
+        readOnly.setReadOnly(true);
+        objectMapper = context.getBean(ObjectMapper.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        userRepository = context.getBean(UserRepository.class);
+        billRepository = context.getBean(BillRepository.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        System.out.printf("%nsize=%d response bytes: bills %d as entities, %d as views; transactions %d as entities, %d as views%n",
+                size, billEntities().length, billViews().length, transactionEntities().length, transactionViews().length);
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] billEntities() {
+        return respond(() -> billRepository.findByUser(userRepository.findById(userId).orElseThrow()));
+    }
+
+    @Benchmark
+    public byte[] billViews() {
+        return respond(() -> billRepository.findViewsByUserId(userId));
+    }
+
+    @Benchmark
+    public byte[] transactionEntities() {
+        return respond(() -> entityManager.createQuery(TRANSACTION_ENTITY_PAGE, Transaction.class)
+                .setParameter("accountId", accountId)
+                .setMaxResults(size)
+                .getResultList());
+    }
+
+    @Benchmark
+    public byte[] transactionViews() {
+        return respond(() -> transactionRepository.findHistoryPage(accountId, null, null, null, null, null, null,
+                Limit.of(size)));
+    }
+
+    private byte[] respond(Supplier<List<?>> query) {
+        return readOnly.execute(status -> {
+            try {
+                return objectMapper.writeValueAsBytes(query.get());
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void seed() {
+        User user = userRepository.save(User.builder()
+                .firstName("Bench").lastName("Mark").email("bench@example.com")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z6gR5OHbX5gZ1Ckm1YpG1nDW")
+                .twoFactorSecret("JBSWY3DPEHPK3PXP").role(User.Role.USER).build());
+        userId = user.getId();
+        AccountType type = context.getBean(TransactionTemplate.class).execute(status -> {
+            AccountType accountType = AccountType.builder().name("CHECKING").minimumBalance(BigDecimal.ZERO)
+                    .interestRate(BigDecimal.ZERO).monthlyFee(BigDecimal.ZERO).build();
+            entityManager.persist(accountType);
+            return accountType;
+        });
+        Account account = context.getBean(AccountRepository.class).save(Account.builder()
+                .accountNumber("BENCH000001").user(user).accountType(type)
+                .balance(Money.zero("USD")).isActive(true).openedDate(LocalDateTime.now()).build());
+        accountId = account.getId();
+
+        PostingService postingService = context.getBean(PostingService.class);
+        for (int i = 0; i < size; i++) {
+            postingService.deposit(accountId, BigDecimal.TEN, "Benchmark deposit " + i);
+        }
+        List<Bill> bills = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bills.add(Bill.builder()
+                    .name("Bill " + i).category("UTILITIES").accountNumber("ACC" + String.format("%010d", i))
+                    .amount(BigDecimal.valueOf(i % 50_000 + 1, 2)).dueDate(LocalDate.now().plusDays(i % 365))
+                    .status(Bill.STATUS_PENDING).icon("bolt").user(user).paymentAccountId(accountId)
+                    .build());
+        }
+        billRepository.saveAll(bills);
+    }
+}
@@ -0,0 +1,158 @@
+package com.banking.benchmark;
+
+import com.banking.BankingApplication;
+import com.banking.model.Account;
+import com.banking.model.AccountType;
+import com.banking.model.Money;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.UserRepository;
+import com.banking.service.StatementExportService;
+import com.banking.service.TransactionFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to export a statement that is larger than the heap, in a JVM started with
+ * {@code -Xmx}{@value #HEAP}.
+ * <p>
+ * The trial seeds {@code rows} transactions for one account into a file-based H2 database under
+ * {@code target/}, so the rows do not live on the heap, and every invocation streams the whole
+ * statement into a byte counter. An export that held the rows or the output in memory fails with
+ * {@link OutOfMemoryError}; the benchmark also fails if the statement was not larger than the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx" + StatementExportBenchmark.HEAP)
+public class StatementExportBenchmark {
+
+    static final String HEAP = "128m";
+
+    private static final String DESCRIPTION = "Card settlement " + "x".repeat(100);
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"CSV", "NDJSON"})
+    private StatementExportService.Format format;
+
+    private Path databaseDirectory;
+    private ConfigurableApplicationContext context;
+    private StatementExportService statementExportService;
+    private Long accountId;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        databaseDirectory = Files.createTempDirectory(Path.of("target"), "statement-benchmark");
+        context = new SpringApplicationBuilder(BankingApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.datasource.url=jdbc:h2:file:" + databaseDirectory.toAbsolutePath().resolve("db")
+                                + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.banking=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        statementExportService = context.getBean(StatementExportService.class);
+        accountId = seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(databaseDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        ByteCounter counter = new ByteCounter();
+        statementExportService.export(accountId, null, null, format).writeTo(counter);
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        if (counter.bytes <= maxHeap) {
+            throw new IllegalStateException("Statement of " + counter.bytes + " bytes is not larger than the heap of "
+                    + maxHeap + " bytes; raise rows");
+        }
+        System.out.printf("%n%s statement of %d MB with a heap of %d MB%n",
+                format, counter.bytes >> 20, maxHeap >> 20);
+        return counter.bytes;
+    }
+
+    private Long seed() {
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        Long typeId = context.getBean(TransactionFactory.class).resolveType("DEPOSIT").getId();
+        Long id = transactionTemplate.execute(status -> {
+            User user = BenchmarkData.user(0);
+            user.setId(null);
+            user.setEmail("statement@example.com");
+            user = context.getBean(UserRepository.class).save(user);
+            AccountType accountType = AccountType.builder().name("CHECKING").minimumBalance(BigDecimal.ZERO)
+                    .interestRate(BigDecimal.ZERO).monthlyFee(BigDecimal.ZERO).build();
+            entityManager.persist(accountType);
+            return context.getBean(AccountRepository.class).save(Account.builder()
+                    .accountNumber("STMT00000001").user(user).accountType(accountType)
+                    .balance(Money.zero("USD")).isActive(true).openedDate(LocalDateTime.now()).build()).getId();
+        });
+        // Generated by the database, so seeding does not need the heap the export is measured against.
+        context.getBean(JdbcTemplate.class).update("insert into transactions (id, transaction_reference, account_id, "
+                        + "transaction_type_id, amount, direction, currency, description, status, transaction_date, "
+                        + "created_at, updated_at) "
+                        + "select x + 1000000000, 'STMT' || lpad(cast(x as varchar), 28, '0'), ?, ?, 12.34, 'CREDIT', "
+                        + "'USD', ?, 'COMPLETED', dateadd('SECOND', x, timestamp '2024-01-01 00:00:00'), "
+                        + "current_timestamp, current_timestamp from system_range(1, ?)",
+                id, typeId, DESCRIPTION, rows);
+        return id;
+    }
+
+    /**
+     * Output stream that only counts the bytes written to it.
+     */
+    private static final class ByteCounter extends OutputStream {
+
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
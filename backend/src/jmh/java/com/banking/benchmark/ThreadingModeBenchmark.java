@@ -0,0 +1,146 @@
+package com.banking.benchmark;
+
+import com.banking.BankingApplication;
+import com.banking.model.Account;
+import com.banking.model.AccountType;
+import com.banking.model.Bill;
+import com.banking.model.Money;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.BillRepository;
+import com.banking.repository.UserRepository;
+import com.banking.service.PostingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the bills and transaction history endpoints under high concurrency, with Tomcat on
+ * platform threads and on virtual threads ({@code spring.threads.virtual.enabled}).
+ * <p>
+ * Each trial starts the application on a random port against the in-memory database, seeds one
+ * user with an account, transactions and bills, and drives it from 256 client threads over HTTP.
+ * Client and server share the JVM, so compare the two modes with each other rather than with
+ * production numbers. The {@code virtual} runs need a Java 21+ runtime; on older runtimes the
+ * application refuses to start with virtual threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(256)
+public class ThreadingModeBenchmark {
+
+    private static final int TRANSACTIONS = 200;
+    private static final int BILLS = 20;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest billsRequest;
+    private HttpRequest transactionsRequest;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        context = new SpringApplicationBuilder(BankingApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        HttpResponse<String> registered = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"firstName\":\"Bench\",\"lastName\":\"Mark\",\"email\":\"bench@example.com\",\"password\":\"benchmark\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        String token = new ObjectMapper().readTree(registered.body()).get("token").asText();
+        Long accountId = seed();
+
+        billsRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/bills"))
+                .header("Authorization", "Bearer " + token).GET().build();
+        transactionsRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/transactions?accountId=" + accountId + "&limit=50"))
+                .header("Authorization", "Bearer " + token).GET().build();
+        for (HttpRequest request : new HttpRequest[] {billsRequest, transactionsRequest}) {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status != 200) {
+                throw new IllegalStateException(request.uri() + " answered " + status);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int bills() throws Exception {
+        return client.send(billsRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int transactions() throws Exception {
+        return client.send(transactionsRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private Long seed() {
+        User user = context.getBean(UserRepository.class).findByEmail("bench@example.com").orElseThrow();
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        AccountType type = context.getBean(TransactionTemplate.class).execute(status -> {
+            AccountType accountType = AccountType.builder().name("CHECKING").minimumBalance(BigDecimal.ZERO)
+                    .interestRate(BigDecimal.ZERO).monthlyFee(BigDecimal.ZERO).build();
+            entityManager.persist(accountType);
+            return accountType;
+        });
+        Account account = context.getBean(AccountRepository.class).save(Account.builder()
+                .accountNumber("BENCH000001").user(user).accountType(type)
+                .balance(Money.zero("USD")).isActive(true).openedDate(LocalDateTime.now()).build());
+
+        PostingService postingService = context.getBean(PostingService.class);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            postingService.deposit(account.getId(), BigDecimal.TEN, "Benchmark deposit " + i);
+        }
+        BillRepository billRepository = context.getBean(BillRepository.class);
+        for (int i = 0; i < BILLS; i++) {
+            billRepository.save(Bill.builder().name("Benchmark bill " + i).category("UTILITIES")
+                    .amount(new BigDecimal("25.00")).dueDate(LocalDate.now().plusDays(i))
+                    .status(Bill.STATUS_PENDING).user(user).build());
+        }
+        return account.getId();
+    }
+}
@@ -0,0 +1,168 @@
+package com.banking.archive;
+
+import com.banking.model.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes the transactions of one account into a compressed archive block, and reads them back.
+ * <p>
+ * A block is a version byte and a row count followed by the rows in chronological order, the whole
+ * compressed with Deflate. The account id is not repeated per row; it is kept by the index entry
+ * of the block. Reading inflates one row at a time, so a block is never held uncompressed.
+ */
+final class ArchiveBlockCodec {
+
+    private static final int VERSION = 1;
+
+    private ArchiveBlockCodec() {
+    }
+
+    /**
+     * The result of encoding a block.
+     *
+     * @param data the compressed block
+     * @param rawBytes the size of the block before compression
+     */
+    record Encoded(byte[] data, long rawBytes) {
+    }
+
+    /**
+     * Encode the transactions of one account.
+     *
+     * @param rows the transactions, in chronological order
+     * @return the compressed block
+     */
+    static Encoded encode(List<ArchivedTransaction> rows) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, rows.size() * 24));
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 8192))) {
+                out.writeByte(VERSION);
+                out.writeInt(rows.size());
+                for (ArchivedTransaction row : rows) {
+                    out.writeLong(row.id());
+                    out.writeLong(row.transactionDate().toEpochSecond(ZoneOffset.UTC));
+                    out.writeInt(row.transactionDate().getNano());
+                    out.writeUTF(row.reference());
+                    out.writeUTF(row.type());
+                    out.writeLong(row.amountMinorUnits());
+                    out.writeUTF(row.currency());
+                    out.writeUTF(row.status().name());
+                    out.writeUTF(row.direction().name());
+                    writeOptional(out, row.description());
+                    writeOptional(out, row.sourceAccountId());
+                    writeOptional(out, row.destinationAccountId());
+                }
+            }
+            return new Encoded(bytes.toByteArray(), deflater.getBytesRead());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Read the transactions of a block back, in chronological order.
+     *
+     * @param data the compressed block
+     * @param accountId the account of the block
+     * @return the reader; its inflater is released once the last row has been read, or when the
+     *         reader is collected
+     */
+    static Reader read(byte[] data, Long accountId) {
+        return new Reader(data, accountId);
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void writeOptional(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    /**
+     * Reads the rows of a block one at a time.
+     */
+    static final class Reader implements Iterator<ArchivedTransaction> {
+
+        private final Inflater inflater = new Inflater();
+        private final DataInputStream in;
+        private final Long accountId;
+        private int remaining;
+
+        private Reader(byte[] data, Long accountId) {
+            this.in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data), inflater, 8192));
+            this.accountId = accountId;
+            try {
+                int version = in.readUnsignedByte();
+                if (version != VERSION) {
+                    throw new IllegalStateException("Unsupported archive block version: " + version);
+                }
+                remaining = in.readInt();
+            } catch (IOException e) {
+                inflater.end();
+                throw new UncheckedIOException(e);
+            }
+            if (remaining == 0) {
+                inflater.end();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public ArchivedTransaction next() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            try {
+                Long id = in.readLong();
+                LocalDateTime date = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+                String reference = in.readUTF();
+                String type = in.readUTF();
+                long amount = in.readLong();
+                String currency = in.readUTF();
+                Transaction.TransactionStatus status = Transaction.TransactionStatus.valueOf(in.readUTF());
+                Transaction.Direction direction = Transaction.Direction.valueOf(in.readUTF());
+                String description = in.readBoolean() ? in.readUTF() : null;
+                Long sourceAccountId = in.readBoolean() ? in.readLong() : null;
+                Long destinationAccountId = in.readBoolean() ? in.readLong() : null;
+                if (--remaining == 0) {
+                    inflater.end();
+                }
+                return new ArchivedTransaction(id, reference, accountId, type, amount, currency, description, status,
+                        direction, sourceAccountId, destinationAccountId, date);
+            } catch (IOException e) {
+                remaining = 0;
+                inflater.end();
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
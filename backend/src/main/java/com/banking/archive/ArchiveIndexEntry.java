@@ -0,0 +1,16 @@
+package com.banking.archive;
+
+import java.time.LocalDateTime;
+
+/**
+ * The index columns of a {@link com.banking.model.TransactionArchiveEntry}, read without its block.
+ *
+ * @param id the entry id
+ * @param firstDate the date of the oldest transaction in the block
+ * @param lastDate the date of the newest transaction in the block
+ * @param rowCount the number of transactions in the block
+ * @param netMinorUnits the sum of the signed amounts of the block in minor units
+ */
+public record ArchiveIndexEntry(Long id, LocalDateTime firstDate, LocalDateTime lastDate, int rowCount,
+                                long netMinorUnits) {
+}
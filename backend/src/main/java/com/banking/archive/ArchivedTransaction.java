@@ -0,0 +1,59 @@
+package com.banking.archive;
+
+import com.banking.dto.TransactionView;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a transaction kept in the archive.
+ *
+ * @param id the transaction id
+ * @param reference the unique transaction reference
+ * @param accountId the account the transaction was posted to
+ * @param type the transaction type name
+ * @param amountMinorUnits the posted amount in minor units
+ * @param currency the currency code
+ * @param description the description
+ * @param status the transaction status
+ * @param direction whether the transaction credits or debits the account
+ * @param sourceAccountId the debited account of a transfer
+ * @param destinationAccountId the credited account of a transfer
+ * @param transactionDate the transaction date
+ */
+public record ArchivedTransaction(Long id, String reference, Long accountId, String type, long amountMinorUnits,
+                                  String currency, String description, Transaction.TransactionStatus status,
+                                  Transaction.Direction direction, Long sourceAccountId, Long destinationAccountId,
+                                  LocalDateTime transactionDate) {
+
+    /**
+     * Create a transaction from the columns selected by the repository queries.
+     */
+    public ArchivedTransaction(Long id, String reference, Long accountId, String type, Long amountMinorUnits,
+                               String currency, String description, Transaction.TransactionStatus status,
+                               Transaction.Direction direction, Long sourceAccountId, Long destinationAccountId,
+                               LocalDateTime transactionDate) {
+        this(id, reference, accountId, type, amountMinorUnits.longValue(), currency, description, status, direction,
+                sourceAccountId, destinationAccountId, transactionDate);
+    }
+
+    /**
+     * Get the amount, signed by direction: credits positive, debits negative.
+     *
+     * @return the signed amount in minor units
+     */
+    public long signedMinorUnits() {
+        return direction == Transaction.Direction.CREDIT ? amountMinorUnits : -amountMinorUnits;
+    }
+
+    /**
+     * Get the view returned by the history and statement APIs.
+     *
+     * @return the view
+     */
+    public TransactionView toView() {
+        return new TransactionView(id, reference, accountId, type, Money.ofMinor(amountMinorUnits, currency), currency,
+                description, status, sourceAccountId, destinationAccountId, transactionDate);
+    }
+}
@@ -0,0 +1,272 @@
+package com.banking.archive;
+
+import com.banking.dto.TransactionView;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionArchiveEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Reads the cold tier of the transaction history: the transactions moved out of the
+ * {@code transactions} table by the {@link TransactionArchiver}.
+ * <p>
+ * Every read starts from the index entries of the account, which are small and carry the date
+ * range, row count and net change of their block, so a block is only inflated when it may hold a
+ * requested row and its totals are not enough. Most reads of recent history find no overlapping
+ * entry and cost a single index lookup. The methods take the hot-tier result or cursor and fold
+ * the archived rows into it, so callers span both tiers without knowing where a row lives.
+ */
+@Component
+public class TransactionArchive {
+
+    private static final Comparator<TransactionView> NEWEST_FIRST = Comparator
+            .comparing(TransactionView::transactionDate).thenComparing(TransactionView::id).reversed();
+
+    private static final Comparator<TransactionView> OLDEST_FIRST = Comparator
+            .comparing(TransactionView::transactionDate).thenComparing(TransactionView::id);
+
+    @Autowired
+    private TransactionArchiveEntryRepository entryRepository;
+
+    /**
+     * Merge the archived transactions of an account into one page of its history, newest first.
+     * The filters are those of {@code TransactionRepository.findHistoryPage}.
+     *
+     * @param hot the page read from the {@code transactions} table
+     * @param accountId the account whose history is read
+     * @param from the inclusive lower bound of the transaction date, or {@code null}
+     * @param to the exclusive upper bound of the transaction date, or {@code null}
+     * @param type the transaction type name, or {@code null}
+     * @param status the transaction status, or {@code null}
+     * @param cursorDate the transaction date of the last row of the previous page, or {@code null}
+     * @param cursorId the id of the last row of the previous page
+     * @param limit the maximum number of rows of the page
+     * @return the page over both tiers
+     */
+    public List<TransactionView> mergeHistoryPage(List<TransactionView> hot, Long accountId, LocalDateTime from,
+                                                  LocalDateTime to, String type, Transaction.TransactionStatus status,
+                                                  LocalDateTime cursorDate, Long cursorId, int limit) {
+        List<ArchiveIndexEntry> entries = entryRepository.findIndex(accountId, from, cursorDate != null ? cursorDate : to);
+        if (entries.isEmpty()) {
+            return hot;
+        }
+        List<TransactionView> page = new ArrayList<>(hot);
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            ArchiveIndexEntry entry = entries.get(i);
+            // Once the page is full, blocks that end before its last row cannot contribute.
+            if (page.size() >= limit && entry.lastDate().isBefore(page.get(limit - 1).transactionDate())) {
+                continue;
+            }
+            for (Iterator<ArchivedTransaction> rows = read(entry, accountId); rows.hasNext(); ) {
+                ArchivedTransaction row = rows.next();
+                LocalDateTime date = row.transactionDate();
+                if ((from != null && date.isBefore(from))
+                        || (to != null && !date.isBefore(to))
+                        || (type != null && !type.equals(row.type()))
+                        || (status != null && status != row.status())
+                        || (cursorDate != null && (date.isAfter(cursorDate)
+                        || (date.isEqual(cursorDate) && row.id() >= cursorId)))) {
+                    continue;
+                }
+                page.add(row.toView());
+            }
+            page.sort(NEWEST_FIRST);
+            if (page.size() > limit) {
+                page.subList(limit, page.size()).clear();
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Merge the archived transactions of an account into a chronological stream of its hot rows.
+     * Archived blocks are opened one at a time as the merge reaches them.
+     *
+     * @param hot the rows read from the {@code transactions} table, in chronological order
+     * @param accountId the account id
+     * @param from the inclusive lower bound of the transaction date, or {@code null}
+     * @param to the exclusive upper bound of the transaction date, or {@code null}
+     * @return the rows over both tiers, in chronological order
+     */
+    public Iterator<TransactionView> mergeStatement(Iterator<TransactionView> hot, Long accountId,
+                                                    LocalDateTime from, LocalDateTime to) {
+        List<ArchiveIndexEntry> entries = entryRepository.findIndex(accountId, from, to);
+        if (entries.isEmpty()) {
+            return hot;
+        }
+        return new MergingIterator(hot, entries, accountId, from, to);
+    }
+
+    /**
+     * Sum the signed amounts (credits positive, debits negative) of an account's archived
+     * transactions dated in {@code [from, to)}. Blocks that lie wholly inside the range are summed
+     * from their index entry.
+     *
+     * @param accountId the account id
+     * @param from the inclusive lower bound, or {@code null}
+     * @param to the exclusive upper bound, or {@code null}
+     * @return the net change of the balance over the range
+     */
+    public BigDecimal sumSignedAmount(Long accountId, LocalDateTime from, LocalDateTime to) {
+        long sum = 0;
+        for (ArchiveIndexEntry entry : entryRepository.findIndex(accountId, from, to)) {
+            boolean inside = (from == null || !entry.firstDate().isBefore(from))
+                    && (to == null || entry.lastDate().isBefore(to));
+            if (inside) {
+                sum = Math.addExact(sum, entry.netMinorUnits());
+                continue;
+            }
+            for (Iterator<ArchivedTransaction> rows = read(entry, accountId); rows.hasNext(); ) {
+                ArchivedTransaction row = rows.next();
+                if ((from == null || !row.transactionDate().isBefore(from))
+                        && (to == null || row.transactionDate().isBefore(to))) {
+                    sum = Math.addExact(sum, row.signedMinorUnits());
+                }
+            }
+        }
+        return BigDecimal.valueOf(sum, Money.SCALE);
+    }
+
+    /**
+     * Get the net change of an account's balance for every day it had archived activity.
+     *
+     * @param accountId the account id
+     * @return the net change by day
+     */
+    public Map<LocalDate, BigDecimal> sumSignedAmountByDay(Long accountId) {
+        Map<LocalDate, Long> sums = new TreeMap<>();
+        for (ArchiveIndexEntry entry : entryRepository.findIndex(accountId, null, null)) {
+            for (Iterator<ArchivedTransaction> rows = read(entry, accountId); rows.hasNext(); ) {
+                ArchivedTransaction row = rows.next();
+                sums.merge(row.transactionDate().toLocalDate(), row.signedMinorUnits(), Math::addExact);
+            }
+        }
+        Map<LocalDate, BigDecimal> result = new TreeMap<>();
+        sums.forEach((day, sum) -> result.put(day, BigDecimal.valueOf(sum, Money.SCALE)));
+        return result;
+    }
+
+    private Iterator<ArchivedTransaction> read(ArchiveIndexEntry entry, Long accountId) {
+        return ArchiveBlockCodec.read(entryRepository.findData(entry.id()), accountId);
+    }
+
+    /**
+     * Merges the hot rows with the archived blocks in chronological order. A block is opened when
+     * its first date is reached, so only blocks with overlapping date ranges are open together.
+     */
+    private final class MergingIterator implements Iterator<TransactionView> {
+
+        private final Deque<ArchiveIndexEntry> pending;
+        private final PriorityQueue<Source> open = new PriorityQueue<>(
+                Comparator.comparing(Source::head, OLDEST_FIRST));
+        private final Long accountId;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        MergingIterator(Iterator<TransactionView> hot, List<ArchiveIndexEntry> entries, Long accountId,
+                        LocalDateTime from, LocalDateTime to) {
+            this.pending = new ArrayDeque<>(entries);
+            this.accountId = accountId;
+            this.from = from;
+            this.to = to;
+            Source hotSource = new Source(hot);
+            if (hotSource.head != null) {
+                open.add(hotSource);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            openReached();
+            return !open.isEmpty();
+        }
+
+        @Override
+        public TransactionView next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Source source = open.poll();
+            TransactionView row = source.head;
+            if (source.advance()) {
+                open.add(source);
+            }
+            return row;
+        }
+
+        private void openReached() {
+            while (!pending.isEmpty()
+                    && (open.isEmpty() || !pending.peekFirst().firstDate().isAfter(open.peek().head.transactionDate()))) {
+                ArchiveIndexEntry entry = pending.pollFirst();
+                Iterator<ArchivedTransaction> rows = read(entry, accountId);
+                Source source = new Source(new Iterator<>() {
+                    private TransactionView nextRow = seek();
+
+                    private TransactionView seek() {
+                        while (rows.hasNext()) {
+                            ArchivedTransaction row = rows.next();
+                            if ((from == null || !row.transactionDate().isBefore(from))
+                                    && (to == null || row.transactionDate().isBefore(to))) {
+                                return row.toView();
+                            }
+                        }
+                        return null;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return nextRow != null;
+                    }
+
+                    @Override
+                    public TransactionView next() {
+                        TransactionView row = nextRow;
+                        nextRow = seek();
+                        return row;
+                    }
+                });
+                if (source.head != null) {
+                    open.add(source);
+                }
+            }
+        }
+    }
+
+    /**
+     * An iterator with its next row read ahead.
+     */
+    private static final class Source {
+
+        private final Iterator<TransactionView> rows;
+        private TransactionView head;
+
+        Source(Iterator<TransactionView> rows) {
+            this.rows = rows;
+            advance();
+        }
+
+        TransactionView head() {
+            return head;
+        }
+
+        boolean advance() {
+            head = rows.hasNext() ? rows.next() : null;
+            return head != null;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.banking.archive;
+
+import com.banking.dto.ArchiveRunResult;
+import com.banking.model.TransactionArchiveEntry;
+import com.banking.model.TransactionArchiveSegment;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionArchiveEntryRepository;
+import com.banking.repository.TransactionArchiveSegmentRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.service.AccountLockManager;
+import com.banking.sharding.ShardRouter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves aged transactions out of the {@code transactions} table into compressed archive segments.
+ * <p>
+ * A run archives every transaction dated before the first day of the month
+ * {@code app.archive.retention} ago. Accounts are processed in chunks of
+ * {@code app.archive.accounts-per-chunk}: under the account locks, each account's transactions of
+ * each month are read, encoded into blocks of at most {@code app.archive.max-rows-per-entry} rows,
+ * inserted as {@link TransactionArchiveEntry entries} of that month's segment and deleted from the
+ * hot table, all in one database transaction. A chunk therefore either moves completely or not at
+ * all, and a run that stops part way leaves every transaction in exactly one tier; the next run
+ * picks up the rest and seals the segments the stopped run left building. If the deleted row count
+ * does not match what was archived, for example because another instance archived the same rows
+ * first, the chunk rolls back.
+ * <p>
+ * Transactions are only ever added to the archive. Reads across both tiers go through
+ * {@link TransactionArchive}. References of archived transactions are no longer checked for
+ * uniqueness by batch ingestion.
+ * <p>
+ * With {@code app.sharding.enabled}, a run archives every shard in turn, each into segments of its
+ * own.
+ */
+@Slf4j
+@Service
+public class TransactionArchiver {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchiveSegmentRepository segmentRepository;
+
+    @Autowired
+    private TransactionArchiveEntryRepository entryRepository;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.archive.retention:P18M}")
+    private Period retention;
+
+    @Value("${app.archive.accounts-per-chunk:200}")
+    private int accountsPerChunk;
+
+    @Value("${app.archive.max-rows-per-entry:10000}")
+    private int maxRowsPerEntry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${app.archive.cron:0 30 2 * * *}")
+    void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archive(defaultCutoff());
+        } catch (IllegalStateException e) {
+            log.info("Skipping the scheduled archive run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Get the cutoff of a run started today: the first day of the month {@code app.archive.retention} ago.
+     *
+     * @return the cutoff
+     */
+    public LocalDate defaultCutoff() {
+        return YearMonth.from(LocalDate.now().minus(retention)).atDay(1);
+    }
+
+    /**
+     * Archive every transaction dated before the first day of the month of a date.
+     *
+     * @param before the cutoff; it is moved back to the first day of its month
+     * @return the outcome of the run
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public ArchiveRunResult archive(LocalDate before) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An archive run is already in progress");
+        }
+        try {
+            long start = System.nanoTime();
+            LocalDateTime cutoff = YearMonth.from(before).atDay(1).atStartOfDay();
+            Totals totals = new Totals();
+            int sealed = 0;
+            for (int shard : shardRouter.shards()) {
+                sealed += shardRouter.onShard(shard, () -> archiveShard(cutoff, totals));
+            }
+
+            ArchiveRunResult result = new ArchiveRunResult(cutoff.toLocalDate(), sealed, totals.accounts,
+                    totals.rows, totals.rawBytes, totals.compressedBytes, (System.nanoTime() - start) / 1_000_000);
+            log.info("Archived {} transactions of {} accounts dated before {} into {} segments: {} bytes compressed to {} in {} ms",
+                    result.rows(), result.accounts(), result.cutoff(), result.segments(), result.rawBytes(),
+                    result.compressedBytes(), result.elapsedMillis());
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Archive the transactions of the shard the current thread works on.
+     *
+     * @return the number of segments sealed
+     */
+    private int archiveShard(LocalDateTime cutoff, Totals totals) {
+        Integer stale = transactionTemplate.execute(status ->
+                seal(segmentRepository.findByStatus(TransactionArchiveSegment.Status.BUILDING).stream()
+                        .map(TransactionArchiveSegment::getId).toList()));
+        if (stale != null && stale > 0) {
+            log.warn("Sealed {} archive segments left building by an earlier run", stale);
+        }
+        Map<YearMonth, Long> segments = new HashMap<>();
+        List<Long> accountIds = accountRepository.findAllIds();
+        for (int offset = 0; offset < accountIds.size(); offset += accountsPerChunk) {
+            List<Long> chunk = accountIds.subList(offset, Math.min(offset + accountsPerChunk, accountIds.size()));
+            archiveChunk(chunk, cutoff, segments, totals);
+        }
+        Integer sealed = transactionTemplate.execute(status -> seal(segments.values()));
+        return sealed != null ? sealed : 0;
+    }
+
+    private void archiveChunk(List<Long> chunk, LocalDateTime cutoff, Map<YearMonth, Long> segments, Totals totals) {
+        Map<Long, LocalDateTime> oldest = new HashMap<>();
+        for (Object[] row : transactionRepository.findOldestBefore(chunk, cutoff)) {
+            oldest.put((Long) row[0], (LocalDateTime) row[1]);
+        }
+        if (oldest.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Long, LocalDateTime> account : oldest.entrySet()) {
+            for (YearMonth month = YearMonth.from(account.getValue()); month.atDay(1).atStartOfDay().isBefore(cutoff);
+                 month = month.plusMonths(1)) {
+                segments.computeIfAbsent(month, this::createSegment);
+            }
+        }
+
+        Totals chunkTotals = accountLockManager.withAccountLocks(oldest.keySet(), () -> transactionTemplate.execute(status -> {
+            Totals moved = new Totals();
+            Map<Long, Totals> bySegment = new HashMap<>();
+            for (Map.Entry<Long, LocalDateTime> account : oldest.entrySet()) {
+                Long accountId = account.getKey();
+                for (YearMonth month = YearMonth.from(account.getValue()); month.atDay(1).atStartOfDay().isBefore(cutoff);
+                     month = month.plusMonths(1)) {
+                    LocalDateTime from = month.atDay(1).atStartOfDay();
+                    LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+                    List<ArchivedTransaction> rows = transactionRepository.findForArchive(accountId, from, to);
+                    if (rows.isEmpty()) {
+                        continue;
+                    }
+                    Long segmentId = segments.get(month);
+                    Totals segmentTotals = bySegment.computeIfAbsent(segmentId, id -> new Totals());
+                    for (int i = 0; i < rows.size(); i += maxRowsPerEntry) {
+                        segmentTotals.add(writeEntry(segmentId, accountId, rows.subList(i, Math.min(i + maxRowsPerEntry, rows.size()))));
+                    }
+                    int deleted = transactionRepository.deleteRange(accountId, from, to);
+                    if (deleted != rows.size()) {
+                        throw new IllegalStateException("Archived " + rows.size() + " transactions of account "
+                                + accountId + " for " + month + " but deleted " + deleted);
+                    }
+                }
+                moved.accounts++;
+                // The blocks are not needed once written; keep the persistence context small.
+                entityManager.flush();
+                entityManager.clear();
+            }
+            bySegment.forEach((segmentId, segmentTotals) -> {
+                segmentRepository.addTotals(segmentId, segmentTotals.entries, segmentTotals.rows,
+                        segmentTotals.rawBytes, segmentTotals.compressedBytes);
+                moved.add(segmentTotals);
+            });
+            return moved;
+        }));
+        totals.accounts += chunkTotals.accounts;
+        totals.add(chunkTotals);
+    }
+
+    private Totals writeEntry(Long segmentId, Long accountId, List<ArchivedTransaction> rows) {
+        ArchiveBlockCodec.Encoded block = ArchiveBlockCodec.encode(rows);
+        long net = 0;
+        for (ArchivedTransaction row : rows) {
+            net = Math.addExact(net, row.signedMinorUnits());
+        }
+        entryRepository.save(TransactionArchiveEntry.builder()
+                .segmentId(segmentId)
+                .accountId(accountId)
+                .firstDate(rows.get(0).transactionDate())
+                .lastDate(rows.get(rows.size() - 1).transactionDate())
+                .rowCount(rows.size())
+                .netMinorUnits(net)
+                .data(block.data())
+                .build());
+        Totals written = new Totals();
+        written.entries = 1;
+        written.rows = rows.size();
+        written.rawBytes = block.rawBytes();
+        written.compressedBytes = block.data().length;
+        return written;
+    }
+
+    private Long createSegment(YearMonth month) {
+        return transactionTemplate.execute(status -> segmentRepository.save(TransactionArchiveSegment.builder()
+                .periodStart(month.atDay(1))
+                .periodEnd(month.plusMonths(1).atDay(1))
+                .status(TransactionArchiveSegment.Status.BUILDING)
+                .createdAt(LocalDateTime.now())
+                .build()).getId());
+    }
+
+    /**
+     * Seal segments, dropping those that received no entries.
+     *
+     * @return the number of segments sealed
+     */
+    private int seal(Iterable<Long> segmentIds) {
+        LocalDateTime now = LocalDateTime.now();
+        int sealed = 0;
+        for (TransactionArchiveSegment segment : segmentRepository.findAllById(segmentIds)) {
+            if (segment.getEntryCount() == 0) {
+                segmentRepository.delete(segment);
+                continue;
+            }
+            segment.setStatus(TransactionArchiveSegment.Status.SEALED);
+            segment.setSealedAt(now);
+            sealed++;
+        }
+        return sealed;
+    }
+
+    /**
+     * Counts of what a run, chunk or segment archived.
+     */
+    private static final class Totals {
+        int accounts;
+        long entries;
+        long rows;
+        long rawBytes;
+        long compressedBytes;
+
+        void add(Totals other) {
+            entries += other.entries;
+            rows += other.rows;
+            rawBytes += other.rawBytes;
+            compressedBytes += other.compressedBytes;
+        }
+    }
+}
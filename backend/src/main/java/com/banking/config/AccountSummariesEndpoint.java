@@ -0,0 +1,41 @@
+package com.banking.config;
+
+import com.banking.service.AccountSummaryCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the account summary cache: {@code GET /actuator/accountsummaries} reports
+ * the hit rate and the database reads the cache saved, {@code DELETE /actuator/accountsummaries}
+ * empties it.
+ */
+@Component
+@Endpoint(id = "accountsummaries")
+public class AccountSummariesEndpoint {
+
+    @Autowired
+    private AccountSummaryCache accountSummaryCache;
+
+    /**
+     * Report the lookups, hit rate and saved database work of the cache.
+     *
+     * @return the statistics by name
+     */
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return accountSummaryCache.statistics();
+    }
+
+    /**
+     * Drop every cached summary.
+     */
+    @DeleteOperation
+    public void evict() {
+        accountSummaryCache.evictAll();
+    }
+}
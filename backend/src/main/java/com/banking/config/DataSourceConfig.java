@@ -0,0 +1,129 @@
+package com.banking.config;
+
+import com.banking.datasource.EmbeddedReplicaSync;
+import com.banking.datasource.ReadYourWrites;
+import com.banking.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data source configuration for reading from replicas, active with
+ * {@code app.datasource.replicas.enabled=true}.
+ * <p>
+ * The primary pool is configured by {@code spring.datasource.*} as before, and every URL of
+ * {@code app.datasource.replicas.urls} gets a pool of its own. The application data source routes
+ * between them with a {@link ReplicaRoutingDataSource}. Without the property, Spring Boot's single
+ * data source is used unchanged.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    /**
+     * The primary pool, configured by {@code spring.datasource.*} and {@code spring.datasource.hikari.*}.
+     *
+     * @param properties the data source properties
+     * @return the primary pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * The data source that routes between the primary and the replica pools.
+     *
+     * @return the routing data source
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primary,
+            ReadYourWrites readYourWrites,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replicas.urls:}") List<String> urls,
+            @Value("${app.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${app.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${app.datasource.replicas.connection-timeout:PT1S}") Duration connectionTimeout) {
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("app.datasource.replicas.enabled is set but app.datasource.replicas.urls is empty");
+        }
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        MicrometerMetricsTrackerFactory metricsTrackerFactory = new MicrometerMetricsTrackerFactory(meterRegistry);
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + i);
+            config.setJdbcUrl(urls.get(i));
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(maximumPoolSize);
+            // A replica that is down must not hold up reads for long; they move on to the next one.
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setInitializationFailTimeout(-1);
+            config.setReadOnly(true);
+            config.setMetricsTrackerFactory(metricsTrackerFactory);
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWrites, meterRegistry);
+    }
+
+    /**
+     * The application data source. The lazy proxy defers taking a connection from the router until
+     * the first statement, when the transaction's read-only flag is known.
+     *
+     * @return the data source used by JPA, Flyway and JDBC
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Release connections at the end of every transaction rather than when the entity manager
+     * closes. An open-in-view request would otherwise keep the connection of its first transaction,
+     * and a write after a read-only transaction would run on the replica.
+     *
+     * @return the customizer
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandling() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    /**
+     * Copies the primary into embedded replicas, standing in for replication in local runs.
+     *
+     * @return the sync
+     */
+    @Bean
+    @ConditionalOnProperty("app.datasource.replicas.embedded-sync-interval-ms")
+    public EmbeddedReplicaSync embeddedReplicaSync(
+            @Qualifier("primaryDataSource") HikariDataSource primary,
+            @Value("${app.datasource.replicas.urls}") List<String> urls,
+            @Value("${app.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replicas.password:${spring.datasource.password:}}") String password) {
+        return new EmbeddedReplicaSync(primary, urls, username, password);
+    }
+}
@@ -0,0 +1,60 @@
+package com.banking.config;
+
+import com.banking.model.IdempotencyRecord;
+import com.banking.service.IdempotencyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for idempotency keys whose request never completed:
+ * {@code GET /actuator/idempotency} lists them, {@code DELETE /actuator/idempotency/{recordKey}}
+ * releases one once an operator has checked whether its request was applied. Administrators only.
+ */
+@Component
+@Endpoint(id = "idempotency")
+public class IdempotencyEndpoint {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    /**
+     * List the unresolved keys.
+     *
+     * @return the record key, the time it was claimed and the request fingerprint of each key
+     */
+    @ReadOperation
+    public List<Map<String, Object>> unresolved() {
+        return idempotencyService.unresolved().stream()
+                .map(IdempotencyEndpoint::describe)
+                .toList();
+    }
+
+    /**
+     * Release an unresolved key, so the next request with it is executed.
+     *
+     * @param recordKey the record key, {@code userId:key}
+     * @return 204 if the key was released, 404 if it is not unresolved
+     */
+    @DeleteOperation
+    public WebEndpointResponse<Void> resolve(@Selector String recordKey) {
+        return new WebEndpointResponse<>(idempotencyService.resolve(recordKey)
+                ? WebEndpointResponse.STATUS_NO_CONTENT : WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    private static Map<String, Object> describe(IdempotencyRecord record) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("recordKey", record.getRecordKey());
+        description.put("claimedAt", record.getCreatedAt());
+        description.put("requestFingerprint", record.getRequestFingerprint());
+        return description;
+    }
+}
@@ -0,0 +1,60 @@
+package com.banking.config;
+
+import com.banking.service.ReferenceDataCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the reference data cache: {@code GET /actuator/referencedata} reports the
+ * cache regions, {@code DELETE /actuator/referencedata} evicts them.
+ */
+@Component
+@Endpoint(id = "referencedata")
+public class ReferenceDataEndpoint {
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Report the hit, miss and put counts of each reference data region.
+     *
+     * @return the statistics keyed by region name
+     */
+    @ReadOperation
+    public Map<String, Map<String, Long>> regions() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Map<String, Long>> regions = new LinkedHashMap<>();
+        for (String region : List.of(ReferenceDataCache.ACCOUNT_TYPES_REGION, ReferenceDataCache.TRANSACTION_TYPES_REGION)) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("hits", regionStatistics.getHitCount());
+            counts.put("misses", regionStatistics.getMissCount());
+            counts.put("puts", regionStatistics.getPutCount());
+            counts.put("elements", regionStatistics.getElementCountInMemory());
+            regions.put(region, counts);
+        }
+        return regions;
+    }
+
+    /**
+     * Evict every reference data region.
+     */
+    @DeleteOperation
+    public void evict() {
+        referenceDataCache.evictAll();
+    }
+}
@@ -1,12 +1,21 @@
 package com.banking.config;
+import com.banking.model.User;
+import com.banking.security.JwtAuthenticationFilter;
+import com.banking.security.VerifiedTokenCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
  * Security configuration for the banking application.
@@ -15,8 +24,18 @@ import org.springframework.security.web.SecurityFilterChain;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
     /**
-     * Configures the security filter chain.
+     * Configures the security filter chain. Requests are authenticated with the bearer token
+     * issued at login; unauthenticated requests to protected endpoints get a 401. The health and
+     * Prometheus actuator endpoints are open to probes and scrapers, which reach the backend
+     * directly; the reverse proxy does not forward actuator paths. Operator actions are for
+     * administrators only: bill runs, archive runs, snapshot backfills, bulk ingestion, emptying the
+     * reference data and account summary caches, resolving idempotency keys, and the shards
+     * endpoint, which can move users between databases. Reads of a single account are limited to
+     * its owner by the controllers.
      *
      * @param http the HttpSecurity to configure
      * @return the configured SecurityFilterChain
@@ -27,12 +46,23 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/auth/register", "/auth/login", "/auth/me").permitAll()
+                .requestMatchers("/auth/register", "/auth/login").permitAll()
+                .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                .requestMatchers(EndpointRequest.to("shards", "idempotency")).hasRole(User.Role.ADMIN.name())
+                .requestMatchers(EndpointRequest.to("referencedata", "accountsummaries").withHttpMethod(HttpMethod.DELETE))
+                    .hasRole(User.Role.ADMIN.name())
+                .requestMatchers(HttpMethod.POST, "/bills/runs", "/transactions/archive-runs",
+                        "/accounts/snapshots/backfill", "/transactions/batch", "/transactions/batch/stream")
+                    .hasRole(User.Role.ADMIN.name())
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
-            );
+            )
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+            )
+            .addFilterBefore(new JwtAuthenticationFilter(verifiedTokenCache), UsernamePasswordAuthenticationFilter.class);
             
         return http.build();
     }
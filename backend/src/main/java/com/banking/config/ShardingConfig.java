@@ -0,0 +1,119 @@
+package com.banking.config;
+
+import com.banking.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data source configuration for sharding by user, active with {@code app.sharding.enabled=true}.
+ * <p>
+ * The directory, shard 0, is configured by {@code spring.datasource.*} as before, and every URL of
+ * {@code app.sharding.urls} adds a shard with a pool of its own, numbered from 1 in list order.
+ * The application data source routes between them with a {@link ShardRoutingDataSource}, and
+ * Flyway migrates every shard. Sharding cannot be combined with read replicas or journal mode.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    /**
+     * The directory pool, configured by {@code spring.datasource.*} and {@code spring.datasource.hikari.*}.
+     *
+     * @param properties the data source properties
+     * @return the directory pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource directoryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("shard-0");
+        return dataSource;
+    }
+
+    /**
+     * The application data source, routing between the directory and the shard pools.
+     *
+     * @return the data source used by JPA, Flyway and JDBC
+     */
+    @Bean
+    @Primary
+    public ShardRoutingDataSource shardRoutingDataSource(
+            @Qualifier("directoryDataSource") HikariDataSource directory,
+            MeterRegistry meterRegistry,
+            @Value("${app.sharding.urls:}") List<String> urls,
+            @Value("${app.sharding.username:${spring.datasource.username:}}") String username,
+            @Value("${app.sharding.password:${spring.datasource.password:}}") String password,
+            @Value("${app.sharding.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${app.datasource.replicas.enabled:false}") boolean replicas,
+            @Value("${app.journal.enabled:false}") boolean journal) {
+        if (replicas || journal) {
+            throw new IllegalStateException("app.sharding.enabled cannot be combined with "
+                    + (replicas ? "app.datasource.replicas.enabled" : "app.journal.enabled"));
+        }
+        List<HikariDataSource> shards = new ArrayList<>(urls.size() + 1);
+        shards.add(directory);
+        MicrometerMetricsTrackerFactory metricsTrackerFactory = new MicrometerMetricsTrackerFactory(meterRegistry);
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("shard-" + (i + 1));
+            config.setJdbcUrl(urls.get(i));
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setMetricsTrackerFactory(metricsTrackerFactory);
+            shards.add(new HikariDataSource(config));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    /**
+     * Release connections at the end of every transaction rather than when the entity manager
+     * closes, so each transaction of an open-in-view request takes its connection from the shard
+     * it runs on.
+     *
+     * @return the customizer
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardConnectionHandling() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    /**
+     * Migrate the directory, then every other shard with the same migrations.
+     *
+     * @return the migration strategy
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.flyway.enabled", havingValue = "true", matchIfMissing = true)
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardRoutingDataSource shardRoutingDataSource) {
+        return flyway -> {
+            flyway.migrate();
+            for (int shard = 1; shard < shardRoutingDataSource.shardCount(); shard++) {
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(shardRoutingDataSource.shard(shard))
+                        .load()
+                        .migrate();
+            }
+        };
+    }
+}
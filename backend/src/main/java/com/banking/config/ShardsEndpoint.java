@@ -0,0 +1,78 @@
+package com.banking.config;
+
+import com.banking.model.ShardRange;
+import com.banking.sharding.ShardRebalancer;
+import com.banking.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the shard map: {@code GET /actuator/shards} reports the shards and the
+ * ranges of users on each, {@code POST /actuator/shards} with {@code firstUserId},
+ * {@code endUserId} and {@code targetShard} moves the users {@code [firstUserId, endUserId)} to
+ * another shard. Administrators only.
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardsEndpoint {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    /**
+     * Report the shards and the shard map as last read.
+     *
+     * @return the shard ids and the ranges
+     */
+    @ReadOperation
+    public Map<String, Object> shards() {
+        List<Map<String, Object>> ranges = shardRouter.ranges().stream()
+                .map(ShardsEndpoint::describe)
+                .toList();
+        Map<String, Object> shards = new LinkedHashMap<>();
+        shards.put("shards", shardRouter.shards());
+        shards.put("ranges", ranges);
+        return shards;
+    }
+
+    /**
+     * Move a range of users to another shard.
+     *
+     * @param firstUserId the first user id of the range
+     * @param endUserId the first user id after the range
+     * @param targetShard the shard to move the users to
+     * @return the outcome of the move; 400 if the range is invalid, 409 if it cannot be moved now
+     */
+    @WriteOperation
+    public WebEndpointResponse<Object> rebalance(long firstUserId, long endUserId, int targetShard) {
+        try {
+            return new WebEndpointResponse<>(shardRebalancer.rebalance(firstUserId, endUserId, targetShard));
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(e.getMessage(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(e.getMessage(), 409);
+        }
+    }
+
+    private static Map<String, Object> describe(ShardRange range) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("firstUserId", range.getFirstUserId());
+        description.put("shard", range.getShardId());
+        description.put("status", range.getStatus());
+        description.put("updatedAt", range.getUpdatedAt());
+        return description;
+    }
+}
@@ -0,0 +1,50 @@
+package com.banking.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs whether requests run on virtual or platform threads, and refuses to start when virtual
+ * threads were requested with {@code spring.threads.virtual.enabled}, e.g. by the
+ * {@code virtual-threads} profile, on a runtime that does not support them.
+ */
+@Slf4j
+@Component
+public class ThreadingModeReporter {
+
+    private static final int VIRTUAL_THREADS_FEATURE = 21;
+
+    @Autowired
+    private Environment environment;
+
+    /**
+     * Fail the startup rather than silently serve on platform threads with a pool sized for virtual ones.
+     *
+     * @throws IllegalStateException if virtual threads are requested on a runtime older than Java 21
+     */
+    @PostConstruct
+    void requireSupportedRuntime() {
+        int feature = Runtime.version().feature();
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+                && feature < VIRTUAL_THREADS_FEATURE) {
+            throw new IllegalStateException("spring.threads.virtual.enabled (the virtual-threads profile) needs Java "
+                    + VIRTUAL_THREADS_FEATURE + " or later, but the runtime is Java " + feature
+                    + "; run on a Java " + VIRTUAL_THREADS_FEATURE + " JRE or drop the profile");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void report() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Request handling and task execution use virtual threads");
+        } else {
+            log.info("Request handling and task execution use platform threads");
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.banking.config;
+
+import com.banking.metrics.QueryBudgetInterceptor;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC configuration for the banking application.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private QueryBudgetInterceptor queryBudgetInterceptor;
+
+    /**
+     * Open-in-view interceptor, replacing the one Spring Boot registers for every path.
+     * <p>
+     * The entity manager of an open-in-view request holds its database connection until the
+     * response is written. Sign-in requests wait for the password hashing pool while asynchronous,
+     * so under a login burst they would hold every pooled connection; they are excluded and use
+     * short repository transactions instead. Notification streams stay open for as long as the
+     * client is connected and never touch the database, so they are excluded as well.
+     *
+     * @return the interceptor
+     */
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        return interceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns("/auth/**", "/notifications/stream");
+        registry.addInterceptor(queryBudgetInterceptor);
+    }
+}
@@ -0,0 +1,138 @@
+package com.banking.controller;
+
+import com.banking.metrics.QueryBudget;
+import com.banking.model.Account;
+import com.banking.security.AuthenticatedUser;
+import com.banking.service.AccountOwnership;
+import com.banking.service.AccountSummaryCache;
+import com.banking.service.BalanceSnapshotService;
+import com.banking.service.StatementExportService;
+import com.banking.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Controller for handling account-related requests.
+ */
+@RestController
+@RequestMapping("/accounts")
+public class AccountController {
+
+    @Autowired
+    private StatementExportService statementExportService;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private AccountSummaryCache accountSummaryCache;
+
+    @Autowired
+    private AccountOwnership accountOwnership;
+
+    /**
+     * Get the summaries of all accounts of the current user, as of one point in time.
+     *
+     * @param principal the authenticated user
+     * @return the response entity with the account summaries
+     */
+    @GetMapping
+    public ResponseEntity<?> getAccounts(@AuthenticationPrincipal AuthenticatedUser principal) {
+        return ResponseEntity.ok(accountSummaryCache.getAccounts(principal.id()));
+    }
+
+    /**
+     * Get the balance of one of the user's accounts at a point in time.
+     *
+     * @param id the id of the account
+     * @param at the point in time; transactions dated before it are included
+     * @param principal the authenticated user
+     * @return the response entity with the balance; 404 if the account is not the user's
+     */
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<?> getBalanceAt(@PathVariable Long id,
+                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+                                          @AuthenticationPrincipal AuthenticatedUser principal) {
+        try {
+            accountOwnership.requireOwner(id, principal.id());
+            return ResponseEntity.ok(shardRouter.onAccountShard(id, () -> balanceSnapshotService.balanceAt(id, at)));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the daily balance snapshots of every account.
+     *
+     * @return the response entity with the number of snapshots written
+     */
+    @PostMapping("/snapshots/backfill")
+    @QueryBudget(value = QueryBudget.UNLIMITED, detectRepeats = false)
+    public ResponseEntity<?> backfillSnapshots() {
+        try {
+            return ResponseEntity.ok(Map.of("snapshots", balanceSnapshotService.backfillAll()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Export a statement of one of the user's accounts as CSV or NDJSON. The response is streamed.
+     *
+     * @param id the id of the account
+     * @param format the output format, {@code csv} or {@code ndjson}
+     * @param from the inclusive lower bound of the transaction date
+     * @param to the exclusive upper bound of the transaction date
+     * @param principal the authenticated user
+     * @return the response entity streaming the statement
+     * @throws ResponseStatusException if the format is unsupported or the account is not the user's
+     */
+    @GetMapping("/{id}/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(@PathVariable Long id,
+                                             @RequestParam(defaultValue = "csv") String format,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                             @AuthenticationPrincipal AuthenticatedUser principal) {
+        StatementExportService.Format statementFormat;
+        try {
+            statementFormat = StatementExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported format: " + format);
+        }
+
+        Account account;
+        try {
+            accountOwnership.requireOwner(id, principal.id());
+            account = statementExportService.getAccount(id);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+
+        String filename = "statement-" + account.getAccountNumber() + "." + statementFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(statementFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(statementExportService.export(id, from, to, statementFormat));
+    }
+}
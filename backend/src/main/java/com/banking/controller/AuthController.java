@@ -1,7 +1,26 @@
 package com.banking.controller;
 
+import com.banking.datasource.ReadYourWrites;
+import com.banking.dto.UserProfile;
 import com.banking.model.User;
+import com.banking.notification.EmailOutbox;
+import com.banking.repository.UserRepository;
+import com.banking.security.AuthenticatedUser;
+import com.banking.security.JwtService;
+import com.banking.security.LoginAttemptRecorder;
+import com.banking.security.PasswordHashingExecutor;
+import com.banking.sharding.ShardCopier;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -9,14 +28,56 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for handling authentication requests.
+ * <p>
+ * Password hashing for login and registration runs on the {@link PasswordHashingExecutor}; the
+ * request thread is released while the hash is computed and the request is answered with 503
+ * when the hashing pool is saturated. Logins for unknown emails are hashed as well, so they take as
+ * long to answer as a wrong password. A registration is saved on the application task executor
+ * rather than the hashing pool, and an email registered by a concurrent request is answered with
+ * 409 like one registered before. The welcome email of a registration is queued in the
+ * {@link EmailOutbox} with the new user, so the request does not wait for the mail server.
+ * Credentials are read in a read-write transaction, which runs on the primary database: a read
+ * replica may not have applied a recent registration or password change yet. With sharding, users
+ * register and sign in on the directory, and a new user is copied to their shard as they register.
  */
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private LoginAttemptRecorder loginAttemptRecorder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private EmailOutbox emailOutbox;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor taskExecutor;
+
+    @Autowired(required = false)
+    private ShardCopier shardCopier;
+
     /**
      * Handles user registration.
      *
@@ -24,18 +85,42 @@ public class AuthController {
      * @return the response entity with the registered user and token
      */
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody User user) {
-        // For now, just return a success response
-        Map<String, Object> response = new HashMap<>();
-        Map<String, Object> userResponse = new HashMap<>();
-        userResponse.put("id", 1);
-        userResponse.put("email", user.getEmail());
-        userResponse.put("firstName", user.getFirstName());
-        userResponse.put("lastName", user.getLastName());
-        
-        response.put("user", userResponse);
-        response.put("token", "dummy-jwt-token");
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<?>> register(@Valid @RequestBody User user) {
+        if (transactionTemplate.execute(status -> userRepository.findByEmail(user.getEmail())).isPresent()) {
+            return CompletableFuture.completedFuture(emailTaken());
+        }
+        try {
+            // The user is saved on a task thread, keeping the hashing pool free for hashing.
+            return passwordHashingExecutor.encode(user.getPassword()).thenApplyAsync(hash -> {
+                User registered;
+                try {
+                    registered = transactionTemplate.execute(status -> {
+                        User saved = userRepository.save(User.builder()
+                                .firstName(user.getFirstName())
+                                .lastName(user.getLastName())
+                                .email(user.getEmail())
+                                .password(hash)
+                                .phoneNumber(user.getPhoneNumber())
+                                .role(User.Role.USER)
+                                .build());
+                        emailOutbox.enqueue(saved.getId(), "Welcome to Online Banking",
+                                "Hello " + saved.getFirstName() + ",\n\nYour Online Banking account has been created.");
+                        if (shardCopier != null) {
+                            userRepository.flush();
+                            shardCopier.copyUser(saved.getId());
+                        }
+                        return saved;
+                    });
+                } catch (DataIntegrityViolationException e) {
+                    // Registered by a concurrent request since the check above.
+                    return emailTaken();
+                }
+                readYourWrites.recordWrite(registered.getId());
+                return ResponseEntity.ok(authResponse(registered));
+            }, taskExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
     }
 
     /**
@@ -45,50 +130,79 @@ public class AuthController {
      * @return the response entity with the user and token
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> credentials) {
-        // For now, just return a success response
-        Map<String, Object> response = new HashMap<>();
-        Map<String, Object> userResponse = new HashMap<>();
-        userResponse.put("id", 1);
-        userResponse.put("email", credentials.get("email"));
-        userResponse.put("firstName", "John");
-        userResponse.put("lastName", "Doe");
-        
-        response.put("user", userResponse);
-        response.put("token", "dummy-jwt-token");
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> credentials) {
+        String password = credentials.get("password");
+        Optional<User> found = Optional.ofNullable(credentials.get("email"))
+                .flatMap(email -> transactionTemplate.execute(status -> userRepository.findByEmail(email)));
+        if (password == null) {
+            return CompletableFuture.completedFuture(invalidCredentials());
+        }
+        try {
+            if (found.isEmpty()) {
+                // Hash anyway, so an unknown email is not answered faster than a wrong password.
+                return passwordHashingExecutor.matchesNoAccount(password).thenApply(matches -> invalidCredentials());
+            }
+            User user = found.get();
+            if (loginAttemptRecorder.isLocked(user)) {
+                return CompletableFuture.completedFuture(
+                        ResponseEntity.status(HttpStatus.LOCKED).body("Account is temporarily locked"));
+            }
+            return passwordHashingExecutor.matches(password, user.getPassword()).thenApply(matches -> {
+                if (!matches) {
+                    loginAttemptRecorder.recordFailure(user);
+                    return invalidCredentials();
+                }
+                loginAttemptRecorder.recordSuccess(user);
+                return ResponseEntity.ok(authResponse(user));
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
     }
 
     /**
      * Endpoint to check if the user is authenticated.
      *
+     * @param principal the principal of the bearer token
      * @return the response entity with the user details
      */
     @PostMapping("/me")
-    public ResponseEntity<?> me() {
-        // For now, just return a success response
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", 1);
-        response.put("email", "user@example.com");
-        response.put("firstName", "John");
-        response.put("lastName", "Doe");
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> me(@AuthenticationPrincipal AuthenticatedUser principal) {
+        return userRepository.findProfileById(principal.id())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
     }
     
     /**
      * GET endpoint to check if the user is authenticated.
      * This is an alternative to the POST method for clients that use GET.
      *
+     * @param principal the principal of the bearer token
      * @return the response entity with the user details
      */
     @RequestMapping(value = "/me", method = org.springframework.web.bind.annotation.RequestMethod.GET)
-    public ResponseEntity<?> getCurrentUser() {
-        // For now, just return a success response
+    public ResponseEntity<?> getCurrentUser(@AuthenticationPrincipal AuthenticatedUser principal) {
+        return me(principal);
+    }
+
+    private ResponseEntity<?> emailTaken() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Email is already registered");
+    }
+
+    private ResponseEntity<?> invalidCredentials() {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid email or password");
+    }
+
+    private ResponseEntity<?> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many sign-in requests, please retry shortly");
+    }
+
+    private Map<String, Object> authResponse(User user) {
         Map<String, Object> response = new HashMap<>();
-        response.put("id", 1);
-        response.put("email", "user@example.com");
-        response.put("firstName", "John");
-        response.put("lastName", "Doe");
-        return ResponseEntity.ok(response);
+        response.put("user", UserProfile.of(user));
+        response.put("token", jwtService.issue(user));
+        return response;
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,34 @@
 package com.banking.controller;
 
+import com.banking.dto.BillRunResult;
+import com.banking.dto.BillSummary;
+import com.banking.dto.BillView;
+import com.banking.metrics.QueryBudget;
 import com.banking.model.Bill;
-import com.banking.model.User;
 import com.banking.repository.BillRepository;
 import com.banking.repository.UserRepository;
+import com.banking.security.AuthenticatedUser;
+import com.banking.service.AccountOwnership;
+import com.banking.service.BillPaymentService;
+import com.banking.service.BillRunService;
+import com.banking.service.BillSummaryService;
+import com.banking.service.IdempotencyService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 /**
@@ -27,114 +44,246 @@ public class BillController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private BillPaymentService billPaymentService;
+
+    @Autowired
+    private BillRunService billRunService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BillSummaryService billSummaryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccountOwnership accountOwnership;
+
+    @Value("${app.bills.summary.max-days:366}")
+    private int maxSummaryDays;
+
     /**
-     * Get all bills for the authenticated user.
+     * Get all bills for the authenticated user, earliest due first.
      *
+     * @param principal the authenticated user
      * @return the response entity with the list of bills
      */
     @GetMapping
-    public ResponseEntity<?> getAllBills() {
-        // For now, just return mock data
-        // In a real application, you would get the user from the authentication context
-        Optional<User> user = userRepository.findById(1L);
-        if (user.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+    @QueryBudget(1)
+    public ResponseEntity<List<BillView>> getAllBills(@AuthenticationPrincipal AuthenticatedUser principal) {
+        return ResponseEntity.ok(billRepository.findViewsByUserId(principal.id()));
+    }
+
+    /**
+     * Get the totals of the authenticated user's bills and the unpaid bills due in the next days.
+     * Supports conditional requests: a request whose {@code If-None-Match} carries the current
+     * entity tag gets a 304 without the summary being computed.
+     *
+     * @param days the length of the upcoming window in days
+     * @param principal the authenticated user
+     * @param request the web request, for the conditional request headers
+     * @return the response entity with the bill summary
+     */
+    @GetMapping("/summary")
+    @QueryBudget(5)
+    public ResponseEntity<?> getSummary(@RequestParam(defaultValue = "7") int days,
+                                        @AuthenticationPrincipal AuthenticatedUser principal,
+                                        WebRequest request) {
+        if (days < 0 || days > maxSummaryDays) {
+            return ResponseEntity.badRequest().body("days must be between 0 and " + maxSummaryDays);
         }
-        
-        List<Bill> bills = billRepository.findByUser(user.get());
-        return ResponseEntity.ok(bills);
+        LocalDate today = LocalDate.now();
+        String etag = billSummaryService.etag(principal.id(), days, today);
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (request.checkNotModified(etag)) {
+            // checkNotModified has already set the entity tag on the response.
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        BillSummary summary = billSummaryService.summarize(principal.id(), days, today);
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(summary);
     }
 
     /**
-     * Create a new bill for the authenticated user.
+     * Create a new bill for the authenticated user. New bills are pending; their status is only
+     * changed by payments.
      *
      * @param bill the bill to create
-     * @return the response entity with the created bill
+     * @param principal the authenticated user
+     * @return the response entity with the created bill; 400 if it sets another status or names a
+     *         payment account that is not the user's
      */
     @PostMapping
-    public ResponseEntity<?> createBill(@RequestBody Bill bill) {
-        // For now, just return mock data
-        // In a real application, you would get the user from the authentication context
-        Optional<User> user = userRepository.findById(1L);
-        if (user.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+    public ResponseEntity<?> createBill(@RequestBody Bill bill, @AuthenticationPrincipal AuthenticatedUser principal) {
+        if (bill.getStatus() != null && !Bill.STATUS_PENDING.equals(bill.getStatus())) {
+            return ResponseEntity.badRequest().body("Bill status is set by payments");
         }
-        
-        bill.setUser(user.get());
+        String accountProblem = checkPaymentAccount(bill.getPaymentAccountId(), principal);
+        if (accountProblem != null) {
+            return ResponseEntity.badRequest().body(accountProblem);
+        }
+        // The owner is only referenced by id; the user row is not read.
+        bill.setUser(userRepository.getReferenceById(principal.id()));
+        bill.setStatus(Bill.STATUS_PENDING);
+        bill.setPaidAt(null);
+        bill.setPaymentReference(null);
+        bill.setPaymentFailureReason(null);
         Bill savedBill = billRepository.save(bill);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedBill);
+        return ResponseEntity.status(HttpStatus.CREATED).body(BillView.of(savedBill));
     }
 
     /**
-     * Update an existing bill.
+     * Update a bill of the authenticated user. The status cannot be changed; it is only changed by payments.
      *
      * @param id the id of the bill to update
      * @param billDetails the updated bill details
-     * @return the response entity with the updated bill
+     * @param principal the authenticated user
+     * @return the response entity with the updated bill; 404 if the bill is not the user's, 400 if
+     *         the update changes the status or names a payment account that is not the user's
      */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateBill(@PathVariable Long id, @RequestBody Bill billDetails) {
-        Optional<Bill> bill = billRepository.findById(id);
-        if (bill.isEmpty()) {
+    public ResponseEntity<?> updateBill(@PathVariable Long id, @RequestBody Bill billDetails,
+                                        @AuthenticationPrincipal AuthenticatedUser principal) {
+        String accountProblem = checkPaymentAccount(billDetails.getPaymentAccountId(), principal);
+        if (accountProblem != null) {
+            return ResponseEntity.badRequest().body(accountProblem);
+        }
+        // Read and written in one transaction, so the bill is read from the primary.
+        Optional<Bill> updatedBill;
+        try {
+            updatedBill = transactionTemplate.execute(status -> billRepository.findByIdAndUserId(id, principal.id())
+                    .map(existingBill -> update(existingBill, billDetails)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (updatedBill.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Bill not found");
         }
-        
-        Bill existingBill = bill.get();
+        return ResponseEntity.ok(BillView.of(updatedBill.get()));
+    }
+
+    private Bill update(Bill existingBill, Bill billDetails) {
+        if (billDetails.getStatus() != null && !billDetails.getStatus().equals(existingBill.getStatus())) {
+            throw new IllegalArgumentException("Bill status is set by payments");
+        }
         existingBill.setName(billDetails.getName());
         existingBill.setCategory(billDetails.getCategory());
         existingBill.setAccountNumber(billDetails.getAccountNumber());
         existingBill.setAmount(billDetails.getAmount());
         existingBill.setDueDate(billDetails.getDueDate());
-        existingBill.setStatus(billDetails.getStatus());
         existingBill.setIcon(billDetails.getIcon());
-        
-        Bill updatedBill = billRepository.save(existingBill);
-        return ResponseEntity.ok(updatedBill);
+        existingBill.setPaymentAccountId(billDetails.getPaymentAccountId());
+        return billRepository.save(existingBill);
     }
 
     /**
-     * Delete a bill.
+     * Check that a payment account named in a request belongs to the user.
+     *
+     * @return null if there is no account or it is the user's, otherwise the problem
+     */
+    private String checkPaymentAccount(Long paymentAccountId, AuthenticatedUser principal) {
+        if (paymentAccountId == null) {
+            return null;
+        }
+        try {
+            accountOwnership.requireOwner(paymentAccountId, principal.id());
+            return null;
+        } catch (NoSuchElementException e) {
+            return "Payment account not found: " + paymentAccountId;
+        }
+    }
+
+    /**
+     * Delete a bill of the authenticated user.
      *
      * @param id the id of the bill to delete
-     * @return the response entity with a success message
+     * @param principal the authenticated user
+     * @return the response entity with a success message; 404 if the bill is not the user's
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteBill(@PathVariable Long id) {
-        Optional<Bill> bill = billRepository.findById(id);
-        if (bill.isEmpty()) {
+    public ResponseEntity<?> deleteBill(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser principal) {
+        boolean deleted = Boolean.TRUE.equals(transactionTemplate.execute(status -> billRepository.findByIdAndUserId(id, principal.id())
+                .map(bill -> {
+                    billRepository.delete(bill);
+                    return true;
+                })
+                .orElse(false)));
+        if (!deleted) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Bill not found");
         }
         
-        billRepository.delete(bill.get());
-        
         Map<String, Boolean> response = new HashMap<>();
         response.put("deleted", Boolean.TRUE);
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Pay a bill.
+     * Pay a bill of the authenticated user from its payment account, which must be the user's. A retry with the same {@code Idempotency-Key} gets the
+     * response of the first attempt.
      *
      * @param id the id of the bill to pay
-     * @param paymentDetails the payment details
-     * @return the response entity with the updated bill
+     * @param paymentDetails the payment details; an optional {@code accountId} sets the payment account
+     * @param idempotencyKey the optional idempotency key
+     * @param principal the authenticated user
+     * @return the response entity with the payment outcome
      */
     @PostMapping("/{id}/pay")
-    public ResponseEntity<?> payBill(@PathVariable Long id, @RequestBody Map<String, Object> paymentDetails) {
-        Optional<Bill> bill = billRepository.findById(id);
-        if (bill.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Bill not found");
+    public ResponseEntity<?> payBill(@PathVariable Long id,
+                                     @RequestBody(required = false) Map<String, Object> paymentDetails,
+                                     @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                     @AuthenticationPrincipal AuthenticatedUser principal) {
+        return idempotencyService.execute(idempotencyKey, principal.id(), "POST /bills/" + id + "/pay", paymentDetails,
+                () -> pay(id, paymentDetails, principal));
+    }
+
+    private ResponseEntity<?> pay(Long id, Map<String, Object> paymentDetails, AuthenticatedUser principal) {
+        Long accountId = null;
+        if (paymentDetails != null && paymentDetails.get("accountId") != null) {
+            try {
+                accountId = Long.valueOf(paymentDetails.get("accountId").toString());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body("Invalid account id");
+            }
         }
-        
-        Bill existingBill = bill.get();
-        existingBill.setStatus("PAID");
-        
-billRepository.save(existingBill);
-        
+
+        Bill paidBill;
+        try {
+            paidBill = billPaymentService.payBill(id, principal.id(), accountId);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        if (!Bill.STATUS_PAID.equals(paidBill.getStatus())) {
+            return ResponseEntity.badRequest().body("Bill payment failed: " + paidBill.getPaymentFailureReason());
+        }
+
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Bill payment successful");
         response.put("billId", id);
-        response.put("status", "PAID");
+        response.put("status", paidBill.getStatus());
+        response.put("paymentReference", paidBill.getPaymentReference());
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Run, or resume, the bill run that pays every bill due on or before a date.
+     *
+     * @param date the run date, today if omitted
+     * @return the response entity with the outcome of the run
+     */
+    @PostMapping("/runs")
+    @QueryBudget(value = QueryBudget.UNLIMITED, detectRepeats = false)
+    public ResponseEntity<?> runBills(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            BillRunResult result = billRunService.run(date != null ? date : LocalDate.now());
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.banking.controller;
+
+import com.banking.notification.Notification;
+import com.banking.notification.NotificationHub;
+import com.banking.security.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Controller for the notifications of the authenticated user.
+ */
+@RestController
+@RequestMapping("/notifications")
+public class NotificationController {
+
+    @Autowired
+    private NotificationHub notificationHub;
+
+    /**
+     * Open a server-sent event stream of the authenticated user's notifications. A reconnecting
+     * client sends the id of the last event it received in {@code Last-Event-ID} and is first sent
+     * the notifications it missed.
+     *
+     * @param lastEventId the id of the last event received, if reconnecting
+     * @param principal the authenticated user
+     * @return the event stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                    @AuthenticationPrincipal AuthenticatedUser principal) {
+        Long resumeFrom = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                resumeFrom = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body("Invalid Last-Event-ID: " + lastEventId);
+            }
+        }
+        SseEmitter emitter = notificationHub.subscribe(principal.id(), resumeFrom);
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    /**
+     * Get the recent notifications of the authenticated user.
+     *
+     * @param principal the authenticated user
+     * @return the notifications, newest first
+     */
+    @GetMapping
+    public ResponseEntity<List<Notification>> getNotifications(@AuthenticationPrincipal AuthenticatedUser principal) {
+        return ResponseEntity.ok(notificationHub.recent(principal.id()));
+    }
+
+    /**
+     * Mark a notification of the authenticated user read.
+     *
+     * @param id the notification id
+     * @param principal the authenticated user
+     * @return the response entity with the notification
+     */
+    @PutMapping("/{id}/read")
+    public ResponseEntity<?> markRead(@PathVariable long id, @AuthenticationPrincipal AuthenticatedUser principal) {
+        Notification notification = notificationHub.markRead(principal.id(), id);
+        if (notification == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Notification not found");
+        }
+        return ResponseEntity.ok(notification);
+    }
+}
@@ -0,0 +1,144 @@
+package com.banking.controller;
+
+import com.banking.archive.TransactionArchiver;
+import com.banking.dto.BatchIngestionResult;
+import com.banking.dto.BatchPostingRequest;
+import com.banking.metrics.QueryBudget;
+import com.banking.model.Transaction;
+import com.banking.security.AuthenticatedUser;
+import com.banking.service.AccountOwnership;
+import com.banking.service.TransactionHistoryService;
+import com.banking.service.TransactionIngestionService;
+import com.banking.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Controller for handling transaction-related requests.
+ */
+@RestController
+@RequestMapping("/transactions")
+public class TransactionController {
+
+    @Autowired
+    private TransactionIngestionService transactionIngestionService;
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private TransactionArchiver transactionArchiver;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private AccountOwnership accountOwnership;
+
+    /**
+     * Get one page of the transaction history of one of the user's accounts, newest first.
+     *
+     * @param accountId the account whose history to read
+     * @param cursor the cursor returned with the previous page
+     * @param limit the maximum number of transactions to return
+     * @param from the inclusive lower bound of the transaction date
+     * @param to the exclusive upper bound of the transaction date
+     * @param type the transaction type name
+     * @param status the transaction status
+     * @param principal the authenticated user
+     * @return the response entity with the page of transactions; 404 if the account is not the user's
+     */
+    @GetMapping
+    // One query per archived block the page reaches into
+    @QueryBudget(value = 50, detectRepeats = false)
+    public ResponseEntity<?> getTransactions(@RequestParam Long accountId,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "50") int limit,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                             @RequestParam(required = false) String type,
+                                             @RequestParam(required = false) Transaction.TransactionStatus status,
+                                             @AuthenticationPrincipal AuthenticatedUser principal) {
+        try {
+            accountOwnership.requireOwner(accountId, principal.id());
+            return ResponseEntity.ok(shardRouter.onAccountShard(accountId,
+                    () -> transactionHistoryService.getHistory(accountId, cursor, limit, from, to, type, status)));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Ingest a batch of postings. The batch is all-or-nothing.
+     *
+     * @param postings the postings to ingest
+     * @return the response entity with the ingestion result
+     */
+    @PostMapping("/batch")
+    @QueryBudget(value = QueryBudget.UNLIMITED, detectRepeats = false)
+    public ResponseEntity<?> ingestBatch(@RequestBody List<BatchPostingRequest> postings) {
+        BatchIngestionResult result;
+        try {
+            result = transactionIngestionService.ingest(postings);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        if (result.rejected() > 0) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
+
+    /**
+     * Ingest a stream of newline-delimited JSON postings. Invalid postings are skipped and reported.
+     *
+     * @param body the request body
+     * @return the response entity with the ingestion result
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/batch/stream", consumes = "application/x-ndjson")
+    @QueryBudget(value = QueryBudget.UNLIMITED, detectRepeats = false)
+    public ResponseEntity<?> ingestStream(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(transactionIngestionService.ingestStream(body));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Archive every transaction dated before the first day of the month of a date.
+     *
+     * @param before the cutoff, {@code app.archive.retention} ago if omitted
+     * @return the response entity with the outcome of the run
+     */
+    @PostMapping("/archive-runs")
+    @QueryBudget(value = QueryBudget.UNLIMITED, detectRepeats = false)
+    public ResponseEntity<?> archive(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+        try {
+            return ResponseEntity.ok(transactionArchiver.archive(before != null ? before : transactionArchiver.defaultCutoff()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.banking.controller;
+
+import com.banking.dto.TransferRequest;
+import com.banking.dto.TransferResult;
+import com.banking.security.AuthenticatedUser;
+import com.banking.service.AccountOwnership;
+import com.banking.service.IdempotencyService;
+import com.banking.service.PostingService;
+import com.banking.sharding.ShardMovingException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Controller for handling transfers between accounts.
+ * <p>
+ * A transfer between accounts on different shards whose credit could not be posted straight away
+ * is answered with 202: the source account is debited and the credit is retried in the background.
+ */
+@RestController
+@RequestMapping("/transfers")
+public class TransferController {
+
+    @Autowired
+    private PostingService postingService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private AccountOwnership accountOwnership;
+
+    /**
+     * Transfer money from one of the user's accounts to another account. A retry with the same {@code Idempotency-Key}
+     * gets the response of the first attempt.
+     *
+     * @param request the transfer details
+     * @param idempotencyKey the optional idempotency key
+     * @param principal the authenticated user
+     * @return the response entity with the posted transfer; 404 if the source account is not the user's
+     */
+    @PostMapping
+    public ResponseEntity<?> transfer(@Valid @RequestBody TransferRequest request,
+                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                      @AuthenticationPrincipal AuthenticatedUser principal) {
+        return idempotencyService.execute(idempotencyKey, principal.id(), "POST /transfers", request,
+                () -> post(request, principal));
+    }
+
+    private ResponseEntity<?> post(TransferRequest request, AuthenticatedUser principal) {
+        TransferResult result;
+        try {
+            accountOwnership.requireOwner(request.getSourceAccountId(), principal.id());
+            result = postingService.transfer(request.getSourceAccountId(), request.getDestinationAccountId(),
+                    request.getAmount(), request.getDescription());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ShardMovingException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(e.getMessage());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", result.pending() ? "Transfer accepted" : "Transfer successful");
+        response.put("debitReference", result.debitReference());
+        response.put("creditReference", result.creditReference());
+        response.put("sourceAccountId", request.getSourceAccountId());
+        response.put("destinationAccountId", request.getDestinationAccountId());
+        response.put("amount", request.getAmount());
+        response.put("sourceBalance", result.sourceBalance());
+        return ResponseEntity.status(result.pending() ? HttpStatus.ACCEPTED : HttpStatus.CREATED).body(response);
+    }
+}
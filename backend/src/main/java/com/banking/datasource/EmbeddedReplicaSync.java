@@ -0,0 +1,92 @@
+package com.banking.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stands in for asynchronous replication between embedded H2 databases, so replica routing can be
+ * tried locally without a replicated database server.
+ * <p>
+ * Every {@code app.datasource.replicas.embedded-sync-interval-ms} the primary is scripted and each
+ * replica is rebuilt from the script, with the replica in exclusive mode so its readers wait for
+ * the copy instead of seeing it half done. Replicas therefore lag the primary by up to the
+ * interval. The first copy is made once the schema exists, before requests are served. Development
+ * only: every copy rewrites the whole database.
+ */
+@Slf4j
+public class EmbeddedReplicaSync implements SmartInitializingSingleton {
+
+    private final DataSource primary;
+    private final List<String> replicaUrls;
+    private final String username;
+    private final String password;
+
+    /**
+     * Create the sync.
+     *
+     * @param primary the primary database
+     * @param replicaUrls the JDBC URLs of the embedded replicas
+     * @param username the user of the replicas
+     * @param password the password of the replicas
+     */
+    public EmbeddedReplicaSync(DataSource primary, List<String> replicaUrls, String username, String password) {
+        this.primary = primary;
+        this.replicaUrls = replicaUrls;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        sync();
+    }
+
+    /**
+     * Copy the primary into every replica.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.embedded-sync-interval-ms}",
+            initialDelayString = "${app.datasource.replicas.embedded-sync-interval-ms}")
+    public void sync() {
+        List<String> script = new ArrayList<>();
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SCRIPT NOPASSWORDS NOSETTINGS")) {
+            while (rows.next()) {
+                String sql = rows.getString(1);
+                // The replica keeps its own users and their passwords.
+                if (!sql.startsWith("CREATE USER")) {
+                    script.add(sql);
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Could not script the primary for the embedded replicas: {}", e.getMessage());
+            return;
+        }
+        for (String url : replicaUrls) {
+            try (Connection connection = DriverManager.getConnection(url, username, password);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("SET EXCLUSIVE 1");
+                try {
+                    statement.execute("DROP ALL OBJECTS");
+                    for (String sql : script) {
+                        statement.execute(sql);
+                    }
+                } finally {
+                    statement.execute("SET EXCLUSIVE 0");
+                }
+            } catch (SQLException e) {
+                log.warn("Could not copy the primary into embedded replica {}: {}", url, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.banking.datasource;
+
+import com.banking.security.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Remembers the users who wrote recently, so their reads stay on the primary until the replicas
+ * have caught up with their own changes.
+ * <p>
+ * A user is remembered for {@code app.datasource.replicas.read-your-writes-window} after a
+ * read-write transaction of one of their requests commits. Writes made for a user outside of their
+ * authenticated requests, such as a registration, are recorded with {@link #recordWrite(Long)}.
+ * The window should cover the usual replication lag. Writers are remembered per instance.
+ */
+@Component
+public class ReadYourWrites {
+
+    private final boolean enabled;
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWrites(@Value("${app.datasource.replicas.enabled:false}") boolean enabled,
+                          @Value("${app.datasource.replicas.read-your-writes-window:PT5S}") Duration window) {
+        this.enabled = enabled;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /**
+     * Keep the reads of a user on the primary for the read-your-writes window, starting now.
+     *
+     * @param userId the user who wrote
+     */
+    public void recordWrite(Long userId) {
+        if (enabled && userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Record a write of the current user once the current transaction commits.
+     */
+    void recordWriteOnCommit() {
+        Long userId = currentUserId();
+        if (userId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordWrite(userId);
+            }
+        });
+    }
+
+    /**
+     * Check whether the current user wrote within the read-your-writes window.
+     *
+     * @return true if the reads of the current user must go to the primary
+     */
+    boolean isRecentWriter() {
+        Long userId = currentUserId();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? user.id() : null;
+    }
+}
@@ -0,0 +1,174 @@
+package com.banking.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes connections between the primary database and its read replicas.
+ * <p>
+ * Read-only transactions ({@code @Transactional(readOnly = true)}, read-only
+ * {@code TransactionTemplate}s and the read methods of the Spring Data repositories) run on a
+ * healthy replica, chosen round robin. Everything else runs on the primary: read-write
+ * transactions, work outside of a transaction, and the reads of a user who wrote within the
+ * {@link ReadYourWrites} window. Reads that must see the latest committed state, such as credential
+ * checks, run in a read-write transaction.
+ * <p>
+ * A transaction's read-only flag is only known once it has begun, so this data source sits behind a
+ * {@link LazyConnectionDataSourceProxy} and is asked for a connection when the first statement of
+ * the transaction runs. Hibernate must release the connection at the end of every transaction, or a
+ * replica connection would be reused for a later write of the same request.
+ * <p>
+ * A replica that fails a health check or a connection attempt is taken out of rotation until a
+ * later check succeeds; while no replica is healthy, reads run on the primary. Connections are
+ * counted as {@code datasource.connections.routed} by target and reason, and the health of every
+ * replica is published as {@code datasource.replica.up}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter primaryReadWrite;
+    private final Counter primaryReadYourWrites;
+    private final Counter primaryFallback;
+
+    /**
+     * Create the routing data source. The replicas are checked once before it is returned.
+     *
+     * @param primary the primary database
+     * @param replicas the pools of the replicas; they are closed with this data source
+     * @param readYourWrites the recent writers
+     * @param meterRegistry the registry of the routing meters
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas,
+                                    ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.readYourWrites = readYourWrites;
+        this.primaryReadWrite = routedCounter(meterRegistry, "primary", "read-write");
+        this.primaryReadYourWrites = routedCounter(meterRegistry, "primary", "read-your-writes");
+        this.primaryFallback = routedCounter(meterRegistry, "primary", "fallback");
+        this.replicas = new ArrayList<>(replicas.size());
+        for (HikariDataSource dataSource : replicas) {
+            Replica replica = new Replica(dataSource, routedCounter(meterRegistry, dataSource.getPoolName(), "read-only"));
+            Gauge.builder("datasource.replica.up", replica, r -> r.up ? 1 : 0)
+                    .description("Whether the replica is in the read rotation")
+                    .tag("replica", dataSource.getPoolName())
+                    .register(meterRegistry);
+            this.replicas.add(replica);
+        }
+        checkReplicas();
+    }
+
+    private static Counter routedCounter(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("datasource.connections.routed")
+                .description("Connections handed out, by the database they were taken from and why")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readYourWrites.recordWriteOnCommit();
+            primaryReadWrite.increment();
+            return primary.getConnection();
+        }
+        if (readYourWrites.isRecentWriter()) {
+            primaryReadYourWrites.increment();
+            return primary.getConnection();
+        }
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (!replica.up) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.routed.increment();
+                return connection;
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+        primaryFallback.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Routed connections use the configured credentials");
+    }
+
+    /**
+     * Check every replica with a fresh validation, returning recovered replicas to the rotation.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    markDown(replica, null);
+                    continue;
+                }
+            } catch (SQLException e) {
+                markDown(replica, e);
+                continue;
+            }
+            if (!replica.up) {
+                replica.up = true;
+                log.info("Replica {} is healthy again and back in the read rotation", replica.dataSource.getPoolName());
+            }
+        }
+    }
+
+    private void markDown(Replica replica, SQLException cause) {
+        if (replica.up) {
+            replica.up = false;
+            log.warn("Replica {} is unavailable, reading from the other replicas or the primary: {}",
+                    replica.dataSource.getPoolName(), cause != null ? cause.getMessage() : "validation failed");
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    /**
+     * A replica pool and its state in the rotation.
+     */
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        private final Counter routed;
+        private volatile boolean up = true;
+
+        Replica(HikariDataSource dataSource, Counter routed) {
+            this.dataSource = dataSource;
+            this.routed = routed;
+        }
+    }
+}
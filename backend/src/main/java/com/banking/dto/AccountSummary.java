@@ -0,0 +1,37 @@
+package com.banking.dto;
+
+import com.banking.model.Account;
+import com.banking.model.Money;
+
+/**
+ * Summary of an account returned by the accounts API.
+ *
+ * @param id the account id
+ * @param accountNumber the account number
+ * @param type the account type name
+ * @param balance the current balance
+ * @param currency the currency code
+ * @param active whether the account is active
+ */
+public record AccountSummary(Long id, String accountNumber, String type, Money balance, String currency,
+                             boolean active) {
+
+    /**
+     * Create a summary from the columns selected by the repository query, with the balance in minor units.
+     */
+    public AccountSummary(Long id, String accountNumber, String type, Long balanceMinorUnits, String currency,
+                          boolean active) {
+        this(id, accountNumber, type, Money.ofMinor(balanceMinorUnits, currency), currency, active);
+    }
+
+    /**
+     * Create the summary of an account entity.
+     *
+     * @param account the account
+     * @return the summary
+     */
+    public static AccountSummary of(Account account) {
+        return new AccountSummary(account.getId(), account.getAccountNumber(), account.getAccountType().getName(),
+                account.getBalance(), account.getCurrency(), account.isActive());
+    }
+}
@@ -0,0 +1,18 @@
+package com.banking.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of a transaction archive run.
+ *
+ * @param cutoff the transactions dated before this day were archived
+ * @param segments the number of archive segments written
+ * @param accounts the number of accounts with archived transactions
+ * @param rows the number of transactions archived
+ * @param rawBytes the size of the archived blocks before compression
+ * @param compressedBytes the size of the archived blocks after compression
+ * @param elapsedMillis the duration of the run
+ */
+public record ArchiveRunResult(LocalDate cutoff, int segments, int accounts, long rows, long rawBytes,
+                               long compressedBytes, long elapsedMillis) {
+}
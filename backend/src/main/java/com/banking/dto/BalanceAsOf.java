@@ -0,0 +1,16 @@
+package com.banking.dto;
+
+import com.banking.model.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * The balance of an account at a point in time.
+ *
+ * @param accountId the account id
+ * @param at the point in time; transactions dated before it are included
+ * @param balance the balance
+ * @param currency the account currency
+ */
+public record BalanceAsOf(Long accountId, LocalDateTime at, Money balance, String currency) {
+}
@@ -0,0 +1,14 @@
+package com.banking.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk transaction ingestion request.
+ *
+ * @param accepted the number of postings persisted
+ * @param rejected the number of postings rejected
+ * @param errors the rejected postings
+ * @param elapsedMillis the time spent validating and persisting
+ */
+public record BatchIngestionResult(int accepted, int rejected, List<IngestionError> errors, long elapsedMillis) {
+}
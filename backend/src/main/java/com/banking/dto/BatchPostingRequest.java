@@ -0,0 +1,52 @@
+package com.banking.dto;
+
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A single posting submitted to the bulk transaction ingestion API.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPostingRequest {
+
+    @NotNull
+    private Long accountId;
+
+    @NotBlank
+    @Size(max = 50)
+    private String transactionType;
+
+    @NotNull
+    private Transaction.Direction direction;
+
+    @NotNull
+    @Positive
+    @Digits(integer = 17, fraction = Money.SCALE)
+    private BigDecimal amount;
+
+    @Size(min = 3, max = 3)
+    private String currency;
+
+    @Size(max = 50)
+    private String reference;
+
+    @Size(max = 255)
+    private String description;
+
+    private LocalDateTime transactionDate;
+}
@@ -0,0 +1,17 @@
+package com.banking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Compact view of an unpaid bill returned by the bill summary.
+ *
+ * @param id the bill id
+ * @param name the bill name
+ * @param category the bill category
+ * @param amount the bill amount
+ * @param dueDate the due date
+ * @param status the bill status
+ */
+public record BillDue(Long id, String name, String category, BigDecimal amount, LocalDate dueDate, String status) {
+}
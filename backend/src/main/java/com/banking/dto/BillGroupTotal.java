@@ -0,0 +1,14 @@
+package com.banking.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and amount of the bills of a user with a category and status, as aggregated by the database.
+ *
+ * @param category the bill category
+ * @param status the bill status
+ * @param count the number of bills
+ * @param amount the sum of the bill amounts
+ */
+public record BillGroupTotal(String category, String status, long count, BigDecimal amount) {
+}
@@ -0,0 +1,20 @@
+package com.banking.dto;
+
+import com.banking.model.BillRun;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of a bill run.
+ *
+ * @param runDate the run date
+ * @param status the status of the run after this invocation
+ * @param partitions the number of partitions of the run
+ * @param completedPartitions the number of partitions fully processed
+ * @param paid the number of bills paid by the run, including earlier invocations
+ * @param failed the number of bills the run could not pay, including earlier invocations
+ * @param elapsedMillis the time spent in this invocation
+ */
+public record BillRunResult(LocalDate runDate, BillRun.Status status, int partitions, int completedPartitions,
+                            long paid, long failed, long elapsedMillis) {
+}
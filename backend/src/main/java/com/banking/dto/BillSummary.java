@@ -0,0 +1,23 @@
+package com.banking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Totals of the bills of a user, for the bill dashboards.
+ *
+ * @param asOf the day the upcoming window starts
+ * @param count the number of bills
+ * @param amount the sum of all bill amounts
+ * @param byCategory the totals per category, largest amount first
+ * @param byStatus the totals per status, largest amount first
+ * @param upcomingDays the length of the upcoming window in days
+ * @param upcomingCount the number of unpaid bills due in the window
+ * @param upcomingAmount the sum of the unpaid bills due in the window
+ * @param upcoming the first unpaid bills due in the window, soonest first
+ */
+public record BillSummary(LocalDate asOf, long count, BigDecimal amount, List<BillTotal> byCategory,
+                          List<BillTotal> byStatus, int upcomingDays, long upcomingCount, BigDecimal upcomingAmount,
+                          List<BillDue> upcoming) {
+}
@@ -0,0 +1,13 @@
+package com.banking.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and amount of the bills in a group.
+ *
+ * @param name the group, a category or a status
+ * @param count the number of bills
+ * @param amount the sum of the bill amounts
+ */
+public record BillTotal(String name, long count, BigDecimal amount) {
+}
@@ -0,0 +1,41 @@
+package com.banking.dto;
+
+import com.banking.model.Bill;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a bill returned by the bill API. It carries the columns of the bill only, so
+ * serializing it never reaches the owning user.
+ *
+ * @param id the bill id
+ * @param name the bill name
+ * @param category the bill category
+ * @param accountNumber the payee account number
+ * @param amount the bill amount
+ * @param dueDate the due date
+ * @param status the bill status
+ * @param icon the icon name
+ * @param paymentAccountId the account the bill is paid from
+ * @param paidAt when the bill was paid
+ * @param paymentReference the reference of the payment transaction
+ * @param paymentFailureReason why the last payment attempt failed
+ */
+public record BillView(Long id, String name, String category, String accountNumber, BigDecimal amount,
+                       LocalDate dueDate, String status, String icon, Long paymentAccountId, LocalDateTime paidAt,
+                       String paymentReference, String paymentFailureReason) {
+
+    /**
+     * Create a view of a bill entity.
+     *
+     * @param bill the bill
+     * @return the view
+     */
+    public static BillView of(Bill bill) {
+        return new BillView(bill.getId(), bill.getName(), bill.getCategory(), bill.getAccountNumber(), bill.getAmount(),
+                bill.getDueDate(), bill.getStatus(), bill.getIcon(), bill.getPaymentAccountId(), bill.getPaidAt(),
+                bill.getPaymentReference(), bill.getPaymentFailureReason());
+    }
+}
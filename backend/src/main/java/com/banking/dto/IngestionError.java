@@ -0,0 +1,10 @@
+package com.banking.dto;
+
+/**
+ * A posting rejected by the bulk transaction ingestion API.
+ *
+ * @param index the zero-based position of the posting in the request
+ * @param message why the posting was rejected
+ */
+public record IngestionError(int index, String message) {
+}
@@ -0,0 +1,12 @@
+package com.banking.dto;
+
+import com.banking.model.Money;
+
+/**
+ * Outcome of a single-account posting.
+ *
+ * @param reference the reference of the transaction row
+ * @param balance the account balance after the posting
+ */
+public record PostingResult(String reference, Money balance) {
+}
@@ -0,0 +1,19 @@
+package com.banking.dto;
+
+import java.util.Map;
+
+/**
+ * Outcome of moving a range of users to another shard.
+ *
+ * @param firstUserId the first user id of the range
+ * @param endUserId the first user id after the range
+ * @param sourceShard the shard the users were moved from
+ * @param targetShard the shard the users were moved to
+ * @param rows the number of rows copied, by table
+ * @param sourceCleaned whether the copied rows were deleted from the source shard; if not, they
+ *                      are unreachable leftovers, deleted by the next move of the range back
+ * @param elapsedMillis the duration of the move, including the drain
+ */
+public record RebalanceResult(long firstUserId, long endUserId, int sourceShard, int targetShard,
+                              Map<String, Integer> rows, boolean sourceCleaned, long elapsedMillis) {
+}
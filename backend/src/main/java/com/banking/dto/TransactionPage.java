@@ -0,0 +1,12 @@
+package com.banking.dto;
+
+import java.util.List;
+
+/**
+ * One page of an account's transaction history.
+ *
+ * @param items the transactions, newest first
+ * @param nextCursor the cursor of the next page, or {@code null} if this is the last page
+ */
+public record TransactionPage(List<TransactionView> items, String nextCursor) {
+}
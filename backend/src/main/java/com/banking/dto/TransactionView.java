@@ -0,0 +1,36 @@
+package com.banking.dto;
+
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a transaction returned by the history API.
+ *
+ * @param id the transaction id
+ * @param reference the unique transaction reference
+ * @param accountId the account the transaction was posted to
+ * @param type the transaction type name
+ * @param amount the posted amount
+ * @param currency the currency code
+ * @param description the description
+ * @param status the transaction status
+ * @param sourceAccountId the debited account of a transfer
+ * @param destinationAccountId the credited account of a transfer
+ * @param transactionDate the transaction date
+ */
+public record TransactionView(Long id, String reference, Long accountId, String type, Money amount,
+                              String currency, String description, Transaction.TransactionStatus status,
+                              Long sourceAccountId, Long destinationAccountId, LocalDateTime transactionDate) {
+
+    /**
+     * Create a view from the columns selected by the repository queries, with the amount in minor units.
+     */
+    public TransactionView(Long id, String reference, Long accountId, String type, Long amountMinorUnits,
+                           String currency, String description, Transaction.TransactionStatus status,
+                           Long sourceAccountId, Long destinationAccountId, LocalDateTime transactionDate) {
+        this(id, reference, accountId, type, Money.ofMinor(amountMinorUnits, currency), currency, description, status,
+                sourceAccountId, destinationAccountId, transactionDate);
+    }
+}
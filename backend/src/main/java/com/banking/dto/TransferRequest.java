@@ -0,0 +1,35 @@
+package com.banking.dto;
+
+import com.banking.model.Money;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Request body for a transfer between two accounts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferRequest {
+
+    @NotNull
+    private Long sourceAccountId;
+
+    @NotNull
+    private Long destinationAccountId;
+
+    @NotNull
+    @Positive
+    @Digits(integer = 17, fraction = Money.SCALE)
+    private BigDecimal amount;
+
+    @Size(max = 255)
+    private String description;
+}
@@ -0,0 +1,17 @@
+package com.banking.dto;
+
+import com.banking.model.Money;
+
+/**
+ * Outcome of a transfer between two accounts.
+ *
+ * @param debitReference the reference of the row posted to the source account
+ * @param creditReference the reference of the row posted to the destination account
+ * @param sourceBalance the source account balance after the transfer
+ * @param destinationBalance the destination account balance after the transfer, or null while pending
+ * @param pending whether the source was debited but the destination, on another shard, is still to
+ *                be credited; the credit is retried in the background
+ */
+public record TransferResult(String debitReference, String creditReference,
+                             Money sourceBalance, Money destinationBalance, boolean pending) {
+}
@@ -0,0 +1,24 @@
+package com.banking.dto;
+
+import com.banking.model.User;
+
+/**
+ * The public details of a user returned by the authentication API.
+ *
+ * @param id the user id
+ * @param email the email address
+ * @param firstName the first name
+ * @param lastName the last name
+ */
+public record UserProfile(Long id, String email, String firstName, String lastName) {
+
+    /**
+     * Create the profile of a user entity.
+     *
+     * @param user the user
+     * @return the profile
+     */
+    public static UserProfile of(User user) {
+        return new UserProfile(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName());
+    }
+}
@@ -0,0 +1,19 @@
+package com.banking.journal;
+
+/**
+ * When appended journal records are forced to stable storage.
+ */
+public enum FsyncPolicy {
+    /**
+     * Force before a posting is acknowledged. Concurrent appenders share one force (group commit).
+     */
+    ALWAYS,
+    /**
+     * Force from a background task every {@code app.journal.fsync-interval-ms}.
+     */
+    INTERVAL,
+    /**
+     * Leave flushing to the operating system.
+     */
+    NONE
+}
@@ -0,0 +1,33 @@
+package com.banking.journal;
+
+import java.math.BigDecimal;
+
+/**
+ * A posting recorded in the journal.
+ *
+ * @param sequence the position of the entry in the journal, assigned on append
+ * @param kind the kind of posting
+ * @param sourceAccountId the debited account, or {@code 0} for deposits
+ * @param destinationAccountId the credited account, or {@code 0} for withdrawals
+ * @param amount the posted amount
+ * @param reference the transaction reference
+ * @param description an optional description
+ * @param timestamp the posting time in epoch milliseconds
+ */
+public record JournalEntry(long sequence, Kind kind, long sourceAccountId, long destinationAccountId,
+                           BigDecimal amount, String reference, String description, long timestamp) {
+
+    /**
+     * The kinds of posting the journal records.
+     */
+    public enum Kind {
+        DEPOSIT,
+        WITHDRAWAL,
+        TRANSFER
+    }
+
+    JournalEntry withSequence(long newSequence) {
+        return new JournalEntry(newSequence, kind, sourceAccountId, destinationAccountId, amount, reference,
+                description, timestamp);
+    }
+}
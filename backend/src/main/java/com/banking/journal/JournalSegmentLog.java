@@ -0,0 +1,381 @@
+package com.banking.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of {@link JournalEntry} records stored in fixed-size memory-mapped segment files.
+ * <p>
+ * Each record is framed as {@code [int length][int crc32c][payload]}. A zero length marks the end of
+ * the written part of a segment. On open, the last segment is scanned and anything after the first
+ * record with a bad checksum (a torn write from a crash) is discarded.
+ * <p>
+ * Appends and forces are guarded by {@link ReentrantLock}s rather than monitors: a thread waiting
+ * in {@code force} blocks on disk I/O, which would pin the carrier of a virtual thread while holding
+ * a monitor.
+ */
+class JournalSegmentLog implements Closeable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d{20})\\.log");
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<Segment> segments = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock forceLock = new ReentrantLock();
+
+    private Segment active;
+    private long lastSequence;
+    private volatile long durableSequence;
+
+    private JournalSegmentLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Open the journal in a directory, creating it if needed, and recover the write position.
+     *
+     * @param directory the directory holding the segment files
+     * @param segmentSize the size of each segment file in bytes
+     * @return the opened journal
+     */
+    static JournalSegmentLog open(Path directory, int segmentSize) {
+        JournalSegmentLog log = new JournalSegmentLog(directory, segmentSize);
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(p -> SEGMENT_NAME.matcher(p.getFileName().toString()).matches())
+                        .sorted()
+                        .toList();
+            }
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                matcher.matches();
+                log.segments.add(log.map(file, Long.parseLong(matcher.group(1))));
+            }
+            if (log.segments.isEmpty()) {
+                log.segments.add(log.map(log.segmentPath(1), 1));
+            }
+            log.recover();
+        } catch (IOException e) {
+            log.close();
+            throw new UncheckedIOException("Cannot open posting journal in " + directory, e);
+        }
+        return log;
+    }
+
+    /**
+     * Append an entry, assigning it the next sequence number.
+     *
+     * @param entry the entry to append; its sequence is ignored
+     * @return the appended entry carrying its assigned sequence
+     */
+    JournalEntry append(JournalEntry entry) {
+        lock.lock();
+        try {
+            JournalEntry sequenced = entry.withSequence(lastSequence + 1);
+            byte[] payload = encode(sequenced);
+            int recordSize = HEADER_BYTES + payload.length;
+            if (recordSize + HEADER_BYTES > segmentSize) {
+                throw new IllegalArgumentException("Journal record exceeds segment size");
+            }
+            if (active.writePosition + recordSize + HEADER_BYTES > segmentSize) {
+                roll(sequenced.sequence());
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            int position = active.writePosition;
+            active.buffer.putInt(position + 4, (int) crc.getValue());
+            active.buffer.put(position + HEADER_BYTES, payload);
+            // The length is written last so a reader never sees a complete header over a partial payload.
+            active.buffer.putInt(position, payload.length);
+            active.writePosition = position + recordSize;
+            lastSequence = sequenced.sequence();
+            return sequenced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Force every record appended so far to stable storage. Callers that arrive while another force is
+     * in progress wait for it and return without forcing again if it already covered their record.
+     *
+     * @param sequence the sequence that must be durable when this method returns
+     */
+    void force(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        forceLock.lock();
+        try {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            long target;
+            MappedByteBuffer buffer;
+            lock.lock();
+            try {
+                target = lastSequence;
+                buffer = active.buffer;
+            } finally {
+                lock.unlock();
+            }
+            buffer.force();
+            durableSequence = target;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Force every record appended so far to stable storage.
+     */
+    void force() {
+        force(getLastSequence());
+    }
+
+    /**
+     * Read every entry with a sequence greater than the given one, in order.
+     *
+     * @param afterSequence the last sequence that does not need to be read
+     * @param consumer receives each entry
+     */
+    void replay(long afterSequence, Consumer<JournalEntry> consumer) {
+        lock.lock();
+        try {
+            for (int i = 0; i < segments.size(); i++) {
+                if (i + 1 < segments.size() && segments.get(i + 1).firstSequence <= afterSequence + 1) {
+                    continue;
+                }
+                Segment segment = segments.get(i);
+                int position = 0;
+                while (position < segment.writePosition) {
+                    int length = segment.buffer.getInt(position);
+                    JournalEntry entry = decode(segment.buffer, position + HEADER_BYTES, length);
+                    if (entry.sequence() > afterSequence) {
+                        consumer.accept(entry);
+                    }
+                    position += HEADER_BYTES + length;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Delete segments whose records are all at or below the given sequence. The active segment is kept.
+     *
+     * @param appliedSequence the highest sequence that no longer needs to be kept
+     */
+    void release(long appliedSequence) {
+        lock.lock();
+        try {
+            while (segments.size() > 1 && segments.get(1).firstSequence - 1 <= appliedSequence) {
+                segments.remove(0).delete();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the sequence of the last appended entry.
+     *
+     * @return the last sequence, or {@code 0} if the journal is empty
+     */
+    long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the sequence up to which entries are known to be on stable storage.
+     *
+     * @return the durable sequence
+     */
+    long getDurableSequence() {
+        return durableSequence;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+            segments.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        Segment last = segments.get(segments.size() - 1);
+        lastSequence = last.firstSequence - 1;
+        for (Segment segment : segments) {
+            boolean isLast = segment == last;
+            int position = 0;
+            while (position + HEADER_BYTES <= segmentSize) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + length > segmentSize) {
+                    break;
+                }
+                CRC32C crc = new CRC32C();
+                crc.update(segment.buffer.slice(position + HEADER_BYTES, length));
+                if ((int) crc.getValue() != segment.buffer.getInt(position + 4)) {
+                    if (!isLast) {
+                        throw new IOException("Corrupt record in sealed journal segment " + segment.path);
+                    }
+                    break;
+                }
+                if (isLast) {
+                    lastSequence = segment.buffer.getLong(position + HEADER_BYTES);
+                }
+                position += HEADER_BYTES + length;
+            }
+            segment.writePosition = position;
+            if (isLast) {
+                // Discard a torn tail so later appends never sit in front of stale bytes.
+                for (int i = position; i < segmentSize; i++) {
+                    segment.buffer.put(i, (byte) 0);
+                }
+                segment.buffer.force();
+            }
+        }
+        active = last;
+        durableSequence = lastSequence;
+    }
+
+    private void roll(long firstSequence) {
+        active.buffer.force();
+        try {
+            active = map(segmentPath(firstSequence), firstSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment", e);
+        }
+        segments.add(active);
+    }
+
+    private Segment map(Path path, long firstSequence) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            return new Segment(firstSequence, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("journal-%020d.log", firstSequence));
+    }
+
+    private static byte[] encode(JournalEntry entry) {
+        byte[] unscaled = entry.amount().unscaledValue().toByteArray();
+        byte[] reference = entry.reference().getBytes(StandardCharsets.UTF_8);
+        byte[] description = entry.description() == null
+                ? new byte[0] : entry.description().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 1 + 8 + 8 + 8 + 4 + 2 + unscaled.length
+                + 2 + reference.length + 2 + description.length);
+        buffer.putLong(entry.sequence());
+        buffer.put((byte) entry.kind().ordinal());
+        buffer.putLong(entry.sourceAccountId());
+        buffer.putLong(entry.destinationAccountId());
+        buffer.putLong(entry.timestamp());
+        buffer.putInt(entry.amount().scale());
+        putBytes(buffer, unscaled);
+        putBytes(buffer, reference);
+        putBytes(buffer, description);
+        return buffer.array();
+    }
+
+    private static JournalEntry decode(ByteBuffer source, int offset, int length) {
+        ByteBuffer buffer = source.slice(offset, length);
+        long sequence = buffer.getLong();
+        JournalEntry.Kind kind = JournalEntry.Kind.values()[buffer.get()];
+        long sourceAccountId = buffer.getLong();
+        long destinationAccountId = buffer.getLong();
+        long timestamp = buffer.getLong();
+        int scale = buffer.getInt();
+        BigDecimal amount = new BigDecimal(new BigInteger(getBytes(buffer)), scale);
+        String reference = new String(getBytes(buffer), StandardCharsets.UTF_8);
+        byte[] description = getBytes(buffer);
+        return new JournalEntry(sequence, kind, sourceAccountId, destinationAccountId, amount, reference,
+                description.length == 0 ? null : new String(description, StandardCharsets.UTF_8), timestamp);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Journal field exceeds 65535 bytes");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static final class Segment {
+        private final long firstSequence;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        private Segment(long firstSequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.firstSequence = firstSequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void delete() {
+            close();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package com.banking.journal;
+
+import com.banking.dto.PostingResult;
+import com.banking.dto.TransferResult;
+import com.banking.model.Account;
+import com.banking.model.JournalCheckpoint;
+import com.banking.model.Money;
+import com.banking.model.ParkedJournalEntry;
+import com.banking.model.Transaction;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.JournalCheckpointRepository;
+import com.banking.repository.ParkedJournalEntryRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.service.AccountLockManager;
+import com.banking.service.AccountSummaryCache;
+import com.banking.service.BalanceSnapshotService;
+import com.banking.service.PostingService;
+import com.banking.service.TransactionFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal mode for postings.
+ * <p>
+ * A posting is validated against the in-memory balance of its accounts, appended to the
+ * {@link JournalSegmentLog} and acknowledged once the configured {@link FsyncPolicy} is satisfied.
+ * A background task then applies journaled postings to the {@code accounts} and {@code transactions}
+ * tables in batches, advancing a {@link JournalCheckpoint} in the same database transaction.
+ * On startup, every entry after the checkpoint is replayed before the journal accepts new postings.
+ * <p>
+ * An entry that keeps failing to apply for a reason other than an unavailable database would hold
+ * back every posting after it. After {@code app.journal.max-apply-attempts} attempts, the last
+ * ones with the entry applied on its own, it is parked: copied to {@link ParkedJournalEntry} in the
+ * transaction that moves the checkpoint past it, taken out of the in-memory balances, logged as an
+ * error and counted as {@code posting.journal.parked}, which should alert an operator.
+ * <p>
+ * The in-memory state of an account is loaded on its first posting. Whether the account is active
+ * is read again from the database at most every {@code app.journal.account-refresh-interval}, so an
+ * account closed outside the journal stops taking postings within that interval.
+ * <p>
+ * While journal mode is enabled the in-memory balances are authoritative, so every balance change
+ * must go through {@link PostingService}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.journal.enabled", havingValue = "true")
+public class PostingJournal {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ParkedJournalEntryRepository parkedEntryRepository;
+
+    @Autowired
+    private TransactionFactory transactionFactory;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private AccountSummaryCache accountSummaryCache;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.journal.name:primary}")
+    private String name;
+
+    @Value("${app.journal.directory:journal}")
+    private String directory;
+
+    @Value("${app.journal.segment-size-bytes:67108864}")
+    private int segmentSize;
+
+    @Value("${app.journal.fsync-policy:ALWAYS}")
+    private FsyncPolicy fsyncPolicy;
+
+    @Value("${app.journal.fsync-interval-ms:10}")
+    private long fsyncIntervalMs;
+
+    @Value("${app.journal.apply-batch-size:500}")
+    private int applyBatchSize;
+
+    @Value("${app.journal.apply-interval-ms:50}")
+    private long applyIntervalMs;
+
+    @Value("${app.journal.max-apply-attempts:10}")
+    private int maxApplyAttempts;
+
+    @Value("${app.journal.account-refresh-interval:PT30S}")
+    private Duration accountRefreshInterval;
+
+    private final Map<Long, AccountState> accountStates = new ConcurrentHashMap<>();
+    private final Queue<JournalEntry> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock applyLock = new ReentrantLock();
+
+    private JournalSegmentLog journalLog;
+    private ScheduledExecutorService executor;
+    private volatile long appliedSequence;
+
+    /**
+     * Failed attempts to apply the entry at the head of {@link #pending}; guarded by {@link #applyLock}.
+     */
+    private int headAttempts;
+
+    private Counter parked;
+
+    @PostConstruct
+    void start() throws InterruptedException {
+        parked = Counter.builder("posting.journal.parked")
+                .description("Journaled postings set aside after repeatedly failing to apply")
+                .register(meterRegistry);
+        journalLog = JournalSegmentLog.open(Paths.get(directory), segmentSize);
+        appliedSequence = checkpointRepository.findById(name)
+                .map(JournalCheckpoint::getLastAppliedSequence)
+                .orElse(0L);
+
+        int[] replayed = {0};
+        journalLog.replay(appliedSequence, entry -> {
+            pending.add(entry);
+            replayed[0]++;
+        });
+        int stalled = 0;
+        while (!pending.isEmpty()) {
+            long before = appliedSequence;
+            applyPending();
+            if (appliedSequence != before) {
+                stalled = 0;
+            } else if (++stalled > maxApplyAttempts) {
+                throw new IllegalStateException("Failed to replay posting journal '" + name + "' from sequence "
+                        + (appliedSequence + 1));
+            } else {
+                Thread.sleep(applyIntervalMs);
+            }
+        }
+        journalLog.release(appliedSequence);
+        log.info("Posting journal '{}' opened at sequence {}, replayed {} entries",
+                name, journalLog.getLastSequence(), replayed[0]);
+
+        executor = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "posting-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::applyPending, applyIntervalMs, applyIntervalMs, TimeUnit.MILLISECONDS);
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            executor.scheduleWithFixedDelay(journalLog::force, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        if (executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            applyPending();
+        } else {
+            log.warn("Posting journal apply task did not stop in time; remaining entries will be replayed on startup");
+        }
+        journalLog.force();
+        journalLog.close();
+    }
+
+    /**
+     * Journal a transfer between two accounts.
+     *
+     * @param sourceAccountId the account to debit
+     * @param destinationAccountId the account to credit
+     * @param amount the amount to transfer
+     * @param description an optional description
+     * @return the references and balances of the transfer
+     */
+    public TransferResult transfer(Long sourceAccountId, Long destinationAccountId, BigDecimal amount, String description) {
+        long[] sequence = new long[1];
+        TransferResult result = accountLockManager.withAccountLocks(sourceAccountId, destinationAccountId, () -> {
+            AccountState source = state(sourceAccountId);
+            AccountState destination = state(destinationAccountId);
+            if (!source.currency.equals(destination.currency)) {
+                throw new IllegalArgumentException("Currency mismatch between accounts");
+            }
+            Money money = Money.of(amount, source.currency);
+            requireFunds(source, money);
+            long destinationBalance = Math.addExact(destination.balance, money.minorUnits());
+            String reference = transactionFactory.newReference();
+            sequence[0] = append(new JournalEntry(0, JournalEntry.Kind.TRANSFER, sourceAccountId, destinationAccountId,
+                    money.toBigDecimal(), reference, description, System.currentTimeMillis()));
+            source.balance -= money.minorUnits();
+            destination.balance = destinationBalance;
+            return new TransferResult(reference + "-D", reference + "-C", source.balance(), destination.balance(), false);
+        });
+        awaitDurable(sequence[0]);
+        return result;
+    }
+
+    /**
+     * Journal a deposit into an account.
+     *
+     * @param accountId the account to credit
+     * @param amount the amount to deposit
+     * @param description an optional description
+     * @return the reference and balance of the posting
+     */
+    public PostingResult deposit(Long accountId, BigDecimal amount, String description) {
+        long[] sequence = new long[1];
+        PostingResult result = accountLockManager.withAccountLock(accountId, () -> {
+            AccountState account = state(accountId);
+            Money money = Money.of(amount, account.currency);
+            long balance = Math.addExact(account.balance, money.minorUnits());
+            String reference = transactionFactory.newReference();
+            sequence[0] = append(new JournalEntry(0, JournalEntry.Kind.DEPOSIT, 0, accountId,
+                    money.toBigDecimal(), reference, description, System.currentTimeMillis()));
+            account.balance = balance;
+            return new PostingResult(reference, account.balance());
+        });
+        awaitDurable(sequence[0]);
+        return result;
+    }
+
+    /**
+     * Journal a withdrawal from an account.
+     *
+     * @param accountId the account to debit
+     * @param amount the amount to withdraw
+     * @param description an optional description
+     * @return the reference and balance of the posting
+     */
+    public PostingResult withdraw(Long accountId, BigDecimal amount, String description) {
+        long[] sequence = new long[1];
+        PostingResult result = accountLockManager.withAccountLock(accountId, () -> {
+            AccountState account = state(accountId);
+            Money money = Money.of(amount, account.currency);
+            requireFunds(account, money);
+            String reference = transactionFactory.newReference();
+            sequence[0] = append(new JournalEntry(0, JournalEntry.Kind.WITHDRAWAL, accountId, 0,
+                    money.toBigDecimal(), reference, description, System.currentTimeMillis()));
+            account.balance -= money.minorUnits();
+            return new PostingResult(reference, account.balance());
+        });
+        awaitDurable(sequence[0]);
+        return result;
+    }
+
+    /**
+     * Get the sequence of the last journaled posting.
+     *
+     * @return the last sequence
+     */
+    public long getLastSequence() {
+        return journalLog.getLastSequence();
+    }
+
+    /**
+     * Get the sequence of the last posting applied to the database.
+     *
+     * @return the applied sequence
+     */
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    private long append(JournalEntry entry) {
+        appendLock.lock();
+        try {
+            JournalEntry sequenced = journalLog.append(entry);
+            pending.add(sequenced);
+            return sequenced.sequence();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            journalLog.force(sequence);
+        }
+    }
+
+    /**
+     * Get the in-memory state of an account. Must be called while holding the lock of the account.
+     */
+    private AccountState state(Long accountId) {
+        AccountState state = accountStates.get(accountId);
+        long now = System.nanoTime();
+        if (state == null) {
+            Account account = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new NoSuchElementException("Account not found: " + accountId));
+            state = new AccountState(account.getBalance().minorUnits(), account.getCurrency(), account.isActive(), now);
+            accountStates.put(accountId, state);
+        } else if (now - state.activeCheckedAt > accountRefreshInterval.toNanos()) {
+            state.active = accountRepository.findActiveById(accountId).orElse(false);
+            state.activeCheckedAt = now;
+        }
+        if (!state.active) {
+            throw new IllegalArgumentException("Account is not active: " + accountId);
+        }
+        return state;
+    }
+
+    private static void requireFunds(AccountState account, Money amount) {
+        if (amount.minorUnits() > account.balance) {
+            throw new IllegalArgumentException("Insufficient funds");
+        }
+    }
+
+    private void applyPending() {
+        applyLock.lock();
+        try {
+            while (applyNext()) {
+                // Keep going until the queue is empty or an entry fails
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to park journal entry {}, will retry", appliedSequence + 1, e);
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    /**
+     * Apply the next batch of pending entries. After a failure, only the entry at the head is
+     * attempted until it is applied or parked.
+     *
+     * @return true if entries were taken off the queue, false if it is empty or the apply failed
+     */
+    private boolean applyNext() {
+        List<JournalEntry> batch = new ArrayList<>();
+        int batchSize = headAttempts > 0 ? 1 : applyBatchSize;
+        Iterator<JournalEntry> iterator = pending.iterator();
+        while (iterator.hasNext() && batch.size() < batchSize) {
+            batch.add(iterator.next());
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
+        try {
+            applyBatch(batch);
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                log.warn("Failed to apply journaled postings, will retry from sequence {}", appliedSequence + 1, e);
+                return false;
+            }
+            headAttempts++;
+            if (batch.size() > 1 || headAttempts < maxApplyAttempts) {
+                log.error("Failed to apply journaled postings, will retry from sequence {} (attempt {} of {})",
+                        appliedSequence + 1, headAttempts, maxApplyAttempts, e);
+                return false;
+            }
+            park(batch.get(0), e);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            pending.poll();
+        }
+        headAttempts = 0;
+        return true;
+    }
+
+    /**
+     * Whether a failure is the database being unavailable rather than a problem with the entries.
+     * Such failures are retried without counting against an entry.
+     */
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    /**
+     * Set aside an entry that cannot be applied, move the checkpoint past it and take it out of the
+     * in-memory balances, so the balances keep matching the database.
+     */
+    private void park(JournalEntry entry, RuntimeException error) {
+        String message = String.valueOf(error.getMessage());
+        transactionTemplate.executeWithoutResult(status -> {
+            parkedEntryRepository.save(ParkedJournalEntry.builder()
+                    .journalName(name)
+                    .journalSequence(entry.sequence())
+                    .kind(entry.kind().name())
+                    .sourceAccountId(entry.sourceAccountId())
+                    .destinationAccountId(entry.destinationAccountId())
+                    .amount(entry.amount())
+                    .reference(entry.reference())
+                    .description(entry.description())
+                    .postedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.timestamp()), ZoneId.systemDefault()))
+                    .attempts(headAttempts)
+                    .lastError(message.length() > 500 ? message.substring(0, 500) : message)
+                    .parkedAt(LocalDateTime.now())
+                    .build());
+            checkpointRepository.save(JournalCheckpoint.builder()
+                    .journalName(name)
+                    .lastAppliedSequence(entry.sequence())
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        });
+        appliedSequence = entry.sequence();
+        journalLog.release(entry.sequence());
+        accountLockManager.withAccountLocks(entry.sourceAccountId(), entry.destinationAccountId(), () -> {
+            revert(entry.sourceAccountId(), entry.amount());
+            revert(entry.destinationAccountId(), entry.amount().negate());
+            return null;
+        });
+        parked.increment();
+        log.error("Parked journal entry {} ({} {} of {}, from account {} to account {}) after {} failed attempts; "
+                        + "the posting is not reflected in any balance and must be resolved by an operator",
+                entry.sequence(), entry.kind(), entry.reference(), entry.amount(), entry.sourceAccountId(),
+                entry.destinationAccountId(), headAttempts, error);
+    }
+
+    private void revert(long accountId, BigDecimal debited) {
+        AccountState state = accountStates.get(accountId);
+        if (accountId != 0 && state != null) {
+            state.balance = Math.addExact(state.balance, Money.of(debited, state.currency).minorUnits());
+        }
+    }
+
+    private void applyBatch(List<JournalEntry> batch) {
+        long lastSequence = batch.get(batch.size() - 1).sequence();
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Long> accountIds = new HashSet<>();
+            for (JournalEntry entry : batch) {
+                accountIds.add(entry.sourceAccountId());
+                accountIds.add(entry.destinationAccountId());
+            }
+            accountIds.remove(0L);
+            Map<Long, Account> accounts = new HashMap<>();
+            for (Account account : accountRepository.findAllById(accountIds)) {
+                accounts.put(account.getId(), account);
+            }
+
+            List<Transaction> rows = new ArrayList<>();
+            for (JournalEntry entry : batch) {
+                Account source = accounts.get(entry.sourceAccountId());
+                Account destination = accounts.get(entry.destinationAccountId());
+                if ((entry.sourceAccountId() != 0 && source == null)
+                        || (entry.destinationAccountId() != 0 && destination == null)) {
+                    log.error("Skipping journal entry {} ({}): account no longer exists", entry.sequence(), entry.reference());
+                    continue;
+                }
+                LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.timestamp()), ZoneId.systemDefault());
+                switch (entry.kind()) {
+                    case DEPOSIT -> {
+                        Money amount = Money.of(entry.amount(), destination.getCurrency());
+                        destination.setBalance(destination.getBalance().plus(amount));
+                        rows.add(transactionFactory.build(destination, PostingService.DEPOSIT,
+                                Transaction.Direction.CREDIT, amount,
+                                entry.description(), entry.reference(), date));
+                    }
+                    case WITHDRAWAL -> {
+                        Money amount = Money.of(entry.amount(), source.getCurrency());
+                        source.setBalance(source.getBalance().minus(amount));
+                        rows.add(transactionFactory.build(source, PostingService.WITHDRAWAL,
+                                Transaction.Direction.DEBIT, amount,
+                                entry.description(), entry.reference(), date));
+                    }
+                    case TRANSFER -> {
+                        Money amount = Money.of(entry.amount(), source.getCurrency());
+                        source.setBalance(source.getBalance().minus(amount));
+                        destination.setBalance(destination.getBalance().plus(amount));
+                        Transaction debit = transactionFactory.build(source, PostingService.TRANSFER_OUT,
+                                Transaction.Direction.DEBIT, amount, entry.description(), entry.reference() + "-D", date);
+                        debit.setSourceAccount(source);
+                        debit.setDestinationAccount(destination);
+                        Transaction credit = transactionFactory.build(destination, PostingService.TRANSFER_IN,
+                                Transaction.Direction.CREDIT, amount, entry.description(), entry.reference() + "-C", date);
+                        credit.setSourceAccount(source);
+                        credit.setDestinationAccount(destination);
+                        rows.add(debit);
+                        rows.add(credit);
+                    }
+                }
+            }
+            transactionRepository.saveAll(rows);
+            Map<Long, List<Transaction>> rowsByAccount = new HashMap<>();
+            for (Transaction row : rows) {
+                rowsByAccount.computeIfAbsent(row.getAccount().getId(), id -> new ArrayList<>()).add(row);
+            }
+            rowsByAccount.forEach((accountId, accountRows) -> {
+                balanceSnapshotService.recordPostings(accounts.get(accountId), accountRows);
+                accountSummaryCache.recordPosting(accounts.get(accountId));
+            });
+            checkpointRepository.save(JournalCheckpoint.builder()
+                    .journalName(name)
+                    .lastAppliedSequence(lastSequence)
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        });
+        appliedSequence = lastSequence;
+        journalLog.release(lastSequence);
+    }
+
+    private static final class AccountState {
+        private long balance;
+        private final String currency;
+        private boolean active;
+        private long activeCheckedAt;
+
+        private AccountState(long balance, String currency, boolean active, long activeCheckedAt) {
+            this.balance = balance;
+            this.currency = currency;
+            this.active = active;
+            this.activeCheckedAt = activeCheckedAt;
+        }
+
+        private Money balance() {
+            return Money.ofMinor(balance, currency);
+        }
+    }
+}
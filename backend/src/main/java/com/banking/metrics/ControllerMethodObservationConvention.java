@@ -0,0 +1,41 @@
+package com.banking.metrics;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Tags the {@code http.server.requests} metrics with the controller method that served the
+ * request, e.g. {@code handler=BillController.getAllBills}, next to the default {@code uri},
+ * {@code method}, {@code status} and {@code outcome} tags.
+ */
+@Component
+public class ControllerMethodObservationConvention extends DefaultServerRequestObservationConvention {
+
+    static final String HANDLER = "handler";
+
+    static final String NONE = "none";
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and(KeyValue.of(HANDLER, handlerName(context.getCarrier())));
+    }
+
+    /**
+     * Get the name of the controller method a request was dispatched to.
+     *
+     * @param request the request
+     * @return the simple class name and method name, or {@code none} if no controller method handled it
+     */
+    static String handlerName(HttpServletRequest request) {
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+            return handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,44 @@
+package com.banking.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how many SQL statements a request to a controller method, or to every method of a
+ * controller, may execute.
+ * <p>
+ * Requests to endpoints without the annotation get {@code app.sql.query-budget.default-max}.
+ * A request that goes over its budget, or runs the same query
+ * {@code app.sql.query-budget.repeat-threshold} times, is reported by the
+ * {@link RequestMetricsFilter}, and fails when {@code app.sql.query-budget.fail-on-violation} is
+ * set, as it is in the {@code test} profile.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface QueryBudget {
+
+    /**
+     * Budget of endpoints whose statement count grows with their input by design, such as bulk
+     * jobs.
+     */
+    int UNLIMITED = -1;
+
+    /**
+     * The maximum number of statements a request may execute, or {@link #UNLIMITED}.
+     *
+     * @return the budget
+     */
+    int value();
+
+    /**
+     * Whether the same query running repeatedly is reported as a likely N+1. Turn it off for
+     * endpoints that work through their input in chunks.
+     *
+     * @return {@code true} to report repeated queries
+     */
+    boolean detectRepeats() default true;
+}
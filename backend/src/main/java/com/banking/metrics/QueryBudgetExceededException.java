@@ -0,0 +1,12 @@
+package com.banking.metrics;
+
+/**
+ * Thrown when a request goes over its {@link QueryBudget} or runs the same query repeatedly while
+ * {@code app.sql.query-budget.fail-on-violation} is set.
+ */
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
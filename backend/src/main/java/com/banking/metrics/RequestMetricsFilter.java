@@ -0,0 +1,109 @@
+package com.banking.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL work of every request, tagged like {@code http.server.requests} with the
+ * {@code uri}, {@code method} and {@code handler} that served it:
+ * <ul>
+ *     <li>{@code http.server.requests.sql.statements}: statements and batches executed</li>
+ *     <li>{@code http.server.requests.sql.time}: time spent executing them</li>
+ *     <li>{@code http.server.requests.connection.wait}: time spent waiting for pooled connections</li>
+ * </ul>
+ * Requests that executed no statement are recorded too, so the statement count of an endpoint
+ * shows how often it is served without the database. Only the work done on the request thread
+ * before the response is committed or handed to an asynchronous handler is counted.
+ * <p>
+ * With {@code app.sql.query-budget.enabled}, every request is also held to its
+ * {@link QueryBudget}. Violations are logged and counted as
+ * {@code http.server.requests.sql.budget.violations}, tagged with their {@code kind}:
+ * {@code budget} for too many statements, {@code repeat} for the same query run
+ * {@code app.sql.query-budget.repeat-threshold} times, the usual sign of an N+1.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.sql.query-budget.enabled:true}")
+    private boolean budgetEnabled;
+
+    @Value("${app.sql.query-budget.default-max:100}")
+    private int defaultMaxStatements;
+
+    @Value("${app.sql.query-budget.repeat-threshold:10}")
+    private int repeatThreshold;
+
+    @Value("${app.sql.query-budget.fail-on-violation:false}")
+    private boolean failOnViolation;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestSqlStats stats = budgetEnabled
+                ? RequestSqlStats.begin(defaultMaxStatements, repeatThreshold, failOnViolation)
+                : RequestSqlStats.begin(QueryBudget.UNLIMITED, 0, false);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestSqlStats.end(stats);
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestSqlStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of(
+                "uri", pattern != null ? pattern.toString() : "UNKNOWN",
+                "method", request.getMethod(),
+                ControllerMethodObservationConvention.HANDLER, ControllerMethodObservationConvention.handlerName(request));
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements executed per request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        Timer.builder("http.server.requests.sql.time")
+                .description("Time spent executing SQL statements per request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getStatementNanos(), TimeUnit.NANOSECONDS);
+        Timer.builder("http.server.requests.connection.wait")
+                .description("Time spent waiting for pooled database connections per request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getConnectionWaitNanos(), TimeUnit.NANOSECONDS);
+        for (RequestSqlStats.Violation violation : stats.getViolations()) {
+            Counter.builder("http.server.requests.sql.budget.violations")
+                    .description("Requests that went over their SQL query budget")
+                    .tags(tags)
+                    .tag("kind", violation.kind())
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("{} {} ({}) went over its query budget with {} statements: {}", request.getMethod(),
+                    request.getRequestURI(), ControllerMethodObservationConvention.handlerName(request),
+                    stats.getStatements(), violation.message());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.banking.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SQL work of the request being served on the current thread.
+ * <p>
+ * {@link RequestMetricsFilter} opens the stats when a request arrives and records them as meters
+ * once it completes; {@link SqlStatementInspector} counts every statement Hibernate prepares on
+ * the same thread, and {@link SqlStatementListener} adds the time spent running them. Work handed
+ * to other threads, such as the background part of an asynchronous request, is not attributed to
+ * the request.
+ * <p>
+ * The stats also check the statements against the {@link QueryBudget} of the request: going over
+ * the budget, or preparing the same query often enough to suggest an N+1, is recorded as a
+ * {@link Violation}, and throws a {@link QueryBudgetExceededException} in fail-on-violation mode.
+ */
+public final class RequestSqlStats {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private final boolean failOnViolation;
+    private int maxStatements;
+    private int repeatThreshold;
+
+    private int statements;
+    private long statementNanos;
+    private long connectionWaitNanos;
+    private Map<String, Integer> selects;
+    private List<Violation> violations;
+
+    private RequestSqlStats(int maxStatements, int repeatThreshold, boolean failOnViolation) {
+        this.maxStatements = maxStatements;
+        this.repeatThreshold = repeatThreshold;
+        this.failOnViolation = failOnViolation;
+    }
+
+    /**
+     * A request going over its budget.
+     *
+     * @param kind {@code budget} for too many statements, {@code repeat} for a repeated query
+     * @param message the description of the violation
+     */
+    public record Violation(String kind, String message) {
+    }
+
+    /**
+     * Start collecting the SQL work of the current thread.
+     *
+     * @param maxStatements the budget of the request, or {@link QueryBudget#UNLIMITED}
+     * @param repeatThreshold the number of runs of the same query reported as an N+1, or 0 not to report them
+     * @param failOnViolation whether a violation fails the request
+     * @return the stats, to be passed to {@link #end(RequestSqlStats)}
+     */
+    static RequestSqlStats begin(int maxStatements, int repeatThreshold, boolean failOnViolation) {
+        RequestSqlStats stats = new RequestSqlStats(maxStatements, repeatThreshold, failOnViolation);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * Stop collecting the SQL work of the current thread.
+     *
+     * @param stats the stats returned by {@link #begin(int, int, boolean)}
+     */
+    static void end(RequestSqlStats stats) {
+        if (CURRENT.get() == stats) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Get the stats collected on the current thread.
+     *
+     * @return the stats, or {@code null} outside of a request
+     */
+    static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Replace the default budget with the one declared by the endpoint.
+     */
+    void applyBudget(int maxStatements, boolean detectRepeats) {
+        this.maxStatements = maxStatements;
+        if (!detectRepeats) {
+            this.repeatThreshold = 0;
+        }
+    }
+
+    void statementPrepared(String sql) {
+        statements++;
+        if (maxStatements != QueryBudget.UNLIMITED && statements == maxStatements + 1) {
+            violate("budget", "Executed more than " + maxStatements + " SQL statements");
+        }
+        if (repeatThreshold > 0 && isSelect(sql)) {
+            if (selects == null) {
+                selects = new HashMap<>();
+            }
+            if (selects.merge(sql, 1, Integer::sum) == repeatThreshold) {
+                violate("repeat", "Executed the same query " + repeatThreshold + " times, likely an N+1: " + sql);
+            }
+        }
+    }
+
+    void statementExecuted(long nanos) {
+        statementNanos += nanos;
+    }
+
+    void connectionAcquired(long nanos) {
+        connectionWaitNanos += nanos;
+    }
+
+    private void violate(String kind, String message) {
+        if (violations == null) {
+            violations = new ArrayList<>(2);
+        }
+        violations.add(new Violation(kind, message));
+        if (failOnViolation) {
+            throw new QueryBudgetExceededException(message);
+        }
+    }
+
+    private static boolean isSelect(String sql) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, "select", 0, 6) || sql.regionMatches(true, start, "with", 0, 4);
+    }
+
+    /**
+     * Get the number of statements prepared.
+     *
+     * @return the statement count
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * Get the time spent executing statements.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getStatementNanos() {
+        return statementNanos;
+    }
+
+    /**
+     * Get the time spent waiting for pooled connections.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getConnectionWaitNanos() {
+        return connectionWaitNanos;
+    }
+
+    /**
+     * Get the budget violations of the request.
+     *
+     * @return the violations, empty if the request kept to its budget
+     */
+    public List<Violation> getViolations() {
+        return violations != null ? violations : List.of();
+    }
+}
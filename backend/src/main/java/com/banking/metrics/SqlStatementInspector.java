@@ -0,0 +1,22 @@
+package com.banking.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector that counts the statements of the request being served on the
+ * current thread and checks them against its {@link QueryBudget}. The SQL is not changed.
+ * <p>
+ * Registered through {@code hibernate.session_factory.statement_inspector}; it is called before
+ * a statement is prepared, so a request that fails its budget stops before the statement runs.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.statementPrepared(sql);
+        }
+        return sql;
+    }
+}
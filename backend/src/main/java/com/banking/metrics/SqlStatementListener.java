@@ -0,0 +1,56 @@
+package com.banking.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Hibernate session listener that adds the time spent running the statements of a session, and
+ * acquiring its connection, to the {@link RequestSqlStats} of the current thread.
+ * <p>
+ * Registered through {@code hibernate.session.events.auto}, so Hibernate creates one per session;
+ * a session is used by one thread at a time, which keeps the start times plain fields.
+ */
+public class SqlStatementListener implements SessionEventListener {
+
+    private long statementStart;
+    private long acquisitionStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        statementEnded();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        statementEnded();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquisitionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.connectionAcquired(System.nanoTime() - acquisitionStart);
+        }
+    }
+
+    private void statementEnded() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.statementExecuted(System.nanoTime() - statementStart);
+        }
+    }
+}
@@ -1,19 +1,22 @@
 package com.banking.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -31,7 +34,8 @@ import java.util.Set;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -44,12 +48,15 @@ public class Account {
     private User user;
 
     @ManyToOne(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "account_type_id", nullable = false)
     private AccountType accountType;
 
-    @NotNull
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(name = "balance", nullable = false)
-    private BigDecimal balance;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long balanceMinorUnits;
 
     @NotBlank
     @Size(min = 3, max = 3)
@@ -65,6 +72,7 @@ public class Account {
     @Column(name = "closed_date")
     private LocalDateTime closedDate;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
     private Set<Transaction> transactions = new HashSet<>();
@@ -101,18 +109,39 @@ public class Account {
         return this;
     }
 
+    /**
+     * Get the balance of the account.
+     *
+     * @return The balance in the account currency
+     */
+    public Money getBalance() {
+        return Money.ofMinor(balanceMinorUnits, currency);
+    }
+
+    /**
+     * Set the balance of the account. The balance also sets the account currency.
+     *
+     * @param balance The new balance
+     */
+    public void setBalance(Money balance) {
+        this.balanceMinorUnits = balance.minorUnits();
+        this.currency = balance.currency();
+    }
+
     /**
      * Method to deposit money into the account.
      *
      * @param amount The amount to deposit
      * @return The updated account
-     * @throws IllegalArgumentException if amount is negative or zero
+     * @throws IllegalArgumentException if amount is negative or zero, or in another currency
+     * @throws ArithmeticException if the balance would overflow
      */
-    public Account deposit(@Positive BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public Account deposit(Money amount) {
+        requireAccountCurrency(amount);
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("Deposit amount must be positive");
         }
-        this.balance = this.balance.add(amount);
+        this.balanceMinorUnits = Math.addExact(this.balanceMinorUnits, amount.minorUnits());
         return this;
     }
 
@@ -121,16 +150,17 @@ public class Account {
      *
      * @param amount The amount to withdraw
      * @return The updated account
-     * @throws IllegalArgumentException if amount is negative, zero, or exceeds balance
+     * @throws IllegalArgumentException if amount is negative, zero, exceeds balance, or is in another currency
      */
-    public Account withdraw(@Positive BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public Account withdraw(Money amount) {
+        requireAccountCurrency(amount);
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("Withdrawal amount must be positive");
         }
-        if (amount.compareTo(this.balance) > 0) {
+        if (amount.minorUnits() > this.balanceMinorUnits) {
             throw new IllegalArgumentException("Insufficient funds");
         }
-        this.balance = this.balance.subtract(amount);
+        this.balanceMinorUnits -= amount.minorUnits();
         return this;
     }
 
@@ -140,7 +170,32 @@ public class Account {
      * @param amount The amount to check
      * @return true if sufficient funds are available, false otherwise
      */
-    public boolean hasSufficientFunds(BigDecimal amount) {
-        return this.balance.compareTo(amount) >= 0;
+    public boolean hasSufficientFunds(Money amount) {
+        requireAccountCurrency(amount);
+        return this.balanceMinorUnits >= amount.minorUnits();
+    }
+
+    private void requireAccountCurrency(Money amount) {
+        if (!amount.currency().equals(currency)) {
+            throw new IllegalArgumentException("Currency does not match account");
+        }
+    }
+
+    /**
+     * Builder additions for the fields that are not exposed as properties.
+     */
+    public static class AccountBuilder {
+
+        /**
+         * Set the opening balance. The balance also sets the account currency.
+         *
+         * @param balance The balance
+         * @return This builder
+         */
+        public AccountBuilder balance(Money balance) {
+            this.balanceMinorUnits = balance.minorUnits();
+            this.currency = balance.currency();
+            return this;
+        }
     }
 }
\ No newline at end of file
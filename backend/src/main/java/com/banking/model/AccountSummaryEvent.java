@@ -0,0 +1,49 @@
+package com.banking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity recording that the accounts of a user changed, for the account summary caches of the
+ * other instances.
+ * <p>
+ * The row is written in the database transaction of the posting, so it is seen if and only if the
+ * posting commits. It only names the user; instances that see it drop their cached summaries of
+ * the user. See {@code AccountSummaryCache}.
+ */
+@Entity
+@Table(name = "account_summary_events", indexes = {
+        @Index(name = "idx_account_summary_events_created", columnList = "created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountSummaryEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_summary_events_seq")
+    @SequenceGenerator(name = "account_summary_events_seq", sequenceName = "account_summary_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "origin_node", nullable = false)
+    private int originNode;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.banking.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -8,6 +9,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -19,6 +23,10 @@ import java.util.Set;
 
 /**
  * Entity representing a type of bank account in the system.
+ * <p>
+ * Reference data: rows are served from the read-only {@code account-types} second-level cache region
+ * and must not be updated in place. The entity is immutable, so Hibernate ignores changes to a loaded
+ * row, and {@code updatedAt} is only set when the row is inserted.
  */
 @Entity
 @Table(name = "account_types")
@@ -27,6 +35,9 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "account-types")
 public class AccountType {
 
     @Id
@@ -53,6 +64,7 @@ public class AccountType {
     @Column(name = "monthly_fee", nullable = false)
     private BigDecimal monthlyFee;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "accountType", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
     private Set<Account> accounts = new HashSet<>();
@@ -62,7 +74,7 @@ public class AccountType {
     private LocalDateTime createdAt;
 
     @LastModifiedDate
-    @Column(name = "updated_at", nullable = false)
+    @Column(name = "updated_at", nullable = false, updatable = false)
     private LocalDateTime updatedAt;
 
     /**
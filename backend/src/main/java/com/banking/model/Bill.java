@@ -18,9 +18,14 @@ import java.time.LocalDateTime;
 
 /**
  * Entity representing a bill in the banking system.
+ * <p>
+ * A {@link #STATUS_PENDING} bill with a payment account is paid automatically by the bill run once
+ * its due date arrives; see {@code BillRunService}.
  */
 @Entity
-@Table(name = "bills")
+@Table(name = "bills", indexes = {
+        @Index(name = "idx_bills_status_due_date", columnList = "status, due_date, user_id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -28,8 +33,13 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class Bill {
 
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_PAID = "PAID";
+    public static final String STATUS_FAILED = "FAILED";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bills_seq")
+    @SequenceGenerator(name = "bills_seq", sequenceName = "bills_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -65,6 +75,20 @@ public class Bill {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @Column(name = "payment_account_id")
+    private Long paymentAccountId;
+
+    @Column(name = "paid_at")
+    private LocalDateTime paidAt;
+
+    @Size(max = 50)
+    @Column(name = "payment_reference")
+    private String paymentReference;
+
+    @Size(max = 255)
+    @Column(name = "payment_failure_reason")
+    private String paymentFailureReason;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
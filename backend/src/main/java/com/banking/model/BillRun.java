@@ -0,0 +1,71 @@
+package com.banking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity recording a bill run: the automatic payment of every bill due on or before a run date.
+ * <p>
+ * There is one run per date. Its work is split into {@link BillRunPartition}s, which carry the
+ * checkpoint a stopped run is resumed from.
+ */
+@Entity
+@Table(name = "bill_runs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_bill_runs_run_date", columnNames = "run_date")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bill_runs_seq")
+    @SequenceGenerator(name = "bill_runs_seq", sequenceName = "bill_runs_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "partition_count", nullable = false)
+    private int partitionCount;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * Enum representing the state of a bill run.
+     */
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        INCOMPLETE
+    }
+}
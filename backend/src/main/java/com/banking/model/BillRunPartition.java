@@ -0,0 +1,70 @@
+package com.banking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity recording the progress of one partition of a {@link BillRun}.
+ * <p>
+ * A partition covers the bills of the users whose id modulo the partition count equals
+ * {@link #partitionNo}. The row is updated in the same database transaction as every chunk of
+ * payments it covers, so its counts always match what was committed, and a resumed run skips
+ * partitions that are already {@link Status#COMPLETED}.
+ */
+@Entity
+@Table(name = "bill_run_partitions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_bill_run_partitions_run_partition", columnNames = {"run_id", "partition_no"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillRunPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bill_run_partitions_seq")
+    @SequenceGenerator(name = "bill_run_partitions_seq", sequenceName = "bill_run_partitions_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "paid_count", nullable = false)
+    private long paidCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Enum representing the state of a bill run partition.
+     */
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED
+    }
+}
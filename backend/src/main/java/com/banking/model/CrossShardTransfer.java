@@ -0,0 +1,87 @@
+package com.banking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entity recording a transfer between accounts on different shards.
+ * <p>
+ * The row is written on the shard of the source account, in the transaction that debits it, and
+ * stays {@link Status#DEBITED} until the destination shard has been credited. A transfer that
+ * cannot be credited is {@link Status#REVERSED}: the amount is paid back to the source account.
+ * Transfers left debited by a failure are finished by {@code CrossShardTransferRecovery}.
+ */
+@Entity
+@Table(name = "cross_shard_transfers", indexes = {
+        @Index(name = "idx_cross_shard_transfers_status_updated", columnList = "status, updated_at"),
+        @Index(name = "idx_cross_shard_transfers_source_account", columnList = "source_account_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrossShardTransfer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cross_shard_transfers_seq")
+    @SequenceGenerator(name = "cross_shard_transfers_seq", sequenceName = "cross_shard_transfers_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "reference", nullable = false, unique = true, length = 50)
+    private String reference;
+
+    @Column(name = "source_account_id", nullable = false)
+    private Long sourceAccountId;
+
+    @Column(name = "destination_account_id", nullable = false)
+    private Long destinationAccountId;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "description")
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Enum representing the progress of a cross-shard transfer.
+     */
+    public enum Status {
+        DEBITED,
+        COMPLETED,
+        REVERSED
+    }
+}
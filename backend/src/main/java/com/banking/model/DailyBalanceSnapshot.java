@@ -0,0 +1,46 @@
+package com.banking.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity holding the end-of-day balance of an account for a day on which it had activity.
+ */
+@Entity
+@Table(name = "daily_balance_snapshots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_balance_snapshots_account_date", columnNames = {"account_id", "balance_date"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyBalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_balance_snapshots_seq")
+    @SequenceGenerator(name = "daily_balance_snapshots_seq", sequenceName = "daily_balance_snapshots_seq", allocationSize = 50)
+    private Long id;
+
+    @NotNull
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @NotNull
+    @Column(name = "balance_date", nullable = false)
+    private LocalDate balanceDate;
+
+    @NotNull
+    @Column(name = "closing_balance", nullable = false)
+    private BigDecimal closingBalance;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
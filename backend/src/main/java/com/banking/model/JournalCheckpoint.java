@@ -0,0 +1,37 @@
+package com.banking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity recording how far a posting journal has been applied to the database.
+ * <p>
+ * The row is updated in the same database transaction as the postings it covers, so after a
+ * crash the journal is replayed from exactly the first entry that was not committed.
+ */
+@Entity
+@Table(name = "journal_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalCheckpoint {
+
+    @Id
+    @Column(name = "journal_name", length = 50)
+    private String journalName;
+
+    @Column(name = "last_applied_sequence", nullable = false)
+    private long lastAppliedSequence;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,212 @@
+package com.banking.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * An amount of money held as a count of minor units plus an ISO 4217 currency code.
+ * <p>
+ * Minor units are hundredths of the currency unit for every currency, matching the
+ * {@code DECIMAL(19, 2)} amount columns. Arithmetic is done on the {@code long} and fails with an
+ * {@link ArithmeticException} on overflow instead of wrapping. Combining amounts in different
+ * currencies fails with an {@link IllegalArgumentException}.
+ * <p>
+ * In JSON a {@code Money} is written as a plain decimal number so existing clients keep working;
+ * the currency is carried by the enclosing object. It is read from {@code {"amount": .., "currency": ..}}
+ * or from a string such as {@code "125.50 USD"}.
+ *
+ * @param minorUnits the amount in hundredths of the currency unit
+ * @param currency the ISO 4217 currency code
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public record Money(long minorUnits, String currency) implements Comparable<Money> {
+
+    /**
+     * The number of decimal places of every amount.
+     */
+    public static final int SCALE = 2;
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    /**
+     * Create an amount from a decimal value.
+     *
+     * @param amount the decimal amount
+     * @param currency the currency code
+     * @return the amount
+     * @throws IllegalArgumentException if the amount has more than {@link #SCALE} decimal places or is out of range
+     */
+    public static Money of(BigDecimal amount, String currency) {
+        try {
+            return new Money(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places and fit in "
+                    + Long.MAX_VALUE + " minor units: " + amount);
+        }
+    }
+
+    /**
+     * Create an amount from a count of minor units.
+     *
+     * @param minorUnits the amount in hundredths of the currency unit
+     * @param currency the currency code
+     * @return the amount
+     */
+    public static Money ofMinor(long minorUnits, String currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * Create a zero amount.
+     *
+     * @param currency the currency code
+     * @return the amount
+     */
+    public static Money zero(String currency) {
+        return new Money(0, currency);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long factor) {
+        return new Money(Math.multiplyExact(minorUnits, factor), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    /**
+     * Check whether this amount is at least another one.
+     *
+     * @param other the amount to compare with, in the same currency
+     * @return true if this amount is greater than or equal to {@code other}
+     */
+    public boolean isAtLeast(Money other) {
+        requireSameCurrency(other);
+        return minorUnits >= other.minorUnits;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    /**
+     * Convert the amount to a decimal value with {@link #SCALE} decimal places.
+     *
+     * @return the decimal amount
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Format the amount as a plain decimal string without the currency, e.g. {@code -125.50}.
+     *
+     * @return the formatted amount
+     */
+    public String toPlainString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString() + " " + currency;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+
+    /**
+     * Writes a {@link Money} as a decimal number.
+     */
+    public static class Serializer extends JsonSerializer<Money> {
+
+        @Override
+        public void serialize(Money value, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            generator.writeNumber(value.toBigDecimal());
+        }
+    }
+
+    /**
+     * Reads a {@link Money} from an {@code {"amount", "currency"}} object or an {@code "<amount> <currency>"} string.
+     */
+    public static class Deserializer extends JsonDeserializer<Money> {
+
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            try {
+                if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                    String[] parts = parser.getText().trim().split("\\s+");
+                    if (parts.length == 2) {
+                        return Money.of(new BigDecimal(parts[0]), parts[1]);
+                    }
+                } else if (parser.currentToken() == JsonToken.START_OBJECT) {
+                    // Read the fields from the tokens: a tree would hold the amount as a double.
+                    BigDecimal amount = null;
+                    String currency = null;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.currentName();
+                        JsonToken value = parser.nextToken();
+                        if ("amount".equals(field) && value.isNumeric()) {
+                            amount = parser.getDecimalValue();
+                        } else if ("amount".equals(field) && value == JsonToken.VALUE_STRING) {
+                            amount = new BigDecimal(parser.getText().trim());
+                        } else if ("currency".equals(field) && value == JsonToken.VALUE_STRING) {
+                            currency = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    if (amount != null && currency != null) {
+                        return Money.of(amount, currency);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                throw InvalidFormatException.from(parser, e.getMessage(), null, Money.class);
+            }
+            return (Money) context.handleUnexpectedToken(Money.class, parser);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.banking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entity holding a posting journal entry that could not be applied to the database.
+ * <p>
+ * After {@code app.journal.max-apply-attempts} failed attempts the entry is copied here, in the
+ * transaction that moves the journal checkpoint past it, so the postings behind it are applied.
+ * The posting is not reflected in any balance; an operator has to resolve it. See
+ * {@code PostingJournal}.
+ */
+@Entity
+@Table(name = "journal_parked_entries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_journal_parked_entries_sequence", columnNames = {"journal_name", "journal_sequence"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParkedJournalEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "journal_parked_entries_seq")
+    @SequenceGenerator(name = "journal_parked_entries_seq", sequenceName = "journal_parked_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "journal_name", nullable = false, length = 50)
+    private String journalName;
+
+    @Column(name = "journal_sequence", nullable = false)
+    private long journalSequence;
+
+    @Column(name = "kind", nullable = false, length = 20)
+    private String kind;
+
+    @Column(name = "source_account_id", nullable = false)
+    private long sourceAccountId;
+
+    @Column(name = "destination_account_id", nullable = false)
+    private long destinationAccountId;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "reference", nullable = false, length = 50)
+    private String reference;
+
+    @Column(name = "description", length = 65535)
+    private String description;
+
+    @Column(name = "posted_at", nullable = false)
+    private LocalDateTime postedAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "parked_at", nullable = false)
+    private LocalDateTime parkedAt;
+}
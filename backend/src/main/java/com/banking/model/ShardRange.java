@@ -0,0 +1,53 @@
+package com.banking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing one range of the shard map: the users from {@code firstUserId} up to the
+ * first user id of the next range live on {@code shardId}.
+ * <p>
+ * The ranges are kept in the directory database, shard 0, and read by every instance. A range is
+ * {@link Status#MOVING} while a rebalance copies its users to another shard; the requests and
+ * postings of those users are turned away until the range is active again.
+ */
+@Entity
+@Table(name = "shard_ranges")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardRange {
+
+    @Id
+    @Column(name = "first_user_id")
+    private Long firstUserId;
+
+    @Column(name = "shard_id", nullable = false)
+    private int shardId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Enum representing whether the users of a range can be served.
+     */
+    public enum Status {
+        ACTIVE,
+        MOVING
+    }
+}
@@ -4,22 +4,31 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
  * Entity representing a financial transaction in the banking system.
+ * <p>
+ * The source and destination accounts of a transfer can live on different shards, so they are
+ * not foreign keys; only the account the transaction is posted to is.
  */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_account_date_id", columnList = "account_id, transaction_date, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -28,7 +37,8 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -41,12 +51,20 @@ public class Transaction {
     private Account account;
 
     @ManyToOne(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "transaction_type_id", nullable = false)
     private TransactionType transactionType;
 
-    @NotNull
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(name = "amount", nullable = false)
-    private BigDecimal amount;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long amountMinorUnits;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "direction", nullable = false)
+    private Direction direction;
 
     @NotBlank
     @Size(min = 3, max = 3)
@@ -62,11 +80,11 @@ public class Transaction {
     private TransactionStatus status;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "source_account_id")
+    @JoinColumn(name = "source_account_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Account sourceAccount;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "destination_account_id")
+    @JoinColumn(name = "destination_account_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Account destinationAccount;
 
     @NotNull
@@ -81,6 +99,51 @@ public class Transaction {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Get the amount of the transaction.
+     *
+     * @return The amount in the transaction currency
+     */
+    public Money getAmount() {
+        return Money.ofMinor(amountMinorUnits, currency);
+    }
+
+    /**
+     * Set the amount of the transaction. The amount also sets the transaction currency.
+     *
+     * @param amount The new amount
+     */
+    public void setAmount(Money amount) {
+        this.amountMinorUnits = amount.minorUnits();
+        this.currency = amount.currency();
+    }
+
+    /**
+     * Builder additions for the fields that are not exposed as properties.
+     */
+    public static class TransactionBuilder {
+
+        /**
+         * Set the amount. The amount also sets the transaction currency.
+         *
+         * @param amount The amount
+         * @return This builder
+         */
+        public TransactionBuilder amount(Money amount) {
+            this.amountMinorUnits = amount.minorUnits();
+            this.currency = amount.currency();
+            return this;
+        }
+    }
+
+    /**
+     * Enum representing whether a transaction adds to or takes from the account balance.
+     */
+    public enum Direction {
+        CREDIT,
+        DEBIT
+    }
+
     /**
      * Enum representing the status of a transaction.
      */
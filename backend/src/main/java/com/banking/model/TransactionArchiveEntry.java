@@ -0,0 +1,66 @@
+package com.banking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing the per-account index entry of an archive segment, with the compressed
+ * block of the account's archived transactions it points to.
+ * <p>
+ * The date range, row count and net change let readers skip or sum a block without inflating it;
+ * see {@code TransactionArchive}. The block format is defined by {@code ArchiveBlockCodec}.
+ */
+@Entity
+@Table(name = "transaction_archive_entries", indexes = {
+        @Index(name = "idx_transaction_archive_entries_account_dates", columnList = "account_id, last_date, first_date"),
+        @Index(name = "idx_transaction_archive_entries_segment", columnList = "segment_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionArchiveEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_archive_entries_seq")
+    @SequenceGenerator(name = "transaction_archive_entries_seq", sequenceName = "transaction_archive_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "segment_id", nullable = false)
+    private Long segmentId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "first_date", nullable = false)
+    private LocalDateTime firstDate;
+
+    @Column(name = "last_date", nullable = false)
+    private LocalDateTime lastDate;
+
+    @Column(name = "row_count", nullable = false)
+    private int rowCount;
+
+    /**
+     * Sum of the signed amounts of the block in minor units, credits positive.
+     */
+    @Column(name = "net_minor_units", nullable = false)
+    private long netMinorUnits;
+
+    @Lob
+    @Column(name = "data", nullable = false, length = 16777215)
+    private byte[] data;
+}
@@ -0,0 +1,79 @@
+package com.banking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a segment of the transaction archive: the transactions of one calendar month
+ * moved out of the {@code transactions} table by one archive run.
+ * <p>
+ * The rows of a segment are held by its {@link TransactionArchiveEntry entries}, one or more per
+ * account, which are only ever inserted. A segment is {@link Status#SEALED} once its run is done
+ * with it; transactions of the same month archived by a later run go to a new segment.
+ */
+@Entity
+@Table(name = "transaction_archive_segments", indexes = {
+        @Index(name = "idx_transaction_archive_segments_period", columnList = "period_start")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionArchiveSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_archive_segments_seq")
+    @SequenceGenerator(name = "transaction_archive_segments_seq", sequenceName = "transaction_archive_segments_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "period_end", nullable = false)
+    private LocalDate periodEnd;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "entry_count", nullable = false)
+    private long entryCount;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "raw_bytes", nullable = false)
+    private long rawBytes;
+
+    @Column(name = "compressed_bytes", nullable = false)
+    private long compressedBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sealed_at")
+    private LocalDateTime sealedAt;
+
+    /**
+     * Enum representing the state of an archive segment.
+     */
+    public enum Status {
+        BUILDING,
+        SEALED
+    }
+}
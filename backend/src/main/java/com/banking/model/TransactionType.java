@@ -1,5 +1,6 @@
 package com.banking.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -7,6 +8,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,6 +21,10 @@ import java.util.Set;
 
 /**
  * Entity representing a type of financial transaction in the system.
+ * <p>
+ * Reference data: rows are served from the read-only {@code transaction-types} second-level cache
+ * region and must not be updated in place. The entity is immutable, so Hibernate ignores changes to a
+ * loaded row, and {@code updatedAt} is only set when the row is inserted.
  */
 @Entity
 @Table(name = "transaction_types")
@@ -25,6 +33,9 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "transaction-types")
 public class TransactionType {
 
     @Id
@@ -39,6 +50,7 @@ public class TransactionType {
     @Column(name = "description")
     private String description;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "transactionType", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
 
@@ -49,7 +61,7 @@ public class TransactionType {
     private LocalDateTime createdAt;
 
     @LastModifiedDate
-    @Column(name = "updated_at", nullable = false)
+    @Column(name = "updated_at", nullable = false, updatable = false)
     private LocalDateTime updatedAt;
 
     /**
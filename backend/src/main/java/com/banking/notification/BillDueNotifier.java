@@ -0,0 +1,81 @@
+package com.banking.notification;
+
+import com.banking.dto.BillDue;
+import com.banking.repository.BillRepository;
+import com.banking.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Notifies connected users of their unpaid bills that fall due within
+ * {@code app.notifications.bill-due.days} days, once a day per user.
+ * <p>
+ * Only users with a client connected are checked, every
+ * {@code app.notifications.bill-due.check-interval-ms}, so a user who connects during the day is
+ * reminded at the next check.
+ */
+@Slf4j
+@Component
+public class BillDueNotifier {
+
+    @Autowired
+    private NotificationHub notificationHub;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${app.notifications.bill-due.days:3}")
+    private int days;
+
+    @Value("${app.notifications.bill-due.max-bills:10}")
+    private int maxBills;
+
+    private final Map<Long, LocalDate> notifiedOn = new ConcurrentHashMap<>();
+
+    @Scheduled(fixedDelayString = "${app.notifications.bill-due.check-interval-ms:900000}")
+    void check() {
+        LocalDate today = LocalDate.now();
+        notifiedOn.values().removeIf(date -> !date.equals(today));
+        for (Long userId : notificationHub.connectedUsers()) {
+            if (notifiedOn.putIfAbsent(userId, today) != null) {
+                continue;
+            }
+            try {
+                notifyDue(userId, today);
+            } catch (RuntimeException e) {
+                notifiedOn.remove(userId);
+                log.warn("Failed to check the due bills of user {}", userId, e);
+            }
+        }
+    }
+
+    private void notifyDue(Long userId, LocalDate today) {
+        List<BillDue> due = shardRouter.onUserShard(userId, () -> transactionTemplate.execute(status ->
+                billRepository.findDue(userId, today, today.plusDays(days), Limit.of(maxBills))));
+        for (BillDue bill : due) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("billId", bill.id());
+            data.put("amount", bill.amount());
+            data.put("dueDate", bill.dueDate());
+            notificationHub.publish(userId, NotificationEvent.BILL_DUE,
+                    bill.name() + " (" + bill.amount() + ") is due on " + bill.dueDate(), data);
+        }
+    }
+}
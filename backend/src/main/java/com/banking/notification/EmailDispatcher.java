@@ -0,0 +1,327 @@
+package com.banking.notification;
+
+import com.banking.model.OutboxEmail;
+import com.banking.repository.OutboxEmailRepository;
+import com.banking.repository.UserRepository;
+import com.banking.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the emails queued in the {@link EmailOutbox}.
+ * <p>
+ * Every {@code app.notification.email.poll-interval-ms} the dispatcher claims up to
+ * {@code app.notification.email.batch-size} due emails, and keeps going while it finds full
+ * batches. A batch is split over {@code app.notification.email.connections} threads, each of which
+ * sends its share over one SMTP connection, so the mail server never sees more connections than
+ * that. Claimed rows are locked with {@code SKIP LOCKED} and pushed back by
+ * {@code app.notification.email.claim-timeout}, so several instances can dispatch side by side and
+ * the emails of an instance that dies mid-batch are picked up again once the claim lapses.
+ * <p>
+ * An email that cannot be sent is retried with exponential backoff, starting at
+ * {@code app.notification.email.initial-backoff} and capped at
+ * {@code app.notification.email.max-backoff}, and marked {@link OutboxEmail.Status#FAILED} after
+ * {@code app.notification.email.max-attempts} attempts. Delivery is at least once: an email whose
+ * outcome could not be recorded is sent again.
+ * <p>
+ * With {@code app.sharding.enabled}, emails are queued on the shard of the transaction that queued
+ * them, and each poll drains the shards in turn.
+ */
+@Slf4j
+@Component
+public class EmailDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired(required = false)
+    private JavaMailSender mailSender;
+
+    @Value("${app.notification.email.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.notification.email.from:${spring.mail.username:no-reply@localhost}}")
+    private String from;
+
+    @Value("${app.notification.email.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.notification.email.connections:4}")
+    private int connections;
+
+    @Value("${app.notification.email.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${app.notification.email.claim-timeout:PT5M}")
+    private Duration claimTimeout;
+
+    @Value("${app.notification.email.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.notification.email.initial-backoff:PT30S}")
+    private Duration initialBackoff;
+
+    @Value("${app.notification.email.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    @Value("${app.notification.email.retention:P7D}")
+    private Duration retention;
+
+    private ScheduledExecutorService poller;
+
+    private ExecutorService senders;
+
+    private Counter sent;
+
+    private Counter retried;
+
+    private Counter failed;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        if (mailSender == null) {
+            log.warn("Email notifications are enabled but no mail server is configured; outbox emails are not sent");
+            return;
+        }
+        sent = outcomeCounter("sent");
+        retried = outcomeCounter("retried");
+        failed = outcomeCounter("failed");
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "email-send-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::dispatch, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (poller == null) {
+            return;
+        }
+        poller.shutdown();
+        if (!poller.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Email dispatch did not stop in time; claimed emails are retried after {}", claimTimeout);
+        }
+        senders.shutdownNow();
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("email.outbox.attempts")
+                .tag("outcome", outcome)
+                .description("Outbox email delivery attempts")
+                .register(meterRegistry);
+    }
+
+    private void dispatch() {
+        for (int shard : shardRouter.shards()) {
+            if (poller.isShutdown()) {
+                return;
+            }
+            shardRouter.runOnShard(shard, this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (dispatchBatch() == batchSize && !poller.isShutdown()) {
+                // Drain the backlog without waiting for the next poll.
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Email dispatch failed", e);
+        }
+    }
+
+    private int dispatchBatch() throws InterruptedException {
+        List<OutboxEmail> batch = claim();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<Long, String> addresses = new HashMap<>();
+        for (Object[] row : userRepository.findEmails(batch.stream().map(OutboxEmail::getUserId).distinct().toList())) {
+            addresses.put((Long) row[0], (String) row[1]);
+        }
+
+        int sliceSize = (batch.size() + connections - 1) / connections;
+        List<List<OutboxEmail>> slices = new ArrayList<>();
+        List<Future<Map<Long, String>>> futures = new ArrayList<>();
+        for (int start = 0; start < batch.size(); start += sliceSize) {
+            List<OutboxEmail> slice = batch.subList(start, Math.min(start + sliceSize, batch.size()));
+            slices.add(slice);
+            futures.add(senders.submit(() -> send(slice, addresses)));
+        }
+        Map<Long, String> errors = new HashMap<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                errors.putAll(futures.get(i).get());
+            } catch (ExecutionException e) {
+                String error = String.valueOf(e.getCause());
+                slices.get(i).forEach(email -> errors.put(email.getId(), error));
+            }
+        }
+        record(batch, errors);
+        return batch.size();
+    }
+
+    private List<OutboxEmail> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEmail> due = outboxEmailRepository.findDue(OutboxEmail.Status.PENDING, now, Limit.of(batchSize));
+            for (OutboxEmail email : due) {
+                email.setNextAttemptAt(now.plus(claimTimeout));
+            }
+            return due;
+        });
+    }
+
+    /**
+     * Send a slice of emails over one connection.
+     *
+     * @return the error of every email that was not sent, by email id
+     */
+    private Map<Long, String> send(List<OutboxEmail> slice, Map<Long, String> addresses) {
+        Map<Long, String> errors = new HashMap<>();
+        Map<SimpleMailMessage, Long> ids = new IdentityHashMap<>();
+        for (OutboxEmail email : slice) {
+            String address = addresses.get(email.getUserId());
+            if (address == null) {
+                errors.put(email.getId(), "User has no email address");
+                continue;
+            }
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(from);
+            message.setTo(address);
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            ids.put(message, email.getId());
+        }
+        if (ids.isEmpty()) {
+            return errors;
+        }
+        try {
+            mailSender.send(ids.keySet().toArray(SimpleMailMessage[]::new));
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((message, error) -> {
+                Long id = ids.get(message);
+                if (id != null) {
+                    errors.put(id, String.valueOf(error.getMessage()));
+                }
+            });
+            if (e.getFailedMessages().isEmpty()) {
+                ids.values().forEach(id -> errors.put(id, String.valueOf(e.getMessage())));
+            }
+        } catch (MailException e) {
+            ids.values().forEach(id -> errors.put(id, String.valueOf(e.getMessage())));
+        }
+        return errors;
+    }
+
+    private void record(List<OutboxEmail> batch, Map<Long, String> errors) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (OutboxEmail email : outboxEmailRepository.findAllById(batch.stream().map(OutboxEmail::getId).toList())) {
+                if (email.getStatus() != OutboxEmail.Status.PENDING) {
+                    continue;
+                }
+                email.setAttempts(email.getAttempts() + 1);
+                String error = errors.get(email.getId());
+                if (error == null) {
+                    email.setStatus(OutboxEmail.Status.SENT);
+                    email.setSentAt(now);
+                    email.setLastError(null);
+                    sent.increment();
+                    continue;
+                }
+                email.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+                if (email.getAttempts() >= maxAttempts) {
+                    email.setStatus(OutboxEmail.Status.FAILED);
+                    failed.increment();
+                    log.warn("Giving up on outbox email {} after {} attempts: {}", email.getId(), email.getAttempts(), error);
+                } else {
+                    email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+                    retried.increment();
+                }
+            }
+        });
+    }
+
+    /**
+     * Delay before the next attempt: the initial backoff doubled per failed attempt, capped, with
+     * up to half of it randomised so emails that failed together do not retry together.
+     */
+    private Duration backoff(int attempts) {
+        long delay = initialBackoff.toMillis() << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > maxBackoff.toMillis()) {
+            delay = maxBackoff.toMillis();
+        }
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+
+    @Scheduled(fixedDelayString = "${app.notification.email.purge-interval-ms:3600000}")
+    void purgeSent() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        int deleted = 0;
+        for (int shard : shardRouter.shards()) {
+            Integer shardDeleted = shardRouter.onShard(shard, () -> transactionTemplate.execute(status ->
+                    outboxEmailRepository.deleteSentBefore(OutboxEmail.Status.SENT, before)));
+            deleted += shardDeleted != null ? shardDeleted : 0;
+        }
+        if (deleted > 0) {
+            log.debug("Purged {} sent outbox emails", deleted);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.banking.notification;
+
+import com.banking.model.OutboxEmail;
+import com.banking.repository.OutboxEmailRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Queues emails to users in the transactional outbox.
+ * <p>
+ * An email is written as an {@link OutboxEmail} row in the caller's database transaction, so it is
+ * only sent if the change it reports commits, and the request never waits for the mail server;
+ * the {@link EmailDispatcher} sends it in the background. Nothing is queued when
+ * {@code app.notification.email.enabled} is false.
+ */
+@Component
+public class EmailOutbox {
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Value("${app.notification.email.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Queue an email to a user in the current database transaction.
+     *
+     * @param userId the user id
+     * @param subject the subject
+     * @param body the plain-text body
+     * @throws IllegalStateException if there is no current database transaction
+     */
+    public void enqueue(Long userId, String subject, String body) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox emails must be queued in a database transaction");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        outboxEmailRepository.save(OutboxEmail.builder()
+                .userId(userId)
+                .subject(subject)
+                .body(body)
+                .status(OutboxEmail.Status.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+}
@@ -0,0 +1,29 @@
+package com.banking.notification;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A notification pushed to a user.
+ *
+ * @param id the notification id, increasing in publication order; used as the SSE event id
+ * @param event the event the notification is about
+ * @param type the severity, as understood by the notification menu
+ * @param title the title
+ * @param message the message
+ * @param data event details, e.g. the account or bill id
+ * @param createdAt when the notification was published
+ * @param read whether the user has marked the notification read
+ */
+public record Notification(long id, NotificationEvent event, String type, String title, String message,
+                           Map<String, Object> data, LocalDateTime createdAt, boolean read) {
+
+    /**
+     * Copy of this notification marked read.
+     *
+     * @return the copy
+     */
+    public Notification markedRead() {
+        return new Notification(id, event, type, title, message, data, createdAt, true);
+    }
+}
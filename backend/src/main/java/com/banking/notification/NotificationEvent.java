@@ -0,0 +1,27 @@
+package com.banking.notification;
+
+/**
+ * Enum representing the events users are notified of, with the title and severity shown for them.
+ */
+public enum NotificationEvent {
+    TRANSACTION_POSTED("Transaction posted", "info"),
+    BILL_DUE("Bill due soon", "warning"),
+    BILL_PAID("Bill paid", "success"),
+    BILL_PAYMENT_FAILED("Bill payment failed", "error");
+
+    private final String title;
+    private final String severity;
+
+    NotificationEvent(String title, String severity) {
+        this.title = title;
+        this.severity = severity;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSeverity() {
+        return severity;
+    }
+}
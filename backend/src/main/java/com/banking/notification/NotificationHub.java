@@ -0,0 +1,502 @@
+package com.banking.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes notifications to the connected clients of each user as server-sent events.
+ * <p>
+ * Every user with a client connected has a channel holding the last
+ * {@code app.notifications.history-size} notifications, which is what the notification list is
+ * served from and what a reconnecting client is replayed from its {@code Last-Event-ID}. A client
+ * that asks to resume from a notification no longer in the history gets a {@value #RESYNC_EVENT}
+ * event first, telling it to reload the list. Notifications of users without a channel are not
+ * kept, so publishing for them costs a map lookup.
+ * <p>
+ * An idle connection holds no thread: events are queued per subscriber and written by a pool of
+ * {@code app.notifications.dispatch-threads} threads. Each queue holds at most
+ * {@code app.notifications.buffer-size} events; when a slow client falls behind, the oldest events
+ * are dropped and a {@value #RESYNC_EVENT} event is queued in their place, so the client reloads
+ * the list. A heartbeat comment is sent every
+ * {@code app.notifications.heartbeat-interval-ms} so proxies keep the connections open and dead
+ * ones are detected; channels without subscribers are dropped after
+ * {@code app.notifications.history-ttl}.
+ * <p>
+ * The channels are held in memory, so a client only receives the notifications published on the
+ * instance it is connected to.
+ */
+@Slf4j
+@Component
+public class NotificationHub {
+
+    /**
+     * Name of the event sent when notifications a client missed were dropped, from the history or
+     * from its queue.
+     */
+    public static final String RESYNC_EVENT = "resync";
+
+    /**
+     * Name of the notification events.
+     */
+    public static final String NOTIFICATION_EVENT = "notification";
+
+    private static final Object RESYNC = new Object();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.notifications.history-size:50}")
+    private int historySize;
+
+    @Value("${app.notifications.history-ttl:PT1H}")
+    private Duration historyTtl;
+
+    @Value("${app.notifications.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${app.notifications.max-subscribers-per-user:10}")
+    private int maxSubscribersPerUser;
+
+    @Value("${app.notifications.emitter-timeout:PT30M}")
+    private Duration emitterTimeout;
+
+    @Value("${app.notifications.heartbeat-interval-ms:30000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${app.notifications.dispatch-threads:4}")
+    private int dispatchThreads;
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastId = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private ExecutorService dispatcher;
+
+    private ScheduledExecutorService heartbeat;
+
+    private Counter dropped;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "notification-dispatch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatIntervalMs, heartbeatIntervalMs,
+                TimeUnit.MILLISECONDS);
+        Gauge.builder("notifications.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Connected notification streams")
+                .register(meterRegistry);
+        dropped = Counter.builder("notifications.dropped")
+                .description("Notifications dropped because a subscriber fell behind")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeat.shutdownNow();
+        for (Channel channel : channels.values()) {
+            channel.subscribers().forEach(Subscriber::close);
+        }
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Open a notification stream for a user.
+     *
+     * @param userId the user id
+     * @param lastEventId the id of the last notification the client received, or null for a new client
+     * @return the emitter of the stream
+     */
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        Subscriber[] evicted = new Subscriber[1];
+        Subscriber subscriber = new Subscriber(emitter);
+        channels.compute(userId, (id, existing) -> {
+            Channel channel = existing != null ? existing : new Channel(lastId.get());
+            channel.lock.lock();
+            try {
+                if (lastEventId != null) {
+                    if (lastEventId < channel.droppedUpTo) {
+                        subscriber.offer(RESYNC);
+                    }
+                    for (Notification notification : channel.history) {
+                        if (notification.id() > lastEventId) {
+                            subscriber.offer(notification);
+                        }
+                    }
+                }
+                subscriber.channel = channel;
+                channel.subscribers.add(subscriber);
+                if (channel.subscribers.size() > maxSubscribersPerUser) {
+                    evicted[0] = channel.subscribers.get(0);
+                }
+                channel.lastActivity = System.currentTimeMillis();
+            } finally {
+                channel.lock.unlock();
+            }
+            return channel;
+        });
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        if (evicted[0] != null) {
+            evicted[0].close();
+        }
+        return emitter;
+    }
+
+    /**
+     * Publish a notification to a user, if the user has a client connected.
+     *
+     * @param userId the user id
+     * @param event the event
+     * @param message the message
+     * @param data event details
+     */
+    public void publish(Long userId, NotificationEvent event, String message, Map<String, Object> data) {
+        Channel channel = channels.get(userId);
+        if (channel == null) {
+            return;
+        }
+        channel.lock.lock();
+        try {
+            Notification notification = new Notification(lastId.incrementAndGet(), event, event.getSeverity(),
+                    event.getTitle(), message, data, LocalDateTime.now(), false);
+            channel.history.addLast(notification);
+            while (channel.history.size() > historySize) {
+                channel.droppedUpTo = channel.history.pollFirst().id();
+            }
+            channel.lastActivity = System.currentTimeMillis();
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.offer(notification);
+            }
+        } finally {
+            channel.lock.unlock();
+        }
+    }
+
+    /**
+     * Publish a notification to a user once the current database transaction commits, or now if
+     * there is none. Nothing is published if the transaction rolls back.
+     *
+     * @param userId the user id
+     * @param event the event
+     * @param message the message
+     * @param data event details
+     */
+    public void publishAfterCommit(Long userId, NotificationEvent event, String message, Map<String, Object> data) {
+        if (!channels.containsKey(userId)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(userId, event, message, data);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(userId, event, message, data);
+            }
+        });
+    }
+
+    /**
+     * Get the recent notifications of a user.
+     *
+     * @param userId the user id
+     * @return the notifications, newest first
+     */
+    public List<Notification> recent(Long userId) {
+        Channel channel = channels.get(userId);
+        if (channel == null) {
+            return List.of();
+        }
+        channel.lock.lock();
+        try {
+            List<Notification> notifications = new ArrayList<>(channel.history.size());
+            channel.history.descendingIterator().forEachRemaining(notifications::add);
+            return notifications;
+        } finally {
+            channel.lock.unlock();
+        }
+    }
+
+    /**
+     * Mark a notification of a user read.
+     *
+     * @param userId the user id
+     * @param notificationId the notification id
+     * @return the notification, or null if it is not in the history of the user
+     */
+    public Notification markRead(Long userId, long notificationId) {
+        Channel channel = channels.get(userId);
+        if (channel == null) {
+            return null;
+        }
+        channel.lock.lock();
+        try {
+            Notification found = null;
+            int size = channel.history.size();
+            for (int i = 0; i < size; i++) {
+                Notification notification = channel.history.pollFirst();
+                if (notification.id() == notificationId) {
+                    notification = notification.markedRead();
+                    found = notification;
+                }
+                channel.history.addLast(notification);
+            }
+            return found;
+        } finally {
+            channel.lock.unlock();
+        }
+    }
+
+    /**
+     * Check whether notifications published to a user are kept, so callers can skip building them.
+     *
+     * @param userId the user id
+     * @return true if the user has a channel
+     */
+    public boolean hasChannel(Long userId) {
+        return channels.containsKey(userId);
+    }
+
+    /**
+     * Get the users with at least one client connected.
+     *
+     * @return the user ids
+     */
+    public Set<Long> connectedUsers() {
+        return channels.entrySet().stream()
+                .filter(entry -> !entry.getValue().subscribers().isEmpty())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    private void sendHeartbeats() {
+        long idleSince = System.currentTimeMillis() - historyTtl.toMillis();
+        try {
+            for (Map.Entry<Long, Channel> entry : channels.entrySet()) {
+                List<Subscriber> subscribers = entry.getValue().subscribers();
+                if (!subscribers.isEmpty()) {
+                    subscribers.forEach(Subscriber::heartbeat);
+                    continue;
+                }
+                channels.computeIfPresent(entry.getKey(), (id, channel) -> {
+                    channel.lock.lock();
+                    try {
+                        return channel.subscribers.isEmpty() && channel.lastActivity < idleSince ? null : channel;
+                    } finally {
+                        channel.lock.unlock();
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Notification heartbeat failed", e);
+        }
+    }
+
+    /**
+     * The notifications and connected clients of a user.
+     */
+    private static final class Channel {
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final ArrayDeque<Notification> history = new ArrayDeque<>();
+
+        final List<Subscriber> subscribers = new ArrayList<>();
+
+        /**
+         * Id of the newest notification that is no longer in the history; a client that last saw an
+         * older one has missed notifications.
+         */
+        long droppedUpTo;
+
+        volatile long lastActivity = System.currentTimeMillis();
+
+        Channel(long droppedUpTo) {
+            this.droppedUpTo = droppedUpTo;
+        }
+
+        List<Subscriber> subscribers() {
+            lock.lock();
+            try {
+                return List.copyOf(subscribers);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A connected client, with the events queued for it.
+     */
+    private final class Subscriber {
+
+        final SseEmitter emitter;
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final ArrayDeque<Object> queue = new ArrayDeque<>();
+
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        Channel channel;
+
+        boolean scheduled;
+
+        boolean heartbeatDue;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Object event) {
+            lock.lock();
+            try {
+                if (queue.size() >= bufferSize) {
+                    // The client misses the oldest events; a resync event in their place tells it
+                    // to reload the list before the newer ones arrive.
+                    if (queue.peekFirst() == RESYNC) {
+                        queue.pollFirst();
+                    }
+                    while (!queue.isEmpty() && queue.size() >= bufferSize - 1) {
+                        queue.pollFirst();
+                        dropped.increment();
+                    }
+                    queue.addFirst(RESYNC);
+                }
+                queue.addLast(event);
+                schedule();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void heartbeat() {
+            lock.lock();
+            try {
+                heartbeatDue = true;
+                schedule();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled || closed.get()) {
+                return;
+            }
+            try {
+                dispatcher.execute(this::drain);
+                scheduled = true;
+            } catch (RejectedExecutionException e) {
+                // Shutting down.
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<SseEmitter.SseEventBuilder> events = new ArrayList<>();
+                lock.lock();
+                try {
+                    for (Object event = queue.pollFirst(); event != null; event = queue.pollFirst()) {
+                        events.add(toEvent(event));
+                    }
+                    if (events.isEmpty() && heartbeatDue) {
+                        events.add(SseEmitter.event().comment("heartbeat"));
+                    }
+                    heartbeatDue = false;
+                    if (events.isEmpty() || closed.get()) {
+                        scheduled = false;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    for (SseEmitter.SseEventBuilder event : events) {
+                        emitter.send(event);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                    return;
+                }
+            }
+        }
+
+        private SseEmitter.SseEventBuilder toEvent(Object event) {
+            if (event == RESYNC) {
+                return SseEmitter.event().name(RESYNC_EVENT).data("{}", MediaType.APPLICATION_JSON);
+            }
+            Notification notification = (Notification) event;
+            return SseEmitter.event()
+                    .id(Long.toString(notification.id()))
+                    .name(NOTIFICATION_EVENT)
+                    .data(notification, MediaType.APPLICATION_JSON);
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriberCount.decrementAndGet();
+            Channel owner = channel;
+            owner.lock.lock();
+            try {
+                owner.subscribers.remove(this);
+                owner.lastActivity = System.currentTimeMillis();
+            } finally {
+                owner.lock.unlock();
+            }
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // Already completed.
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.banking.repository;
+
+import com.banking.dto.AccountSummary;
+import com.banking.model.Account;
+import com.banking.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for managing Account entities.
+ */
+@Repository
+public interface AccountRepository extends JpaRepository<Account, Long> {
+
+    /**
+     * Find an account by its account number.
+     *
+     * @param accountNumber the account number to search for
+     * @return an optional containing the account if found
+     */
+    Optional<Account> findByAccountNumber(String accountNumber);
+
+    /**
+     * Find all accounts belonging to a specific user.
+     *
+     * @param user the user whose accounts to find
+     * @return a list of accounts belonging to the user
+     */
+    List<Account> findByUser(User user);
+
+    /**
+     * Check whether an account belongs to a user.
+     *
+     * @param id the account id
+     * @param userId the user id
+     * @return true if the account exists and belongs to the user
+     */
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    /**
+     * Find the summaries of all accounts of a user, read in one query.
+     *
+     * @param userId the user id
+     * @return the summaries in order of account id
+     */
+    @Query("select new com.banking.dto.AccountSummary(a.id, a.accountNumber, a.accountType.name, "
+            + "a.balanceMinorUnits, a.currency, a.isActive) "
+            + "from Account a where a.user.id = :userId order by a.id")
+    List<AccountSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    /**
+     * Find whether an account is active.
+     *
+     * @param id the account id
+     * @return an optional containing the active flag if the account exists
+     */
+    @Query("select a.isActive from Account a where a.id = :id")
+    Optional<Boolean> findActiveById(@Param("id") Long id);
+
+    /**
+     * Find the ids of every account.
+     *
+     * @return the account ids in ascending order
+     */
+    @Query("select a.id from Account a order by a.id")
+    List<Long> findAllIds();
+}
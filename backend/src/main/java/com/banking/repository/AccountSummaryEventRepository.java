@@ -0,0 +1,38 @@
+package com.banking.repository;
+
+import com.banking.model.AccountSummaryEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for managing AccountSummaryEvent entities.
+ */
+@Repository
+public interface AccountSummaryEventRepository extends JpaRepository<AccountSummaryEvent, Long> {
+
+    /**
+     * Find the events of other instances written at or after a time.
+     *
+     * @param since the time
+     * @param originNode the node id of this instance
+     * @return the events
+     */
+    @Query("select e from AccountSummaryEvent e where e.createdAt >= :since and e.originNode <> :originNode")
+    List<AccountSummaryEvent> findSince(@Param("since") LocalDateTime since, @Param("originNode") int originNode);
+
+    /**
+     * Delete the events written before a time.
+     *
+     * @param before the time
+     * @return the number of events deleted
+     */
+    @Modifying
+    @Query("delete from AccountSummaryEvent e where e.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
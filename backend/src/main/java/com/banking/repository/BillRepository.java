@@ -1,11 +1,21 @@
 package com.banking.repository;
 
+import com.banking.dto.BillDue;
+import com.banking.dto.BillGroupTotal;
+import com.banking.dto.BillView;
 import com.banking.model.Bill;
 import com.banking.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for managing Bill entities.
@@ -14,19 +24,115 @@ import java.util.List;
 public interface BillRepository extends JpaRepository<Bill, Long> {
     
     /**
-     * Find all bills belonging to a specific user.
+     * Find all bills belonging to a specific user, with the user fetched in the same query.
      *
      * @param user the user whose bills to find
      * @return a list of bills belonging to the user
      */
+    @EntityGraph(attributePaths = "user")
     List<Bill> findByUser(User user);
     
     /**
-     * Find all bills belonging to a specific user and having a specific status.
+     * Find a bill of a user.
+     *
+     * @param id the bill id
+     * @param userId the user id
+     * @return an optional containing the bill if it exists and belongs to the user
+     */
+    Optional<Bill> findByIdAndUserId(Long id, Long userId);
+
+    /**
+     * Find the views of a user's bills, earliest due first, selecting the bill columns only.
+     * Read in a read-only transaction, so it is served by a read replica when they are enabled.
+     *
+     * @param userId the user id
+     * @return the views of the user's bills
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.banking.dto.BillView(b.id, b.name, b.category, b.accountNumber, b.amount, b.dueDate, "
+            + "b.status, b.icon, b.paymentAccountId, b.paidAt, b.paymentReference, b.paymentFailureReason) "
+            + "from Bill b where b.user.id = :userId order by b.dueDate, b.id")
+    List<BillView> findViewsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Find all bills belonging to a specific user and having a specific status, with the user
+     * fetched in the same query.
      *
      * @param user the user whose bills to find
      * @param status the status of the bills to find
      * @return a list of bills belonging to the user with the specified status
      */
+    @EntityGraph(attributePaths = "user")
     List<Bill> findByUserAndStatus(User user, String status);
-}
\ No newline at end of file
+
+    /**
+     * Find the next bills of a bill run partition that are due and have a payment account, oldest
+     * due date first. Reads the {@code idx_bills_status_due_date} index; bills leave the range as
+     * soon as their status changes, so repeated calls walk through the partition.
+     *
+     * @param status the status of the bills to find
+     * @param dueDate the inclusive upper bound of the due date
+     * @param partitions the number of partitions of the run
+     * @param partition the partition, matched against the user id modulo the partition count
+     * @param limit the maximum number of bills to return
+     * @return rows of {@code [bill id, payment account id]}
+     */
+    @Query("select b.id, b.paymentAccountId from Bill b "
+            + "where b.status = :status and b.dueDate <= :dueDate and b.paymentAccountId is not null "
+            + "and mod(b.user.id, :partitions) = :partition "
+            + "order by b.dueDate")
+    List<Object[]> findDueInPartition(@Param("status") String status,
+                                      @Param("dueDate") LocalDate dueDate,
+                                      @Param("partitions") int partitions,
+                                      @Param("partition") int partition,
+                                      Limit limit);
+
+    /**
+     * Count and sum the bills of a user per category and status.
+     *
+     * @param userId the user id
+     * @return one row per category and status
+     */
+    @Query("select new com.banking.dto.BillGroupTotal(b.category, b.status, count(b), coalesce(sum(b.amount), 0)) "
+            + "from Bill b where b.user.id = :userId "
+            + "group by b.category, b.status")
+    List<BillGroupTotal> summarizeByCategoryAndStatus(@Param("userId") Long userId);
+
+    /**
+     * Count and sum the unpaid bills of a user due in a window.
+     *
+     * @param userId the user id
+     * @param from the first day of the window
+     * @param to the last day of the window
+     * @return a single row of {@code [count, sum of amounts]}
+     */
+    @Query("select count(b), coalesce(sum(b.amount), 0) from Bill b "
+            + "where b.user.id = :userId and b.dueDate between :from and :to "
+            + "and (b.status is null or b.status <> 'PAID')")
+    List<Object[]> summarizeDue(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Find the unpaid bills of a user due in a window, soonest first.
+     *
+     * @param userId the user id
+     * @param from the first day of the window
+     * @param to the last day of the window
+     * @param limit the maximum number of bills to return
+     * @return the bills
+     */
+    @Query("select new com.banking.dto.BillDue(b.id, b.name, b.category, b.amount, b.dueDate, b.status) "
+            + "from Bill b where b.user.id = :userId and b.dueDate between :from and :to "
+            + "and (b.status is null or b.status <> 'PAID') "
+            + "order by b.dueDate, b.id")
+    List<BillDue> findDue(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to,
+                          Limit limit);
+
+    /**
+     * Read what changes whenever a bill of a user is created, updated or deleted.
+     *
+     * @param userId the user id
+     * @return a single row of {@code [count, latest update time]}
+     */
+    @Query("select count(b), max(b.updatedAt) from Bill b where b.user.id = :userId")
+    List<Object[]> findVersion(@Param("userId") Long userId);
+}
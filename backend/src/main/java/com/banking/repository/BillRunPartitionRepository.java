@@ -0,0 +1,34 @@
+package com.banking.repository;
+
+import com.banking.model.BillRunPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for managing BillRunPartition entities.
+ */
+@Repository
+public interface BillRunPartitionRepository extends JpaRepository<BillRunPartition, Long> {
+
+    /**
+     * Find the partitions of a run.
+     *
+     * @param runId the run id
+     * @return the partitions, by partition number
+     */
+    List<BillRunPartition> findByRunIdOrderByPartitionNo(Long runId);
+
+    /**
+     * Find the last time any partition of a run made progress.
+     *
+     * @param runId the run id
+     * @return the latest update time, or null if the run has no partitions
+     */
+    @Query("select max(p.updatedAt) from BillRunPartition p where p.runId = :runId")
+    LocalDateTime findLastUpdate(@Param("runId") Long runId);
+}
@@ -0,0 +1,23 @@
+package com.banking.repository;
+
+import com.banking.model.BillRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Repository for managing BillRun entities.
+ */
+@Repository
+public interface BillRunRepository extends JpaRepository<BillRun, Long> {
+
+    /**
+     * Find the run of a date.
+     *
+     * @param runDate the run date
+     * @return an optional containing the run if found
+     */
+    Optional<BillRun> findByRunDate(LocalDate runDate);
+}
@@ -0,0 +1,69 @@
+package com.banking.repository;
+
+import com.banking.model.CrossShardTransfer;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for managing CrossShardTransfer entities, each on the shard of its source account.
+ */
+@Repository
+public interface CrossShardTransferRepository extends JpaRepository<CrossShardTransfer, Long> {
+
+    /**
+     * Find and lock the transfers in a status that were last updated before a time, oldest first.
+     * Rows locked by another instance are skipped rather than waited for.
+     *
+     * @param status the status
+     * @param before the time
+     * @param limit the maximum number of transfers
+     * @return the transfers
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select t from CrossShardTransfer t where t.status = :status and t.updatedAt < :before "
+            + "order by t.updatedAt, t.id")
+    List<CrossShardTransfer> findStalled(@Param("status") CrossShardTransfer.Status status,
+                                         @Param("before") LocalDateTime before, Limit limit);
+
+    /**
+     * Move a transfer from one status to another, unless it has already left the first.
+     *
+     * @param reference the transfer reference
+     * @param from the expected status
+     * @param to the new status
+     * @param now the current time
+     * @return 1 if the transfer was moved, 0 otherwise
+     */
+    @Modifying
+    @Query("update CrossShardTransfer t set t.status = :to, t.updatedAt = :now "
+            + "where t.reference = :reference and t.status = :from")
+    int transition(@Param("reference") String reference, @Param("from") CrossShardTransfer.Status from,
+                   @Param("to") CrossShardTransfer.Status to, @Param("now") LocalDateTime now);
+
+    /**
+     * Count a failed attempt to credit a transfer.
+     *
+     * @param reference the transfer reference
+     * @param error the error of the attempt
+     * @param now the current time
+     * @return the number of transfers updated
+     */
+    @Modifying
+    @Query("update CrossShardTransfer t set t.attempts = t.attempts + 1, t.lastError = :error, t.updatedAt = :now "
+            + "where t.reference = :reference")
+    int recordFailure(@Param("reference") String reference, @Param("error") String error,
+                      @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,74 @@
+package com.banking.repository;
+
+import com.banking.model.DailyBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository for managing DailyBalanceSnapshot entities.
+ */
+@Repository
+public interface DailyBalanceSnapshotRepository extends JpaRepository<DailyBalanceSnapshot, Long> {
+
+    /**
+     * Check whether an account has a snapshot for a day.
+     *
+     * @param accountId the account id
+     * @param balanceDate the day
+     * @return true if the snapshot exists
+     */
+    boolean existsByAccountIdAndBalanceDate(Long accountId, LocalDate balanceDate);
+
+    /**
+     * Find the latest snapshot of an account strictly before a day.
+     *
+     * @param accountId the account id
+     * @param balanceDate the exclusive upper bound
+     * @return an optional containing the snapshot if found
+     */
+    Optional<DailyBalanceSnapshot> findFirstByAccountIdAndBalanceDateLessThanOrderByBalanceDateDesc(Long accountId,
+                                                                                                   LocalDate balanceDate);
+
+    /**
+     * Find the earliest snapshot of an account on or after a day.
+     *
+     * @param accountId the account id
+     * @param balanceDate the inclusive lower bound
+     * @return an optional containing the snapshot if found
+     */
+    Optional<DailyBalanceSnapshot> findFirstByAccountIdAndBalanceDateGreaterThanEqualOrderByBalanceDateAsc(Long accountId,
+                                                                                                          LocalDate balanceDate);
+
+    /**
+     * Add an amount to every snapshot of an account from a day onwards.
+     *
+     * @param accountId the account id
+     * @param balanceDate the first day to shift
+     * @param delta the signed amount to add
+     * @param updatedAt the modification time
+     * @return the number of snapshots updated
+     */
+    @Modifying
+    @Query("update DailyBalanceSnapshot s set s.closingBalance = s.closingBalance + :delta, s.updatedAt = :updatedAt "
+            + "where s.accountId = :accountId and s.balanceDate >= :balanceDate")
+    int shiftFrom(@Param("accountId") Long accountId, @Param("balanceDate") LocalDate balanceDate,
+                  @Param("delta") BigDecimal delta, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Delete every snapshot of an account.
+     *
+     * @param accountId the account id
+     * @return the number of snapshots deleted
+     */
+    @Modifying
+    @Query("delete from DailyBalanceSnapshot s where s.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,52 @@
+package com.banking.repository;
+
+import com.banking.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for managing IdempotencyRecord entities.
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Delete the completed records that have expired. Records of requests that never completed are kept.
+     *
+     * @param now the current time
+     * @return the number of records deleted
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now "
+            + "and r.status = com.banking.model.IdempotencyRecord.Status.COMPLETED")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Find the records in a status that expired before a point in time.
+     *
+     * @param status the status
+     * @param before the point in time
+     * @return the records, oldest first
+     */
+    List<IdempotencyRecord> findByStatusAndExpiresAtBeforeOrderByCreatedAt(IdempotencyRecord.Status status,
+                                                                          LocalDateTime before);
+
+    /**
+     * Delete a record that is still in a status after it expired.
+     *
+     * @param recordKey the record key
+     * @param status the status
+     * @param now the current time
+     * @return the number of records deleted
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.recordKey = :recordKey and r.status = :status and r.expiresAt < :now")
+    int deleteUnresolved(@Param("recordKey") String recordKey, @Param("status") IdempotencyRecord.Status status,
+                         @Param("now") LocalDateTime now);
+}
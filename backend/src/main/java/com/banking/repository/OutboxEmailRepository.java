@@ -0,0 +1,51 @@
+package com.banking.repository;
+
+import com.banking.model.OutboxEmail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for managing OutboxEmail entities.
+ */
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    /**
+     * Find and lock the pending emails that are due, oldest first. Rows locked by another
+     * dispatcher are skipped rather than waited for.
+     *
+     * @param status the pending status
+     * @param now the current time
+     * @param limit the maximum number of emails
+     * @return the due emails
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select e from OutboxEmail e where e.status = :status and e.nextAttemptAt <= :now "
+            + "order by e.nextAttemptAt, e.id")
+    List<OutboxEmail> findDue(@Param("status") OutboxEmail.Status status, @Param("now") LocalDateTime now,
+                              Limit limit);
+
+    /**
+     * Delete the emails sent before a time.
+     *
+     * @param status the sent status
+     * @param before the time
+     * @return the number of emails deleted
+     */
+    @Modifying
+    @Query("delete from OutboxEmail e where e.status = :status and e.sentAt < :before")
+    int deleteSentBefore(@Param("status") OutboxEmail.Status status, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,22 @@
+package com.banking.repository;
+
+import com.banking.model.ParkedJournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for managing ParkedJournalEntry entities.
+ */
+@Repository
+public interface ParkedJournalEntryRepository extends JpaRepository<ParkedJournalEntry, Long> {
+
+    /**
+     * Find the parked entries of a journal.
+     *
+     * @param journalName the journal name
+     * @return the entries in journal order
+     */
+    List<ParkedJournalEntry> findByJournalNameOrderByJournalSequence(String journalName);
+}
@@ -0,0 +1,21 @@
+package com.banking.repository;
+
+import com.banking.model.ShardRange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for managing the ShardRange entities of the shard map, kept in the directory database.
+ */
+@Repository
+public interface ShardRangeRepository extends JpaRepository<ShardRange, Long> {
+
+    /**
+     * Find every range of the shard map.
+     *
+     * @return the ranges in order of their first user id
+     */
+    List<ShardRange> findAllByOrderByFirstUserId();
+}
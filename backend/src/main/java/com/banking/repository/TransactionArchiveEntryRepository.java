@@ -0,0 +1,45 @@
+package com.banking.repository;
+
+import com.banking.archive.ArchiveIndexEntry;
+import com.banking.model.TransactionArchiveEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for managing TransactionArchiveEntry entities.
+ */
+@Repository
+public interface TransactionArchiveEntryRepository extends JpaRepository<TransactionArchiveEntry, Long> {
+
+    /**
+     * Find the index entries of an account whose blocks may hold transactions dated in
+     * {@code [from, to]}, oldest block first. The blocks themselves are not read.
+     *
+     * @param accountId the account id
+     * @param from the inclusive lower bound of the transaction date, or {@code null}
+     * @param to the inclusive upper bound of the transaction date, or {@code null}
+     * @return the index entries
+     */
+    @Query("select new com.banking.archive.ArchiveIndexEntry(e.id, e.firstDate, e.lastDate, e.rowCount, e.netMinorUnits) "
+            + "from TransactionArchiveEntry e "
+            + "where e.accountId = :accountId "
+            + "and (:from is null or e.lastDate >= :from) "
+            + "and (:to is null or e.firstDate <= :to) "
+            + "order by e.firstDate, e.id")
+    List<ArchiveIndexEntry> findIndex(@Param("accountId") Long accountId, @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to);
+
+    /**
+     * Read the compressed block of an entry.
+     *
+     * @param id the entry id
+     * @return the block
+     */
+    @Query("select e.data from TransactionArchiveEntry e where e.id = :id")
+    byte[] findData(@Param("id") Long id);
+}
@@ -0,0 +1,42 @@
+package com.banking.repository;
+
+import com.banking.model.TransactionArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for managing TransactionArchiveSegment entities.
+ */
+@Repository
+public interface TransactionArchiveSegmentRepository extends JpaRepository<TransactionArchiveSegment, Long> {
+
+    /**
+     * Find the segments in a status.
+     *
+     * @param status the status
+     * @return the segments
+     */
+    List<TransactionArchiveSegment> findByStatus(TransactionArchiveSegment.Status status);
+
+    /**
+     * Add the entries written for a chunk of accounts to the totals of a segment.
+     *
+     * @param id the segment id
+     * @param entries the number of entries written
+     * @param rows the number of transactions archived
+     * @param rawBytes the size of the entries before compression
+     * @param compressedBytes the size of the entries after compression
+     * @return the number of segments updated
+     */
+    @Modifying
+    @Query("update TransactionArchiveSegment s set s.entryCount = s.entryCount + :entries, "
+            + "s.rowCount = s.rowCount + :rows, s.rawBytes = s.rawBytes + :rawBytes, "
+            + "s.compressedBytes = s.compressedBytes + :compressedBytes where s.id = :id")
+    int addTotals(@Param("id") Long id, @Param("entries") long entries, @Param("rows") long rows,
+                  @Param("rawBytes") long rawBytes, @Param("compressedBytes") long compressedBytes);
+}
@@ -0,0 +1,215 @@
+package com.banking.repository;
+
+import com.banking.archive.ArchivedTransaction;
+import com.banking.dto.TransactionView;
+import com.banking.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Repository for managing Transaction entities.
+ */
+@Repository
+public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+
+    /**
+     * Find a transaction by its unique reference.
+     *
+     * @param transactionReference the reference to search for
+     * @return an optional containing the transaction if found
+     */
+    Optional<Transaction> findByTransactionReference(String transactionReference);
+
+    /**
+     * Find which of the given references are already used.
+     *
+     * @param references the references to check
+     * @return the references that already exist
+     */
+    @Query("select t.transactionReference from Transaction t where t.transactionReference in :references")
+    Set<String> findExistingReferences(@Param("references") Collection<String> references);
+
+    /**
+     * Find the greatest references starting with a prefix and sorting before an upper bound, greatest first.
+     *
+     * @param prefix the prefix
+     * @param below the exclusive upper bound
+     * @param limit the maximum number of references to return
+     * @return the references
+     */
+    @Query("select t.transactionReference from Transaction t where t.transactionReference like concat(:prefix, '%') "
+            + "and t.transactionReference < :below "
+            + "order by t.transactionReference desc")
+    List<String> findGreatestReferences(@Param("prefix") String prefix, @Param("below") String below, Limit limit);
+
+    /**
+     * Find one page of an account's history, newest first, starting after a keyset cursor.
+     * Every filter is optional; passing {@code null} disables it.
+     *
+     * @param accountId the account whose history to read
+     * @param from the inclusive lower bound of the transaction date
+     * @param to the exclusive upper bound of the transaction date
+     * @param type the transaction type name
+     * @param status the transaction status
+     * @param cursorDate the transaction date of the last row of the previous page
+     * @param cursorId the id of the last row of the previous page
+     * @param limit the maximum number of rows to return
+     * @return the page of transactions
+     */
+    @Query("select new com.banking.dto.TransactionView(t.id, t.transactionReference, t.account.id, "
+            + "t.transactionType.name, t.amountMinorUnits, t.currency, t.description, t.status, "
+            + "t.sourceAccount.id, t.destinationAccount.id, t.transactionDate) "
+            + "from Transaction t "
+            + "where t.account.id = :accountId "
+            + "and (:from is null or t.transactionDate >= :from) "
+            + "and (:to is null or t.transactionDate < :to) "
+            + "and (:type is null or t.transactionType.name = :type) "
+            + "and (:status is null or t.status = :status) "
+            + "and (:cursorDate is null or t.transactionDate < :cursorDate "
+            + "or (t.transactionDate = :cursorDate and t.id < :cursorId)) "
+            + "order by t.transactionDate desc, t.id desc")
+    List<TransactionView> findHistoryPage(@Param("accountId") Long accountId,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to,
+                                          @Param("type") String type,
+                                          @Param("status") Transaction.TransactionStatus status,
+                                          @Param("cursorDate") LocalDateTime cursorDate,
+                                          @Param("cursorId") Long cursorId,
+                                          Limit limit);
+
+    /**
+     * Stream an account's transactions in chronological order over a forward-only cursor.
+     * Rows are read as unmanaged views, so the persistence context does not grow with the stream.
+     * The stream must be consumed and closed inside a transaction.
+     *
+     * @param accountId the account whose transactions to stream
+     * @param from the inclusive lower bound of the transaction date, or {@code null}
+     * @param to the exclusive upper bound of the transaction date, or {@code null}
+     * @return the stream of transactions
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select new com.banking.dto.TransactionView(t.id, t.transactionReference, t.account.id, "
+            + "t.transactionType.name, t.amountMinorUnits, t.currency, t.description, t.status, "
+            + "t.sourceAccount.id, t.destinationAccount.id, t.transactionDate) "
+            + "from Transaction t "
+            + "where t.account.id = :accountId "
+            + "and (:from is null or t.transactionDate >= :from) "
+            + "and (:to is null or t.transactionDate < :to) "
+            + "order by t.transactionDate asc, t.id asc")
+    Stream<TransactionView> streamStatement(@Param("accountId") Long accountId,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    /**
+     * Sum the signed amounts (credits positive, debits negative) of an account's transactions
+     * dated in {@code [from, to)}. Although the query names {@code amountMinorUnits}, the attribute is
+     * converted to the {@code DECIMAL(19, 2)} column {@code amount} and the database sums that column,
+     * so the result is a decimal amount in the account currency (12.34), not minor units (1234).
+     *
+     * @param accountId the account id
+     * @param from the inclusive lower bound
+     * @param to the exclusive upper bound
+     * @return the net change of the balance over the range
+     */
+    @Query("select coalesce(sum(case when t.direction = com.banking.model.Transaction.Direction.CREDIT "
+            + "then t.amountMinorUnits else -t.amountMinorUnits end), 0) "
+            + "from Transaction t "
+            + "where t.account.id = :accountId and t.transactionDate >= :from and t.transactionDate < :to")
+    BigDecimal sumSignedAmount(@Param("accountId") Long accountId, @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to);
+
+    /**
+     * Sum the signed amounts of an account's transactions dated on or after a point in time. As with
+     * {@link #sumSignedAmount}, the result is a decimal amount rather than minor units.
+     *
+     * @param accountId the account id
+     * @param from the inclusive lower bound
+     * @return the net change of the balance since {@code from}
+     */
+    @Query("select coalesce(sum(case when t.direction = com.banking.model.Transaction.Direction.CREDIT "
+            + "then t.amountMinorUnits else -t.amountMinorUnits end), 0) "
+            + "from Transaction t "
+            + "where t.account.id = :accountId and t.transactionDate >= :from")
+    BigDecimal sumSignedAmountFrom(@Param("accountId") Long accountId, @Param("from") LocalDateTime from);
+
+    /**
+     * Get the net change of an account's balance for every day it had activity, latest day first.
+     *
+     * @param accountId the account id
+     * @return rows of {@code [LocalDate day, BigDecimal netChange]}, the net change as a decimal amount
+     */
+    @Query("select extract(date from t.transactionDate), "
+            + "sum(case when t.direction = com.banking.model.Transaction.Direction.CREDIT "
+            + "then t.amountMinorUnits else -t.amountMinorUnits end) "
+            + "from Transaction t "
+            + "where t.account.id = :accountId "
+            + "group by extract(date from t.transactionDate) "
+            + "order by extract(date from t.transactionDate) desc")
+    List<Object[]> sumSignedAmountByDay(@Param("accountId") Long accountId);
+
+    /**
+     * Find the date of the oldest transaction of each of the given accounts dated before a point in
+     * time. Accounts without such transactions are left out.
+     *
+     * @param accountIds the account ids
+     * @param before the exclusive upper bound of the transaction date
+     * @return rows of {@code [Long accountId, LocalDateTime oldest]}
+     */
+    @Query("select t.account.id, min(t.transactionDate) from Transaction t "
+            + "where t.account.id in :accountIds and t.transactionDate < :before "
+            + "group by t.account.id")
+    List<Object[]> findOldestBefore(@Param("accountIds") Collection<Long> accountIds,
+                                    @Param("before") LocalDateTime before);
+
+    /**
+     * Find an account's transactions dated in {@code [from, to)} in the form they are archived in,
+     * in chronological order.
+     *
+     * @param accountId the account id
+     * @param from the inclusive lower bound of the transaction date
+     * @param to the exclusive upper bound of the transaction date
+     * @return the transactions
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false"))
+    @Query("select new com.banking.archive.ArchivedTransaction(t.id, t.transactionReference, t.account.id, "
+            + "t.transactionType.name, t.amountMinorUnits, t.currency, t.description, t.status, t.direction, "
+            + "t.sourceAccount.id, t.destinationAccount.id, t.transactionDate) "
+            + "from Transaction t "
+            + "where t.account.id = :accountId and t.transactionDate >= :from and t.transactionDate < :to "
+            + "order by t.transactionDate asc, t.id asc")
+    List<ArchivedTransaction> findForArchive(@Param("accountId") Long accountId, @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to);
+
+    /**
+     * Delete an account's transactions dated in {@code [from, to)}.
+     *
+     * @param accountId the account id
+     * @param from the inclusive lower bound of the transaction date
+     * @param to the exclusive upper bound of the transaction date
+     * @return the number of transactions deleted
+     */
+    @Modifying
+    @Query("delete from Transaction t "
+            + "where t.account.id = :accountId and t.transactionDate >= :from and t.transactionDate < :to")
+    int deleteRange(@Param("accountId") Long accountId, @Param("from") LocalDateTime from,
+                    @Param("to") LocalDateTime to);
+}
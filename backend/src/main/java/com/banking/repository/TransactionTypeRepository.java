@@ -0,0 +1,22 @@
+package com.banking.repository;
+
+import com.banking.model.TransactionType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for managing TransactionType entities.
+ */
+@Repository
+public interface TransactionTypeRepository extends JpaRepository<TransactionType, Long> {
+
+    /**
+     * Find a transaction type by name.
+     *
+     * @param name the name to search for
+     * @return an optional containing the transaction type if found
+     */
+    Optional<TransactionType> findByName(String name);
+}
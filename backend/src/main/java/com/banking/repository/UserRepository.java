@@ -1,9 +1,15 @@
 package com.banking.repository;
 
+import com.banking.dto.UserProfile;
 import com.banking.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,4 +25,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return an optional containing the user if found
      */
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Find the email addresses of users, without loading the users.
+     *
+     * @param ids the user ids
+     * @return rows of user id and email
+     */
+    @Query("select u.id, u.email from User u where u.id in :ids")
+    List<Object[]> findEmails(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Find the public details of a user, without loading the user. Read in a read-only
+     * transaction, so it is served by a read replica when they are enabled.
+     *
+     * @param id the user id
+     * @return an optional containing the profile if the user exists
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.banking.dto.UserProfile(u.id, u.email, u.firstName, u.lastName) from User u where u.id = :id")
+    Optional<UserProfile> findProfileById(@Param("id") Long id);
+}
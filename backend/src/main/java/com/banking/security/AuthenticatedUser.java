@@ -0,0 +1,13 @@
+package com.banking.security;
+
+import com.banking.model.User;
+
+/**
+ * The principal of a request authenticated with a JWT, as read from the token claims.
+ *
+ * @param id the user id
+ * @param email the user email
+ * @param role the user role
+ */
+public record AuthenticatedUser(Long id, String email, User.Role role) {
+}
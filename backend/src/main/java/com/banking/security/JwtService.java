@@ -0,0 +1,91 @@
+package com.banking.security;
+
+import com.banking.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Issues and verifies the HS256-signed access tokens returned by {@code /auth/login} and
+ * {@code /auth/register}.
+ * <p>
+ * The subject is the user id; the email and role travel as claims so that a verified token is
+ * enough to build the request principal without loading the user.
+ */
+@Component
+public class JwtService {
+
+    private static final String EMAIL_CLAIM = "email";
+    private static final String ROLE_CLAIM = "role";
+
+    private final SecretKey key;
+    private final long expirationMillis;
+    private final JwtParser parser;
+
+    public JwtService(@Value("${application.security.jwt.secret}") String secret,
+                      @Value("${application.security.jwt.expiration}") long expirationMillis) {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.expirationMillis = expirationMillis;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
+    /**
+     * Issue an access token for a user.
+     *
+     * @param user the user the token is issued to
+     * @return the signed token
+     */
+    public String issue(User user) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .setSubject(String.valueOf(user.getId()))
+                .claim(EMAIL_CLAIM, user.getEmail())
+                .claim(ROLE_CLAIM, user.getRole().name())
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plusMillis(expirationMillis)))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Verify the signature and expiry of a token and read its principal.
+     *
+     * @param token the token
+     * @return the verified token
+     * @throws JwtException if the token is malformed, not signed with our key, or expired
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Token has no expiration");
+        }
+        try {
+            AuthenticatedUser user = new AuthenticatedUser(
+                    Long.valueOf(claims.getSubject()),
+                    claims.get(EMAIL_CLAIM, String.class),
+                    User.Role.valueOf(claims.get(ROLE_CLAIM, String.class)));
+            return new VerifiedToken(user, claims.getExpiration().toInstant());
+        } catch (RuntimeException e) {
+            throw new JwtException("Token claims are invalid", e);
+        }
+    }
+
+    /**
+     * A token whose signature has been checked.
+     *
+     * @param user the principal read from the claims
+     * @param expiresAt when the token expires
+     */
+    public record VerifiedToken(AuthenticatedUser user, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.banking.security;
+
+import com.banking.model.User;
+import com.banking.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks login outcomes and writes them to {@link User} behind the login requests.
+ * <p>
+ * Each outcome updates the in-memory login state of the user, which is what the login path reads
+ * to decide whether the account is locked. A background task writes the latest state of every
+ * changed user every {@code app.security.login-attempts.flush-interval-ms}, so a burst of attempts
+ * against one user costs one UPDATE rather than one per attempt, and the updates of all users in a
+ * flush go out as a single JDBC batch. An entry is only dropped from memory once its state has
+ * been committed and has not changed in the meantime.
+ * <p>
+ * An account is locked after {@code app.security.login-attempts.max-failures} consecutive failed
+ * attempts, for {@code app.security.login-attempts.lock-duration}. The first failure after the
+ * lock expires starts a new count.
+ */
+@Slf4j
+@Component
+public class LoginAttemptRecorder {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.security.login-attempts.max-failures:5}")
+    private int maxFailures;
+
+    @Value("${app.security.login-attempts.lock-duration:PT15M}")
+    private Duration lockDuration;
+
+    @Value("${app.security.login-attempts.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private final Map<Long, LoginState> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "login-attempts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        if (executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            flush();
+        } else {
+            log.warn("Login attempt flush did not stop in time; {} users not written", pending.size());
+        }
+    }
+
+    /**
+     * Check whether an account is locked because of failed login attempts.
+     *
+     * @param user the user, as loaded from the database
+     * @return true if logins must be refused
+     */
+    public boolean isLocked(User user) {
+        return isLocked(current(user), LocalDateTime.now());
+    }
+
+    /**
+     * Record a successful login: clears the failure count and lock, and sets the last login date.
+     *
+     * @param user the user, as loaded from the database
+     */
+    public void recordSuccess(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        pending.put(user.getId(), new LoginState(0, false, null, now));
+    }
+
+    /**
+     * Record a failed login, locking the account once the failure limit is reached.
+     *
+     * @param user the user, as loaded from the database
+     */
+    public void recordFailure(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        pending.compute(user.getId(), (id, previous) -> {
+            LoginState state = previous != null ? previous : LoginState.of(user);
+            if (state.accountLocked() && !isLocked(state, now)) {
+                state = new LoginState(0, false, null, state.lastLoginDate());
+            }
+            int failures = state.failedLoginAttempts() + 1;
+            if (failures >= maxFailures && !state.accountLocked()) {
+                return new LoginState(failures, true, now, state.lastLoginDate());
+            }
+            return new LoginState(failures, state.accountLocked(), state.lockTime(), state.lastLoginDate());
+        });
+    }
+
+    /**
+     * Write the pending login state of every changed user.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, LoginState> batch = new HashMap<>(pending);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (User user : userRepository.findAllById(batch.keySet())) {
+                    LoginState state = batch.get(user.getId());
+                    user.setFailedLoginAttempts(state.failedLoginAttempts());
+                    user.setAccountLocked(state.accountLocked());
+                    user.setLockTime(state.lockTime());
+                    user.setLastLoginDate(state.lastLoginDate());
+                }
+            });
+            batch.forEach(pending::remove);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write login attempts of {} users, will retry", batch.size(), e);
+        }
+    }
+
+    private LoginState current(User user) {
+        LoginState state = pending.get(user.getId());
+        return state != null ? state : LoginState.of(user);
+    }
+
+    private boolean isLocked(LoginState state, LocalDateTime now) {
+        if (!state.accountLocked()) {
+            return false;
+        }
+        return state.lockTime() == null || state.lockTime().plus(lockDuration).isAfter(now);
+    }
+
+    /**
+     * The login-related columns of a user.
+     */
+    private record LoginState(int failedLoginAttempts, boolean accountLocked, LocalDateTime lockTime,
+                              LocalDateTime lastLoginDate) {
+
+        static LoginState of(User user) {
+            return new LoginState(user.getFailedLoginAttempts(), user.isAccountLocked(), user.getLockTime(),
+                    user.getLastLoginDate());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.banking.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing and verification on a small dedicated pool instead of the request threads.
+ * <p>
+ * BCrypt costs tens of milliseconds of CPU per call. Running it on Tomcat workers lets a burst of
+ * logins take every worker and most of the CPU, and every other endpoint queues behind it. Here
+ * the hashing is capped at {@code app.security.password-hashing.threads} concurrent calls with at
+ * most {@code app.security.password-hashing.queue-capacity} waiting. When both are full, calls are
+ * rejected straight away with {@link RejectedExecutionException} so the caller can answer 503
+ * instead of holding the connection. Pool usage is published as
+ * {@code executor.*{name=password.hashing}} and rejections as {@code password.hashing.rejected}.
+ * <p>
+ * {@link #matchesNoAccount(CharSequence)} checks a password against a hash of a random password
+ * made at startup, so a login for an unknown email costs the same as one with a wrong password
+ * and its response time does not tell which emails are registered.
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+
+    public static final String EXECUTOR_NAME = "password.hashing";
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.security.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${app.security.password-hashing.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+    private String dummyHash;
+
+    @PostConstruct
+    void start() {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, EXECUTOR_NAME);
+        rejected = Counter.builder("password.hashing.rejected")
+                .description("Password hashing calls rejected because the pool and its queue were full")
+                .register(meterRegistry);
+        dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+        log.info("Password hashing pool started with {} threads and a queue of {}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Check a raw password against a stored hash.
+     *
+     * @param rawPassword the password to check
+     * @param encodedPassword the stored hash
+     * @return a future completed with whether the password matches
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Check a raw password for an email that has no account, at the cost of a real check.
+     *
+     * @param rawPassword the password to check
+     * @return a future completed with false
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    public CompletableFuture<Boolean> matchesNoAccount(CharSequence rawPassword) {
+        return submit(() -> {
+            passwordEncoder.matches(rawPassword, dummyHash);
+            return false;
+        });
+    }
+
+    /**
+     * Hash a raw password.
+     *
+     * @param rawPassword the password to hash
+     * @return a future completed with the hash
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.banking.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of tokens that have already passed signature verification, keyed by the raw token.
+ * <p>
+ * Every authenticated request presents a token, and checking the HMAC signature and parsing the
+ * claims is the bulk of the authentication cost. A cached token is served without either step.
+ * Each entry expires at the token's own {@code exp}, so the cache never accepts a token that
+ * verification would reject; tokens that fail verification are not cached. Hits and misses are
+ * published as {@code cache.gets{cache=jwt.verified-tokens}}.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    public static final String CACHE_NAME = "jwt.verified-tokens";
+
+    private final JwtService jwtService;
+    private final Cache<String, JwtService.VerifiedToken> cache;
+
+    public VerifiedTokenCache(JwtService jwtService,
+                              @Value("${app.security.jwt.verified-cache.enabled:true}") boolean enabled,
+                              @Value("${app.security.jwt.verified-cache.max-size:10000}") long maxSize,
+                              MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        if (enabled) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfter(new UntilTokenExpiry())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Authenticate a token, verifying it only if it has not been verified before.
+     *
+     * @param token the token
+     * @return the principal of the token
+     * @throws JwtException if the token does not verify
+     */
+    public AuthenticatedUser authenticate(String token) {
+        if (cache == null) {
+            return jwtService.verify(token).user();
+        }
+        return cache.get(token, jwtService::verify).user();
+    }
+
+    /**
+     * Drop every cached token, e.g. after the signing key was rotated.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, JwtService.VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String token, JwtService.VerifiedToken verified, long currentTime) {
+            long millis = verified.expiresAt().toEpochMilli() - Instant.now().toEpochMilli();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, JwtService.VerifiedToken verified, long currentTime,
+                                      long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, JwtService.VerifiedToken verified, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
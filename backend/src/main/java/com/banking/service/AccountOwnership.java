@@ -0,0 +1,40 @@
+package com.banking.service;
+
+import com.banking.repository.AccountRepository;
+import com.banking.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Checks that an account belongs to the signed-in user before a request reads it or moves its money.
+ * <p>
+ * The accounts of a user live on the user's shard, so the check runs there. An account of another
+ * user is reported exactly like one that does not exist, so account ids cannot be probed.
+ */
+@Component
+public class AccountOwnership {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    /**
+     * Require that an account belongs to a user.
+     *
+     * @param accountId the account id
+     * @param userId the user id
+     * @throws NoSuchElementException if the account does not exist or belongs to another user
+     * @throws com.banking.sharding.ShardMovingException if the user is being moved to another shard
+     */
+    public void requireOwner(Long accountId, Long userId) {
+        boolean owned = accountId != null && shardRouter.onUserShard(userId,
+                () -> accountRepository.existsByIdAndUserId(accountId, userId));
+        if (!owned) {
+            throw new NoSuchElementException("Account not found: " + accountId);
+        }
+    }
+}
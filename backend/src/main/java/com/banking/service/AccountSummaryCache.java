@@ -0,0 +1,308 @@
+package com.banking.service;
+
+import com.banking.dto.AccountSummary;
+import com.banking.model.Account;
+import com.banking.model.AccountSummaryEvent;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.AccountSummaryEventRepository;
+import com.banking.sharding.ShardRouter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user cache of account summaries: number, type, balance, currency and active flag of every
+ * account of a user.
+ * <p>
+ * The summaries of a user are read from the primary in one query and cached as one immutable list,
+ * so a reader always gets a consistent snapshot of all of the user's accounts. Posting paths call
+ * {@link #recordPosting(Account)} in the transaction that changed the balance; once it commits,
+ * the cached list of the user is replaced with one carrying the new balance (write-through),
+ * while the account lock is still held, so updates of an account are applied in order. Up to
+ * {@code app.account-summary-cache.max-users} users are cached, each for at most
+ * {@code app.account-summary-cache.ttl}.
+ * <p>
+ * Other instances learn of the posting from an {@link AccountSummaryEvent} written in the same
+ * transaction. Every {@code app.account-summary-cache.event-poll-interval-ms} each instance reads
+ * the events of the other instances, identified by {@code app.reference.node-id}, and drops the
+ * cached summaries of their users. Events are read again for {@code app.account-summary-cache.event-lag}
+ * after they were written, covering transactions that commit late and clock skew between
+ * instances, and purged after {@code app.account-summary-cache.event-retention}.
+ * <p>
+ * Lookups are published as {@code account.summaries} cache metrics, the database reads behind
+ * the misses as {@code account.summaries.load}, and cache updates as
+ * {@code account.summaries.updates} by source.
+ */
+@Slf4j
+@Service
+public class AccountSummaryCache {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountSummaryEventRepository eventRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.account-summary-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.account-summary-cache.max-users:10000}")
+    private long maxUsers;
+
+    @Value("${app.account-summary-cache.ttl:PT10M}")
+    private Duration ttl;
+
+    @Value("${app.account-summary-cache.event-lag:PT5S}")
+    private Duration eventLag;
+
+    @Value("${app.account-summary-cache.event-retention:PT10M}")
+    private Duration eventRetention;
+
+    @Value("${app.reference.node-id:0}")
+    private int nodeId;
+
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    private Cache<Long, List<AccountSummary>> summaries;
+
+    private Cache<Long, Boolean> seenEvents;
+
+    private LocalDateTime lastPoll;
+
+    private Timer load;
+    private Counter writeThrough;
+    private Counter eventInvalidations;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        summaries = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        seenEvents = Caffeine.newBuilder()
+                .expireAfterWrite(eventLag.multipliedBy(2))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, summaries, "account.summaries");
+        load = Timer.builder("account.summaries.load")
+                .description("Database reads of the account summaries of a user on a cache miss")
+                .register(meterRegistry);
+        writeThrough = updateCounter("write-through");
+        eventInvalidations = updateCounter("event");
+        lastPoll = LocalDateTime.now();
+    }
+
+    private Counter updateCounter(String source) {
+        return Counter.builder("account.summaries.updates")
+                .tag("source", source)
+                .description("Cached account summaries replaced after a local posting or dropped after a posting elsewhere")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the summaries of all accounts of a user, as of one point in time.
+     *
+     * @param userId the user id
+     * @return the summaries in order of account id
+     */
+    public List<AccountSummary> getAccounts(Long userId) {
+        if (!enabled) {
+            return loadAccounts(userId);
+        }
+        return summaries.get(userId, this::loadAccounts);
+    }
+
+    private List<AccountSummary> loadAccounts(Long userId) {
+        // On the primary: a replica may not have the posting that changed the summaries yet, and
+        // whatever is loaded stays cached for the ttl.
+        return load.record(() -> shardRouter.onUserShard(userId, () -> transactionTemplate.execute(status ->
+                List.copyOf(accountRepository.findSummariesByUserId(userId)))));
+    }
+
+    /**
+     * Record a change to the balance of an account. Must run in the transaction that changed it,
+     * while the account cannot be posted to concurrently; the cached summaries of the owner are
+     * updated once the transaction commits.
+     *
+     * @param account the account, carrying its balance after the postings
+     */
+    public void recordPosting(Account account) {
+        if (!enabled) {
+            return;
+        }
+        Long userId = account.getUser().getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            summaries.invalidate(userId);
+            return;
+        }
+        PendingUpdates pending = (PendingUpdates) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingUpdates();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        if (pending.add(userId, AccountSummary.of(account))) {
+            eventRepository.save(AccountSummaryEvent.builder()
+                    .userId(userId)
+                    .originNode(nodeId)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    /**
+     * Drop the cached summaries of the users whose accounts changed on other instances.
+     */
+    @Scheduled(fixedDelayString = "${app.account-summary-cache.event-poll-interval-ms:1000}")
+    void pollEvents() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = lastPoll.minus(eventLag);
+        Set<Long> users = new HashSet<>();
+        for (int shard : shardRouter.shards()) {
+            List<AccountSummaryEvent> events = shardRouter.onShard(shard, () -> readOnlyTransactionTemplate.execute(status ->
+                    eventRepository.findSince(since, nodeId)));
+            for (AccountSummaryEvent event : events) {
+                if (seenEvents.asMap().putIfAbsent(event.getId(), Boolean.TRUE) == null) {
+                    users.add(event.getUserId());
+                }
+            }
+        }
+        if (!users.isEmpty()) {
+            summaries.invalidateAll(users);
+            eventInvalidations.increment(users.size());
+            log.debug("Dropped the cached account summaries of {} users changed elsewhere", users.size());
+        }
+        lastPoll = now;
+    }
+
+    @Scheduled(fixedDelayString = "${app.account-summary-cache.event-purge-interval-ms:60000}")
+    void purgeEvents() {
+        LocalDateTime before = LocalDateTime.now().minus(eventRetention);
+        int deleted = 0;
+        for (int shard : shardRouter.shards()) {
+            Integer shardDeleted = shardRouter.onShard(shard, () -> transactionTemplate.execute(status ->
+                    eventRepository.deleteCreatedBefore(before)));
+            deleted += shardDeleted != null ? shardDeleted : 0;
+        }
+        if (deleted > 0) {
+            log.debug("Purged {} account summary events", deleted);
+        }
+    }
+
+    /**
+     * Report the effect of the cache: lookups, the hit rate, and the database reads and time the
+     * hits saved, estimated from the mean cost of the reads behind the misses.
+     *
+     * @return the statistics by name
+     */
+    public Map<String, Object> statistics() {
+        CacheStats stats = summaries.stats();
+        double meanLoadMillis = load.count() > 0 ? load.mean(TimeUnit.MILLISECONDS) : 0;
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("users", summaries.estimatedSize());
+        statistics.put("hits", stats.hitCount());
+        statistics.put("misses", stats.missCount());
+        statistics.put("hitRate", stats.requestCount() > 0 ? stats.hitRate() : 0);
+        statistics.put("queriesSaved", stats.hitCount());
+        statistics.put("meanLoadMillis", meanLoadMillis);
+        statistics.put("databaseMillisSaved", Math.round(stats.hitCount() * meanLoadMillis));
+        statistics.put("writeThroughUpdates", (long) writeThrough.count());
+        statistics.put("eventInvalidations", (long) eventInvalidations.count());
+        return statistics;
+    }
+
+    /**
+     * Drop every cached summary.
+     */
+    public void evictAll() {
+        summaries.invalidateAll();
+    }
+
+    /**
+     * The balances changed by a transaction, applied to the cache once it commits.
+     */
+    private final class PendingUpdates implements TransactionSynchronization {
+
+        private final Map<Long, Map<Long, AccountSummary>> byUser = new LinkedHashMap<>();
+
+        /**
+         * @return true if this is the first change to the accounts of the user in the transaction
+         */
+        boolean add(Long userId, AccountSummary summary) {
+            boolean first = !byUser.containsKey(userId);
+            byUser.computeIfAbsent(userId, key -> new LinkedHashMap<>()).put(summary.id(), summary);
+            return first;
+        }
+
+        @Override
+        public void afterCommit() {
+            byUser.forEach((userId, changed) -> {
+                summaries.asMap().computeIfPresent(userId, (key, cached) -> apply(cached, changed));
+                writeThrough.increment();
+            });
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AccountSummaryCache.this);
+        }
+
+        /**
+         * Replace the changed accounts in a cached list, or drop the list if it does not hold one of them.
+         */
+        private List<AccountSummary> apply(List<AccountSummary> cached, Map<Long, AccountSummary> changed) {
+            List<AccountSummary> updated = new ArrayList<>(cached.size());
+            int replaced = 0;
+            for (AccountSummary summary : cached) {
+                AccountSummary change = changed.get(summary.id());
+                if (change != null) {
+                    replaced++;
+                }
+                updated.add(change != null ? change : summary);
+            }
+            return replaced == changed.size() ? List.copyOf(updated) : null;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.banking.service;
+
+import com.banking.archive.TransactionArchive;
+import com.banking.dto.BalanceAsOf;
+import com.banking.model.Account;
+import com.banking.model.DailyBalanceSnapshot;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.DailyBalanceSnapshotRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Service that maintains end-of-day balance snapshots and answers balance-as-of queries from them.
+ * <p>
+ * A snapshot holds the closing balance of an account for a day on which it had activity. Posting
+ * paths call {@link #recordPostings(Account, Collection)} in the same database transaction as the
+ * rows they write, which shifts the snapshots of that day and every later day by the net change.
+ * A balance at any point in time is then the nearest snapshot plus the transactions of at most
+ * one day, however long the account's history is. Sums over transactions include those moved to
+ * the {@link TransactionArchive}.
+ */
+@Slf4j
+@Service
+public class BalanceSnapshotService {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DailyBalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${app.journal.enabled:false}")
+    private boolean journalEnabled;
+
+    /**
+     * Update the snapshots of an account for newly written transaction rows. Must run in the
+     * transaction that wrote the rows, after the account balance has been updated, while the
+     * account cannot be posted to concurrently.
+     *
+     * @param account the account, carrying its balance after the postings
+     * @param rows the transaction rows written for the account
+     */
+    public void recordPostings(Account account, Collection<Transaction> rows) {
+        Map<LocalDate, Long> deltas = new TreeMap<>();
+        for (Transaction row : rows) {
+            deltas.merge(row.getTransactionDate().toLocalDate(), signedMinorUnits(row), Math::addExact);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<LocalDate, Long> delta : deltas.entrySet()) {
+            LocalDate day = delta.getKey();
+            boolean exists = snapshotRepository.existsByAccountIdAndBalanceDate(account.getId(), day);
+            snapshotRepository.shiftFrom(account.getId(), day, BigDecimal.valueOf(delta.getValue(), Money.SCALE), now);
+            if (!exists) {
+                Money later = Money.of(sumSignedAmount(account.getId(), startOfNextDay(day), null),
+                        account.getCurrency());
+                snapshotRepository.save(DailyBalanceSnapshot.builder()
+                        .accountId(account.getId())
+                        .balanceDate(day)
+                        .closingBalance(account.getBalance().minus(later).toBigDecimal())
+                        .updatedAt(now)
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * Get the balance of an account at a point in time.
+     *
+     * @param accountId the account id
+     * @param at the point in time; transactions dated before it are included
+     * @return the balance at that point in time
+     * @throws NoSuchElementException if the account does not exist
+     */
+    @Transactional(readOnly = true)
+    public BalanceAsOf balanceAt(Long accountId, LocalDateTime at) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new NoSuchElementException("Account not found: " + accountId));
+        LocalDate day = at.toLocalDate();
+
+        BigDecimal balance;
+        Optional<DailyBalanceSnapshot> before =
+                snapshotRepository.findFirstByAccountIdAndBalanceDateLessThanOrderByBalanceDateDesc(accountId, day);
+        if (before.isPresent()) {
+            // Nothing posted between the snapshot day and the requested day, so only the requested day is summed.
+            balance = before.get().getClosingBalance()
+                    .add(sumSignedAmount(accountId, day.atStartOfDay(), at));
+        } else {
+            Optional<DailyBalanceSnapshot> after =
+                    snapshotRepository.findFirstByAccountIdAndBalanceDateGreaterThanEqualOrderByBalanceDateAsc(accountId, day);
+            if (after.isPresent()) {
+                balance = after.get().getClosingBalance().subtract(sumSignedAmount(
+                        accountId, at, startOfNextDay(after.get().getBalanceDate())));
+            } else {
+                balance = account.getBalance().toBigDecimal()
+                        .subtract(sumSignedAmount(accountId, at, null));
+            }
+        }
+        return new BalanceAsOf(accountId, at, Money.of(balance, account.getCurrency()), account.getCurrency());
+    }
+
+    /**
+     * Rebuild the snapshots of an account from its transactions, on the shard the current thread
+     * works on.
+     *
+     * @param accountId the account id
+     * @return the number of snapshots written
+     * @throws IllegalStateException if journal mode is enabled
+     */
+    public int backfill(Long accountId) {
+        requireDatabaseMode();
+        Integer written = accountLockManager.withAccountLock(accountId, () -> transactionTemplate.execute(status -> {
+            Account account = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new NoSuchElementException("Account not found: " + accountId));
+            snapshotRepository.deleteByAccountId(accountId);
+
+            LocalDateTime now = LocalDateTime.now();
+            Money closing = account.getBalance();
+            List<DailyBalanceSnapshot> snapshots = new ArrayList<>();
+            Map<LocalDate, BigDecimal> days = new TreeMap<>(Comparator.reverseOrder());
+            days.putAll(transactionArchive.sumSignedAmountByDay(accountId));
+            for (Object[] day : transactionRepository.sumSignedAmountByDay(accountId)) {
+                days.merge((LocalDate) day[0], (BigDecimal) day[1], BigDecimal::add);
+            }
+            for (Map.Entry<LocalDate, BigDecimal> day : days.entrySet()) {
+                snapshots.add(DailyBalanceSnapshot.builder()
+                        .accountId(accountId)
+                        .balanceDate(day.getKey())
+                        .closingBalance(closing.toBigDecimal())
+                        .updatedAt(now)
+                        .build());
+                closing = closing.minus(Money.of(day.getValue(), closing.currency()));
+            }
+            snapshotRepository.saveAll(snapshots);
+            return snapshots.size();
+        }));
+        return written;
+    }
+
+    /**
+     * Rebuild the snapshots of every account of every shard. Each account is rebuilt in its own
+     * transaction.
+     *
+     * @return the number of snapshots written
+     * @throws IllegalStateException if journal mode is enabled
+     */
+    public int backfillAll() {
+        requireDatabaseMode();
+        int written = 0;
+        int accounts = 0;
+        for (int shard : shardRouter.shards()) {
+            List<Long> accountIds = shardRouter.onShard(shard, accountRepository::findAllIds);
+            for (Long accountId : accountIds) {
+                written += shardRouter.onShard(shard, () -> backfill(accountId));
+            }
+            accounts += accountIds.size();
+        }
+        log.info("Backfilled {} balance snapshots for {} accounts", written, accounts);
+        return written;
+    }
+
+    private void requireDatabaseMode() {
+        if (journalEnabled) {
+            throw new IllegalStateException("Snapshot backfill is not available while journal mode is enabled");
+        }
+    }
+
+    /**
+     * Sum the signed amounts of an account's transactions in both tiers dated in {@code [from, to)}.
+     */
+    private BigDecimal sumSignedAmount(Long accountId, LocalDateTime from, LocalDateTime to) {
+        BigDecimal hot = to == null
+                ? transactionRepository.sumSignedAmountFrom(accountId, from)
+                : transactionRepository.sumSignedAmount(accountId, from, to);
+        return hot.add(transactionArchive.sumSignedAmount(accountId, from, to));
+    }
+
+    private static long signedMinorUnits(Transaction row) {
+        long amount = row.getAmount().minorUnits();
+        return row.getDirection() == Transaction.Direction.CREDIT ? amount : -amount;
+    }
+
+    private static LocalDateTime startOfNextDay(LocalDate day) {
+        return day.plusDays(1).atStartOfDay();
+    }
+}
@@ -0,0 +1,250 @@
+package com.banking.service;
+
+import com.banking.journal.PostingJournal;
+import com.banking.model.Account;
+import com.banking.model.Bill;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import com.banking.notification.EmailOutbox;
+import com.banking.notification.NotificationEvent;
+import com.banking.notification.NotificationHub;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.BillRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Service that pays bills from their payment account.
+ * <p>
+ * Bills are paid in chunks: the payment accounts of a chunk are locked, then every bill is debited
+ * and its {@link Transaction} row written in one database transaction, with the rows flushed every
+ * {@code hibernate.jdbc.batch_size} so they go out as JDBC batches. A bill that cannot be paid is
+ * marked {@link Bill#STATUS_FAILED} with the reason instead of failing the chunk. The owner of each
+ * bill is notified of the outcome once the chunk commits, and emailed through the
+ * {@link EmailOutbox} rows written with the chunk.
+ */
+@Service
+public class BillPaymentService {
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionFactory transactionFactory;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private AccountSummaryCache accountSummaryCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NotificationHub notificationHub;
+
+    @Autowired
+    private EmailOutbox emailOutbox;
+
+    @Autowired(required = false)
+    private PostingJournal postingJournal;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    /**
+     * Pay a single bill of a user now.
+     *
+     * @param billId the bill to pay
+     * @param userId the user paying the bill, who must own the bill and the payment account
+     * @param paymentAccountId the account to pay from, or null to use the payment account of the bill
+     * @return the bill after the attempt; its status tells whether it was paid
+     * @throws NoSuchElementException if the bill or the payment account does not exist or belongs to another user
+     * @throws IllegalArgumentException if the bill has no payment account or is already paid
+     */
+    public Bill payBill(Long billId, Long userId, Long paymentAccountId) {
+        requireDatabaseMode();
+        // Checked and updated in one read-write transaction, so the bill is never read from a replica.
+        Long accountId = transactionTemplate.execute(status -> {
+            Bill bill = billRepository.findByIdAndUserId(billId, userId)
+                    .orElseThrow(() -> new NoSuchElementException("Bill not found"));
+            if (Bill.STATUS_PAID.equals(bill.getStatus())) {
+                throw new IllegalArgumentException("Bill is already paid");
+            }
+            Long payFrom = paymentAccountId != null ? paymentAccountId : bill.getPaymentAccountId();
+            if (payFrom == null) {
+                throw new IllegalArgumentException("Bill has no payment account");
+            }
+            if (!accountRepository.existsByIdAndUserId(payFrom, userId)) {
+                throw new NoSuchElementException("Account not found: " + payFrom);
+            }
+            if (!payFrom.equals(bill.getPaymentAccountId())) {
+                bill.setPaymentAccountId(payFrom);
+                billRepository.save(bill);
+            }
+            return payFrom;
+        });
+        payBills(Map.of(billId, accountId), Set.of(Bill.STATUS_PENDING, Bill.STATUS_FAILED), null);
+        return billRepository.findById(billId)
+                .orElseThrow(() -> new NoSuchElementException("Bill not found"));
+    }
+
+    /**
+     * Pay a chunk of bills. Bills whose status or payment account changed since they were selected
+     * are skipped and left for a later attempt.
+     *
+     * @param accountsByBill the payment account id of every bill to pay, by bill id
+     * @param payableStatuses the statuses a bill may be paid from
+     * @param checkpoint called with the outcome inside the database transaction of the chunk, so
+     *                   progress recorded by the caller commits or rolls back with the payments; may be null
+     * @return the outcome of the chunk
+     */
+    public Outcome payBills(Map<Long, Long> accountsByBill, Set<String> payableStatuses, Consumer<Outcome> checkpoint) {
+        requireDatabaseMode();
+        Set<Long> accountIds = new HashSet<>(accountsByBill.values());
+        return accountLockManager.withAccountLocks(accountIds, () -> transactionTemplate.execute(status -> {
+            Map<Long, Account> accounts = new HashMap<>();
+            for (Account account : accountRepository.findAllById(accountIds)) {
+                accounts.put(account.getId(), account);
+            }
+            TransactionType type = transactionFactory.resolveType(PostingService.BILL_PAYMENT);
+            List<Transaction> rows = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+            int failed = 0;
+
+            for (Bill bill : billRepository.findAllById(accountsByBill.keySet())) {
+                if (!payableStatuses.contains(bill.getStatus())
+                        || !Objects.equals(bill.getPaymentAccountId(), accountsByBill.get(bill.getId()))) {
+                    continue;
+                }
+                Account account = accounts.get(bill.getPaymentAccountId());
+                String problem = checkPayment(bill, account);
+                if (problem != null) {
+                    bill.setStatus(Bill.STATUS_FAILED);
+                    bill.setPaymentFailureReason(problem);
+                    notifyOutcome(bill, NotificationEvent.BILL_PAYMENT_FAILED,
+                            bill.getName() + " could not be paid: " + problem);
+                    emailOutbox.enqueue(bill.getUser().getId(), "Bill payment failed: " + bill.getName(),
+                            "Your bill " + bill.getName() + " of " + bill.getAmount() + " due on " + bill.getDueDate()
+                                    + " could not be paid: " + problem);
+                    failed++;
+                    continue;
+                }
+                Money amount = Money.of(bill.getAmount(), account.getCurrency());
+                account.withdraw(amount);
+                Transaction row = transactionFactory.build(account, type, Transaction.Direction.DEBIT, amount,
+                        "Bill payment: " + bill.getName(), transactionFactory.newReference(), now);
+                rows.add(row);
+                bill.setStatus(Bill.STATUS_PAID);
+                bill.setPaidAt(now);
+                bill.setPaymentReference(row.getTransactionReference());
+                bill.setPaymentFailureReason(null);
+                notifyOutcome(bill, NotificationEvent.BILL_PAID, bill.getName() + " was paid: " + amount);
+                emailOutbox.enqueue(bill.getUser().getId(), "Bill paid: " + bill.getName(),
+                        "Your bill " + bill.getName() + " of " + amount + " was paid from account "
+                                + account.getAccountNumber() + ". Reference: " + row.getTransactionReference());
+            }
+
+            for (int i = 0; i < rows.size(); i++) {
+                entityManager.persist(rows.get(i));
+                if ((i + 1) % jdbcBatchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            Map<Long, List<Transaction>> rowsByAccount = rows.stream()
+                    .collect(Collectors.groupingBy(row -> row.getAccount().getId()));
+            rowsByAccount.forEach((accountId, accountRows) -> {
+                balanceSnapshotService.recordPostings(accounts.get(accountId), accountRows);
+                accountSummaryCache.recordPosting(accounts.get(accountId));
+            });
+
+            Outcome outcome = new Outcome(rows.size(), failed);
+            if (checkpoint != null) {
+                checkpoint.accept(outcome);
+            }
+            return outcome;
+        }));
+    }
+
+    private void notifyOutcome(Bill bill, NotificationEvent event, String message) {
+        Long userId = bill.getUser().getId();
+        if (!notificationHub.hasChannel(userId)) {
+            return;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("billId", bill.getId());
+        data.put("accountId", bill.getPaymentAccountId());
+        data.put("amount", bill.getAmount());
+        data.put("reference", bill.getPaymentReference());
+        notificationHub.publishAfterCommit(userId, event, message, data);
+    }
+
+    private static String checkPayment(Bill bill, Account account) {
+        if (account == null) {
+            return "Payment account not found: " + bill.getPaymentAccountId();
+        }
+        if (!account.isActive()) {
+            return "Payment account is not active: " + account.getId();
+        }
+        if (!account.getUser().getId().equals(bill.getUser().getId())) {
+            return "Payment account does not belong to the bill owner";
+        }
+        if (bill.getAmount() == null || bill.getAmount().signum() <= 0) {
+            return "Bill amount must be positive";
+        }
+        Money amount;
+        try {
+            amount = Money.of(bill.getAmount(), account.getCurrency());
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        if (!account.hasSufficientFunds(amount)) {
+            return "Insufficient funds";
+        }
+        return null;
+    }
+
+    private void requireDatabaseMode() {
+        if (postingJournal != null) {
+            throw new IllegalStateException("Bill payments are not available while journal mode is enabled");
+        }
+    }
+
+    /**
+     * Outcome of paying a chunk of bills.
+     *
+     * @param paid the number of bills paid
+     * @param failed the number of bills marked failed
+     */
+    public record Outcome(int paid, int failed) {
+    }
+}
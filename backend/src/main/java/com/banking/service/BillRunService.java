@@ -0,0 +1,349 @@
+package com.banking.service;
+
+import com.banking.dto.BillRunResult;
+import com.banking.journal.PostingJournal;
+import com.banking.model.Bill;
+import com.banking.model.BillRun;
+import com.banking.model.BillRunPartition;
+import com.banking.repository.BillRepository;
+import com.banking.repository.BillRunPartitionRepository;
+import com.banking.repository.BillRunRepository;
+import com.banking.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Service that pays due bills in bulk.
+ * <p>
+ * A bill run pays every {@link Bill#STATUS_PENDING} bill with a payment account that is due on or
+ * before the run date. The bills are split by user into {@code app.bill-run.partitions} partitions,
+ * which a pool of {@code app.bill-run.workers} threads works through in chunks of
+ * {@code app.bill-run.chunk-size}. All bills of a user fall in the same partition, so workers
+ * rarely contend for the same account lock.
+ * <p>
+ * Paid and failed bills leave the {@code (status, due_date)} range the partitions are read from,
+ * and each chunk commits together with the progress of its partition, so a run that was stopped,
+ * crashed or ran out of its {@code app.bill-run.window} resumes where it left off when started
+ * again, without paying a bill twice.
+ * <p>
+ * The bills each run pays or fails are counted as {@code bill.run.payments}, tagged with the
+ * {@code outcome}, as their chunks commit.
+ * <p>
+ * With {@code app.sharding.enabled}, each shard has a run of its own, with its own partitions,
+ * and the shards are run one after the other.
+ */
+@Slf4j
+@Service
+public class BillRunService {
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BillRunRepository billRunRepository;
+
+    @Autowired
+    private BillRunPartitionRepository partitionRepository;
+
+    @Autowired
+    private BillPaymentService billPaymentService;
+
+    @Autowired
+    private TransactionFactory transactionFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired(required = false)
+    private PostingJournal postingJournal;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.bill-run.partitions:16}")
+    private int partitions;
+
+    @Value("${app.bill-run.workers:4}")
+    private int workers;
+
+    @Value("${app.bill-run.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.bill-run.window:PT2H}")
+    private Duration window;
+
+    @Value("${app.bill-run.stale-after:PT10M}")
+    private Duration staleAfter;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private Counter paidCounter;
+
+    private Counter failedCounter;
+
+    @PostConstruct
+    void registerMeters() {
+        paidCounter = paymentCounter("paid");
+        failedCounter = paymentCounter("failed");
+    }
+
+    private Counter paymentCounter(String outcome) {
+        return Counter.builder("bill.run.payments")
+                .tag("outcome", outcome)
+                .description("Bills paid or failed by bill runs")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.bill-run.cron:0 0 1 * * *}")
+    void scheduledRun() {
+        if (postingJournal != null) {
+            log.warn("Skipping the scheduled bill run: bill payments are not available in journal mode");
+            return;
+        }
+        try {
+            run(LocalDate.now());
+        } catch (IllegalStateException e) {
+            log.info("Skipping the scheduled bill run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Run, or resume, the bill run of a date.
+     *
+     * @param runDate the run date; bills due on or before it are paid
+     * @return the outcome of the run so far
+     * @throws IllegalStateException if the run is already in progress, or in journal mode
+     */
+    public BillRunResult run(LocalDate runDate) {
+        if (postingJournal != null) {
+            throw new IllegalStateException("Bill runs are not available while journal mode is enabled");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A bill run is already in progress");
+        }
+        try {
+            long start = System.nanoTime();
+            List<BillRunResult> shardResults = new ArrayList<>();
+            for (int shard : shardRouter.shards()) {
+                shardResults.add(shardRouter.onShard(shard, () -> runShard(runDate, start)));
+            }
+            BillRunResult result = shardResults.size() == 1 ? shardResults.get(0) : combine(runDate, shardResults, start);
+            log.info("Bill run of {} {}: {} paid, {} failed, {} of {} partitions completed in {} ms",
+                    runDate, result.status(), result.paid(), result.failed(),
+                    result.completedPartitions(), result.partitions(), result.elapsedMillis());
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Run the bill run of the shard the current thread works on.
+     */
+    private BillRunResult runShard(LocalDate runDate, long startNanos) {
+        BillRun run = claim(runDate);
+        List<BillRunPartition> open = partitionRepository.findByRunIdOrderByPartitionNo(run.getId()).stream()
+                .filter(partition -> partition.getStatus() != BillRunPartition.Status.COMPLETED)
+                .toList();
+        log.info("Bill run of {} started on shard {}: {} of {} partitions to process with {} workers",
+                runDate, ShardRouter.currentShard(), open.size(), run.getPartitionCount(), workers);
+        processPartitions(run, open, Instant.now().plus(window));
+        return finish(run.getId(), startNanos);
+    }
+
+    private static BillRunResult combine(LocalDate runDate, List<BillRunResult> shardResults, long startNanos) {
+        BillRun.Status status = BillRun.Status.COMPLETED;
+        int partitionCount = 0;
+        int completed = 0;
+        long paid = 0;
+        long failed = 0;
+        for (BillRunResult shardResult : shardResults) {
+            if (shardResult.status() != BillRun.Status.COMPLETED) {
+                status = shardResult.status();
+            }
+            partitionCount += shardResult.partitions();
+            completed += shardResult.completedPartitions();
+            paid += shardResult.paid();
+            failed += shardResult.failed();
+        }
+        return new BillRunResult(runDate, status, partitionCount, completed, paid, failed,
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private BillRun claim(LocalDate runDate) {
+        try {
+            return transactionTemplate.execute(status -> {
+                // Created up front so the workers do not race to insert it on first use.
+                transactionFactory.resolveType(PostingService.BILL_PAYMENT);
+                LocalDateTime now = LocalDateTime.now();
+                BillRun run = billRunRepository.findByRunDate(runDate).orElse(null);
+                if (run == null) {
+                    BillRun created = billRunRepository.saveAndFlush(BillRun.builder()
+                            .runDate(runDate)
+                            .status(BillRun.Status.RUNNING)
+                            .partitionCount(partitions)
+                            .startedAt(now)
+                            .build());
+                    partitionRepository.saveAll(IntStream.range(0, partitions)
+                            .mapToObj(partitionNo -> BillRunPartition.builder()
+                                    .runId(created.getId())
+                                    .partitionNo(partitionNo)
+                                    .status(BillRunPartition.Status.PENDING)
+                                    .updatedAt(now)
+                                    .build())
+                            .toList());
+                    return created;
+                }
+                if (run.getStatus() == BillRun.Status.RUNNING) {
+                    LocalDateTime lastUpdate = partitionRepository.findLastUpdate(run.getId());
+                    if (lastUpdate != null && lastUpdate.isAfter(now.minus(staleAfter))) {
+                        throw new IllegalStateException("The bill run of " + runDate + " is already in progress");
+                    }
+                    log.warn("Resuming the bill run of {}, last progress at {}", runDate, lastUpdate);
+                }
+                List<BillRunPartition> runPartitions = partitionRepository.findByRunIdOrderByPartitionNo(run.getId());
+                for (BillRunPartition partition : runPartitions) {
+                    // A completed run is reopened to pick up bills that became due since.
+                    if (run.getStatus() == BillRun.Status.COMPLETED
+                            || partition.getStatus() != BillRunPartition.Status.COMPLETED) {
+                        partition.setStatus(BillRunPartition.Status.PENDING);
+                    }
+                    partition.setUpdatedAt(now);
+                }
+                run.setStatus(BillRun.Status.RUNNING);
+                run.setFinishedAt(null);
+                return billRunRepository.saveAndFlush(run);
+            });
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            throw new IllegalStateException("The bill run of " + runDate + " was claimed by another instance");
+        }
+    }
+
+    private void processPartitions(BillRun run, List<BillRunPartition> open, Instant deadline) {
+        if (open.isEmpty()) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, open.size())), runnable -> {
+            Thread thread = new Thread(runnable, "bill-run-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(open.size());
+            int shard = ShardRouter.currentShard();
+            for (BillRunPartition partition : open) {
+                futures.add(executor.submit(() -> shardRouter.runOnShard(shard,
+                        () -> processPartition(run, partition, deadline))));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Bill run of {} left a partition unfinished", run.getRunDate(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void processPartition(BillRun run, BillRunPartition partition, Instant deadline) {
+        updatePartition(partition.getId(), BillRunPartition.Status.RUNNING);
+        Set<String> payable = Set.of(Bill.STATUS_PENDING);
+        while (true) {
+            if (Instant.now().isAfter(deadline) || Thread.currentThread().isInterrupted()) {
+                log.warn("Bill run of {} stopped partition {} at the end of its window",
+                        run.getRunDate(), partition.getPartitionNo());
+                updatePartition(partition.getId(), BillRunPartition.Status.PENDING);
+                return;
+            }
+            List<Object[]> due = billRepository.findDueInPartition(Bill.STATUS_PENDING, run.getRunDate(),
+                    run.getPartitionCount(), partition.getPartitionNo(), Limit.of(chunkSize));
+            if (due.isEmpty()) {
+                break;
+            }
+            Map<Long, Long> accountsByBill = new LinkedHashMap<>();
+            for (Object[] row : due) {
+                accountsByBill.put((Long) row[0], (Long) row[1]);
+            }
+            BillPaymentService.Outcome outcome = billPaymentService.payBills(accountsByBill, payable,
+                    progress -> recordProgress(partition.getId(), progress));
+            paidCounter.increment(outcome.paid());
+            failedCounter.increment(outcome.failed());
+        }
+        updatePartition(partition.getId(), BillRunPartition.Status.COMPLETED);
+    }
+
+    private void recordProgress(Long partitionId, BillPaymentService.Outcome outcome) {
+        BillRunPartition partition = partitionRepository.findById(partitionId).orElseThrow();
+        partition.setPaidCount(partition.getPaidCount() + outcome.paid());
+        partition.setFailedCount(partition.getFailedCount() + outcome.failed());
+        partition.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private void updatePartition(Long partitionId, BillRunPartition.Status partitionStatus) {
+        transactionTemplate.executeWithoutResult(status -> {
+            BillRunPartition partition = partitionRepository.findById(partitionId).orElseThrow();
+            partition.setStatus(partitionStatus);
+            partition.setUpdatedAt(LocalDateTime.now());
+        });
+    }
+
+    private BillRunResult finish(Long runId, long startNanos) {
+        return transactionTemplate.execute(status -> {
+            BillRun run = billRunRepository.findById(runId).orElseThrow();
+            List<BillRunPartition> runPartitions = partitionRepository.findByRunIdOrderByPartitionNo(runId);
+            int completed = 0;
+            long paid = 0;
+            long failed = 0;
+            for (BillRunPartition partition : runPartitions) {
+                if (partition.getStatus() == BillRunPartition.Status.COMPLETED) {
+                    completed++;
+                }
+                paid += partition.getPaidCount();
+                failed += partition.getFailedCount();
+            }
+            if (completed == runPartitions.size()) {
+                run.setStatus(BillRun.Status.COMPLETED);
+                run.setFinishedAt(LocalDateTime.now());
+            } else {
+                run.setStatus(BillRun.Status.INCOMPLETE);
+            }
+            return new BillRunResult(run.getRunDate(), run.getStatus(), runPartitions.size(), completed,
+                    paid, failed, (System.nanoTime() - startNanos) / 1_000_000);
+        });
+    }
+}
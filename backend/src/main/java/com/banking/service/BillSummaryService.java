@@ -0,0 +1,92 @@
+package com.banking.service;
+
+import com.banking.dto.BillDue;
+import com.banking.dto.BillGroupTotal;
+import com.banking.dto.BillSummary;
+import com.banking.dto.BillTotal;
+import com.banking.repository.BillRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service that summarizes the bills of a user with aggregate queries, so the dashboards do not have
+ * to download every bill to show totals.
+ * <p>
+ * A summary is identified by an entity tag derived from the bill count and the latest bill update
+ * of the user, both read with one cheap query. A client that presents the current tag gets a
+ * 304 without any of the aggregates being run.
+ */
+@Service
+public class BillSummaryService {
+
+    private static final String NO_STATUS = "NONE";
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Value("${app.bills.summary.max-upcoming:10}")
+    private int maxUpcoming;
+
+    /**
+     * Compute the entity tag of the summary of a user's bills.
+     *
+     * @param userId the user id
+     * @param upcomingDays the length of the upcoming window in days
+     * @param today the first day of the upcoming window
+     * @return the entity tag, quoted
+     */
+    @Transactional(readOnly = true)
+    public String etag(Long userId, int upcomingDays, LocalDate today) {
+        Object[] version = billRepository.findVersion(userId).get(0);
+        return "\"" + userId + "-" + version[0] + "-" + version[1] + "-" + today + "-" + upcomingDays + "\"";
+    }
+
+    /**
+     * Summarize the bills of a user.
+     *
+     * @param userId the user id
+     * @param upcomingDays the length of the upcoming window in days
+     * @param today the first day of the upcoming window
+     * @return the summary
+     */
+    @Transactional(readOnly = true)
+    public BillSummary summarize(Long userId, int upcomingDays, LocalDate today) {
+        Map<String, BillTotal> byCategory = new TreeMap<>();
+        Map<String, BillTotal> byStatus = new TreeMap<>();
+        long count = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        for (BillGroupTotal group : billRepository.summarizeByCategoryAndStatus(userId)) {
+            add(byCategory, group.category(), group);
+            add(byStatus, group.status() != null ? group.status() : NO_STATUS, group);
+            count += group.count();
+            amount = amount.add(group.amount());
+        }
+
+        LocalDate until = today.plusDays(upcomingDays);
+        Object[] due = billRepository.summarizeDue(userId, today, until).get(0);
+        List<BillDue> upcoming = billRepository.findDue(userId, today, until, Limit.of(maxUpcoming));
+        return new BillSummary(today, count, amount, largestFirst(byCategory), largestFirst(byStatus),
+                upcomingDays, (Long) due[0], (BigDecimal) due[1], upcoming);
+    }
+
+    private static void add(Map<String, BillTotal> totals, String name, BillGroupTotal group) {
+        totals.merge(name, new BillTotal(name, group.count(), group.amount()),
+                (a, b) -> new BillTotal(name, a.count() + b.count(), a.amount().add(b.amount())));
+    }
+
+    private static List<BillTotal> largestFirst(Map<String, BillTotal> totals) {
+        return totals.values().stream()
+                .sorted(Comparator.comparing(BillTotal::amount).reversed())
+                .toList();
+    }
+}
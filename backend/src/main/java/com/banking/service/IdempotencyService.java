@@ -0,0 +1,401 @@
+package com.banking.service;
+
+import com.banking.model.IdempotencyRecord;
+import com.banking.repository.IdempotencyRecordRepository;
+import com.banking.sharding.ShardRouter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Service that makes requests carrying an {@code Idempotency-Key} header safe to retry.
+ * <p>
+ * The first request with a key is executed and its response stored; any later request with the
+ * same key and user gets the stored response back without the request being executed again.
+ * Responses live in the {@code idempotency_records} table for {@code app.idempotency.ttl}, with a
+ * near cache in front so a retry usually does not reach the database at all. A duplicate that
+ * arrives while the first request is still executing on this instance waits for its response; one
+ * that arrives on another instance is answered with 409 and a {@code Retry-After}.
+ * <p>
+ * Near cache hits and misses are published as {@code cache.gets{cache=idempotency.responses}}.
+ * <p>
+ * Server errors are not stored, so a request that failed with a 5xx can be retried with the same
+ * key. A key whose request never completed, because the instance stopped or its response could not
+ * be stored, is never executed again: the request may have been applied. After
+ * {@code app.idempotency.in-progress-ttl} retries are answered with 409 without {@code Retry-After},
+ * and the key is listed as unresolved until an operator releases it with {@link #resolve(String)}.
+ * With {@code app.sharding.enabled}, the records are kept on the directory, so a key stays claimed
+ * when its user is moved to another shard.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final String CACHE_NAME = "idempotency.responses";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration inProgressTtl;
+    private final Duration waitTimeout;
+    private final Cache<String, StoredResponse> nearCache;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              TransactionTemplate transactionTemplate,
+                              ShardRouter shardRouter,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${app.idempotency.in-progress-ttl:PT5M}") Duration inProgressTtl,
+                              @Value("${app.idempotency.wait-timeout:PT10S}") Duration waitTimeout,
+                              @Value("${app.idempotency.cache.max-size:10000}") long cacheMaxSize,
+                              MeterRegistry meterRegistry) {
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.inProgressTtl = inProgressTtl;
+        this.waitTimeout = waitTimeout;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new UntilResponseExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, CACHE_NAME);
+    }
+
+    /**
+     * Execute a request at most once per idempotency key.
+     *
+     * @param key the {@code Idempotency-Key} header, or null to execute the request unconditionally
+     * @param userId the user making the request; keys are scoped to the user
+     * @param operation the method and path of the request
+     * @param requestBody the request body, compared against the body the key was first used with
+     * @param action executes the request
+     * @return the response of the request, or the stored response of the first request with the key
+     */
+    public ResponseEntity<?> execute(String key, Long userId, String operation, Object requestBody,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String recordKey = userId + ":" + key;
+        String fingerprint = fingerprint(operation, requestBody);
+
+        while (true) {
+            StoredResponse cached = nearCache.getIfPresent(recordKey);
+            if (cached != null) {
+                return replay(cached, fingerprint);
+            }
+
+            CompletableFuture<StoredResponse> claim = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(recordKey, claim);
+            if (running != null) {
+                StoredResponse response = await(running);
+                if (response == null) {
+                    // The first request released the key without a response; try to claim it ourselves.
+                    continue;
+                }
+                return respond(response, fingerprint);
+            }
+
+            try {
+                StoredResponse existing = claim(recordKey, fingerprint);
+                if (existing != null) {
+                    if (!existing.isUnfinished()) {
+                        nearCache.put(recordKey, existing);
+                    }
+                    claim.complete(existing);
+                    return respond(existing, fingerprint);
+                }
+
+                ResponseEntity<?> response;
+                try {
+                    response = action.get();
+                } catch (RuntimeException e) {
+                    release(recordKey);
+                    claim.complete(null);
+                    throw e;
+                }
+                if (response.getStatusCode().is5xxServerError()) {
+                    release(recordKey);
+                    claim.complete(null);
+                    return response;
+                }
+                StoredResponse stored = store(recordKey, fingerprint, response);
+                nearCache.put(recordKey, stored);
+                claim.complete(stored);
+                return response;
+            } finally {
+                if (!claim.isDone()) {
+                    claim.complete(null);
+                }
+                inFlight.remove(recordKey, claim);
+            }
+        }
+    }
+
+    /**
+     * List the keys whose request did not complete within {@code app.idempotency.in-progress-ttl}.
+     * They are not executed again until an operator has checked whether the request was applied
+     * and released them.
+     *
+     * @return the unresolved records, oldest first
+     */
+    public List<IdempotencyRecord> unresolved() {
+        return shardRouter.onDirectory(() -> transactionTemplate.execute(status ->
+                recordRepository.findByStatusAndExpiresAtBeforeOrderByCreatedAt(
+                        IdempotencyRecord.Status.IN_PROGRESS, LocalDateTime.now())));
+    }
+
+    /**
+     * Release an unresolved key, so the next request with it is executed.
+     *
+     * @param recordKey the record key, {@code userId:key}
+     * @return true if an unresolved key was released
+     */
+    public boolean resolve(String recordKey) {
+        Integer released = shardRouter.onDirectory(() -> transactionTemplate.execute(status ->
+                recordRepository.deleteUnresolved(recordKey, IdempotencyRecord.Status.IN_PROGRESS, LocalDateTime.now())));
+        if (released == null || released == 0) {
+            return false;
+        }
+        log.info("Released unresolved idempotency key {}", recordKey);
+        return true;
+    }
+
+    /**
+     * Delete the stored responses whose time to live has passed. Keys of requests that never
+     * completed are kept until they are resolved.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:600000}")
+    void purgeExpired() {
+        Integer deleted = shardRouter.onDirectory(() ->
+                transactionTemplate.execute(status -> recordRepository.deleteExpired(LocalDateTime.now())));
+        if (deleted != null && deleted > 0) {
+            log.debug("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    /**
+     * Claim a key in the database.
+     *
+     * @return null if the key was claimed, otherwise the stored response, {@link StoredResponse#IN_PROGRESS}
+     *         or {@link StoredResponse#UNRESOLVED}
+     */
+    private StoredResponse claim(String recordKey, String fingerprint) {
+        try {
+            return shardRouter.onDirectory(() -> transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                IdempotencyRecord record = recordRepository.findById(recordKey).orElse(null);
+                if (record != null && record.getStatus() == IdempotencyRecord.Status.IN_PROGRESS) {
+                    // Never executed again: the request may have been applied without its response being stored.
+                    if (record.getExpiresAt().isAfter(now)) {
+                        return StoredResponse.IN_PROGRESS;
+                    }
+                    log.warn("Idempotency key {} claimed at {} never completed; waiting for an operator to resolve it",
+                            recordKey, record.getCreatedAt());
+                    return StoredResponse.UNRESOLVED;
+                }
+                if (record != null && record.getExpiresAt().isAfter(now)) {
+                    return StoredResponse.of(record);
+                }
+                if (record != null) {
+                    recordRepository.delete(record);
+                    recordRepository.flush();
+                }
+                recordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .recordKey(recordKey)
+                        .requestFingerprint(fingerprint)
+                        .status(IdempotencyRecord.Status.IN_PROGRESS)
+                        .createdAt(now)
+                        .expiresAt(now.plus(inProgressTtl))
+                        .build());
+                return null;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Claimed by another instance between our read and insert.
+            return StoredResponse.IN_PROGRESS;
+        }
+    }
+
+    private StoredResponse store(String recordKey, String fingerprint, ResponseEntity<?> response) {
+        String contentType;
+        String body;
+        Object responseBody = response.getBody();
+        if (responseBody == null) {
+            contentType = null;
+            body = null;
+        } else if (responseBody instanceof String text) {
+            contentType = MediaType.TEXT_PLAIN_VALUE;
+            body = text;
+        } else {
+            contentType = MediaType.APPLICATION_JSON_VALUE;
+            body = toJson(responseBody);
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        shardRouter.runOnShard(ShardRouter.DIRECTORY, () -> transactionTemplate.executeWithoutResult(status -> {
+            IdempotencyRecord record = recordRepository.findById(recordKey).orElseThrow();
+            record.setStatus(IdempotencyRecord.Status.COMPLETED);
+            record.setResponseStatus(response.getStatusCode().value());
+            record.setResponseContentType(contentType);
+            record.setResponseBody(body);
+            record.setExpiresAt(expiresAt);
+        }));
+        return new StoredResponse(fingerprint, response.getStatusCode().value(), contentType, body, expiresAt);
+    }
+
+    private void release(String recordKey) {
+        shardRouter.runOnShard(ShardRouter.DIRECTORY,
+                () -> transactionTemplate.executeWithoutResult(status -> recordRepository.deleteById(recordKey)));
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return StoredResponse.IN_PROGRESS;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return StoredResponse.IN_PROGRESS;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private static ResponseEntity<?> respond(StoredResponse stored, String fingerprint) {
+        if (stored == StoredResponse.IN_PROGRESS) {
+            return inProgress();
+        }
+        if (stored == StoredResponse.UNRESOLVED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("The first request with this " + HEADER + " did not complete and may have been applied; "
+                            + "it will not be executed again");
+        }
+        return replay(stored, fingerprint);
+    }
+
+    private static ResponseEntity<?> replay(StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(HEADER + " was already used for a different request");
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true");
+        if (stored.contentType() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.parseMediaType(stored.contentType())).body(stored.body());
+    }
+
+    private static ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("A request with this " + HEADER + " is still in progress");
+    }
+
+    private String fingerprint(String operation, Object requestBody) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(toJson(requestBody).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * A response stored for an idempotency key.
+     *
+     * @param fingerprint the fingerprint of the request that produced the response
+     * @param status the HTTP status
+     * @param contentType the content type of the body, or null if there is no body
+     * @param body the body
+     * @param expiresAt when the response stops being replayed
+     */
+    private record StoredResponse(String fingerprint, int status, String contentType, String body,
+                                  LocalDateTime expiresAt) {
+
+        /** Marker for a key claimed by a request that has not completed. */
+        static final StoredResponse IN_PROGRESS = new StoredResponse("", 0, null, null, LocalDateTime.MIN);
+
+        /** Marker for a key whose request did not complete within {@code app.idempotency.in-progress-ttl}. */
+        static final StoredResponse UNRESOLVED = new StoredResponse("", 0, null, null, LocalDateTime.MIN);
+
+        boolean isUnfinished() {
+            return this == IN_PROGRESS || this == UNRESOLVED;
+        }
+
+        static StoredResponse of(IdempotencyRecord record) {
+            return new StoredResponse(record.getRequestFingerprint(), record.getResponseStatus(),
+                    record.getResponseContentType(), record.getResponseBody(), record.getExpiresAt());
+        }
+    }
+
+    private static final class UntilResponseExpiry implements Expiry<String, StoredResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, StoredResponse response, long currentTime) {
+            long millis = Duration.between(LocalDateTime.now(), response.expiresAt()).toMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, StoredResponse response, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, response, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, StoredResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
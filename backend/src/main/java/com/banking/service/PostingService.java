@@ -0,0 +1,453 @@
+package com.banking.service;
+
+import com.banking.dto.PostingResult;
+import com.banking.dto.TransferResult;
+import com.banking.journal.PostingJournal;
+import com.banking.model.Account;
+import com.banking.model.CrossShardTransfer;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.notification.NotificationEvent;
+import com.banking.notification.NotificationHub;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.CrossShardTransferRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Service that posts balance changes to accounts.
+ * <p>
+ * Each posting holds the striped lock of every account it touches for the whole database
+ * transaction, so the read-modify-write of {@link Account#getBalance()} can never interleave
+ * with another posting on the same account. The balance update and the matching
+ * {@link Transaction} rows are written in the same unit of work.
+ * <p>
+ * When {@code app.journal.enabled} is set, postings are delegated to the {@link PostingJournal}
+ * and acknowledged once journaled; the database rows are written asynchronously.
+ * <p>
+ * With {@code app.sharding.enabled}, a posting runs on the shard of its accounts. A transfer between
+ * accounts on different shards cannot commit in one transaction; it debits the source and records
+ * a {@link CrossShardTransfer} on the source shard, then credits the destination on its shard. A
+ * credit that is refused reverses the debit; a credit that fails otherwise is retried by
+ * {@code CrossShardTransferRecovery} and the transfer is reported as pending.
+ * <p>
+ * The owners of the accounts are notified through the {@link NotificationHub} once a database
+ * posting commits; journaled postings are not notified.
+ * <p>
+ * Every posting is timed as {@code postings}, tagged with its {@code operation} and whether it
+ * succeeded, which also gives the posting throughput.
+ */
+@Slf4j
+@Service
+public class PostingService {
+
+    public static final String DEPOSIT = "DEPOSIT";
+    public static final String WITHDRAWAL = "WITHDRAWAL";
+    public static final String TRANSFER_OUT = "TRANSFER_OUT";
+    public static final String TRANSFER_IN = "TRANSFER_IN";
+    public static final String BILL_PAYMENT = "BILL_PAYMENT";
+    public static final String TRANSFER_REVERSAL = "TRANSFER_REVERSAL";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionFactory transactionFactory;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private AccountSummaryCache accountSummaryCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NotificationHub notificationHub;
+
+    @Autowired(required = false)
+    private PostingJournal postingJournal;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private CrossShardTransferRepository crossShardTransferRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Transfer money from one account to another.
+     *
+     * @param sourceAccountId the account to debit
+     * @param destinationAccountId the account to credit
+     * @param amount the amount to transfer
+     * @param description an optional description stored on both transaction rows
+     * @return the references and balances of the transfer; pending if the destination is on another
+     *         shard and could not be credited yet
+     * @throws IllegalArgumentException if the request is invalid or funds are insufficient
+     * @throws NoSuchElementException if either account does not exist
+     */
+    public TransferResult transfer(Long sourceAccountId, Long destinationAccountId, BigDecimal amount, String description) {
+        if (sourceAccountId == null || destinationAccountId == null) {
+            throw new IllegalArgumentException("Source and destination accounts are required");
+        }
+        if (sourceAccountId.equals(destinationAccountId)) {
+            throw new IllegalArgumentException("Source and destination accounts must differ");
+        }
+        requirePositive(amount);
+        return timed("transfer", () -> {
+            if (postingJournal != null) {
+                return postingJournal.transfer(sourceAccountId, destinationAccountId, amount, description);
+            }
+            int sourceShard = shardRouter.shardOfAccount(sourceAccountId);
+            int destinationShard = shardRouter.shardOfAccount(destinationAccountId);
+            if (sourceShard != destinationShard) {
+                return accountLockManager.withAccountLocks(sourceAccountId, destinationAccountId,
+                        () -> crossShardTransfer(sourceShard, destinationShard, sourceAccountId, destinationAccountId,
+                                amount, description));
+            }
+
+            return shardRouter.onShard(sourceShard, () -> accountLockManager.withAccountLocks(sourceAccountId, destinationAccountId,
+                    () -> transactionTemplate.execute(status -> {
+                        Account source = loadAccount(sourceAccountId);
+                        Account destination = loadAccount(destinationAccountId);
+                        if (!source.getCurrency().equals(destination.getCurrency())) {
+                            throw new IllegalArgumentException("Currency mismatch between accounts");
+                        }
+
+                        Money money = Money.of(amount, source.getCurrency());
+                        source.withdraw(money);
+                        destination.deposit(money);
+
+                        String reference = transactionFactory.newReference();
+                        LocalDateTime now = LocalDateTime.now();
+                        Transaction debit = transactionFactory.build(source, TRANSFER_OUT, Transaction.Direction.DEBIT,
+                                money, description, reference + "-D", now);
+                        debit.setSourceAccount(source);
+                        debit.setDestinationAccount(destination);
+                        Transaction credit = transactionFactory.build(destination, TRANSFER_IN, Transaction.Direction.CREDIT,
+                                money, description, reference + "-C", now);
+                        credit.setSourceAccount(source);
+                        credit.setDestinationAccount(destination);
+
+                        accountRepository.save(source);
+                        accountRepository.save(destination);
+                        transactionRepository.save(debit);
+                        transactionRepository.save(credit);
+                        balanceSnapshotService.recordPostings(source, List.of(debit));
+                        accountSummaryCache.recordPosting(source);
+                        balanceSnapshotService.recordPostings(destination, List.of(credit));
+                        accountSummaryCache.recordPosting(destination);
+                        notifyPosted(source, debit);
+                        notifyPosted(destination, credit);
+                        return new TransferResult(debit.getTransactionReference(), credit.getTransactionReference(),
+                                source.getBalance(), destination.getBalance(), false);
+                    })));
+        });
+    }
+
+    /**
+     * Transfer between accounts on different shards, with the locks of both accounts held.
+     */
+    private TransferResult crossShardTransfer(int sourceShard, int destinationShard, Long sourceAccountId,
+                                              Long destinationAccountId, BigDecimal amount, String description) {
+        String currency = shardRouter.onShard(destinationShard, () -> transactionTemplate.execute(status ->
+                loadAccount(destinationAccountId).getCurrency()));
+        String reference = transactionFactory.newReference();
+        CrossShardTransfer transfer = CrossShardTransfer.builder()
+                .reference(reference)
+                .sourceAccountId(sourceAccountId)
+                .destinationAccountId(destinationAccountId)
+                .currency(currency)
+                .description(description)
+                .status(CrossShardTransfer.Status.DEBITED)
+                .build();
+        Money sourceBalance = shardRouter.onShard(sourceShard, () -> transactionTemplate.execute(status -> {
+            Account source = loadAccount(sourceAccountId);
+            if (!source.getCurrency().equals(currency)) {
+                throw new IllegalArgumentException("Currency mismatch between accounts");
+            }
+            Money money = Money.of(amount, currency);
+            source.withdraw(money);
+            LocalDateTime now = LocalDateTime.now();
+            Transaction debit = transactionFactory.build(source, TRANSFER_OUT, Transaction.Direction.DEBIT,
+                    money, description, reference + "-D", now);
+            debit.setSourceAccount(source);
+            debit.setDestinationAccount(accountRepository.getReferenceById(destinationAccountId));
+            accountRepository.save(source);
+            transactionRepository.save(debit);
+            balanceSnapshotService.recordPostings(source, List.of(debit));
+            accountSummaryCache.recordPosting(source);
+            transfer.setAmount(money.toBigDecimal());
+            transfer.setCreatedAt(now);
+            transfer.setUpdatedAt(now);
+            crossShardTransferRepository.save(transfer);
+            notifyPosted(source, debit);
+            return source.getBalance();
+        }));
+        Money destinationBalance = settle(sourceShard, transfer);
+        return new TransferResult(reference + "-D", reference + "-C", sourceBalance, destinationBalance,
+                destinationBalance == null);
+    }
+
+    /**
+     * Finish a cross-shard transfer left {@link CrossShardTransfer.Status#DEBITED}: credit the
+     * destination unless an earlier attempt did, or reverse the debit if the destination refuses
+     * the credit.
+     *
+     * @param sourceShard the shard the transfer is recorded on
+     * @param transfer the transfer
+     * @return the status of the transfer afterwards; still debited if the credit failed again
+     */
+    public CrossShardTransfer.Status resumeCrossShardTransfer(int sourceShard, CrossShardTransfer transfer) {
+        return accountLockManager.withAccountLocks(transfer.getSourceAccountId(), transfer.getDestinationAccountId(), () -> {
+            try {
+                return settle(sourceShard, transfer) != null
+                        ? CrossShardTransfer.Status.COMPLETED : CrossShardTransfer.Status.DEBITED;
+            } catch (NoSuchElementException | IllegalArgumentException e) {
+                return CrossShardTransfer.Status.REVERSED;
+            }
+        });
+    }
+
+    /**
+     * Credit the destination of a debited transfer and mark it completed.
+     *
+     * @return the destination balance, or null if the transfer is left debited for a retry
+     * @throws NoSuchElementException if the destination account no longer exists; the debit is reversed
+     * @throws IllegalArgumentException if the destination refuses the credit; the debit is reversed
+     */
+    private Money settle(int sourceShard, CrossShardTransfer transfer) {
+        Money destinationBalance;
+        try {
+            destinationBalance = shardRouter.onAccountShard(transfer.getDestinationAccountId(), () -> credit(transfer));
+        } catch (NoSuchElementException | IllegalArgumentException e) {
+            try {
+                reverse(sourceShard, transfer, e.getMessage());
+            } catch (RuntimeException reversalFailure) {
+                log.warn("Could not reverse cross-shard transfer {}, retrying later", transfer.getReference(), reversalFailure);
+                recordFailure(sourceShard, transfer, reversalFailure);
+                return null;
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            log.warn("Could not credit cross-shard transfer {}, retrying later", transfer.getReference(), e);
+            recordFailure(sourceShard, transfer, e);
+            return null;
+        }
+        try {
+            shardRouter.runOnShard(sourceShard, () -> transactionTemplate.executeWithoutResult(status ->
+                    crossShardTransferRepository.transition(transfer.getReference(), CrossShardTransfer.Status.DEBITED,
+                            CrossShardTransfer.Status.COMPLETED, LocalDateTime.now())));
+        } catch (RuntimeException e) {
+            // The money has moved; the recovery finds the credit and completes the transfer.
+            log.warn("Could not mark cross-shard transfer {} completed", transfer.getReference(), e);
+        }
+        return destinationBalance;
+    }
+
+    private Money credit(CrossShardTransfer transfer) {
+        return transactionTemplate.execute(status -> {
+            String reference = transfer.getReference() + "-C";
+            Account destination = accountRepository.findById(transfer.getDestinationAccountId())
+                    .orElseThrow(() -> new NoSuchElementException("Account not found: " + transfer.getDestinationAccountId()));
+            if (!transactionRepository.findExistingReferences(Set.of(reference)).isEmpty()) {
+                // Credited by an earlier attempt.
+                return destination.getBalance();
+            }
+            if (!destination.isActive()) {
+                throw new IllegalArgumentException("Account is not active: " + destination.getId());
+            }
+            if (!destination.getCurrency().equals(transfer.getCurrency())) {
+                throw new IllegalArgumentException("Currency mismatch between accounts");
+            }
+            Money money = Money.of(transfer.getAmount(), transfer.getCurrency());
+            destination.deposit(money);
+            Transaction credit = transactionFactory.build(destination, TRANSFER_IN, Transaction.Direction.CREDIT,
+                    money, transfer.getDescription(), reference, LocalDateTime.now());
+            credit.setSourceAccount(accountRepository.getReferenceById(transfer.getSourceAccountId()));
+            credit.setDestinationAccount(destination);
+            accountRepository.save(destination);
+            transactionRepository.save(credit);
+            balanceSnapshotService.recordPostings(destination, List.of(credit));
+            accountSummaryCache.recordPosting(destination);
+            notifyPosted(destination, credit);
+            return destination.getBalance();
+        });
+    }
+
+    private void reverse(int sourceShard, CrossShardTransfer transfer, String reason) {
+        shardRouter.runOnShard(sourceShard, () -> transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (crossShardTransferRepository.transition(transfer.getReference(), CrossShardTransfer.Status.DEBITED,
+                    CrossShardTransfer.Status.REVERSED, now) == 0) {
+                return;
+            }
+            Account source = accountRepository.findById(transfer.getSourceAccountId())
+                    .orElseThrow(() -> new IllegalStateException("Source account of transfer " + transfer.getReference()
+                            + " not found: " + transfer.getSourceAccountId()));
+            Money money = Money.of(transfer.getAmount(), transfer.getCurrency());
+            source.deposit(money);
+            String description = "Transfer " + transfer.getReference() + " reversed: " + reason;
+            Transaction reversal = transactionFactory.build(source, TRANSFER_REVERSAL, Transaction.Direction.CREDIT, money,
+                    description.length() > MAX_DESCRIPTION_LENGTH ? description.substring(0, MAX_DESCRIPTION_LENGTH) : description,
+                    transfer.getReference() + "-R", now);
+            reversal.setSourceAccount(accountRepository.getReferenceById(transfer.getDestinationAccountId()));
+            reversal.setDestinationAccount(source);
+            accountRepository.save(source);
+            transactionRepository.save(reversal);
+            balanceSnapshotService.recordPostings(source, List.of(reversal));
+            accountSummaryCache.recordPosting(source);
+            notifyPosted(source, reversal);
+        }));
+        log.info("Reversed cross-shard transfer {}: {}", transfer.getReference(), reason);
+    }
+
+    private void recordFailure(int sourceShard, CrossShardTransfer transfer, RuntimeException failure) {
+        String error = String.valueOf(failure.getMessage());
+        try {
+            shardRouter.runOnShard(sourceShard, () -> transactionTemplate.executeWithoutResult(status ->
+                    crossShardTransferRepository.recordFailure(transfer.getReference(),
+                            error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+                            LocalDateTime.now())));
+        } catch (RuntimeException e) {
+            log.warn("Could not record the failed attempt of cross-shard transfer {}", transfer.getReference(), e);
+        }
+    }
+
+    /**
+     * Deposit money into an account.
+     *
+     * @param accountId the account to credit
+     * @param amount the amount to deposit
+     * @param description an optional description
+     * @return the reference and resulting balance of the posting
+     */
+    public PostingResult deposit(Long accountId, BigDecimal amount, String description) {
+        requirePositive(amount);
+        return timed("deposit", () -> {
+            if (postingJournal != null) {
+                return postingJournal.deposit(accountId, amount, description);
+            }
+            return shardRouter.onAccountShard(accountId, () -> accountLockManager.withAccountLock(accountId,
+                    () -> transactionTemplate.execute(status -> {
+                        Account account = loadAccount(accountId);
+                        Money money = Money.of(amount, account.getCurrency());
+                        account.deposit(money);
+                        accountRepository.save(account);
+                        Transaction transaction = transactionRepository.save(transactionFactory.build(account, DEPOSIT,
+                                Transaction.Direction.CREDIT, money, description, transactionFactory.newReference(), LocalDateTime.now()));
+                        balanceSnapshotService.recordPostings(account, List.of(transaction));
+                        accountSummaryCache.recordPosting(account);
+                        notifyPosted(account, transaction);
+                        return new PostingResult(transaction.getTransactionReference(), account.getBalance());
+                    })));
+        });
+    }
+
+    /**
+     * Withdraw money from an account.
+     *
+     * @param accountId the account to debit
+     * @param amount the amount to withdraw
+     * @param description an optional description
+     * @return the reference and resulting balance of the posting
+     */
+    public PostingResult withdraw(Long accountId, BigDecimal amount, String description) {
+        requirePositive(amount);
+        return timed("withdrawal", () -> {
+            if (postingJournal != null) {
+                return postingJournal.withdraw(accountId, amount, description);
+            }
+            return shardRouter.onAccountShard(accountId, () -> accountLockManager.withAccountLock(accountId,
+                    () -> transactionTemplate.execute(status -> {
+                        Account account = loadAccount(accountId);
+                        Money money = Money.of(amount, account.getCurrency());
+                        account.withdraw(money);
+                        accountRepository.save(account);
+                        Transaction transaction = transactionRepository.save(transactionFactory.build(account, WITHDRAWAL,
+                                Transaction.Direction.DEBIT, money, description, transactionFactory.newReference(), LocalDateTime.now()));
+                        balanceSnapshotService.recordPostings(account, List.of(transaction));
+                        accountSummaryCache.recordPosting(account);
+                        notifyPosted(account, transaction);
+                        return new PostingResult(transaction.getTransactionReference(), account.getBalance());
+                    })));
+        });
+    }
+
+    private <T> T timed(String operation, Supplier<T> posting) {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            T result = posting.get();
+            outcome = "success";
+            return result;
+        } finally {
+            Timer.builder("postings")
+                    .description("Postings of balance changes")
+                    .tags("operation", operation, "outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Account loadAccount(Long accountId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new NoSuchElementException("Account not found: " + accountId));
+        if (!account.isActive()) {
+            throw new IllegalArgumentException("Account is not active: " + accountId);
+        }
+        return account;
+    }
+
+    private void notifyPosted(Account account, Transaction transaction) {
+        Long userId = account.getUser().getId();
+        if (!notificationHub.hasChannel(userId)) {
+            return;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("accountId", account.getId());
+        data.put("reference", transaction.getTransactionReference());
+        data.put("direction", transaction.getDirection());
+        data.put("amount", transaction.getAmount().toBigDecimal());
+        data.put("currency", transaction.getCurrency());
+        data.put("balance", account.getBalance().toBigDecimal());
+        String verb = transaction.getDirection() == Transaction.Direction.CREDIT ? "credited to" : "debited from";
+        notificationHub.publishAfterCommit(userId, NotificationEvent.TRANSACTION_POSTED,
+                transaction.getAmount() + " " + verb + " account " + account.getAccountNumber(), data);
+    }
+
+    private static void requirePositive(BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+    }
+}
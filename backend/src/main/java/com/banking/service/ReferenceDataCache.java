@@ -0,0 +1,137 @@
+package com.banking.service;
+
+import com.banking.model.AccountType;
+import com.banking.model.TransactionType;
+import com.banking.repository.TransactionTypeRepository;
+import com.banking.sharding.ShardCopier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access point for reference data ({@link AccountType} and {@link TransactionType}).
+ * <p>
+ * The entities themselves live in read-only second-level cache regions, so loading them by id does
+ * not touch the database once warm. This class adds the one lookup the cache cannot answer, a
+ * transaction type by name, and the explicit invalidation used after reference data is changed
+ * out of band. Region hit and miss counts are published by Hibernate as
+ * {@code hibernate.second.level.cache.requests}; name lookups as {@code reference.data.lookups}.
+ * <p>
+ * A missing transaction type is created in a transaction of its own, so it survives a rollback of
+ * the caller. When a concurrent caller creates the same name first, that type is read and used.
+ * With {@code app.sharding.enabled}, every shard holds the reference data under the same ids, so
+ * the cached entities serve every shard. New transaction types are created on all shards at once
+ * by the {@link ShardCopier}.
+ */
+@Slf4j
+@Component
+public class ReferenceDataCache {
+
+    public static final String ACCOUNT_TYPES_REGION = "account-types";
+    public static final String TRANSACTION_TYPES_REGION = "transaction-types";
+
+    @Autowired
+    private TransactionTypeRepository transactionTypeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private ShardCopier shardCopier;
+
+    @Value("${app.reference-data.max-names:1000}")
+    private int maxNames;
+
+    private final Map<String, Long> transactionTypeIds = new ConcurrentHashMap<>();
+
+    private TransactionTemplate newTransactionTemplate;
+
+    private Counter nameHits;
+    private Counter nameMisses;
+
+    @PostConstruct
+    void init() {
+        newTransactionTemplate = new TransactionTemplate(transactionManager);
+        newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        nameHits = Counter.builder("reference.data.lookups")
+                .tag("cache", "transaction-type-names").tag("result", "hit")
+                .description("Transaction type lookups by name")
+                .register(meterRegistry);
+        nameMisses = Counter.builder("reference.data.lookups")
+                .tag("cache", "transaction-type-names").tag("result", "miss")
+                .description("Transaction type lookups by name")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Find a transaction type by name, creating it if it does not exist yet.
+     *
+     * @param name the type name
+     * @return the transaction type
+     */
+    public TransactionType transactionType(String name) {
+        Long id = transactionTypeIds.get(name);
+        if (id != null) {
+            TransactionType type = entityManager.find(TransactionType.class, id);
+            if (type != null) {
+                nameHits.increment();
+                return type;
+            }
+            // The row went away, e.g. it was deleted out of band.
+            transactionTypeIds.remove(name, id);
+        }
+        nameMisses.increment();
+        TransactionType type = transactionTypeRepository.findByName(name)
+                .orElseGet(() -> entityManager.find(TransactionType.class, shardCopier != null
+                        ? shardCopier.createTransactionType(name)
+                        : createTransactionType(name)));
+        if (transactionTypeIds.size() < maxNames) {
+            transactionTypeIds.put(name, type.getId());
+        }
+        return type;
+    }
+
+    private Long createTransactionType(String name) {
+        try {
+            return newTransactionTemplate.execute(status ->
+                    transactionTypeRepository.save(TransactionType.builder().name(name).build()).getId());
+        } catch (DataIntegrityViolationException e) {
+            // Created by a concurrent caller in the meantime.
+            return newTransactionTemplate.execute(status ->
+                    transactionTypeRepository.findByName(name).orElseThrow(() -> e).getId());
+        }
+    }
+
+    /**
+     * Drop every cached account type and transaction type. The next lookups go to the database.
+     */
+    public void evictAll() {
+        transactionTypeIds.clear();
+        entityManagerFactory.getCache().evict(AccountType.class);
+        entityManagerFactory.getCache().evict(TransactionType.class);
+        log.info("Evicted reference data caches");
+    }
+}
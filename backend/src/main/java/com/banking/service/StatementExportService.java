@@ -0,0 +1,178 @@
+package com.banking.service;
+
+import com.banking.archive.TransactionArchive;
+import com.banking.dto.TransactionView;
+import com.banking.model.Account;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.sharding.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Service that exports account statements.
+ * <p>
+ * Rows are read from a forward-only cursor and written to the response as they arrive, so memory
+ * use does not depend on the number of rows exported. Archived transactions are merged in from the
+ * {@link TransactionArchive} one compressed block at a time.
+ */
+@Service
+public class StatementExportService {
+
+    private static final String CSV_HEADER =
+            "transactionDate,reference,type,description,amount,currency,status,sourceAccountId,destinationAccountId\n";
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * The formats a statement can be exported in.
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Look up the account a statement is requested for.
+     *
+     * @param accountId the account id
+     * @return the account
+     * @throws NoSuchElementException if the account does not exist
+     */
+    public Account getAccount(Long accountId) {
+        return shardRouter.onAccountShard(accountId, () -> accountRepository.findById(accountId))
+                .orElseThrow(() -> new NoSuchElementException("Account not found: " + accountId));
+    }
+
+    /**
+     * Build a response body that streams an account's transactions in chronological order.
+     *
+     * @param accountId the account to export
+     * @param from the inclusive lower bound of the transaction date, or {@code null}
+     * @param to the exclusive upper bound of the transaction date, or {@code null}
+     * @param format the output format
+     * @return the streaming response body
+     * @throws NoSuchElementException if the account does not exist
+     */
+    public StreamingResponseBody export(Long accountId, LocalDateTime from, LocalDateTime to, Format format) {
+        // The body is written on another thread, which has to be pointed at the account's shard.
+        int shard = shardRouter.shardOfAccount(accountId);
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+            try {
+                shardRouter.runOnShard(shard, () -> readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<TransactionView> rows = transactionRepository.streamStatement(accountId, from, to)) {
+                        if (format == Format.CSV) {
+                            writer.write(CSV_HEADER);
+                        }
+                        transactionArchive.mergeStatement(rows.iterator(), accountId, from, to)
+                                .forEachRemaining(row -> writeRow(writer, row, format));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+    }
+
+    private void writeRow(Writer writer, TransactionView row, Format format) {
+        try {
+            if (format == Format.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+                return;
+            }
+            writer.write(String.valueOf(row.transactionDate()));
+            writer.write(',');
+            writeCsvField(writer, row.reference());
+            writer.write(',');
+            writeCsvField(writer, row.type());
+            writer.write(',');
+            writeCsvField(writer, row.description());
+            writer.write(',');
+            writer.write(row.amount().toPlainString());
+            writer.write(',');
+            writer.write(row.currency());
+            writer.write(',');
+            writer.write(String.valueOf(row.status()));
+            writer.write(',');
+            writer.write(row.sourceAccountId() == null ? "" : row.sourceAccountId().toString());
+            writer.write(',');
+            writer.write(row.destinationAccountId() == null ? "" : row.destinationAccountId().toString());
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,86 @@
+package com.banking.service;
+
+import com.banking.model.Account;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Builds the {@link Transaction} rows written for a posting.
+ */
+@Component
+public class TransactionFactory {
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private TransactionReferenceGenerator referenceGenerator;
+
+    /**
+     * Build a completed transaction row for an account.
+     *
+     * @param account the account the row belongs to
+     * @param typeName the name of the transaction type
+     * @param direction whether the row credits or debits the account
+     * @param amount the posted amount, in the account currency
+     * @param description an optional description
+     * @param reference the unique transaction reference
+     * @param date the transaction date
+     * @return the unsaved transaction
+     */
+    public Transaction build(Account account, String typeName, Transaction.Direction direction, Money amount,
+                             String description, String reference, LocalDateTime date) {
+        return build(account, resolveType(typeName), direction, amount, description, reference, date);
+    }
+
+    /**
+     * Build a completed transaction row for an account with an already resolved type.
+     *
+     * @param account the account the row belongs to
+     * @param type the transaction type
+     * @param direction whether the row credits or debits the account
+     * @param amount the posted amount, in the account currency
+     * @param description an optional description
+     * @param reference the unique transaction reference
+     * @param date the transaction date
+     * @return the unsaved transaction
+     */
+    public Transaction build(Account account, TransactionType type, Transaction.Direction direction, Money amount,
+                             String description, String reference, LocalDateTime date) {
+        return Transaction.builder()
+                .transactionReference(reference)
+                .account(account)
+                .transactionType(type)
+                .amount(amount)
+                .direction(direction)
+                .description(description)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .transactionDate(date)
+                .build();
+    }
+
+    /**
+     * Generate a new unique transaction reference.
+     *
+     * @return the reference
+     * @see TransactionReferenceGenerator
+     */
+    public String newReference() {
+        return referenceGenerator.nextReference();
+    }
+
+    /**
+     * Find a transaction type by name, creating it if it does not exist yet.
+     *
+     * @param name the type name
+     * @return the transaction type
+     */
+    public TransactionType resolveType(String name) {
+        return referenceDataCache.transactionType(name);
+    }
+}
@@ -0,0 +1,99 @@
+package com.banking.service;
+
+import com.banking.archive.TransactionArchive;
+import com.banking.dto.TransactionPage;
+import com.banking.dto.TransactionView;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Service that reads account transaction history one page at a time.
+ * <p>
+ * Pages are addressed by an opaque cursor holding the {@code (transaction_date, id)} of the last
+ * row returned, so each page is an index range scan on
+ * {@code transactions(account_id, transaction_date, id)} no matter how deep the client has scrolled.
+ * Archived transactions are merged in from the {@link TransactionArchive}, so pages run on into
+ * the cold tier seamlessly.
+ */
+@Service
+public class TransactionHistoryService {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Value("${app.history.max-page-size:200}")
+    private int maxPageSize;
+
+    /**
+     * Read one page of an account's history, newest first.
+     *
+     * @param accountId the account whose history to read
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the maximum number of rows to return
+     * @param from the inclusive lower bound of the transaction date, or {@code null}
+     * @param to the exclusive upper bound of the transaction date, or {@code null}
+     * @param type the transaction type name, or {@code null}
+     * @param status the transaction status, or {@code null}
+     * @return the page
+     * @throws IllegalArgumentException if the cursor or limit is invalid
+     */
+    @Transactional(readOnly = true)
+    public TransactionPage getHistory(Long accountId, String cursor, int limit, LocalDateTime from, LocalDateTime to,
+                                      String type, Transaction.TransactionStatus status) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        LocalDateTime cursorDate = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = decode(cursor);
+            cursorDate = LocalDateTime.parse(parts[0]);
+            cursorId = Long.valueOf(parts[1]);
+        }
+
+        List<TransactionView> hot = transactionRepository.findHistoryPage(accountId, from, to, type, status,
+                cursorDate, cursorId, Limit.of(limit));
+        List<TransactionView> items = transactionArchive.mergeHistoryPage(hot, accountId, from, to, type, status,
+                cursorDate, cursorId, limit);
+        String nextCursor = null;
+        if (items.size() == limit) {
+            TransactionView last = items.get(items.size() - 1);
+            nextCursor = encode(last.transactionDate(), last.id());
+        }
+        return new TransactionPage(items, nextCursor);
+    }
+
+    private static String encode(LocalDateTime date, Long id) {
+        String raw = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.banking.service;
+
+import com.banking.dto.BatchIngestionResult;
+import com.banking.dto.BatchPostingRequest;
+import com.banking.dto.IngestionError;
+import com.banking.journal.PostingJournal;
+import com.banking.model.Account;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.sharding.ShardRouter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Service that ingests postings in bulk.
+ * <p>
+ * Postings are validated up front, then the touched accounts are locked and updated and the
+ * transaction rows are persisted through the persistence context, flushing and clearing every
+ * {@code hibernate.jdbc.batch_size} rows so Hibernate sends them as JDBC batches. Transaction
+ * ids come from a pooled sequence, which is what allows insert batching in the first place.
+ * <p>
+ * With {@code app.sharding.enabled}, the postings of a chunk are split by the shard of their
+ * account and each shard's share is committed on its own. An all-or-nothing batch must therefore
+ * only post to the accounts of one shard.
+ */
+@Service
+public class TransactionIngestionService {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionFactory transactionFactory;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private AccountSummaryCache accountSummaryCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private PostingJournal postingJournal;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.ingestion.max-batch-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${app.ingestion.stream-chunk-size:1000}")
+    private int streamChunkSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    /**
+     * Ingest a batch of postings. If any posting is invalid nothing is persisted.
+     *
+     * @param postings the postings to ingest
+     * @return the outcome of the ingestion
+     * @throws IllegalArgumentException if the batch is larger than {@code app.ingestion.max-batch-size}
+     *                                  or posts to the accounts of several shards
+     */
+    public BatchIngestionResult ingest(List<BatchPostingRequest> postings) {
+        requireDatabaseMode();
+        if (postings.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + maxBatchSize + " postings");
+        }
+        long start = System.nanoTime();
+        List<IngestionError> errors = new ArrayList<>();
+        int accepted = ingestChunk(postings, 0, true, errors);
+        return new BatchIngestionResult(accepted, errors.size(), errors, elapsedMillis(start));
+    }
+
+    /**
+     * Ingest a stream of newline-delimited JSON postings. The stream is committed in chunks of
+     * {@code app.ingestion.stream-chunk-size}; invalid postings are skipped and reported.
+     *
+     * @param input the request body
+     * @return the outcome of the ingestion
+     * @throws IOException if the request body cannot be read
+     */
+    public BatchIngestionResult ingestStream(InputStream input) throws IOException {
+        requireDatabaseMode();
+        long start = System.nanoTime();
+        List<IngestionError> errors = new ArrayList<>();
+        List<BatchPostingRequest> chunk = new ArrayList<>(streamChunkSize);
+        int accepted = 0;
+        int offset = 0;
+        try (MappingIterator<BatchPostingRequest> iterator =
+                     objectMapper.readerFor(BatchPostingRequest.class).readValues(input)) {
+            while (iterator.hasNextValue()) {
+                chunk.add(iterator.nextValue());
+                if (chunk.size() == streamChunkSize) {
+                    accepted += ingestChunk(chunk, offset, false, errors);
+                    offset += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            errors.add(new IngestionError(offset + chunk.size(), "Malformed posting, stream aborted: " + e.getOriginalMessage()));
+        }
+        if (!chunk.isEmpty()) {
+            accepted += ingestChunk(chunk, offset, false, errors);
+        }
+        return new BatchIngestionResult(accepted, errors.size(), errors, elapsedMillis(start));
+    }
+
+    private int ingestChunk(List<BatchPostingRequest> postings, int offset, boolean atomic, List<IngestionError> errors) {
+        List<IngestionError> chunkErrors = new ArrayList<>();
+        boolean[] valid = new boolean[postings.size()];
+        Set<String> references = new HashSet<>();
+        for (int i = 0; i < postings.size(); i++) {
+            BatchPostingRequest posting = postings.get(i);
+            Set<ConstraintViolation<BatchPostingRequest>> violations = validator.validate(posting);
+            if (!violations.isEmpty()) {
+                chunkErrors.add(new IngestionError(offset + i, describe(violations)));
+                continue;
+            }
+            if (posting.getReference() != null && !references.add(posting.getReference())) {
+                chunkErrors.add(new IngestionError(offset + i, "Duplicate reference in batch"));
+                continue;
+            }
+            valid[i] = true;
+        }
+        Map<Integer, boolean[]> shards = atomic && !chunkErrors.isEmpty()
+                ? Map.of() : splitByShard(postings, offset, valid, chunkErrors);
+        if (atomic && !chunkErrors.isEmpty()) {
+            errors.addAll(chunkErrors);
+            return 0;
+        }
+        if (atomic && shards.size() > 1) {
+            throw new IllegalArgumentException("An all-or-nothing batch must only post to the accounts of one shard");
+        }
+
+        int persisted = 0;
+        for (Map.Entry<Integer, boolean[]> shard : shards.entrySet()) {
+            persisted += shardRouter.onShard(shard.getKey(),
+                    () -> persist(postings, offset, atomic, shard.getValue(), chunkErrors));
+        }
+        chunkErrors.sort(Comparator.comparingInt(IngestionError::index));
+        errors.addAll(chunkErrors);
+        return persisted;
+    }
+
+    /**
+     * Split the valid postings of a chunk by the shard of their account. Without sharding, all of
+     * them are on the directory.
+     *
+     * @return the postings to persist on each shard, flagged by their index in the chunk
+     */
+    private Map<Integer, boolean[]> splitByShard(List<BatchPostingRequest> postings, int offset, boolean[] valid,
+                                                 List<IngestionError> chunkErrors) {
+        Map<Integer, boolean[]> shards = new TreeMap<>();
+        for (int i = 0; i < postings.size(); i++) {
+            if (!valid[i]) {
+                continue;
+            }
+            Long accountId = postings.get(i).getAccountId();
+            int shard;
+            try {
+                shard = shardRouter.shardOfAccount(accountId);
+            } catch (NoSuchElementException e) {
+                chunkErrors.add(new IngestionError(offset + i, "Account not found: " + accountId));
+                continue;
+            }
+            shards.computeIfAbsent(shard, key -> new boolean[postings.size()])[i] = true;
+        }
+        return shards;
+    }
+
+    /**
+     * Persist the valid postings of a chunk in one transaction on the current shard.
+     *
+     * @return the number of postings persisted
+     */
+    private int persist(List<BatchPostingRequest> postings, int offset, boolean atomic, boolean[] valid,
+                        List<IngestionError> chunkErrors) {
+        Set<Long> accountIds = new HashSet<>();
+        Set<String> references = new HashSet<>();
+        for (int i = 0; i < postings.size(); i++) {
+            if (valid[i]) {
+                accountIds.add(postings.get(i).getAccountId());
+                if (postings.get(i).getReference() != null) {
+                    references.add(postings.get(i).getReference());
+                }
+            }
+        }
+        Integer persisted = accountLockManager.withAccountLocks(accountIds, () -> transactionTemplate.execute(status -> {
+            Map<Long, Account> accounts = new HashMap<>();
+            for (Account account : accountRepository.findAllById(accountIds)) {
+                accounts.put(account.getId(), account);
+            }
+            Set<String> existingReferences = references.isEmpty()
+                    ? Set.of() : transactionRepository.findExistingReferences(references);
+            Map<String, TransactionType> types = new HashMap<>();
+            List<Transaction> rows = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+
+            for (int i = 0; i < postings.size(); i++) {
+                if (!valid[i]) {
+                    continue;
+                }
+                BatchPostingRequest posting = postings.get(i);
+                Account account = accounts.get(posting.getAccountId());
+                String problem = checkPosting(posting, account, existingReferences);
+                if (problem != null) {
+                    chunkErrors.add(new IngestionError(offset + i, problem));
+                    continue;
+                }
+                Money amount = Money.of(posting.getAmount(), account.getCurrency());
+                if (posting.getDirection() == Transaction.Direction.CREDIT) {
+                    account.deposit(amount);
+                } else {
+                    account.withdraw(amount);
+                }
+                TransactionType type = types.computeIfAbsent(posting.getTransactionType(), transactionFactory::resolveType);
+                rows.add(transactionFactory.build(account, type, posting.getDirection(), amount,
+                        posting.getDescription(),
+                        posting.getReference() != null ? posting.getReference() : transactionFactory.newReference(),
+                        posting.getTransactionDate() != null ? posting.getTransactionDate() : now));
+            }
+            if (atomic && !chunkErrors.isEmpty()) {
+                status.setRollbackOnly();
+                return 0;
+            }
+
+            for (int i = 0; i < rows.size(); i++) {
+                entityManager.persist(rows.get(i));
+                if ((i + 1) % jdbcBatchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            Map<Long, List<Transaction>> rowsByAccount = rows.stream()
+                    .collect(Collectors.groupingBy(row -> row.getAccount().getId()));
+            rowsByAccount.forEach((accountId, accountRows) -> {
+                balanceSnapshotService.recordPostings(accounts.get(accountId), accountRows);
+                accountSummaryCache.recordPosting(accounts.get(accountId));
+            });
+            return rows.size();
+        }));
+        return persisted != null ? persisted : 0;
+    }
+
+    private static String checkPosting(BatchPostingRequest posting, Account account, Set<String> existingReferences) {
+        if (account == null) {
+            return "Account not found: " + posting.getAccountId();
+        }
+        if (!account.isActive()) {
+            return "Account is not active: " + posting.getAccountId();
+        }
+        if (posting.getCurrency() != null && !posting.getCurrency().equals(account.getCurrency())) {
+            return "Currency does not match account";
+        }
+        if (posting.getReference() != null && existingReferences.contains(posting.getReference())) {
+            return "Reference already exists";
+        }
+        if (posting.getDirection() == Transaction.Direction.DEBIT
+                && !account.hasSufficientFunds(Money.of(posting.getAmount(), account.getCurrency()))) {
+            return "Insufficient funds";
+        }
+        return null;
+    }
+
+    private void requireDatabaseMode() {
+        if (postingJournal != null) {
+            throw new IllegalStateException("Bulk ingestion is not available while journal mode is enabled");
+        }
+    }
+
+    private static String describe(Set<ConstraintViolation<BatchPostingRequest>> violations) {
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
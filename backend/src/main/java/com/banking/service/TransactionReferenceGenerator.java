@@ -0,0 +1,206 @@
+package com.banking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates time-ordered, node-aware transaction references.
+ * <p>
+ * Each reference encodes a 63-bit id laid out like a Snowflake id: 41 bits of milliseconds since
+ * {@link #EPOCH}, 10 bits of node id and a 12-bit per-millisecond sequence. The timestamp and the
+ * sequence are kept together in a single {@link AtomicLong} and advanced with compare-and-set, so
+ * threads never block each other. When the sequence of a millisecond is exhausted, or the wall
+ * clock moves backwards, the generator keeps counting from the last issued value instead of
+ * waiting, which keeps the ids strictly increasing on each node.
+ * <p>
+ * The id is rendered as {@code TX} followed by 13 Crockford base32 characters. The encoding is
+ * fixed width, so references sort in the same order as the ids and new rows land at the right
+ * edge of the unique index. References are unique across instances as long as every instance is
+ * started with its own {@code app.reference.node-id}.
+ * <p>
+ * The last issued value only lives in memory. So that a restarted instance does not issue ids
+ * again after its clock stepped back, or after it borrowed milliseconds from the future,
+ * {@link TransactionReferenceResumer} calls {@link #resumeAfter(long)} with the latest stored
+ * reference before the application takes requests.
+ */
+@Component
+public class TransactionReferenceGenerator {
+
+    /**
+     * Start of the timestamp range, 2025-01-01T00:00:00Z.
+     */
+    public static final long EPOCH = 1_735_689_600_000L;
+
+    public static final String PREFIX = "TX";
+
+    public static final int NODE_BITS = 10;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int TIMESTAMP_BITS = 41;
+    private static final long MAX_TIMESTAMP = (1L << TIMESTAMP_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    /**
+     * Last issued (timestamp, sequence) pair as {@code timestamp << SEQUENCE_BITS | sequence}.
+     */
+    private final AtomicLong lastTick = new AtomicLong();
+
+    @Autowired
+    public TransactionReferenceGenerator(@Value("${app.reference.node-id:0}") int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    TransactionReferenceGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    /**
+     * Generate a new transaction reference.
+     *
+     * @return the reference
+     */
+    public String nextReference() {
+        return encode(nextId());
+    }
+
+    /**
+     * Generate a new id. Ids from the same generator are strictly increasing.
+     *
+     * @return the id
+     */
+    public long nextId() {
+        long elapsed = clock.getAsLong() - EPOCH;
+        if (elapsed < 0 || elapsed > MAX_TIMESTAMP) {
+            throw new IllegalStateException("System clock is outside the reference timestamp range");
+        }
+        long tick = lastTick.accumulateAndGet(elapsed << SEQUENCE_BITS,
+                (last, now) -> now > last ? now : last + 1);
+        long timestamp = tick >>> SEQUENCE_BITS;
+        if (timestamp > MAX_TIMESTAMP) {
+            throw new IllegalStateException("Reference timestamp range exhausted");
+        }
+        return timestamp << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (tick & ((1L << SEQUENCE_BITS) - 1));
+    }
+
+    /**
+     * Make sure every id generated from now on is greater than an id issued earlier, for example
+     * by this node before a restart. Has no effect if the generator is already past it.
+     *
+     * @param id the issued id
+     */
+    public void resumeAfter(long id) {
+        long tick = (id >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS | (id & ((1L << SEQUENCE_BITS) - 1));
+        lastTick.accumulateAndGet(tick, Math::max);
+    }
+
+    /**
+     * Render an id as a reference.
+     *
+     * @param id the id
+     * @return the reference
+     */
+    public static String encode(long id) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Get the smallest reference any node can generate at a point in time. References generated
+     * earlier, and the transfer legs derived from them, sort before it.
+     *
+     * @param epochMillis the point in time, clamped to the timestamp range
+     * @return the reference
+     */
+    public static String firstReferenceAt(long epochMillis) {
+        long elapsed = Math.max(0, Math.min(epochMillis - EPOCH, MAX_TIMESTAMP));
+        return encode(elapsed << (NODE_BITS + SEQUENCE_BITS));
+    }
+
+    /**
+     * Read the id back from a reference produced by {@link #encode(long)}.
+     *
+     * @param reference the reference
+     * @return the id
+     * @throws IllegalArgumentException if the reference is not in the generated format
+     */
+    public static long decode(String reference) {
+        if (reference == null || reference.length() != PREFIX.length() + ENCODED_LENGTH
+                || !reference.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Not a generated transaction reference: " + reference);
+        }
+        long id = 0;
+        for (int i = PREFIX.length(); i < reference.length(); i++) {
+            int digit = indexOf(reference.charAt(i));
+            if (digit < 0 || (i == PREFIX.length() && digit > 7)) {
+                throw new IllegalArgumentException("Not a generated transaction reference: " + reference);
+            }
+            id = id << 5 | digit;
+        }
+        return id;
+    }
+
+    /**
+     * Read the id back from a generated reference or from the reference of one leg of a transfer,
+     * which carries a {@code -D}, {@code -C} or {@code -R} suffix.
+     *
+     * @param reference the reference
+     * @return the id
+     * @throws IllegalArgumentException if the reference is not in the generated format
+     */
+    public static long decodeLeg(String reference) {
+        int length = PREFIX.length() + ENCODED_LENGTH;
+        if (reference != null && reference.length() == length + 2 && reference.charAt(length) == '-'
+                && "DCR".indexOf(reference.charAt(length + 1)) >= 0) {
+            return decode(reference.substring(0, length));
+        }
+        return decode(reference);
+    }
+
+    /**
+     * Get the time an id was generated, in epoch milliseconds.
+     *
+     * @param id the id
+     * @return the generation time
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     * Get the node id encoded in an id.
+     *
+     * @param id the id
+     * @return the node id
+     */
+    public static int nodeOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
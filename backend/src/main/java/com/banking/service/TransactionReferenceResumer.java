@@ -0,0 +1,95 @@
+package com.banking.service;
+
+import com.banking.repository.TransactionRepository;
+import com.banking.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Resumes the {@link TransactionReferenceGenerator} after the latest generated reference stored on
+ * any shard, so a restarted instance never issues a reference again.
+ * <p>
+ * Runs in a lifecycle phase before the web server starts. The resumed value covers every node, so
+ * an instance whose clock is behind the others keeps counting from their latest reference until
+ * its clock catches up. Only references persisted before the restart are seen: postings still held
+ * by the posting journal are recovered with their own references. The legs of a transfer count with
+ * the reference they were derived from.
+ * <p>
+ * References dated more than {@code app.reference.resume-max-ahead} past the local clock are not
+ * considered. Clients may supply their own references, and a single one in the generated format
+ * far in the future would otherwise use up the timestamp range.
+ */
+@Slf4j
+@Component
+public class TransactionReferenceResumer implements SmartLifecycle {
+
+    /**
+     * How many of the greatest references to look at for one in the generated format.
+     */
+    private static final int CANDIDATES = 32;
+
+    @Autowired
+    private TransactionReferenceGenerator referenceGenerator;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${app.reference.resume-max-ahead:PT24H}")
+    private Duration maxAhead;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        long latest = -1;
+        String below = TransactionReferenceGenerator.firstReferenceAt(System.currentTimeMillis() + maxAhead.toMillis());
+        for (int shard : shardRouter.shards()) {
+            List<String> references = shardRouter.onShard(shard, () -> transactionRepository.findGreatestReferences(
+                    TransactionReferenceGenerator.PREFIX, below, Limit.of(CANDIDATES)));
+            for (String reference : references) {
+                try {
+                    latest = Math.max(latest, TransactionReferenceGenerator.decodeLeg(reference));
+                    break;
+                } catch (IllegalArgumentException e) {
+                    // Supplied by a client in another format.
+                }
+            }
+        }
+        if (latest >= 0) {
+            referenceGenerator.resumeAfter(latest);
+            log.info("Transaction references resume after {}, generated at {}",
+                    TransactionReferenceGenerator.encode(latest),
+                    Instant.ofEpochMilli(TransactionReferenceGenerator.timestampOf(latest)));
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Before the web server, which starts in {@code DEFAULT_PHASE - 1024}.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+}
@@ -0,0 +1,86 @@
+package com.banking.sharding;
+
+import com.banking.model.CrossShardTransfer;
+import com.banking.repository.CrossShardTransferRepository;
+import com.banking.service.PostingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Finishes the cross-shard transfers whose source was debited but whose destination has not been
+ * credited, because the credit failed or the instance stopped in between.
+ * <p>
+ * Every {@code app.sharding.transfer-recovery-interval-ms}, each shard is searched for transfers
+ * left {@link CrossShardTransfer.Status#DEBITED} for longer than
+ * {@code app.sharding.transfer-retry-delay}. They are claimed with {@code SKIP LOCKED}, so
+ * instances recover side by side, and their credit is retried; a destination that no longer takes
+ * the credit gets the debit reversed. The delay also keeps the job clear of transfers that are
+ * still being posted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class CrossShardTransferRecovery {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private CrossShardTransferRepository crossShardTransferRepository;
+
+    @Autowired
+    private PostingService postingService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.sharding.transfer-retry-delay:PT1M}")
+    private Duration retryDelay;
+
+    /**
+     * Retry the stalled transfers of every shard.
+     */
+    @Scheduled(fixedDelayString = "${app.sharding.transfer-recovery-interval-ms:30000}",
+            initialDelayString = "${app.sharding.transfer-recovery-interval-ms:30000}")
+    public void recover() {
+        for (int shard : shardRouter.shards()) {
+            try {
+                recover(shard);
+            } catch (RuntimeException e) {
+                log.warn("Could not recover the cross-shard transfers of shard {}", shard, e);
+            }
+        }
+    }
+
+    private void recover(int shard) {
+        List<CrossShardTransfer> stalled = shardRouter.onShard(shard, () -> transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<CrossShardTransfer> due = crossShardTransferRepository.findStalled(
+                    CrossShardTransfer.Status.DEBITED, now.minus(retryDelay), Limit.of(BATCH_SIZE));
+            // Claim them until the retry delay has passed again.
+            due.forEach(transfer -> transfer.setUpdatedAt(now));
+            return due;
+        }));
+        for (CrossShardTransfer transfer : stalled) {
+            try {
+                CrossShardTransfer.Status outcome = postingService.resumeCrossShardTransfer(shard, transfer);
+                log.info("Cross-shard transfer {} resumed after {} attempts: {}",
+                        transfer.getReference(), transfer.getAttempts(), outcome);
+            } catch (RuntimeException e) {
+                log.warn("Could not resume cross-shard transfer {}", transfer.getReference(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.banking.sharding;
+
+import com.banking.security.AuthenticatedUser;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Points the requests of a signed-in user at the user's shard. It runs after the security filters,
+ * once the principal is known; anonymous requests stay on the directory. The requests of a user
+ * whose range is being moved to another shard are answered with 503 and a {@code Retry-After}.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardContextFilter extends OncePerRequestFilter {
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        int shard;
+        try {
+            shard = shardRouter.shardOfUser(user.id());
+        } catch (ShardMovingException e) {
+            // Written directly: an error dispatch would be re-checked by the security filters.
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(e.getMessage());
+            return;
+        }
+        Integer previous = ShardRouter.enter(shard);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ShardRouter.restore(previous);
+        }
+    }
+}
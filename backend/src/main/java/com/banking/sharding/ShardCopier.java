@@ -0,0 +1,115 @@
+package com.banking.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps the rows that every shard needs in step with the directory: the users, which the
+ * accounts and bills of a shard refer to, and the transaction types.
+ * <p>
+ * The directory holds the authoritative copy. A user is copied to their shard when they register,
+ * within the registration transaction, and moves with their range in a rebalance; later changes
+ * to the user, such as failed sign-in counts, are only kept on the directory. Transaction types
+ * are created on the directory and copied to every shard with the same id.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardCopier {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRoutingDataSource dataSource;
+
+    /**
+     * Copy a user from the directory to their shard. Call it in the directory transaction that
+     * created the user, once the user is flushed; the copy is made on the user's shard straight
+     * away, so a registration that rolls back leaves an unused user row there.
+     *
+     * @param userId the user id
+     * @throws ShardMovingException if the user's range is being moved
+     */
+    public void copyUser(Long userId) {
+        int shard = shardRouter.shardOfUser(userId);
+        if (shard == ShardRouter.DIRECTORY) {
+            return;
+        }
+        // The directory transaction's own connection, which sees the uncommitted user.
+        Connection directory = DataSourceUtils.getConnection(dataSource);
+        try (Connection target = shardRouter.dataSource(shard).getConnection()) {
+            if (!ShardRows.upsert(directory, "select * from users where id = ?", List.of(userId), target, "users")) {
+                throw new IllegalStateException("User " + userId + " is not on the directory");
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not copy user " + userId + " to shard " + shard, e);
+        } finally {
+            DataSourceUtils.releaseConnection(directory, dataSource);
+        }
+    }
+
+    /**
+     * Create a transaction type on the directory and every shard, with the same id everywhere. A
+     * type created at the same time by another instance is taken as is.
+     *
+     * @param name the type name
+     * @return the id of the type
+     */
+    public Long createTransactionType(String name) {
+        DataSource directory = shardRouter.dataSource(ShardRouter.DIRECTORY);
+        Long id;
+        try (Connection connection = directory.getConnection()) {
+            id = findTransactionType(connection, name);
+            if (id == null) {
+                LocalDateTime now = LocalDateTime.now();
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "insert into transaction_types (name, created_at, updated_at) values (?, ?, ?)")) {
+                    insert.setString(1, name);
+                    insert.setObject(2, now);
+                    insert.setObject(3, now);
+                    insert.executeUpdate();
+                } catch (SQLIntegrityConstraintViolationException e) {
+                    // Created by another instance in the meantime.
+                }
+                id = findTransactionType(connection, name);
+            }
+            for (int shard : shardRouter.shards()) {
+                if (shard == ShardRouter.DIRECTORY) {
+                    continue;
+                }
+                try (Connection target = shardRouter.dataSource(shard).getConnection()) {
+                    if (findTransactionType(target, name) == null) {
+                        ShardRows.copyMissing(connection, target, "transaction_types", "id = ?", List.of(id));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not create transaction type " + name, e);
+        }
+        log.info("Created transaction type {} with id {} on all shards", name, id);
+        return id;
+    }
+
+    private static Long findTransactionType(Connection connection, String name) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement("select id from transaction_types where name = ?")) {
+            query.setString(1, name);
+            try (ResultSet rows = query.executeQuery()) {
+                return rows.next() ? rows.getLong(1) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.banking.sharding;
+
+import com.banking.model.ShardRange;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * An immutable snapshot of the shard map: ranges of user ids, each on one shard, keyed by the
+ * first user id of the range. A range ends where the next one begins.
+ */
+final class ShardMap {
+
+    private final NavigableMap<Long, ShardRange> ranges;
+
+    ShardMap(List<ShardRange> ranges) {
+        NavigableMap<Long, ShardRange> byFirstUserId = new TreeMap<>();
+        for (ShardRange range : ranges) {
+            byFirstUserId.put(range.getFirstUserId(), range);
+        }
+        this.ranges = byFirstUserId;
+    }
+
+    /**
+     * Find the range a user belongs to.
+     *
+     * @param userId the user id
+     * @return the range
+     * @throws IllegalStateException if no range covers the user
+     */
+    ShardRange rangeOf(long userId) {
+        Map.Entry<Long, ShardRange> entry = ranges.floorEntry(userId);
+        if (entry == null) {
+            throw new IllegalStateException("No shard range covers user " + userId);
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * Get the first user id after a range, where the next range begins.
+     *
+     * @param range the range
+     * @return the first user id of the next range, or {@link Long#MAX_VALUE} for the last range
+     */
+    long endOf(ShardRange range) {
+        Long next = ranges.higherKey(range.getFirstUserId());
+        return next != null ? next : Long.MAX_VALUE;
+    }
+
+    List<ShardRange> ranges() {
+        return List.copyOf(ranges.values());
+    }
+}
@@ -0,0 +1,16 @@
+package com.banking.sharding;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the data of a user is needed while a rebalance is moving it to another shard. The
+ * request can be retried once the move is done.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ShardMovingException extends RuntimeException {
+
+    public ShardMovingException(Long userId) {
+        super("The data of user " + userId + " is being moved to another shard, please retry shortly");
+    }
+}
@@ -0,0 +1,346 @@
+package com.banking.sharding;
+
+import com.banking.dto.RebalanceResult;
+import com.banking.model.ShardRange;
+import com.banking.repository.ShardRangeRepository;
+import com.banking.service.AccountLockManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves a range of users, with their accounts, ledger and bills, from one shard to another.
+ * <p>
+ * A move runs in steps:
+ * <ol>
+ *     <li>The range is split off in the shard map and marked {@link ShardRange.Status#MOVING}. From
+ *     the next map refresh of each instance, the requests and postings of its users are turned
+ *     away with 503.</li>
+ *     <li>The move waits {@code app.sharding.rebalance-drain}, which must cover the map refresh
+ *     interval and the longest request, for the work already under way to finish.</li>
+ *     <li>Under the account locks of the moved accounts, the rows of the range are copied to the
+ *     target shard in one transaction there, after deleting what an earlier failed move left on
+ *     it: users, accounts, transactions, balance snapshots, archive entries and the archive
+ *     segments they belong to, bills and cross-shard transfers.</li>
+ *     <li>The range is pointed at the target shard and marked active again.</li>
+ *     <li>The copied rows are deleted from the source shard, in one transaction. Users stay on
+ *     the source, as other rows of the source may refer to them.</li>
+ * </ol>
+ * If the copy fails, it is rolled back and the range goes back to the source shard, so the move
+ * can simply be retried. If the map cannot be updated after the copy, the range stays moving and
+ * its users are refused until the move is retried. If the source cannot be cleaned up, its copies
+ * are left behind where nothing reads them; the next move of the range back to that shard deletes
+ * them first.
+ * <p>
+ * Bill runs and archive runs work through whole shards and do not check the map, so moves should
+ * not overlap them. Segment totals of archive segments shared with other users are not split.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardRebalancer {
+
+    private static final String ACCOUNTS_OF_RANGE = "select id from accounts where user_id >= ? and user_id < ?";
+
+    /**
+     * The tables moved with a range, in copy order, with the condition that selects the rows of
+     * the range.
+     */
+    private static final Map<String, String> MOVED_TABLES = movedTables();
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRangeRepository shardRangeRepository;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.sharding.rebalance-drain:PT10S}")
+    private Duration drain;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private static Map<String, String> movedTables() {
+        Map<String, String> tables = new LinkedHashMap<>();
+        tables.put("accounts", "user_id >= ? and user_id < ?");
+        tables.put("transactions", "account_id in (" + ACCOUNTS_OF_RANGE + ")");
+        tables.put("daily_balance_snapshots", "account_id in (" + ACCOUNTS_OF_RANGE + ")");
+        tables.put("transaction_archive_entries", "account_id in (" + ACCOUNTS_OF_RANGE + ")");
+        tables.put("bills", "user_id >= ? and user_id < ?");
+        tables.put("cross_shard_transfers", "source_account_id in (" + ACCOUNTS_OF_RANGE + ")");
+        return tables;
+    }
+
+    /**
+     * Move the users {@code [firstUserId, endUserId)} to another shard. The users must all be on
+     * one shard, which is not the target.
+     *
+     * @param firstUserId the first user id of the range
+     * @param endUserId the first user id after the range
+     * @param targetShard the shard to move the users to
+     * @return the outcome of the move
+     * @throws IllegalArgumentException if the range or the target is invalid
+     * @throws IllegalStateException if another move is in progress, or the range is not on one shard
+     */
+    public RebalanceResult rebalance(long firstUserId, long endUserId, int targetShard) {
+        if (firstUserId < 1 || endUserId <= firstUserId) {
+            throw new IllegalArgumentException("The range must start at user 1 or later and not be empty");
+        }
+        if (!shardRouter.shards().contains(targetShard)) {
+            throw new IllegalArgumentException("Unknown shard: " + targetShard);
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A rebalance is already in progress");
+        }
+        try {
+            long start = System.nanoTime();
+            int sourceShard = markMoving(firstUserId, endUserId, targetShard);
+            shardRouter.refresh();
+            log.info("Moving users [{}, {}) from shard {} to shard {}, draining for {}",
+                    firstUserId, endUserId, sourceShard, targetShard, drain);
+
+            Map<String, Integer> rows;
+            boolean sourceCleaned;
+            try {
+                Thread.sleep(drain.toMillis());
+                List<Long> accountIds = new JdbcTemplate(shardRouter.dataSource(sourceShard))
+                        .queryForList(ACCOUNTS_OF_RANGE, Long.class, firstUserId, endUserId);
+                RangeMove move = accountLockManager.withAccountLocks(accountIds,
+                        () -> move(firstUserId, endUserId, sourceShard, targetShard));
+                rows = move.rows;
+                sourceCleaned = move.sourceCleaned;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                restore(firstUserId, endUserId);
+                throw new IllegalStateException("The rebalance was interrupted; the users stay on shard " + sourceShard);
+            } catch (RuntimeException e) {
+                if (!(e instanceof MapUpdateException)) {
+                    restore(firstUserId, endUserId);
+                }
+                throw e;
+            }
+            shardRouter.refresh();
+
+            RebalanceResult result = new RebalanceResult(firstUserId, endUserId, sourceShard, targetShard, rows,
+                    sourceCleaned, (System.nanoTime() - start) / 1_000_000);
+            log.info("Moved users [{}, {}) from shard {} to shard {} in {} ms: {}", firstUserId, endUserId,
+                    sourceShard, targetShard, result.elapsedMillis(), rows);
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Split the range off in the shard map and mark it moving.
+     *
+     * @return the shard the range is on
+     */
+    private int markMoving(long firstUserId, long endUserId, int targetShard) {
+        return shardRouter.onDirectory(() -> transactionTemplate.execute(status -> {
+            List<ShardRange> ranges = split(shardRangeRepository.findAllByOrderByFirstUserId(), firstUserId, endUserId);
+            ShardMap map = new ShardMap(ranges);
+            int sourceShard = map.rangeOf(firstUserId).getShardId();
+            if (sourceShard == targetShard) {
+                throw new IllegalArgumentException("Users " + firstUserId + " to " + (endUserId - 1)
+                        + " are already on shard " + targetShard);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (ShardRange range : ranges) {
+                if (range.getFirstUserId() < firstUserId || range.getFirstUserId() >= endUserId) {
+                    continue;
+                }
+                // A range left moving by a failed map update is taken over by the retry.
+                if (range.getShardId() != sourceShard) {
+                    throw new IllegalStateException("Users " + firstUserId + " to " + (endUserId - 1)
+                            + " are not all on shard " + sourceShard);
+                }
+                range.setStatus(ShardRange.Status.MOVING);
+                range.setUpdatedAt(now);
+            }
+            shardRangeRepository.saveAll(ranges);
+            return sourceShard;
+        }));
+    }
+
+    /**
+     * Add ranges starting at both ends of a range, unless they exist, so the range can be changed on
+     * its own.
+     */
+    private static List<ShardRange> split(List<ShardRange> ranges, long firstUserId, long endUserId) {
+        List<ShardRange> result = new ArrayList<>(ranges);
+        ShardMap map = new ShardMap(ranges);
+        for (long boundary : new long[]{firstUserId, endUserId}) {
+            ShardRange containing = map.rangeOf(boundary);
+            if (containing.getFirstUserId() != boundary && boundary != Long.MAX_VALUE) {
+                result.add(ShardRange.builder()
+                        .firstUserId(boundary)
+                        .shardId(containing.getShardId())
+                        .status(containing.getStatus())
+                        .updatedAt(LocalDateTime.now())
+                        .build());
+            }
+        }
+        return result;
+    }
+
+    private RangeMove move(long firstUserId, long endUserId, int sourceShard, int targetShard) {
+        Map<String, Integer> rows = new LinkedHashMap<>();
+        try (Connection source = shardRouter.dataSource(sourceShard).getConnection();
+             Connection target = shardRouter.dataSource(targetShard).getConnection()) {
+            target.setAutoCommit(false);
+            try {
+                int leftovers = deleteRange(target, firstUserId, endUserId);
+                if (leftovers > 0) {
+                    log.warn("Deleted {} rows of users [{}, {}) left on shard {} by an earlier move",
+                            leftovers, firstUserId, endUserId, targetShard);
+                }
+                List<Long> range = List.of(firstUserId, endUserId);
+                rows.put("users", ShardRows.copyMissing(source, target, "users", "id >= ? and id < ?", range));
+                for (Map.Entry<String, String> table : MOVED_TABLES.entrySet()) {
+                    if (table.getKey().equals("transaction_archive_entries")) {
+                        rows.put("transaction_archive_segments", ShardRows.copyMissing(source, target,
+                                "transaction_archive_segments", "id in (select segment_id from transaction_archive_entries where "
+                                        + table.getValue() + ")", range));
+                    }
+                    rows.put(table.getKey(), ShardRows.copy(source,
+                            "select * from " + table.getKey() + " where " + table.getValue(), range, target, table.getKey()));
+                }
+                target.commit();
+            } catch (SQLException | RuntimeException e) {
+                target.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not copy users [" + firstUserId + ", " + endUserId
+                    + ") to shard " + targetShard + "; they stay on shard " + sourceShard, e);
+        }
+
+        try {
+            flip(firstUserId, endUserId, targetShard);
+        } catch (RuntimeException e) {
+            log.error("Users [{}, {}) were copied to shard {} but the shard map could not be updated; "
+                    + "they stay refused until the move is retried", firstUserId, endUserId, targetShard, e);
+            throw new MapUpdateException(e);
+        }
+
+        boolean sourceCleaned = true;
+        try (Connection source = shardRouter.dataSource(sourceShard).getConnection()) {
+            source.setAutoCommit(false);
+            try {
+                deleteRange(source, firstUserId, endUserId);
+                source.commit();
+            } catch (SQLException | RuntimeException e) {
+                source.rollback();
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            sourceCleaned = false;
+            log.error("Users [{}, {}) were moved to shard {} but their rows could not be deleted from shard {}",
+                    firstUserId, endUserId, targetShard, sourceShard, e);
+        }
+        return new RangeMove(rows, sourceCleaned);
+    }
+
+    /**
+     * Delete the rows of a range from a shard, except its users.
+     *
+     * @return the number of rows deleted
+     */
+    private static int deleteRange(Connection connection, long firstUserId, long endUserId) throws SQLException {
+        List<String> tables = new ArrayList<>(MOVED_TABLES.keySet());
+        int deleted = 0;
+        for (int i = tables.size() - 1; i >= 0; i--) {
+            String table = tables.get(i);
+            deleted += ShardRows.execute(connection, "delete from " + table + " where " + MOVED_TABLES.get(table),
+                    List.of(firstUserId, endUserId));
+        }
+        return deleted;
+    }
+
+    private void flip(long firstUserId, long endUserId, int targetShard) {
+        shardRouter.onDirectory(() -> transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (ShardRange range : shardRangeRepository.findAllByOrderByFirstUserId()) {
+                if (range.getFirstUserId() >= firstUserId && range.getFirstUserId() < endUserId) {
+                    range.setShardId(targetShard);
+                    range.setStatus(ShardRange.Status.ACTIVE);
+                    range.setUpdatedAt(now);
+                }
+            }
+            shardRangeRepository.flush();
+            mergeAdjacent();
+            return null;
+        }));
+    }
+
+    /**
+     * Put the range back on its source shard after a failed move.
+     */
+    private void restore(long firstUserId, long endUserId) {
+        try {
+            shardRouter.onDirectory(() -> transactionTemplate.execute(status -> {
+                for (ShardRange range : shardRangeRepository.findAllByOrderByFirstUserId()) {
+                    if (range.getFirstUserId() >= firstUserId && range.getFirstUserId() < endUserId) {
+                        range.setStatus(ShardRange.Status.ACTIVE);
+                        range.setUpdatedAt(LocalDateTime.now());
+                    }
+                }
+                shardRangeRepository.flush();
+                mergeAdjacent();
+                return null;
+            }));
+            shardRouter.refresh();
+        } catch (RuntimeException e) {
+            log.error("Users [{}, {}) could not be marked active again after a failed move", firstUserId, endUserId, e);
+        }
+    }
+
+    /**
+     * Drop the ranges that continue the previous range on the same shard.
+     */
+    private void mergeAdjacent() {
+        ShardRange previous = null;
+        for (ShardRange range : shardRangeRepository.findAllByOrderByFirstUserId()) {
+            if (previous != null && previous.getShardId() == range.getShardId()
+                    && previous.getStatus() == range.getStatus()) {
+                shardRangeRepository.delete(range);
+                continue;
+            }
+            previous = range;
+        }
+    }
+
+    private record RangeMove(Map<String, Integer> rows, boolean sourceCleaned) {
+    }
+
+    /**
+     * The rows were copied but the shard map still points at the source; the range stays moving.
+     */
+    private static final class MapUpdateException extends IllegalStateException {
+
+        MapUpdateException(Throwable cause) {
+            super("The shard map could not be updated after the copy; retry the move", cause);
+        }
+    }
+}
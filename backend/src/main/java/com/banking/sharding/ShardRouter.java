@@ -0,0 +1,357 @@
+package com.banking.sharding;
+
+import com.banking.model.ShardRange;
+import com.banking.repository.ShardRangeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Decides which shard the data of a user lives on and points the current thread at it.
+ * <p>
+ * With {@code app.sharding.enabled}, users are split over the databases of the
+ * {@link ShardRoutingDataSource} by ranges of user id, the shard map. The map is kept in the
+ * {@code shard_ranges} table of the directory, shard 0, seeded from {@code app.sharding.ranges}
+ * when the table is empty, and re-read every {@code app.sharding.map-refresh-interval-ms}. A user's
+ * accounts, ledger, snapshots, archive and bills live on the user's shard; the users table and the
+ * reference data are on every shard, and the directory also holds the data that is not owned by
+ * one user, such as idempotency records.
+ * <p>
+ * Work is pointed at a shard with {@link #onShard(int, Supplier)} and its variants, which set the
+ * shard of the current thread for the duration of the call. The shard cannot change inside a
+ * transaction: a transaction runs on one database. Requests of signed-in users start on the
+ * user's shard, see {@link ShardContextFilter}; threads that have not chosen a shard work on the
+ * directory. The owner of an account is found by asking the shards and cached, up to
+ * {@code app.sharding.account-owner-cache-size} accounts, as {@code shard.account.owners}.
+ * <p>
+ * Without {@code app.sharding.enabled} there is one shard, and every method runs its work as is.
+ */
+@Slf4j
+@Component
+public class ShardRouter implements SmartInitializingSingleton {
+
+    public static final int DIRECTORY = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    @Autowired(required = false)
+    private ShardRoutingDataSource dataSource;
+
+    @Autowired
+    private ShardRangeRepository shardRangeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.sharding.ranges:1:0}")
+    private List<String> initialRanges;
+
+    @Value("${app.sharding.account-owner-cache-size:100000}")
+    private long accountOwnerCacheSize;
+
+    private volatile ShardMap shardMap;
+
+    private List<JdbcTemplate> shardTemplates;
+
+    private Cache<Long, Long> accountOwners;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        if (dataSource == null) {
+            throw new IllegalStateException("app.sharding.enabled is set but no shard data source is configured");
+        }
+        shardTemplates = new ArrayList<>(dataSource.shardCount());
+        for (int shard = 0; shard < dataSource.shardCount(); shard++) {
+            shardTemplates.add(new JdbcTemplate(dataSource.shard(shard)));
+        }
+        accountOwners = Caffeine.newBuilder()
+                .maximumSize(accountOwnerCacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accountOwners, "shard.account.owners");
+        seedShardMap();
+        refresh();
+        log.info("Sharding over {} databases, shard map: {}", dataSource.shardCount(), describe(shardMap));
+    }
+
+    private void seedShardMap() {
+        List<ShardRange> ranges = new ArrayList<>();
+        for (String spec : initialRanges) {
+            String[] parts = spec.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalStateException("app.sharding.ranges entries must be firstUserId:shard, got " + spec);
+            }
+            int shard = Integer.parseInt(parts[1].trim());
+            if (shard < 0 || shard >= dataSource.shardCount()) {
+                throw new IllegalStateException("app.sharding.ranges names shard " + shard + " of " + dataSource.shardCount());
+            }
+            ranges.add(ShardRange.builder()
+                    .firstUserId(Long.parseLong(parts[0].trim()))
+                    .shardId(shard)
+                    .status(ShardRange.Status.ACTIVE)
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        }
+        if (ranges.stream().noneMatch(range -> range.getFirstUserId() <= 1)) {
+            throw new IllegalStateException("app.sharding.ranges must start at user 1");
+        }
+        try {
+            onDirectory(() -> transactionTemplate.execute(status -> {
+                if (shardRangeRepository.count() == 0) {
+                    shardRangeRepository.saveAll(ranges);
+                }
+                return null;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Seeded by another instance starting at the same time.
+        }
+    }
+
+    /**
+     * Re-read the shard map from the directory.
+     */
+    @Scheduled(fixedDelayString = "${app.sharding.map-refresh-interval-ms:5000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        List<ShardRange> ranges = onDirectory(() -> transactionTemplate.execute(status ->
+                shardRangeRepository.findAllByOrderByFirstUserId()));
+        ShardMap previous = shardMap;
+        shardMap = new ShardMap(ranges);
+        if (previous != null && !previous.ranges().equals(shardMap.ranges())) {
+            log.info("Shard map changed: {}", describe(shardMap));
+        }
+    }
+
+    /**
+     * Check whether the data is split over several databases.
+     *
+     * @return true with {@code app.sharding.enabled}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the ids of all shards, starting with the directory.
+     *
+     * @return the shard ids
+     */
+    public List<Integer> shards() {
+        return enabled ? IntStream.range(0, dataSource.shardCount()).boxed().toList() : List.of(DIRECTORY);
+    }
+
+    /**
+     * Get the ranges of the shard map as last read.
+     *
+     * @return the ranges in order of their first user id
+     */
+    public List<ShardRange> ranges() {
+        return enabled ? shardMap.ranges() : List.of();
+    }
+
+    /**
+     * Get the shard the current thread works on.
+     *
+     * @return the shard id; the directory unless a shard was chosen
+     */
+    public static int currentShard() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : DIRECTORY;
+    }
+
+    /**
+     * Find the shard of a user.
+     *
+     * @param userId the user id
+     * @return the shard id
+     * @throws ShardMovingException if the user's range is being moved to another shard
+     */
+    public int shardOfUser(Long userId) {
+        if (!enabled) {
+            return DIRECTORY;
+        }
+        ShardRange range = shardMap.rangeOf(userId);
+        if (range.getStatus() == ShardRange.Status.MOVING) {
+            throw new ShardMovingException(userId);
+        }
+        return range.getShardId();
+    }
+
+    /**
+     * Find the shard of an account: the shard of its owner.
+     *
+     * @param accountId the account id
+     * @return the shard id
+     * @throws NoSuchElementException if no shard has the account
+     * @throws ShardMovingException if the owner's range is being moved to another shard
+     */
+    public int shardOfAccount(Long accountId) {
+        if (!enabled) {
+            return DIRECTORY;
+        }
+        return shardOfUser(ownerOf(accountId));
+    }
+
+    /**
+     * Find the owner of an account, asking the shards on a cache miss. Accounts are numbered from
+     * a block of ids per shard, so the shard the account was opened on is asked first.
+     */
+    Long ownerOf(Long accountId) {
+        Long owner = accountOwners.getIfPresent(accountId);
+        if (owner != null) {
+            return owner;
+        }
+        int shardCount = shardTemplates.size();
+        int hint = (int) Math.floorMod(accountId >> ShardSchemaInitializer.ID_BLOCK_BITS, (long) shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            List<Long> found = shardTemplates.get((hint + i) % shardCount)
+                    .queryForList("select user_id from accounts where id = ?", Long.class, accountId);
+            if (!found.isEmpty()) {
+                accountOwners.put(accountId, found.get(0));
+                return found.get(0);
+            }
+        }
+        throw new NoSuchElementException("Account not found: " + accountId);
+    }
+
+    /**
+     * Run work on a shard.
+     *
+     * @param shard the shard id
+     * @param work the work
+     * @return the result of the work
+     * @throws IllegalStateException if a transaction on another shard is active
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        Integer previous = CURRENT.get();
+        if (previous != null && previous == shard) {
+            return work.get();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cannot move to shard " + shard
+                    + " inside a transaction on shard " + currentShard());
+        }
+        enter(shard);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Run work on a shard.
+     *
+     * @param shard the shard id
+     * @param work the work
+     */
+    public void runOnShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run work on the shard of a user.
+     *
+     * @param userId the user id
+     * @param work the work
+     * @return the result of the work
+     */
+    public <T> T onUserShard(Long userId, Supplier<T> work) {
+        return onShard(shardOfUser(userId), work);
+    }
+
+    /**
+     * Run work on the shard of an account.
+     *
+     * @param accountId the account id
+     * @param work the work
+     * @return the result of the work
+     * @throws NoSuchElementException if no shard has the account
+     */
+    public <T> T onAccountShard(Long accountId, Supplier<T> work) {
+        return onShard(shardOfAccount(accountId), work);
+    }
+
+    /**
+     * Run work on the directory.
+     *
+     * @param work the work
+     * @return the result of the work
+     */
+    public <T> T onDirectory(Supplier<T> work) {
+        return onShard(DIRECTORY, work);
+    }
+
+    /**
+     * Get the pool of a shard, for JDBC work outside of the JPA transactions.
+     *
+     * @param shard the shard id
+     * @return the pool
+     */
+    DataSource dataSource(int shard) {
+        return dataSource.shard(shard);
+    }
+
+    /**
+     * Point the current thread at a shard until {@link #restore(Integer)}.
+     *
+     * @return the shard the thread was pointed at before, or null
+     */
+    static Integer enter(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    private static String describe(ShardMap map) {
+        return map.ranges().stream()
+                .map(range -> range.getFirstUserId() + "->" + range.getShardId()
+                        + (range.getStatus() == ShardRange.Status.MOVING ? " (moving)" : ""))
+                .toList()
+                .toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.banking.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes connections to the shard the current thread works on, as set by {@link ShardRouter}.
+ * Threads that have not chosen a shard get the directory, shard 0.
+ * <p>
+ * The shard is looked up when a connection is taken, so Hibernate must release the connection at
+ * the end of every transaction; a later transaction of the same request may run on another shard.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final List<HikariDataSource> shards;
+
+    /**
+     * Create the routing data source.
+     *
+     * @param shards the pools of the shards, by shard id, starting with the directory; they are
+     *               closed with this data source
+     */
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(ShardRouter.DIRECTORY));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardRouter.currentShard();
+    }
+
+    /**
+     * Get the pool of a shard, for work that names its shard rather than following the thread's.
+     *
+     * @param shard the shard id
+     * @return the pool
+     */
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * Get the number of shards, including the directory.
+     *
+     * @return the number of shards
+     */
+    public int shardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
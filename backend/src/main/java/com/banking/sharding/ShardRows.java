@@ -0,0 +1,190 @@
+package com.banking.sharding;
+
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Copies rows between the databases of two shards with plain JDBC, column for column. Every shard
+ * has the same schema, so a row is copied by reading all of its columns and inserting them, ids
+ * included, under the same names.
+ */
+final class ShardRows {
+
+    private static final int BATCH_SIZE = 500;
+
+    private ShardRows() {
+    }
+
+    /**
+     * Insert the rows a query returns on one database into a table of another.
+     *
+     * @param from the database to read
+     * @param select the query; its columns are named like the columns of the table
+     * @param params the parameters of the query
+     * @param to the database to write
+     * @param table the table to insert into
+     * @return the number of rows copied
+     */
+    static int copy(Connection from, String select, List<?> params, Connection to, String table) throws SQLException {
+        return copy(from, select, params, to, table, null);
+    }
+
+    /**
+     * Insert the rows of a table that match a condition on one database into the same table of
+     * another, skipping the rows whose {@code id} is already there.
+     *
+     * @param from the database to read
+     * @param to the database to write
+     * @param table the table
+     * @param where the condition, evaluated on both databases
+     * @param params the parameters of the condition
+     * @return the number of rows copied
+     */
+    static int copyMissing(Connection from, Connection to, String table, String where, List<?> params) throws SQLException {
+        Set<Object> existing = new HashSet<>();
+        try (PreparedStatement statement = prepare(to, "select id from " + table + " where " + where, params);
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                existing.add(rows.getLong(1));
+            }
+        }
+        return copy(from, "select * from " + table + " where " + where, params, to, table, existing);
+    }
+
+    private static int copy(Connection from, String select, List<?> params, Connection to, String table,
+                            Set<Object> skipIds) throws SQLException {
+        int copied = 0;
+        try (PreparedStatement query = prepare(from, select, params);
+             ResultSet rows = query.executeQuery()) {
+            ResultSetMetaData metaData = rows.getMetaData();
+            List<String> columns = columns(metaData);
+            int idColumn = columns.indexOf("id");
+            try (PreparedStatement insert = to.prepareStatement(insertSql(table, columns))) {
+                int pending = 0;
+                while (rows.next()) {
+                    if (skipIds != null && skipIds.contains(rows.getLong(idColumn + 1))) {
+                        continue;
+                    }
+                    bindRow(rows, insert, columns.size());
+                    insert.addBatch();
+                    copied++;
+                    if (++pending == BATCH_SIZE) {
+                        insert.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    insert.executeBatch();
+                }
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Copy one row, updating it where a row with its {@code id} exists and inserting it otherwise.
+     *
+     * @return true if a row was found to copy
+     */
+    static boolean upsert(Connection from, String select, List<?> params, Connection to, String table) throws SQLException {
+        try (PreparedStatement query = prepare(from, select, params);
+             ResultSet rows = query.executeQuery()) {
+            if (!rows.next()) {
+                return false;
+            }
+            List<String> columns = columns(rows.getMetaData());
+            int idColumn = columns.indexOf("id");
+            StringJoiner assignments = new StringJoiner(", ");
+            for (String column : columns) {
+                if (!column.equals("id")) {
+                    assignments.add(column + " = ?");
+                }
+            }
+            int updated;
+            try (PreparedStatement update = to.prepareStatement("update " + table + " set " + assignments + " where id = ?")) {
+                int parameter = 1;
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i != idColumn) {
+                        update.setObject(parameter++, value(rows, i + 1));
+                    }
+                }
+                update.setObject(parameter, rows.getObject(idColumn + 1));
+                updated = update.executeUpdate();
+            }
+            if (updated == 0) {
+                try (PreparedStatement insert = to.prepareStatement(insertSql(table, columns))) {
+                    bindRow(rows, insert, columns.size());
+                    insert.executeUpdate();
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Run an update or delete.
+     *
+     * @return the number of rows changed
+     */
+    static int execute(Connection connection, String sql, List<?> params) throws SQLException {
+        try (PreparedStatement statement = prepare(connection, sql, params)) {
+            return statement.executeUpdate();
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, List<?> params) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < params.size(); i++) {
+            statement.setObject(i + 1, params.get(i));
+        }
+        return statement;
+    }
+
+    private static List<String> columns(ResultSetMetaData metaData) throws SQLException {
+        List<String> columns = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.add(metaData.getColumnLabel(i).toLowerCase());
+        }
+        return columns;
+    }
+
+    private static String insertSql(String table, List<String> columns) {
+        StringJoiner names = new StringJoiner(", ", "(", ")");
+        StringJoiner values = new StringJoiner(", ", "(", ")");
+        columns.forEach(column -> {
+            names.add(column);
+            values.add("?");
+        });
+        return "insert into " + table + " " + names + " values " + values;
+    }
+
+    private static void bindRow(ResultSet rows, PreparedStatement insert, int columnCount) throws SQLException {
+        for (int i = 1; i <= columnCount; i++) {
+            insert.setObject(i, value(rows, i));
+        }
+    }
+
+    /**
+     * Read a column as a value another connection can bind: large objects belong to their connection.
+     */
+    private static Object value(ResultSet rows, int column) throws SQLException {
+        Object value = rows.getObject(column);
+        if (value instanceof Blob blob) {
+            return blob.getBytes(1, (int) blob.length());
+        }
+        if (value instanceof Clob clob) {
+            return clob.getSubString(1, (int) clob.length());
+        }
+        return value;
+    }
+}
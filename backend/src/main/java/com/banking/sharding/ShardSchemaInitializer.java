@@ -0,0 +1,135 @@
+package com.banking.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prepares the shards once the directory has its schema.
+ * <p>
+ * With Flyway, every shard is migrated with the directory (see {@code ShardingConfig}). Without it,
+ * when Hibernate creates the schema of an embedded H2 directory, the schema is scripted and
+ * replayed on the other shards, replacing what they held. Then the reference data of the directory
+ * is copied to every shard, and the id sequences of each shard are moved to a block of ids of its
+ * own, {@code shard << 48} onwards, so rows keep unique ids when a rebalance moves them between
+ * shards. Sequences that are already past the start of their block are left alone.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+    static final int ID_BLOCK_BITS = 48;
+
+    private static final Set<String> CREATED_SCHEMA = Set.of("create", "create-drop");
+    private static final List<String> REFERENCE_TABLES = List.of("account_types", "transaction_types");
+
+    @Autowired
+    private ShardRoutingDataSource dataSource;
+
+    @Value("${spring.flyway.enabled:true}")
+    private boolean flywayEnabled;
+
+    @Value("${spring.jpa.hibernate.ddl-auto:none}")
+    private String ddlAuto;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try (Connection directory = dataSource.shard(ShardRouter.DIRECTORY).getConnection()) {
+            boolean h2 = "H2".equals(directory.getMetaData().getDatabaseProductName());
+            List<String> schema = !flywayEnabled && h2 && CREATED_SCHEMA.contains(ddlAuto) ? script(directory) : null;
+            for (int shard = 1; shard < dataSource.shardCount(); shard++) {
+                try (Connection target = dataSource.shard(shard).getConnection()) {
+                    if (schema != null) {
+                        replay(target, schema);
+                    }
+                    for (String table : REFERENCE_TABLES) {
+                        ShardRows.copyMissing(directory, target, table, "1 = 1", List.of());
+                    }
+                    int moved = moveSequences(target, h2, (long) shard << ID_BLOCK_BITS);
+                    log.info("Prepared shard {}{}, {} id sequences moved to its block",
+                            shard, schema != null ? " with the directory schema" : "", moved);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not prepare the shards", e);
+        }
+    }
+
+    private static List<String> script(Connection directory) throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Statement statement = directory.createStatement();
+             ResultSet rows = statement.executeQuery("SCRIPT NODATA NOPASSWORDS NOSETTINGS")) {
+            while (rows.next()) {
+                String sql = rows.getString(1);
+                // The shard keeps its own users and their passwords.
+                if (!sql.startsWith("CREATE USER")) {
+                    script.add(sql);
+                }
+            }
+        }
+        return script;
+    }
+
+    private static void replay(Connection target, List<String> schema) throws SQLException {
+        try (Statement statement = target.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : schema) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static int moveSequences(Connection target, boolean h2, long blockStart) throws SQLException {
+        Map<String, Long> sequences = new LinkedHashMap<>();
+        if (h2) {
+            try (Statement statement = target.createStatement();
+                 ResultSet rows = statement.executeQuery("select sequence_name, base_value from information_schema.sequences "
+                         + "where sequence_schema = schema()")) {
+                while (rows.next()) {
+                    sequences.put(rows.getString(1), rows.getLong(2));
+                }
+            }
+        } else {
+            // Without native sequences, Hibernate keeps the next value in a one-row table per sequence.
+            try (ResultSet tables = target.getMetaData().getTables(target.getCatalog(), null, "%\\_seq", new String[]{"TABLE"})) {
+                while (tables.next()) {
+                    sequences.put(tables.getString("TABLE_NAME"), null);
+                }
+            }
+        }
+        int moved = 0;
+        for (Map.Entry<String, Long> sequence : sequences.entrySet()) {
+            if (h2) {
+                if (sequence.getValue() < blockStart) {
+                    try (Statement statement = target.createStatement()) {
+                        statement.execute("alter sequence " + sequence.getKey() + " restart with " + blockStart);
+                    }
+                    moved++;
+                }
+            } else {
+                try (PreparedStatement update = target.prepareStatement(
+                        "update " + sequence.getKey() + " set next_val = ? where next_val < ?")) {
+                    update.setLong(1, blockStart);
+                    update.setLong(2, blockStart);
+                    moved += update.executeUpdate();
+                }
+            }
+        }
+        return moved;
+    }
+}
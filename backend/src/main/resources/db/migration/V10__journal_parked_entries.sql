@@ -0,0 +1,21 @@
+-- Posting journal entries that failed to apply, set aside for an operator.
+CREATE TABLE journal_parked_entries (
+    id BIGINT NOT NULL,
+    journal_name VARCHAR(50) NOT NULL,
+    journal_sequence BIGINT NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    source_account_id BIGINT NOT NULL,
+    destination_account_id BIGINT NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    reference VARCHAR(50) NOT NULL,
+    description TEXT,
+    posted_at DATETIME(6) NOT NULL,
+    attempts INT NOT NULL,
+    last_error VARCHAR(500),
+    parked_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_journal_parked_entries_sequence UNIQUE (journal_name, journal_sequence)
+);
+
+CREATE TABLE journal_parked_entries_seq (next_val BIGINT);
+INSERT INTO journal_parked_entries_seq VALUES (1);
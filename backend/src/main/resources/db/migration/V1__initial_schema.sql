@@ -0,0 +1,128 @@
+-- Initial schema for the Online Banking Application (MySQL).
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    first_name VARCHAR(50) NOT NULL,
+    last_name VARCHAR(50) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    password VARCHAR(100) NOT NULL,
+    phone_number VARCHAR(20),
+    date_of_birth DATE,
+    address_line1 VARCHAR(100),
+    address_line2 VARCHAR(100),
+    city VARCHAR(50),
+    state VARCHAR(50),
+    postal_code VARCHAR(20),
+    country VARCHAR(50),
+    role VARCHAR(20) NOT NULL,
+    is_email_verified BIT NOT NULL,
+    is_phone_verified BIT NOT NULL,
+    is_two_factor_enabled BIT NOT NULL,
+    two_factor_secret VARCHAR(255),
+    last_login_date DATETIME(6),
+    failed_login_attempts INT,
+    account_locked BIT,
+    lock_time DATETIME(6),
+    password_reset_token VARCHAR(255),
+    password_reset_expires DATETIME(6),
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE account_types (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(50) NOT NULL,
+    description VARCHAR(255),
+    minimum_balance DECIMAL(19, 2) NOT NULL,
+    interest_rate DECIMAL(7, 4) NOT NULL,
+    monthly_fee DECIMAL(19, 2) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_account_types_name UNIQUE (name)
+);
+
+CREATE TABLE transaction_types (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(50) NOT NULL,
+    description VARCHAR(255),
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_transaction_types_name UNIQUE (name)
+);
+
+CREATE TABLE accounts (
+    id BIGINT NOT NULL,
+    account_number VARCHAR(20) NOT NULL,
+    user_id BIGINT NOT NULL,
+    account_type_id BIGINT NOT NULL,
+    balance DECIMAL(19, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    is_active BIT NOT NULL,
+    opened_date DATETIME(6) NOT NULL,
+    closed_date DATETIME(6),
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_accounts_account_number UNIQUE (account_number),
+    CONSTRAINT fk_accounts_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_accounts_account_type FOREIGN KEY (account_type_id) REFERENCES account_types (id)
+);
+
+CREATE TABLE transactions (
+    id BIGINT NOT NULL,
+    transaction_reference VARCHAR(50) NOT NULL,
+    account_id BIGINT NOT NULL,
+    transaction_type_id BIGINT NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    description VARCHAR(255),
+    status VARCHAR(20) NOT NULL,
+    source_account_id BIGINT,
+    destination_account_id BIGINT,
+    transaction_date DATETIME(6) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_transactions_reference UNIQUE (transaction_reference),
+    CONSTRAINT fk_transactions_account FOREIGN KEY (account_id) REFERENCES accounts (id),
+    CONSTRAINT fk_transactions_type FOREIGN KEY (transaction_type_id) REFERENCES transaction_types (id),
+    CONSTRAINT fk_transactions_source_account FOREIGN KEY (source_account_id) REFERENCES accounts (id),
+    CONSTRAINT fk_transactions_destination_account FOREIGN KEY (destination_account_id) REFERENCES accounts (id)
+);
+
+CREATE TABLE bills (
+    id BIGINT NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    category VARCHAR(50) NOT NULL,
+    account_number VARCHAR(50),
+    amount DECIMAL(19, 2) NOT NULL,
+    due_date DATE NOT NULL,
+    status VARCHAR(20),
+    icon VARCHAR(50),
+    user_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_bills_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE journal_checkpoints (
+    journal_name VARCHAR(50) NOT NULL,
+    last_applied_sequence BIGINT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (journal_name)
+);
+
+-- MySQL has no sequences; Hibernate emulates the pooled id sequences with single-row tables.
+CREATE TABLE accounts_seq (next_val BIGINT);
+INSERT INTO accounts_seq VALUES (1);
+
+CREATE TABLE transactions_seq (next_val BIGINT);
+INSERT INTO transactions_seq VALUES (1);
+
+CREATE TABLE bills_seq (next_val BIGINT);
+INSERT INTO bills_seq VALUES (1);
@@ -0,0 +1,2 @@
+-- Supports keyset pagination of an account's history by (transaction_date, id).
+CREATE INDEX idx_transactions_account_date_id ON transactions (account_id, transaction_date, id);
@@ -0,0 +1,20 @@
+-- Records whether a transaction credits or debits its account so balances can be derived from rows.
+ALTER TABLE transactions ADD COLUMN direction VARCHAR(10) NOT NULL DEFAULT 'CREDIT';
+
+UPDATE transactions
+SET direction = 'DEBIT'
+WHERE transaction_type_id IN (SELECT id FROM transaction_types WHERE name IN ('WITHDRAWAL', 'TRANSFER_OUT'));
+
+-- End-of-day balance of an account for each day it had activity.
+CREATE TABLE daily_balance_snapshots (
+    id BIGINT NOT NULL,
+    account_id BIGINT NOT NULL,
+    balance_date DATE NOT NULL,
+    closing_balance DECIMAL(19, 2) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_daily_balance_snapshots_account_date UNIQUE (account_id, balance_date)
+);
+
+CREATE TABLE daily_balance_snapshots_seq (next_val BIGINT);
+INSERT INTO daily_balance_snapshots_seq VALUES (1);
@@ -0,0 +1,41 @@
+-- Links a bill to the account it is paid from and records the outcome of its payment.
+ALTER TABLE bills ADD COLUMN payment_account_id BIGINT;
+ALTER TABLE bills ADD COLUMN paid_at DATETIME(6);
+ALTER TABLE bills ADD COLUMN payment_reference VARCHAR(50);
+ALTER TABLE bills ADD COLUMN payment_failure_reason VARCHAR(255);
+ALTER TABLE bills ADD CONSTRAINT fk_bills_payment_account FOREIGN KEY (payment_account_id) REFERENCES accounts (id);
+
+-- Serves the bill run's scan of due bills per status, oldest due date first.
+CREATE INDEX idx_bills_status_due_date ON bills (status, due_date, user_id);
+
+-- One bill run per date, split into partitions that record its progress.
+CREATE TABLE bill_runs (
+    id BIGINT NOT NULL,
+    run_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    partition_count INT NOT NULL,
+    started_at DATETIME(6) NOT NULL,
+    finished_at DATETIME(6),
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_bill_runs_run_date UNIQUE (run_date)
+);
+
+CREATE TABLE bill_run_partitions (
+    id BIGINT NOT NULL,
+    run_id BIGINT NOT NULL,
+    partition_no INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    paid_count BIGINT NOT NULL,
+    failed_count BIGINT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_bill_run_partitions_run_partition UNIQUE (run_id, partition_no),
+    CONSTRAINT fk_bill_run_partitions_run FOREIGN KEY (run_id) REFERENCES bill_runs (id)
+);
+
+CREATE TABLE bill_runs_seq (next_val BIGINT);
+INSERT INTO bill_runs_seq VALUES (1);
+
+CREATE TABLE bill_run_partitions_seq (next_val BIGINT);
+INSERT INTO bill_run_partitions_seq VALUES (1);
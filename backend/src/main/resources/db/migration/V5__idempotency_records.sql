@@ -0,0 +1,14 @@
+-- Responses of requests made with an Idempotency-Key, replayed to retries until they expire.
+CREATE TABLE idempotency_records (
+    record_key VARCHAR(150) NOT NULL,
+    request_fingerprint VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    response_status INT,
+    response_content_type VARCHAR(100),
+    response_body TEXT,
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (record_key)
+);
+
+CREATE INDEX idx_idempotency_records_expires_at ON idempotency_records (expires_at);
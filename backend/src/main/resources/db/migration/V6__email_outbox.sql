@@ -0,0 +1,21 @@
+-- Emails written with the change they are about and sent in the background.
+CREATE TABLE email_outbox (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    subject VARCHAR(200) NOT NULL,
+    body TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(500),
+    created_at DATETIME(6) NOT NULL,
+    sent_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_email_outbox_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+-- Serves the dispatcher's scan of pending emails that are due, oldest first.
+CREATE INDEX idx_email_outbox_status_next_attempt ON email_outbox (status, next_attempt_at);
+
+CREATE TABLE email_outbox_seq (next_val BIGINT);
+INSERT INTO email_outbox_seq VALUES (1);
@@ -0,0 +1,41 @@
+-- Months of aged transactions moved out of the transactions table.
+CREATE TABLE transaction_archive_segments (
+    id BIGINT NOT NULL,
+    period_start DATE NOT NULL,
+    period_end DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    entry_count BIGINT NOT NULL,
+    row_count BIGINT NOT NULL,
+    raw_bytes BIGINT NOT NULL,
+    compressed_bytes BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    sealed_at DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_transaction_archive_segments_period ON transaction_archive_segments (period_start);
+
+-- One compressed block of an account's transactions within a segment, indexed by its date range.
+CREATE TABLE transaction_archive_entries (
+    id BIGINT NOT NULL,
+    segment_id BIGINT NOT NULL,
+    account_id BIGINT NOT NULL,
+    first_date DATETIME(6) NOT NULL,
+    last_date DATETIME(6) NOT NULL,
+    row_count INT NOT NULL,
+    net_minor_units BIGINT NOT NULL,
+    data MEDIUMBLOB NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_transaction_archive_entries_segment FOREIGN KEY (segment_id) REFERENCES transaction_archive_segments (id),
+    CONSTRAINT fk_transaction_archive_entries_account FOREIGN KEY (account_id) REFERENCES accounts (id)
+);
+
+-- Serves the lookup of an account's blocks overlapping a date range.
+CREATE INDEX idx_transaction_archive_entries_account_dates ON transaction_archive_entries (account_id, last_date, first_date);
+CREATE INDEX idx_transaction_archive_entries_segment ON transaction_archive_entries (segment_id);
+
+CREATE TABLE transaction_archive_segments_seq (next_val BIGINT);
+INSERT INTO transaction_archive_segments_seq VALUES (1);
+
+CREATE TABLE transaction_archive_entries_seq (next_val BIGINT);
+INSERT INTO transaction_archive_entries_seq VALUES (1);
@@ -0,0 +1,40 @@
+-- Every shard holds the full schema; shard 0 is also the directory of the shard map.
+
+-- The other side of a transfer may live on another shard.
+ALTER TABLE transactions DROP FOREIGN KEY fk_transactions_source_account;
+ALTER TABLE transactions DROP FOREIGN KEY fk_transactions_destination_account;
+
+-- The shard of each range of user ids, read from the directory.
+CREATE TABLE shard_ranges (
+    first_user_id BIGINT NOT NULL,
+    shard_id INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (first_user_id)
+);
+
+-- Transfers between shards, recorded on the shard of the source account until they are credited.
+CREATE TABLE cross_shard_transfers (
+    id BIGINT NOT NULL,
+    reference VARCHAR(50) NOT NULL,
+    source_account_id BIGINT NOT NULL,
+    destination_account_id BIGINT NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    description VARCHAR(255),
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL,
+    last_error VARCHAR(500),
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_cross_shard_transfers_reference UNIQUE (reference)
+);
+
+-- Serves the recovery scan of transfers left debited, oldest first.
+CREATE INDEX idx_cross_shard_transfers_status_updated ON cross_shard_transfers (status, updated_at);
+-- Serves moving the transfers of an account to another shard.
+CREATE INDEX idx_cross_shard_transfers_source_account ON cross_shard_transfers (source_account_id);
+
+CREATE TABLE cross_shard_transfers_seq (next_val BIGINT);
+INSERT INTO cross_shard_transfers_seq VALUES (1);
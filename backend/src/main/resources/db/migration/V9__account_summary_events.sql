@@ -0,0 +1,14 @@
+-- Changes to the accounts of a user, read by the account summary caches of the other instances.
+CREATE TABLE account_summary_events (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    origin_node INT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Serves the polling of recent events and the purge of old ones.
+CREATE INDEX idx_account_summary_events_created ON account_summary_events (created_at);
+
+CREATE TABLE account_summary_events_seq (next_val BIGINT);
+INSERT INTO account_summary_events_seq VALUES (1);
@@ -0,0 +1,116 @@
+package com.banking;
+
+import com.banking.model.Account;
+import com.banking.model.AccountType;
+import com.banking.model.Money;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.UserRepository;
+import com.banking.security.JwtService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates users and accounts for tests. The Spring context, and with it the in-memory database, is
+ * shared between test classes, so every name it generates is unique.
+ */
+@Component
+public class TestData {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime() % 1_000_000);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private AccountType accountType;
+
+    /**
+     * Create a user with the {@link User.Role#USER} role.
+     *
+     * @return the saved user
+     */
+    public User user() {
+        return user(User.Role.USER);
+    }
+
+    /**
+     * Create a user.
+     *
+     * @param role the role of the user
+     * @return the saved user
+     */
+    public User user(User.Role role) {
+        long n = SEQUENCE.incrementAndGet();
+        return userRepository.save(User.builder()
+                .firstName("Test")
+                .lastName("User" + n)
+                .email("user" + n + "@example.com")
+                .password("{noop}unused")
+                .role(role)
+                .build());
+    }
+
+    /**
+     * Create an active USD account.
+     *
+     * @param owner the owner of the account
+     * @param balance the opening balance
+     * @return the saved account
+     */
+    public Account account(User owner, String balance) {
+        AccountType type = accountType();
+        return accountRepository.save(Account.builder()
+                .accountNumber("T" + SEQUENCE.incrementAndGet())
+                .user(owner)
+                .accountType(type)
+                .balance(Money.of(new BigDecimal(balance), "USD"))
+                .isActive(true)
+                .openedDate(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Issue a bearer token for a user.
+     *
+     * @param user the user
+     * @return the value of the {@code Authorization} header
+     */
+    public String bearer(User user) {
+        return "Bearer " + jwtService.issue(user);
+    }
+
+    private synchronized AccountType accountType() {
+        if (accountType == null) {
+            accountType = transactionTemplate.execute(status -> {
+                AccountType type = AccountType.builder()
+                        .name("CHECKING-" + SEQUENCE.incrementAndGet())
+                        .minimumBalance(BigDecimal.ZERO)
+                        .interestRate(BigDecimal.ZERO)
+                        .monthlyFee(BigDecimal.ZERO)
+                        .build();
+                entityManager.persist(type);
+                return type;
+            });
+        }
+        return accountType;
+    }
+}
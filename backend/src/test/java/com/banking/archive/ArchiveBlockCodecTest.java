@@ -0,0 +1,91 @@
+package com.banking.archive;
+
+import com.banking.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchiveBlockCodecTest {
+
+    private static final Long ACCOUNT_ID = 42L;
+
+    @Test
+    void readsBackWhatItEncodes() {
+        List<ArchivedTransaction> rows = List.of(
+                row(1L, "TX0000000000001", 150_00, Transaction.Direction.CREDIT, "Salary, October", 7L, 42L,
+                        LocalDateTime.of(2024, 10, 1, 9, 0, 0, 123_456_789)),
+                // Reversals and corrections can carry negative amounts; every optional column is null.
+                row(2L, "TX0000000000002-R", -25_50, Transaction.Direction.DEBIT, null, null, null,
+                        LocalDateTime.of(2024, 10, 1, 9, 0, 0, 123_456_789)),
+                row(3L, "TX0000000000003", Long.MAX_VALUE, Transaction.Direction.DEBIT, "Ünïcödé €", 42L, null,
+                        LocalDateTime.of(1999, 12, 31, 23, 59, 59)));
+
+        ArchiveBlockCodec.Encoded block = ArchiveBlockCodec.encode(rows);
+
+        assertThat(readAll(block.data(), ACCOUNT_ID)).containsExactlyElementsOf(rows);
+        assertThat(block.rawBytes()).isGreaterThan(0);
+    }
+
+    @Test
+    void takesTheAccountIdFromTheIndexEntry() {
+        ArchiveBlockCodec.Encoded block = ArchiveBlockCodec.encode(List.of(
+                row(1L, "TX0000000000001", 1_00, Transaction.Direction.CREDIT, null, null, null,
+                        LocalDateTime.of(2024, 1, 1, 0, 0))));
+
+        assertThat(readAll(block.data(), 7L)).singleElement()
+                .satisfies(row -> assertThat(row.accountId()).isEqualTo(7L));
+    }
+
+    @Test
+    void compressesRepetitiveRows() {
+        List<ArchivedTransaction> rows = new ArrayList<>();
+        for (long i = 0; i < 1_000; i++) {
+            rows.add(row(i, String.format("TX%013d", i), 9_99, Transaction.Direction.DEBIT, "Card payment", null, null,
+                    LocalDateTime.of(2024, 3, 1, 0, 0).plusMinutes(i)));
+        }
+
+        ArchiveBlockCodec.Encoded block = ArchiveBlockCodec.encode(rows);
+
+        assertThat((long) block.data().length).isLessThan(block.rawBytes() / 4);
+        assertThat(readAll(block.data(), ACCOUNT_ID)).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    void readsAnEmptyBlock() {
+        ArchiveBlockCodec.Reader reader = ArchiveBlockCodec.read(ArchiveBlockCodec.encode(List.of()).data(), ACCOUNT_ID);
+
+        assertThat(reader.hasNext()).isFalse();
+        assertThatThrownBy(reader::next).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void signsAmountsByDirection() {
+        LocalDateTime date = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        assertThat(row(1L, "TX1", 5_00, Transaction.Direction.CREDIT, null, null, null, date).signedMinorUnits())
+                .isEqualTo(5_00);
+        assertThat(row(2L, "TX2", 5_00, Transaction.Direction.DEBIT, null, null, null, date).signedMinorUnits())
+                .isEqualTo(-5_00);
+        assertThat(row(3L, "TX3", -5_00, Transaction.Direction.DEBIT, null, null, null, date).signedMinorUnits())
+                .isEqualTo(5_00);
+    }
+
+    private static ArchivedTransaction row(Long id, String reference, long amount, Transaction.Direction direction,
+                                           String description, Long sourceAccountId, Long destinationAccountId,
+                                           LocalDateTime date) {
+        return new ArchivedTransaction(id, reference, ACCOUNT_ID, "TRANSFER", amount, "USD", description,
+                Transaction.TransactionStatus.COMPLETED, direction, sourceAccountId, destinationAccountId, date);
+    }
+
+    private static List<ArchivedTransaction> readAll(byte[] data, Long accountId) {
+        List<ArchivedTransaction> rows = new ArrayList<>();
+        ArchiveBlockCodec.read(data, accountId).forEachRemaining(rows::add);
+        return rows;
+    }
+}
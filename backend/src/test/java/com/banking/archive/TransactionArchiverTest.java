@@ -0,0 +1,266 @@
+package com.banking.archive;
+
+import com.banking.TestData;
+import com.banking.dto.TransactionPage;
+import com.banking.dto.TransactionView;
+import com.banking.model.Account;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionArchiveSegment;
+import com.banking.repository.TransactionArchiveEntryRepository;
+import com.banking.repository.TransactionArchiveSegmentRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.service.BalanceSnapshotService;
+import com.banking.service.StatementExportService;
+import com.banking.service.TransactionFactory;
+import com.banking.service.TransactionHistoryService;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Archives an account with four transactions before the cutoff and three after it, one block per
+ * transaction, and reads it back across both tiers.
+ */
+@SpringBootTest(properties = "app.archive.max-rows-per-entry=1")
+@ActiveProfiles("test")
+class TransactionArchiverTest {
+
+    private static final LocalDate CUTOFF = LocalDate.of(2025, 1, 1);
+
+    @Autowired
+    private TransactionArchiver archiver;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private TransactionHistoryService historyService;
+
+    @Autowired
+    private StatementExportService statementExportService;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private TransactionFactory transactionFactory;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchiveEntryRepository entryRepository;
+
+    @Autowired
+    private TransactionArchiveSegmentRepository segmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private Account account;
+
+    /**
+     * The transactions of the account, oldest first.
+     */
+    private List<Transaction> rows;
+
+    @BeforeEach
+    void createHistory() {
+        account = testData.account(testData.user(), "161.00");
+        rows = new ArrayList<>();
+        post(Transaction.Direction.CREDIT, "100.00", "Salary", LocalDateTime.of(2024, 10, 5, 10, 0));
+        post(Transaction.Direction.DEBIT, "20.00", null, LocalDateTime.of(2024, 10, 5, 10, 0));
+        post(Transaction.Direction.CREDIT, "30.00", "Refund, partial", LocalDateTime.of(2024, 11, 15, 9, 30));
+        post(Transaction.Direction.DEBIT, "5.00", "Fee", LocalDateTime.of(2024, 12, 31, 23, 59, 59));
+        post(Transaction.Direction.CREDIT, "50.00", null, LocalDateTime.of(2025, 1, 1, 0, 0));
+        post(Transaction.Direction.DEBIT, "1.00", null, LocalDateTime.of(2025, 1, 1, 0, 0));
+        post(Transaction.Direction.CREDIT, "7.00", "Interest", LocalDateTime.of(2025, 2, 10, 12, 0));
+    }
+
+    @Test
+    void movesTheTransactionsBeforeTheCutoffIntoTheArchive() {
+        archiver.archive(CUTOFF.plusDays(14));
+
+        assertThat(hotRowCount()).isEqualTo(3);
+        List<ArchiveIndexEntry> index = entryRepository.findIndex(account.getId(), null, null);
+        assertThat(index).extracting(ArchiveIndexEntry::rowCount).containsExactly(1, 1, 1, 1);
+        assertThat(index).extracting(ArchiveIndexEntry::netMinorUnits).containsExactly(100_00L, -20_00L, 30_00L, -5_00L);
+        assertThat(index).extracting(ArchiveIndexEntry::firstDate)
+                .allMatch(date -> date.isBefore(CUTOFF.atStartOfDay()));
+    }
+
+    @Test
+    void pagesThroughTheHistoryAcrossBothTiers() {
+        archiver.archive(CUTOFF);
+
+        // Two rows per page, so the second page holds the newest archived row and the oldest hot one.
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPage page = historyService.getHistory(account.getId(), cursor, 2, null, null, null, null);
+            page.items().forEach(item -> ids.add(item.id()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(ids).containsExactlyElementsOf(newestFirst());
+        assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void filtersArchivedRowsLikeHotOnes() {
+        archiver.archive(CUTOFF);
+
+        TransactionPage page = historyService.getHistory(account.getId(), null, 10,
+                LocalDateTime.of(2024, 11, 1, 0, 0), LocalDateTime.of(2025, 1, 1, 0, 0, 1), null, null);
+
+        assertThat(page.items()).extracting(TransactionView::id)
+                .containsExactly(rows.get(5).getId(), rows.get(4).getId(), rows.get(3).getId(), rows.get(2).getId());
+        assertThat(page.items().get(3).description()).isEqualTo("Refund, partial");
+        assertThat(page.items().get(3).amount()).isEqualTo(Money.of(new BigDecimal("30.00"), "USD"));
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void exportsAStatementOverTheTierBoundaryInOrder() throws Exception {
+        archiver.archive(CUTOFF);
+
+        List<String> lines = export(LocalDateTime.of(2024, 11, 1, 0, 0), LocalDateTime.of(2025, 2, 1, 0, 0));
+
+        assertThat(lines).hasSize(5);
+        assertThat(lines.subList(1, lines.size())).extracting(line -> line.split(",")[1]).containsExactly(
+                rows.get(2).getTransactionReference(), rows.get(3).getTransactionReference(),
+                rows.get(4).getTransactionReference(), rows.get(5).getTransactionReference());
+        assertThat(lines.get(1)).contains("\"Refund, partial\"");
+        assertThat(export(null, null)).hasSize(8);
+    }
+
+    @Test
+    void sumsAndBalancesIncludeArchivedTransactions() {
+        archiver.archive(CUTOFF);
+
+        assertThat(transactionArchive.sumSignedAmount(account.getId(), null, null)).isEqualByComparingTo("105.00");
+        // The December block ends on the exclusive upper bound, so it is read rather than taken from the index.
+        assertThat(transactionArchive.sumSignedAmount(account.getId(), LocalDateTime.of(2024, 10, 5, 10, 0),
+                LocalDateTime.of(2024, 12, 31, 23, 59, 59))).isEqualByComparingTo("110.00");
+        assertThat(transactionArchive.sumSignedAmountByDay(account.getId()))
+                .containsEntry(LocalDate.of(2024, 10, 5), new BigDecimal("80.00"))
+                .hasSize(3);
+        assertBalancesAsOf();
+
+        // The same balances from snapshots rebuilt over both tiers.
+        assertThat(balanceSnapshotService.backfill(account.getId())).isEqualTo(5);
+        assertBalancesAsOf();
+    }
+
+    @Test
+    void aRerunArchivesNothingTwice() {
+        archiver.archive(CUTOFF);
+        List<ArchiveIndexEntry> index = entryRepository.findIndex(account.getId(), null, null);
+
+        archiver.archive(CUTOFF);
+
+        assertThat(entryRepository.findIndex(account.getId(), null, null)).isEqualTo(index);
+        assertThat(hotRowCount()).isEqualTo(3);
+        assertThat(allHistoryIds()).containsExactlyElementsOf(newestFirst());
+    }
+
+    @Test
+    void aRunThatFailsBeforeDeletingTheRowsLeavesThemHotAndTheNextRunMovesThem() {
+        jdbcTemplate.execute("create trigger fail_transaction_deletes before delete on transactions for each row call '"
+                + FailingDelete.class.getName() + "'");
+        try {
+            assertThatThrownBy(() -> archiver.archive(CUTOFF)).isInstanceOf(RuntimeException.class);
+        } finally {
+            jdbcTemplate.execute("drop trigger fail_transaction_deletes");
+        }
+        assertThat(entryRepository.findIndex(account.getId(), null, null)).isEmpty();
+        assertThat(hotRowCount()).isEqualTo(7);
+        assertThat(segmentRepository.findByStatus(TransactionArchiveSegment.Status.BUILDING)).isNotEmpty();
+
+        archiver.archive(CUTOFF);
+
+        assertThat(entryRepository.findIndex(account.getId(), null, null)).hasSize(4);
+        assertThat(hotRowCount()).isEqualTo(3);
+        assertThat(allHistoryIds()).containsExactlyElementsOf(newestFirst());
+        assertThat(segmentRepository.findByStatus(TransactionArchiveSegment.Status.BUILDING)).isEmpty();
+    }
+
+    private void assertBalancesAsOf() {
+        assertThat(balanceAt(LocalDateTime.of(2024, 10, 5, 10, 0))).isEqualByComparingTo("0.00");
+        assertThat(balanceAt(LocalDateTime.of(2024, 10, 5, 10, 0, 1))).isEqualByComparingTo("80.00");
+        assertThat(balanceAt(LocalDateTime.of(2024, 12, 1, 0, 0))).isEqualByComparingTo("110.00");
+        assertThat(balanceAt(LocalDateTime.of(2024, 12, 31, 23, 59, 59))).isEqualByComparingTo("110.00");
+        assertThat(balanceAt(LocalDateTime.of(2025, 1, 1, 0, 0))).isEqualByComparingTo("105.00");
+        assertThat(balanceAt(LocalDateTime.of(2025, 1, 1, 0, 0, 1))).isEqualByComparingTo("154.00");
+        assertThat(balanceAt(LocalDateTime.of(2025, 3, 1, 0, 0))).isEqualByComparingTo("161.00");
+    }
+
+    private BigDecimal balanceAt(LocalDateTime at) {
+        return balanceSnapshotService.balanceAt(account.getId(), at).balance().toBigDecimal();
+    }
+
+    private void post(Transaction.Direction direction, String amount, String description, LocalDateTime date) {
+        rows.add(transactionRepository.save(transactionFactory.build(account, "TRANSFER", direction,
+                Money.of(new BigDecimal(amount), "USD"), description, transactionFactory.newReference(), date)));
+    }
+
+    private List<Long> newestFirst() {
+        List<Long> ids = new ArrayList<>(rows.stream().map(Transaction::getId).toList());
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private List<Long> allHistoryIds() {
+        return historyService.getHistory(account.getId(), null, 100, null, null, null, null).items().stream()
+                .map(TransactionView::id)
+                .toList();
+    }
+
+    private int hotRowCount() {
+        return jdbcTemplate.queryForObject("select count(*) from transactions where account_id = ?", Integer.class,
+                account.getId());
+    }
+
+    private List<String> export(LocalDateTime from, LocalDateTime to) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        statementExportService.export(account.getId(), from, to, StatementExportService.Format.CSV).writeTo(out);
+        return Arrays.asList(out.toString(StandardCharsets.UTF_8).split("\n"));
+    }
+
+    /**
+     * Stands in for a crash after the archive entries of a chunk were written but before its rows
+     * were deleted.
+     */
+    public static class FailingDelete implements Trigger {
+
+        @Override
+        public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+            throw new SQLException("Simulated failure while deleting archived transactions");
+        }
+    }
+}
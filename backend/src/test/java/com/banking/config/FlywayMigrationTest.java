@@ -0,0 +1,37 @@
+package com.banking.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Applies the Flyway migrations to H2 in MySQL mode and validates the entities against the result,
+ * as the {@code prod} profile does against MySQL.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:flyway-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@ActiveProfiles("test")
+class FlywayMigrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The context only starts if Hibernate finds every table and column of the entities in the migrated schema.
+     */
+    @Test
+    void migrationsCreateTheSchemaTheEntitiesExpect() {
+        assertThat(jdbcTemplate.queryForObject("select count(*) from flyway_schema_history where type = 'SQL'",
+                Integer.class)).isPositive();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from flyway_schema_history where not success",
+                Integer.class)).isZero();
+    }
+}
@@ -0,0 +1,123 @@
+package com.banking.controller;
+
+import com.banking.model.User;
+import com.banking.repository.UserRepository;
+import com.banking.security.PasswordHashingExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void hashesThePasswordOfAnUnknownEmail() throws Exception {
+        double hashedBefore = hashed();
+
+        MvcResult result = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"nobody@example.com\",\"password\":\"guess\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isUnauthorized());
+
+        // The pool counts a task as completed just after the task has answered the request.
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (hashed() == hashedBefore && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(hashed()).isEqualTo(hashedBefore + 1);
+    }
+
+    @Test
+    void registersAUserOnce() throws Exception {
+        String email = "register" + System.nanoTime() + "@example.com";
+
+        mockMvc.perform(asyncDispatch(register(email))).andExpect(status().isOk());
+        mockMvc.perform(asyncDispatch(register(email))).andExpect(status().isConflict());
+
+        assertThat(userRepository.findByEmail(email)).isPresent();
+    }
+
+    @Test
+    void answersARegistrationThatLosesARaceForTheEmailWithConflict() throws Exception {
+        String email = "race" + System.nanoTime() + "@example.com";
+        ThreadPoolExecutor hashingPool = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordHashingExecutor, "executor");
+        int threads = hashingPool.getCorePoolSize();
+        CountDownLatch busy = new CountDownLatch(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        MvcResult result;
+        try {
+            for (int i = 0; i < threads; i++) {
+                hashingPool.execute(() -> {
+                    busy.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            assertThat(busy.await(10, TimeUnit.SECONDS)).isTrue();
+            // The email is still free when the request checks it, and taken before its hash is ready.
+            result = register(email);
+            userRepository.save(User.builder()
+                    .firstName("First")
+                    .lastName("Registrant")
+                    .email(email)
+                    .password("{noop}unused")
+                    .role(User.Role.USER)
+                    .build());
+        } finally {
+            release.countDown();
+        }
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isConflict());
+        assertThat(userRepository.findByEmail(email)).get().extracting(User::getLastName).isEqualTo("Registrant");
+    }
+
+    private MvcResult register(String email) throws Exception {
+        return mockMvc.perform(post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"New\",\"lastName\":\"User\",\"email\":\"" + email
+                                + "\",\"password\":\"correct horse\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private double hashed() {
+        return meterRegistry.get("executor.completed").tag("name", PasswordHashingExecutor.EXECUTOR_NAME)
+                .functionCounter().count();
+    }
+}
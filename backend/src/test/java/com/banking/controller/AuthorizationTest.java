@@ -0,0 +1,76 @@
+package com.banking.controller;
+
+import com.banking.TestData;
+import com.banking.model.Account;
+import com.banking.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Operator actions are for administrators, and account reads for the owner of the account.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthorizationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void operatorActionsRequireAdmin() throws Exception {
+        User customer = testData.user();
+        for (MockHttpServletRequestBuilder request : new MockHttpServletRequestBuilder[]{
+                post("/bills/runs"),
+                post("/transactions/archive-runs"),
+                post("/accounts/snapshots/backfill"),
+                post("/transactions/batch").contentType(MediaType.APPLICATION_JSON).content("[]"),
+                post("/transactions/batch/stream").contentType("application/x-ndjson").content(""),
+                delete("/actuator/referencedata"),
+                delete("/actuator/accountsummaries")}) {
+            mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, testData.bearer(customer)))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Test
+    void adminRunsOperatorActions() throws Exception {
+        User admin = testData.user(User.Role.ADMIN);
+        mockMvc.perform(post("/accounts/snapshots/backfill").header(HttpHeaders.AUTHORIZATION, testData.bearer(admin)))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/actuator/accountsummaries").header(HttpHeaders.AUTHORIZATION, testData.bearer(admin)))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void accountReadsAreLimitedToTheOwner() throws Exception {
+        User owner = testData.user();
+        Account account = testData.account(owner, "10.00");
+        User other = testData.user();
+        String[] paths = {
+                "/accounts/" + account.getId() + "/balance?at=2030-01-01T00:00:00",
+                "/accounts/" + account.getId() + "/statement",
+                "/transactions?accountId=" + account.getId()};
+        for (String path : paths) {
+            mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, testData.bearer(other)))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, testData.bearer(owner)))
+                    .andExpect(status().isOk());
+        }
+    }
+}
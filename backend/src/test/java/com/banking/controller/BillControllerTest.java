@@ -0,0 +1,251 @@
+package com.banking.controller;
+
+import com.banking.TestData;
+import com.banking.model.Account;
+import com.banking.model.Bill;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.BillRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bills can only be paid, changed or deleted by their owner, from the owner's accounts, and their
+ * status only changes through payments. The summary totals a user's bills and lists the unpaid
+ * ones due from today up to and including the last day of the window.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BillControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void ownerPaysBillFromOwnAccount() throws Exception {
+        User owner = testData.user();
+        Account account = testData.account(owner, "100.00");
+        long billId = createBill(owner, account.getId());
+
+        mockMvc.perform(as(owner, post("/bills/" + billId + "/pay"))).andExpect(status().isOk());
+
+        assertThat(billRepository.findById(billId).orElseThrow().getStatus()).isEqualTo(Bill.STATUS_PAID);
+        assertThat(balanceOf(account)).isEqualTo(60_00);
+    }
+
+    @Test
+    void otherUsersCannotPayChangeOrDeleteBill() throws Exception {
+        User owner = testData.user();
+        Account account = testData.account(owner, "100.00");
+        long billId = createBill(owner, account.getId());
+        User other = testData.user();
+
+        mockMvc.perform(as(other, post("/bills/" + billId + "/pay"))).andExpect(status().isNotFound());
+        mockMvc.perform(as(other, put("/bills/" + billId)).contentType(MediaType.APPLICATION_JSON)
+                        .content(billJson(null, null)))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(as(other, delete("/bills/" + billId))).andExpect(status().isNotFound());
+
+        assertThat(billRepository.findById(billId).orElseThrow().getStatus()).isEqualTo(Bill.STATUS_PENDING);
+        assertThat(balanceOf(account)).isEqualTo(100_00);
+    }
+
+    @Test
+    void billCannotBePaidFromAnotherUsersAccount() throws Exception {
+        User owner = testData.user();
+        long billId = createBill(owner, null);
+        Account victimAccount = testData.account(testData.user(), "100.00");
+
+        mockMvc.perform(as(owner, post("/bills")).contentType(MediaType.APPLICATION_JSON)
+                        .content(billJson(victimAccount.getId(), null)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(as(owner, put("/bills/" + billId)).contentType(MediaType.APPLICATION_JSON)
+                        .content(billJson(victimAccount.getId(), null)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(as(owner, post("/bills/" + billId + "/pay")).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accountId\":" + victimAccount.getId() + "}"))
+                .andExpect(status().isNotFound());
+
+        assertThat(balanceOf(victimAccount)).isEqualTo(100_00);
+    }
+
+    @Test
+    void statusCannotBeSetByClient() throws Exception {
+        User owner = testData.user();
+        long billId = createBill(owner, null);
+
+        mockMvc.perform(as(owner, put("/bills/" + billId)).contentType(MediaType.APPLICATION_JSON)
+                        .content(billJson(null, Bill.STATUS_PAID)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(as(owner, post("/bills")).contentType(MediaType.APPLICATION_JSON)
+                        .content(billJson(null, Bill.STATUS_PAID)))
+                .andExpect(status().isBadRequest());
+
+        assertThat(billRepository.findById(billId).orElseThrow().getStatus()).isEqualTo(Bill.STATUS_PENDING);
+    }
+
+    @Test
+    void summarizesTheBillsOfTheUser() throws Exception {
+        User owner = testData.user();
+        Account account = testData.account(owner, "100.00");
+        LocalDate today = LocalDate.now();
+        createBill(owner, "Electricity", "Utilities", "40.00", today.plusDays(1), null);
+        long water = createBill(owner, "Water", "Utilities", "25.50", today.plusDays(3), account.getId());
+        createBill(owner, "Rent", "Housing", "500.00", today.plusDays(7), null);
+        createBill(owner, "Gym", "Leisure", "30.00", today.plusDays(8), null);
+        createBill(owner, "Phone", "Utilities", "15.00", today.minusDays(2), null);
+        mockMvc.perform(as(owner, post("/bills/" + water + "/pay"))).andExpect(status().isOk());
+        createBill(testData.user(), "Not mine", "Utilities", "99.00", today.plusDays(1), null);
+
+        mockMvc.perform(as(owner, get("/bills/summary")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.asOf").value(today.toString()))
+                .andExpect(jsonPath("$.count").value(5))
+                .andExpect(jsonPath("$.amount").value(610.50))
+                .andExpect(jsonPath("$.byCategory[*].name").value(contains("Housing", "Utilities", "Leisure")))
+                .andExpect(jsonPath("$.byCategory[1].count").value(3))
+                .andExpect(jsonPath("$.byCategory[1].amount").value(80.50))
+                .andExpect(jsonPath("$.byStatus[*].name").value(contains(Bill.STATUS_PENDING, Bill.STATUS_PAID)))
+                .andExpect(jsonPath("$.byStatus[0].count").value(4))
+                .andExpect(jsonPath("$.byStatus[0].amount").value(585.00))
+                .andExpect(jsonPath("$.byStatus[1].amount").value(25.50));
+    }
+
+    @Test
+    void summaryListsTheUnpaidBillsDueInTheUpcomingWindow() throws Exception {
+        User owner = testData.user();
+        Account account = testData.account(owner, "100.00");
+        LocalDate today = LocalDate.now();
+        long dueToday = createBill(owner, "Electricity", "Utilities", "40.00", today, null);
+        long water = createBill(owner, "Water", "Utilities", "25.50", today.plusDays(3), account.getId());
+        long rent = createBill(owner, "Rent", "Housing", "500.00", today.plusDays(7), null);
+        long gym = createBill(owner, "Gym", "Leisure", "30.00", today.plusDays(8), null);
+        createBill(owner, "Phone", "Utilities", "15.00", today.minusDays(1), null);
+        mockMvc.perform(as(owner, post("/bills/" + water + "/pay"))).andExpect(status().isOk());
+
+        mockMvc.perform(as(owner, get("/bills/summary")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upcomingDays").value(7))
+                .andExpect(jsonPath("$.upcomingCount").value(2))
+                .andExpect(jsonPath("$.upcomingAmount").value(540.00))
+                .andExpect(jsonPath("$.upcoming[*].id").value(contains((int) dueToday, (int) rent)))
+                .andExpect(jsonPath("$.upcoming[0].dueDate").value(today.toString()));
+        mockMvc.perform(as(owner, get("/bills/summary").param("days", "8")))
+                .andExpect(jsonPath("$.upcomingCount").value(3))
+                .andExpect(jsonPath("$.upcoming[*].id").value(contains((int) dueToday, (int) rent, (int) gym)));
+        mockMvc.perform(as(owner, get("/bills/summary").param("days", "0")))
+                .andExpect(jsonPath("$.upcomingCount").value(1))
+                .andExpect(jsonPath("$.upcoming[*].id").value(contains((int) dueToday)));
+        mockMvc.perform(as(owner, get("/bills/summary").param("days", "-1"))).andExpect(status().isBadRequest());
+        mockMvc.perform(as(owner, get("/bills/summary").param("days", "367"))).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void summaryIsNotSentAgainWhileTheBillsAreUnchanged() throws Exception {
+        User owner = testData.user();
+        long billId = createBill(owner, null);
+
+        MvcResult first = mockMvc.perform(as(owner, get("/bills/summary")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"").endsWith("\"");
+
+        mockMvc.perform(as(owner, get("/bills/summary")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        // Another window and any change to the bills make a new summary.
+        mockMvc.perform(as(owner, get("/bills/summary").param("days", "30")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(as(owner, put("/bills/" + billId)).contentType(MediaType.APPLICATION_JSON)
+                        .content(billJson("Electricity", "Utilities", "45.00", LocalDate.now().plusDays(5), null)))
+                .andExpect(status().isOk());
+        String changed = mockMvc.perform(as(owner, get("/bills/summary")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(45.00))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+        createBill(owner, null);
+        mockMvc.perform(as(owner, get("/bills/summary")).header(HttpHeaders.IF_NONE_MATCH, changed))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2));
+    }
+
+    private long createBill(User owner, Long paymentAccountId) throws Exception {
+        String response = mockMvc.perform(as(owner, post("/bills")).contentType(MediaType.APPLICATION_JSON)
+                        .content(billJson(paymentAccountId, null)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode bill = objectMapper.readTree(response);
+        return bill.get("id").asLong();
+    }
+
+    private long createBill(User owner, String name, String category, String amount, LocalDate dueDate,
+                            Long paymentAccountId) throws Exception {
+        String response = mockMvc.perform(as(owner, post("/bills")).contentType(MediaType.APPLICATION_JSON)
+                        .content(billJson(name, category, amount, dueDate, paymentAccountId)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    private String billJson(String name, String category, String amount, LocalDate dueDate, Long paymentAccountId) {
+        return "{\"name\":\"" + name + "\",\"category\":\"" + category + "\",\"amount\":" + amount
+                + ",\"dueDate\":\"" + dueDate + "\""
+                + (paymentAccountId != null ? ",\"paymentAccountId\":" + paymentAccountId : "") + "}";
+    }
+
+    private String billJson(Long paymentAccountId, String status) {
+        return "{\"name\":\"Electricity\",\"category\":\"Utilities\",\"amount\":40.00,\"dueDate\":\""
+                + LocalDate.now().plusDays(5) + "\""
+                + (paymentAccountId != null ? ",\"paymentAccountId\":" + paymentAccountId : "")
+                + (status != null ? ",\"status\":\"" + status + "\"" : "") + "}";
+    }
+
+    private MockHttpServletRequestBuilder as(User user, MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, testData.bearer(user));
+    }
+
+    private long balanceOf(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance().minorUnits();
+    }
+}
@@ -0,0 +1,71 @@
+package com.banking.controller;
+
+import com.banking.TestData;
+import com.banking.model.Account;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TransferControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void transfersFromOwnAccount() throws Exception {
+        User owner = testData.user();
+        Account source = testData.account(owner, "100.00");
+        Account destination = testData.account(testData.user(), "0.00");
+
+        mockMvc.perform(transfer(owner, source, destination)).andExpect(status().isCreated());
+
+        assertThat(balanceOf(source)).isEqualTo(75_00);
+        assertThat(balanceOf(destination)).isEqualTo(25_00);
+    }
+
+    @Test
+    void refusesToDebitAnotherUsersAccount() throws Exception {
+        User victim = testData.user();
+        Account source = testData.account(victim, "100.00");
+        User attacker = testData.user();
+        Account destination = testData.account(attacker, "0.00");
+
+        mockMvc.perform(transfer(attacker, source, destination)).andExpect(status().isNotFound());
+
+        assertThat(balanceOf(source)).isEqualTo(100_00);
+        assertThat(balanceOf(destination)).isZero();
+    }
+
+    private RequestBuilder transfer(User caller, Account source, Account destination) {
+        return post("/transfers")
+                .header(HttpHeaders.AUTHORIZATION, testData.bearer(caller))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"sourceAccountId\":" + source.getId()
+                        + ",\"destinationAccountId\":" + destination.getId() + ",\"amount\":25.00}");
+    }
+
+    private long balanceOf(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance().minorUnits();
+    }
+}
@@ -0,0 +1,178 @@
+package com.banking.datasource;
+
+import com.banking.TestData;
+import com.banking.model.User;
+import com.banking.security.AuthenticatedUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes between a primary and one replica, each its own in-memory H2 database. The replica is
+ * only brought up to date when a test copies the primary into it, so a read shows which database
+ * served it. The replica URL only opens an existing database, so shutting the replica down makes
+ * it unreachable until the test creates it again.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replicas.enabled=true",
+        "app.datasource.replicas.embedded-sync-interval-ms=3600000",
+        "app.datasource.replicas.health-check-interval-ms=3600000",
+        "app.datasource.replicas.read-your-writes-window=PT1S"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingIntegrationTest {
+
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica-routing-test;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private EmbeddedReplicaSync replicaSync;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestData testData;
+
+    @DynamicPropertySource
+    static void replica(DynamicPropertyRegistry registry) throws SQLException {
+        createReplica();
+        registry.add("app.datasource.replicas.urls", () -> REPLICA_URL + ";IFEXISTS=TRUE");
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsRunOnTheReplicaAndReadWriteOnesOnThePrimary() {
+        double replicaReads = routed("replica-0", "read-only");
+        double primaryWrites = routed("primary", "read-write");
+        User user = testData.user();
+
+        assertThat(readOnly(() -> firstName(user))).as("not on the replica yet").isEmpty();
+        assertThat(readWrite(() -> firstName(user))).containsExactly("Test");
+        // Scheduled jobs read too, so the counters only have lower bounds.
+        assertThat(routed("replica-0", "read-only")).isGreaterThanOrEqualTo(replicaReads + 1);
+        assertThat(routed("primary", "read-write")).isGreaterThanOrEqualTo(primaryWrites + 2);
+
+        replicaSync.sync();
+
+        assertThat(readOnly(() -> firstName(user))).containsExactly("Test");
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileTheReplicaIsDownAndReturnOnceItIsHealthy() throws Exception {
+        User user = testData.user();
+        try {
+            shutdownReplica();
+            replicaRoutingDataSource.checkReplicas();
+            assertThat(replicaUp()).isZero();
+
+            double fallbacks = routed("primary", "fallback");
+            assertThat(readOnly(() -> firstName(user))).containsExactly("Test");
+            assertThat(routed("primary", "fallback")).isGreaterThanOrEqualTo(fallbacks + 1);
+        } finally {
+            createReplica();
+            replicaSync.sync();
+        }
+        assertThat(readOnly(() -> firstName(user))).as("still out of rotation until checked").containsExactly("Test");
+
+        // Let the pool validate the connections the shutdown closed before handing them out again.
+        Thread.sleep(600);
+        replicaRoutingDataSource.checkReplicas();
+
+        assertThat(replicaUp()).isEqualTo(1);
+        User later = testData.user();
+        assertThat(readOnly(() -> firstName(later))).as("back on the replica").isEmpty();
+    }
+
+    @Test
+    void aUsersReadsStayOnThePrimaryWithinTheReadYourWritesWindow() throws Exception {
+        User writer = testData.user();
+        User other = testData.user();
+        replicaSync.sync();
+
+        authenticate(writer);
+        readWrite(() -> jdbcTemplate.update("update users set first_name = ? where id = ?", "Changed", writer.getId()));
+        double readYourWrites = routed("primary", "read-your-writes");
+
+        assertThat(readOnly(() -> firstName(writer))).containsExactly("Changed");
+        assertThat(routed("primary", "read-your-writes")).isEqualTo(readYourWrites + 1);
+
+        authenticate(other);
+        assertThat(readOnly(() -> firstName(writer))).as("other users read the replica").containsExactly("Test");
+
+        authenticate(writer);
+        Thread.sleep(1_100);
+        assertThat(readOnly(() -> firstName(writer))).as("after the window").containsExactly("Test");
+    }
+
+    private List<String> firstName(User user) {
+        return jdbcTemplate.queryForList("select first_name from users where id = ?", String.class, user.getId());
+    }
+
+    private <T> T readOnly(Supplier<T> work) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template.execute(status -> work.get());
+    }
+
+    private <T> T readWrite(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+
+    private static void authenticate(User user) {
+        AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    private double routed(String target, String reason) {
+        return meterRegistry.get("datasource.connections.routed").tag("target", target).tag("reason", reason)
+                .counter().count();
+    }
+
+    private double replicaUp() {
+        return meterRegistry.get("datasource.replica.up").tag("replica", "replica-0").gauge().value();
+    }
+
+    private static void createReplica() throws SQLException {
+        DriverManager.getConnection(REPLICA_URL, "sa", "password").close();
+    }
+
+    private static void shutdownReplica() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL + ";IFEXISTS=TRUE", "sa", "password");
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+}
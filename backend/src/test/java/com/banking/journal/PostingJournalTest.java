@@ -0,0 +1,103 @@
+package com.banking.journal;
+
+import com.banking.TestData;
+import com.banking.model.Account;
+import com.banking.model.ParkedJournalEntry;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.ParkedJournalEntryRepository;
+import com.banking.service.PostingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the application in journal mode, where postings are acknowledged from the journal and
+ * applied to the database in the background.
+ */
+@SpringBootTest(properties = {
+        "app.journal.enabled=true",
+        "app.journal.name=journal-test",
+        "app.journal.directory=target/journal-test-${random.uuid}",
+        "app.journal.segment-size-bytes=1048576",
+        "app.journal.apply-interval-ms=10",
+        "app.journal.max-apply-attempts=3",
+        "app.journal.account-refresh-interval=PT0S"
+})
+@ActiveProfiles("test")
+class PostingJournalTest {
+
+    @Autowired
+    private PostingService postingService;
+
+    @Autowired
+    private PostingJournal postingJournal;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ParkedJournalEntryRepository parkedEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void parksAnEntryThatCannotBeAppliedAndAppliesThePostingsBehindIt() throws Exception {
+        Account account = testData.account(testData.user(), "100.00");
+        double parked = meterRegistry.get("posting.journal.parked").counter().count();
+
+        // Acknowledged from the journal, but the description does not fit the transactions table.
+        postingService.deposit(account.getId(), new BigDecimal("10.00"), "x".repeat(300));
+        postingService.deposit(account.getId(), new BigDecimal("5.00"), "Behind the poison entry");
+        awaitApplied();
+
+        List<ParkedJournalEntry> entries = parkedEntryRepository.findByJournalNameOrderByJournalSequence("journal-test");
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).getKind()).isEqualTo("DEPOSIT");
+        assertThat(entries.get(0).getDestinationAccountId()).isEqualTo(account.getId());
+        assertThat(entries.get(0).getAttempts()).isEqualTo(3);
+        assertThat(meterRegistry.get("posting.journal.parked").counter().count()).isEqualTo(parked + 1);
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getBalance().minorUnits())
+                .isEqualTo(105_00);
+        // The in-memory balance no longer counts the parked deposit either.
+        assertThat(postingService.withdraw(account.getId(), new BigDecimal("105.00"), null).balance().minorUnits())
+                .isZero();
+    }
+
+    @Test
+    void refusesPostingsToAnAccountClosedOutsideTheJournal() throws Exception {
+        Account account = testData.account(testData.user(), "100.00");
+        postingService.deposit(account.getId(), new BigDecimal("1.00"), null);
+        awaitApplied();
+
+        jdbcTemplate.update("update accounts set is_active = false where id = ?", account.getId());
+
+        assertThatThrownBy(() -> postingService.deposit(account.getId(), new BigDecimal("1.00"), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not active");
+    }
+
+    private void awaitApplied() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (postingJournal.getAppliedSequence() < postingJournal.getLastSequence()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(postingJournal.getAppliedSequence()).isEqualTo(postingJournal.getLastSequence());
+    }
+}
@@ -0,0 +1,65 @@
+package com.banking.metrics;
+
+import com.banking.model.Account;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.security.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * List endpoints for the query budget tests. Both read the caller's accounts and then the net
+ * change of each account with a query of its own, one statement per account.
+ */
+@RestController
+@RequestMapping("/test/query-budget")
+public class QueryBudgetProbeController {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    /**
+     * List the caller's accounts within a budget of three statements.
+     *
+     * @param principal the authenticated user
+     * @return the net change of every account by account number
+     */
+    @GetMapping("/budgeted")
+    @QueryBudget(value = 3, detectRepeats = false)
+    public Map<String, BigDecimal> budgeted(@AuthenticationPrincipal AuthenticatedUser principal) {
+        return netChanges(principal);
+    }
+
+    /**
+     * List the caller's accounts with repeated queries reported.
+     *
+     * @param principal the authenticated user
+     * @return the net change of every account by account number
+     */
+    @GetMapping("/repeated")
+    @QueryBudget(100)
+    public Map<String, BigDecimal> repeated(@AuthenticationPrincipal AuthenticatedUser principal) {
+        return netChanges(principal);
+    }
+
+    private Map<String, BigDecimal> netChanges(AuthenticatedUser principal) {
+        Map<String, BigDecimal> changes = new LinkedHashMap<>();
+        LocalDateTime from = LocalDateTime.now().minusDays(30);
+        for (Account account : accountRepository.findByUser(User.builder().id(principal.id()).build())) {
+            changes.put(account.getAccountNumber(), transactionRepository.sumSignedAmountFrom(account.getId(), from));
+        }
+        return changes;
+    }
+}
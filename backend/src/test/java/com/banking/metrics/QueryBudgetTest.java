@@ -0,0 +1,103 @@
+package com.banking.metrics;
+
+import com.banking.TestData;
+import com.banking.model.Bill;
+import com.banking.model.User;
+import com.banking.repository.BillRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void listWithinItsBudgetSucceeds() throws Exception {
+        User user = userWithAccounts(2);
+
+        mockMvc.perform(get("/test/query-budget/budgeted").header(HttpHeaders.AUTHORIZATION, testData.bearer(user)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void listOverItsBudgetFails() {
+        User user = userWithAccounts(5);
+        double before = violations("/test/query-budget/budgeted", "budget");
+
+        assertThatThrownBy(() -> mockMvc.perform(get("/test/query-budget/budgeted")
+                .header(HttpHeaders.AUTHORIZATION, testData.bearer(user))))
+                .rootCause()
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessage("Executed more than 3 SQL statements");
+
+        assertThat(violations("/test/query-budget/budgeted", "budget")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void repeatedQueryIsFlaggedAsNPlusOne() {
+        User user = userWithAccounts(10);
+        double before = violations("/test/query-budget/repeated", "repeat");
+
+        assertThatThrownBy(() -> mockMvc.perform(get("/test/query-budget/repeated")
+                .header(HttpHeaders.AUTHORIZATION, testData.bearer(user))))
+                .rootCause()
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessageStartingWith("Executed the same query 10 times, likely an N+1");
+
+        assertThat(violations("/test/query-budget/repeated", "repeat")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void billListStaysWithinItsBudgetOfOneQuery() throws Exception {
+        User user = userWithAccounts(0);
+        for (int i = 0; i < 20; i++) {
+            billRepository.save(Bill.builder().name("Bill " + i).category("UTILITIES").amount(new BigDecimal("25.00"))
+                    .dueDate(LocalDate.now().plusDays(i)).status(Bill.STATUS_PENDING).user(user).build());
+        }
+
+        mockMvc.perform(get("/bills").header(HttpHeaders.AUTHORIZATION, testData.bearer(user)))
+                .andExpect(status().isOk());
+    }
+
+    private User userWithAccounts(int accounts) {
+        User user = testData.user();
+        for (int i = 0; i < accounts; i++) {
+            testData.account(user, "10.00");
+        }
+        return user;
+    }
+
+    private double violations(String uri, String kind) {
+        Counter counter = meterRegistry.find("http.server.requests.sql.budget.violations")
+                .tag("uri", uri).tag("kind", kind).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.banking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinorUnitsConverterTest {
+
+    private final MinorUnitsConverter converter = new MinorUnitsConverter();
+
+    @Test
+    void roundTripsThroughADecimalColumn() throws Exception {
+        long[] amounts = {0, 1, -1, 125_50, -99_99, Long.MAX_VALUE, Long.MIN_VALUE};
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:minor-units", "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table amounts (id int primary key, amount decimal(19, 2) not null)");
+            try (PreparedStatement insert = connection.prepareStatement("insert into amounts values (?, ?)")) {
+                for (int i = 0; i < amounts.length; i++) {
+                    insert.setInt(1, i);
+                    insert.setBigDecimal(2, converter.convertToDatabaseColumn(amounts[i]));
+                    insert.executeUpdate();
+                }
+            }
+            try (ResultSet rows = statement.executeQuery("select amount from amounts order by id")) {
+                for (long amount : amounts) {
+                    assertThat(rows.next()).isTrue();
+                    BigDecimal stored = rows.getBigDecimal(1);
+                    assertThat(stored.scale()).isEqualTo(Money.SCALE);
+                    assertThat(converter.convertToEntityAttribute(stored)).isEqualTo(amount);
+                }
+            }
+        }
+    }
+
+    @Test
+    void convertsDecimalsWithFewerPlacesAndNulls() {
+        assertThat(converter.convertToDatabaseColumn(125_50L)).isEqualTo(new BigDecimal("125.50"));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("125.5"))).isEqualTo(125_50L);
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("7"))).isEqualTo(7_00L);
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+
+    @Test
+    void refusesToRoundOrTruncateAStoredAmount() {
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(new BigDecimal("0.005")))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(new BigDecimal("92233720368547758.08")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+}
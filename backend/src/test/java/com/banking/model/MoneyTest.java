@@ -0,0 +1,89 @@
+package com.banking.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private static final Money MAX = Money.ofMinor(Long.MAX_VALUE, "USD");
+
+    private static final Money MIN = Money.ofMinor(Long.MIN_VALUE, "USD");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void arithmeticFailsOnOverflowInsteadOfWrapping() {
+        Money cent = Money.ofMinor(1, "USD");
+
+        assertThatThrownBy(() -> MAX.plus(cent)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MIN.minus(cent)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MAX.minus(cent.negate())).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(MIN::negate).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MAX.times(2)).isInstanceOf(ArithmeticException.class);
+
+        assertThat(MAX.minus(cent).plus(cent)).isEqualTo(MAX);
+        assertThat(MIN.plus(cent).negate()).isEqualTo(MAX);
+    }
+
+    @Test
+    void combiningCurrenciesFails() {
+        assertThatThrownBy(() -> Money.ofMinor(1, "USD").plus(Money.ofMinor(1, "EUR")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("USD and EUR");
+    }
+
+    @Test
+    void ofRejectsMoreDecimalPlacesThanMinorUnitsHold() {
+        assertThat(Money.of(new BigDecimal("125.5"), "USD").minorUnits()).isEqualTo(125_50);
+        assertThat(Money.of(new BigDecimal("125.500"), "USD").minorUnits()).isEqualTo(125_50);
+        assertThat(Money.of(new BigDecimal("1E+2"), "USD").minorUnits()).isEqualTo(100_00);
+
+        assertThatThrownBy(() -> Money.of(new BigDecimal("125.505"), "USD"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("125.505");
+        assertThatThrownBy(() -> Money.of(new BigDecimal("0.001"), "USD")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void ofRejectsAmountsBeyondTheRangeOfMinorUnits() {
+        assertThat(Money.of(new BigDecimal("92233720368547758.07"), "USD")).isEqualTo(MAX);
+
+        assertThatThrownBy(() -> Money.of(new BigDecimal("92233720368547758.08"), "USD"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void writesAPlainDecimalThatReadsBackWithItsCurrency() throws Exception {
+        for (Money money : new Money[] {
+                Money.of(new BigDecimal("125.50"), "USD"), Money.ofMinor(-5, "EUR"), Money.zero("USD"), MAX, MIN}) {
+            String json = objectMapper.writeValueAsString(money);
+
+            assertThat(json).isEqualTo(money.toPlainString());
+            assertThat(objectMapper.readValue("{\"amount\": " + json + ", \"currency\": \"" + money.currency() + "\"}",
+                    Money.class)).isEqualTo(money);
+            assertThat(objectMapper.readValue("\"" + json + " " + money.currency() + "\"", Money.class)).isEqualTo(money);
+        }
+        assertThat(objectMapper.writeValueAsString(Map.of("balance", Money.of(new BigDecimal("7"), "USD"))))
+                .isEqualTo("{\"balance\":7.00}");
+    }
+
+    @Test
+    void rejectsJsonItCannotReadExactly() {
+        assertThatThrownBy(() -> objectMapper.readValue("{\"amount\": 1.005, \"currency\": \"USD\"}", Money.class))
+                .isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("\"1.005 USD\"", Money.class))
+                .isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("{\"amount\": 1.00}", Money.class))
+                .isInstanceOf(MismatchedInputException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("1.00", Money.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+}
@@ -0,0 +1,303 @@
+package com.banking.notification;
+
+import com.banking.TestData;
+import com.banking.model.OutboxEmail;
+import com.banking.model.User;
+import com.banking.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Dispatches the outbox into a stub mail sender that records what each connection sent and can
+ * reject chosen addresses. The poller is left idle; tests run a dispatch themselves.
+ */
+@SpringBootTest(properties = {
+        "app.notification.email.enabled=true",
+        "app.notification.email.from=bank@example.com",
+        "app.notification.email.batch-size=10",
+        "app.notification.email.connections=2",
+        "app.notification.email.poll-interval-ms=3600000",
+        "app.notification.email.claim-timeout=PT1S",
+        "app.notification.email.max-attempts=3",
+        "app.notification.email.initial-backoff=PT1M",
+        "app.notification.email.max-backoff=PT3M"
+})
+@ActiveProfiles("test")
+class EmailDispatcherTest {
+
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private EmailOutbox emailOutbox;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private StubMailSender mailSender;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void sendsABatchSplitOverTheConfiguredConnections() {
+        User user = testData.user();
+        double sent = attempts("sent");
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                emailOutbox.enqueue(user.getId(), "Subject " + i, "Body " + i);
+            }
+        });
+
+        dispatch();
+
+        List<SimpleMailMessage> messages = mailSender.sentTo(user);
+        assertThat(messages).extracting(SimpleMailMessage::getSubject)
+                .containsExactlyInAnyOrder("Subject 0", "Subject 1", "Subject 2", "Subject 3", "Subject 4");
+        assertThat(messages).allSatisfy(message -> {
+            assertThat(message.getFrom()).isEqualTo("bank@example.com");
+            assertThat(message.getText()).startsWith("Body ");
+        });
+        assertThat(mailSender.connectionsTo(user)).containsExactlyInAnyOrder(3, 2);
+        assertThat(emails(user)).hasSize(5).allSatisfy(email -> {
+            assertThat(email.getStatus()).isEqualTo(OutboxEmail.Status.SENT);
+            assertThat(email.getAttempts()).isEqualTo(1);
+            assertThat(email.getSentAt()).isNotNull();
+        });
+        assertThat(attempts("sent")).isEqualTo(sent + 5);
+    }
+
+    @Test
+    void retriesARejectedEmailWithAGrowingBackoff() {
+        User rejected = testData.user();
+        User accepted = testData.user();
+        mailSender.reject(rejected);
+        enqueue(rejected);
+        enqueue(accepted);
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatch();
+
+        assertThat(single(accepted).getStatus()).isEqualTo(OutboxEmail.Status.SENT);
+        OutboxEmail retry = single(rejected);
+        assertThat(retry.getStatus()).isEqualTo(OutboxEmail.Status.PENDING);
+        assertThat(retry.getAttempts()).isEqualTo(1);
+        assertThat(retry.getLastError()).isEqualTo("Mailbox unavailable");
+        // Half to all of the backoff, which doubles per failed attempt.
+        assertThat(retry.getNextAttemptAt()).isBetween(before.plusSeconds(30), LocalDateTime.now().plusMinutes(1));
+
+        makeDue(rejected);
+        before = LocalDateTime.now();
+        dispatch();
+
+        retry = single(rejected);
+        assertThat(retry.getAttempts()).isEqualTo(2);
+        assertThat(retry.getNextAttemptAt()).isBetween(before.plusMinutes(1), LocalDateTime.now().plusMinutes(2));
+        assertThat(mailSender.sentTo(rejected)).hasSize(2);
+    }
+
+    @Test
+    void givesUpAfterTheMaximumNumberOfAttempts() {
+        User rejected = testData.user();
+        mailSender.reject(rejected);
+        enqueue(rejected);
+        double failed = attempts("failed");
+
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            makeDue(rejected);
+            dispatch();
+        }
+
+        OutboxEmail email = single(rejected);
+        assertThat(email.getStatus()).isEqualTo(OutboxEmail.Status.FAILED);
+        assertThat(email.getAttempts()).isEqualTo(3);
+        assertThat(attempts("failed")).isEqualTo(failed + 1);
+
+        makeDue(rejected);
+        dispatch();
+
+        assertThat(mailSender.sentTo(rejected)).hasSize(3);
+        assertThat(single(rejected).getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    void queuesAnEmailOnlyIfTheBusinessTransactionCommits() {
+        User committed = testData.user();
+        User rolledBack = testData.user();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("update users set first_name = ? where id = ?", "Renamed", committed.getId());
+            emailOutbox.enqueue(committed.getId(), "Name changed", "Your name was changed.");
+        });
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("update users set first_name = ? where id = ?", "Renamed", rolledBack.getId());
+            emailOutbox.enqueue(rolledBack.getId(), "Name changed", "Your name was changed.");
+            throw new IllegalStateException("Business rule violated");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(emails(committed)).hasSize(1);
+        assertThat(emails(rolledBack)).isEmpty();
+        assertThat(firstName(rolledBack)).isEqualTo("Test");
+        assertThatThrownBy(() -> emailOutbox.enqueue(committed.getId(), "Outside", "No transaction"))
+                .isInstanceOf(IllegalStateException.class);
+
+        dispatch();
+
+        assertThat(mailSender.sentTo(committed)).extracting(SimpleMailMessage::getSubject).containsExactly("Name changed");
+        assertThat(mailSender.sentTo(rolledBack)).isEmpty();
+    }
+
+    @Test
+    void sendsTheEmailsOfADispatcherThatDiedMidBatchOnceItsClaimLapses() throws Exception {
+        User user = testData.user();
+        enqueue(user);
+        enqueue(user);
+
+        // A dispatcher that claims the emails and dies before sending them.
+        List<OutboxEmail> claimed = ReflectionTestUtils.invokeMethod(emailDispatcher, "claim");
+        assertThat(claimed).extracting(OutboxEmail::getUserId).contains(user.getId(), user.getId());
+
+        dispatch();
+        assertThat(mailSender.sentTo(user)).as("still claimed").isEmpty();
+
+        Thread.sleep(Duration.ofSeconds(1).plusMillis(100).toMillis());
+        dispatch();
+
+        assertThat(mailSender.sentTo(user)).hasSize(2);
+        assertThat(emails(user)).extracting(OutboxEmail::getStatus)
+                .containsOnly(OutboxEmail.Status.SENT);
+    }
+
+    private void dispatch() {
+        ReflectionTestUtils.invokeMethod(emailDispatcher, "dispatch");
+    }
+
+    private void enqueue(User user) {
+        transactionTemplate.executeWithoutResult(status ->
+                emailOutbox.enqueue(user.getId(), "Statement ready", "Your statement is ready."));
+    }
+
+    private void makeDue(User user) {
+        jdbcTemplate.update("update email_outbox set next_attempt_at = ? where user_id = ?",
+                LocalDateTime.now().minusSeconds(1), user.getId());
+    }
+
+    private List<OutboxEmail> emails(User user) {
+        return outboxEmailRepository.findAll().stream()
+                .filter(email -> email.getUserId().equals(user.getId()))
+                .toList();
+    }
+
+    private OutboxEmail single(User user) {
+        List<OutboxEmail> emails = emails(user);
+        assertThat(emails).hasSize(1);
+        return emails.get(0);
+    }
+
+    private String firstName(User user) {
+        return jdbcTemplate.queryForObject("select first_name from users where id = ?", String.class, user.getId());
+    }
+
+    private double attempts(String outcome) {
+        return meterRegistry.get("email.outbox.attempts").tag("outcome", outcome).counter().count();
+    }
+
+    @TestConfiguration
+    static class StubMailConfiguration {
+
+        @Bean
+        StubMailSender mailSender() {
+            return new StubMailSender();
+        }
+    }
+
+    /**
+     * Records every message it is asked to send, one list per call, which the dispatcher makes once
+     * per connection. Messages to rejected addresses fail the way an SMTP server refusing a
+     * recipient does.
+     */
+    static class StubMailSender extends JavaMailSenderImpl {
+
+        private final List<List<SimpleMailMessage>> connections = new ArrayList<>();
+
+        private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+
+        void reject(User user) {
+            rejected.add(user.getEmail());
+        }
+
+        @Override
+        public void send(SimpleMailMessage... messages) {
+            synchronized (connections) {
+                connections.add(List.of(messages));
+            }
+            Map<Object, Exception> failed = new HashMap<>();
+            for (SimpleMailMessage message : messages) {
+                if (Arrays.stream(Objects.requireNonNull(message.getTo())).anyMatch(rejected::contains)) {
+                    failed.put(message, new MailSendException("Mailbox unavailable"));
+                }
+            }
+            if (!failed.isEmpty()) {
+                throw new MailSendException(failed);
+            }
+        }
+
+        List<SimpleMailMessage> sentTo(User user) {
+            synchronized (connections) {
+                return connections.stream()
+                        .flatMap(List::stream)
+                        .filter(message -> Arrays.asList(message.getTo()).contains(user.getEmail()))
+                        .toList();
+            }
+        }
+
+        /**
+         * The number of messages to a user sent over each connection that carried any.
+         */
+        List<Integer> connectionsTo(User user) {
+            synchronized (connections) {
+                return connections.stream()
+                        .map(messages -> (int) messages.stream()
+                                .filter(message -> Arrays.asList(message.getTo()).contains(user.getEmail()))
+                                .count())
+                        .filter(count -> count > 0)
+                        .toList();
+            }
+        }
+    }
+}
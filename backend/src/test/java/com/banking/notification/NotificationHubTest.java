@@ -0,0 +1,199 @@
+package com.banking.notification;
+
+import com.banking.TestData;
+import com.banking.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Reads notification streams through MockMvc. Events are written by a single dispatch thread,
+ * which a test can hold to let a subscriber fall behind.
+ */
+@SpringBootTest(properties = {
+        "app.notifications.history-size=5",
+        "app.notifications.buffer-size=8",
+        "app.notifications.max-subscribers-per-user=2",
+        "app.notifications.dispatch-threads=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class NotificationHubTest {
+
+    private static final String RESYNC = NotificationHub.RESYNC_EVENT;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NotificationHub notificationHub;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void replaysTheNotificationsAfterTheLastEventId() throws Exception {
+        User user = testData.user();
+        MvcResult first = open(user, null);
+        List<Long> ids = publish(user, 3);
+        assertThat(awaitEvents(first, 3)).containsExactlyElementsOf(notifications(ids));
+
+        MvcResult reconnected = open(user, ids.get(0));
+
+        assertThat(awaitEvents(reconnected, 2)).containsExactlyElementsOf(notifications(ids.subList(1, 3)));
+    }
+
+    @Test
+    void tellsAClientToResyncWhenTheNotificationsItMissedLeftTheHistory() throws Exception {
+        User user = testData.user();
+        open(user, null);
+        List<Long> ids = publish(user, 7);
+
+        MvcResult behind = open(user, ids.get(0));
+        MvcResult upToDate = open(user, ids.get(1));
+
+        List<String> expected = new ArrayList<>(List.of(RESYNC));
+        expected.addAll(notifications(ids.subList(2, 7)));
+        assertThat(awaitEvents(behind, 6)).containsExactlyElementsOf(expected);
+        assertThat(awaitEvents(upToDate, 5)).containsExactlyElementsOf(notifications(ids.subList(2, 7)));
+    }
+
+    @Test
+    void queuesAResyncInPlaceOfTheEventsASlowClientMissed() throws Exception {
+        User user = testData.user();
+        MvcResult stream = open(user, null);
+        double dropped = meterRegistry.get("notifications.dropped").counter().count();
+
+        List<Long> ids;
+        CountDownLatch release = holdDispatcher();
+        try {
+            ids = publish(user, 10);
+        } finally {
+            release.countDown();
+        }
+
+        // Eight events fit the queue: the resync and the newest seven notifications.
+        List<String> expected = new ArrayList<>(List.of(RESYNC));
+        expected.addAll(notifications(ids.subList(3, 10)));
+        assertThat(awaitEvents(stream, 8)).containsExactlyElementsOf(expected);
+        assertThat(meterRegistry.get("notifications.dropped").counter().count()).isEqualTo(dropped + 3);
+    }
+
+    @Test
+    void closesTheOldestStreamAboveTheSubscriberLimit() throws Exception {
+        User user = testData.user();
+        MvcResult oldest = open(user, null);
+        MvcResult second = open(user, null);
+        assertThat(completed(oldest)).isFalse();
+
+        MvcResult third = open(user, null);
+
+        assertThat(completed(oldest)).isTrue();
+        assertThat(completed(second)).isFalse();
+        List<Long> ids = publish(user, 1);
+        assertThat(awaitEvents(second, 1)).containsExactlyElementsOf(notifications(ids));
+        assertThat(awaitEvents(third, 1)).containsExactlyElementsOf(notifications(ids));
+        assertThat(events(oldest)).isEmpty();
+    }
+
+    private MvcResult open(User user, Long lastEventId) throws Exception {
+        MockHttpServletRequestBuilder request = get("/notifications/stream")
+                .header(HttpHeaders.AUTHORIZATION, testData.bearer(user));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId.toString());
+        }
+        return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private List<Long> publish(User user, int count) {
+        for (int i = 0; i < count; i++) {
+            notificationHub.publish(user.getId(), NotificationEvent.TRANSACTION_POSTED, "Posting " + i, Map.of());
+        }
+        // Ids are consecutive, and the history may no longer hold the first ones.
+        long last = notificationHub.recent(user.getId()).get(0).id();
+        return LongStream.rangeClosed(last - count + 1, last).boxed().toList();
+    }
+
+    /**
+     * Occupy the only dispatch thread until the returned latch is released.
+     */
+    private CountDownLatch holdDispatcher() throws InterruptedException {
+        ExecutorService dispatcher = (ExecutorService) ReflectionTestUtils.getField(notificationHub, "dispatcher");
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.execute(() -> {
+            held.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(held.await(10, TimeUnit.SECONDS)).isTrue();
+        return release;
+    }
+
+    private static List<String> notifications(List<Long> ids) {
+        return ids.stream().map(id -> NotificationHub.NOTIFICATION_EVENT + ":" + id).toList();
+    }
+
+    private static List<String> awaitEvents(MvcResult stream, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<String> events = events(stream);
+        while (events.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            events = events(stream);
+        }
+        return events;
+    }
+
+    /**
+     * Read the events written to a stream so far, as their name and, for notifications, their id.
+     */
+    private static List<String> events(MvcResult stream) throws Exception {
+        List<String> events = new ArrayList<>();
+        for (String block : stream.getResponse().getContentAsString().split("\n\n")) {
+            String name = null;
+            String id = null;
+            for (String line : block.split("\n")) {
+                if (line.startsWith("event:")) {
+                    name = line.substring("event:".length());
+                } else if (line.startsWith("id:")) {
+                    id = line.substring("id:".length());
+                }
+            }
+            if (name != null) {
+                events.add(id != null ? name + ":" + id : name);
+            }
+        }
+        return events;
+    }
+
+    private static boolean completed(MvcResult stream) {
+        return ((MockAsyncContext) stream.getRequest().getAsyncContext()).getDispatchedPath() != null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.banking.service;
+
+import com.banking.TestData;
+import com.banking.datasource.EmbeddedReplicaSync;
+import com.banking.model.Account;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the account summary cache against a primary and a replica that is only brought up to date
+ * when the test copies the primary into it.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replicas.enabled=true",
+        "app.datasource.replicas.urls=jdbc:h2:mem:summary-cache-replica;DB_CLOSE_DELAY=-1",
+        "app.datasource.replicas.embedded-sync-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class AccountSummaryCacheReplicaTest {
+
+    @Autowired
+    private AccountSummaryCache accountSummaryCache;
+
+    @Autowired
+    private PostingService postingService;
+
+    @Autowired
+    private EmbeddedReplicaSync replicaSync;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void loadsTheSummariesOfATransferRecipientFromThePrimary() {
+        Account source = testData.account(testData.user(), "100.00");
+        Account destination = testData.account(testData.user(), "100.00");
+        replicaSync.sync();
+
+        // The recipient's summaries are not cached, and the replica has not seen the transfer yet.
+        postingService.transfer(source.getId(), destination.getId(), new BigDecimal("30.00"), null);
+
+        assertThat(accountSummaryCache.getAccounts(destination.getUser().getId()))
+                .singleElement()
+                .satisfies(summary -> assertThat(summary.balance().minorUnits()).isEqualTo(130_00));
+    }
+}
@@ -0,0 +1,145 @@
+package com.banking.service;
+
+import com.banking.TestData;
+import com.banking.dto.AccountSummary;
+import com.banking.model.Account;
+import com.banking.model.AccountSummaryEvent;
+import com.banking.model.User;
+import com.banking.repository.AccountSummaryEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountSummaryCacheTest {
+
+    @Autowired
+    private AccountSummaryCache accountSummaryCache;
+
+    @Autowired
+    private PostingService postingService;
+
+    @Autowired
+    private AccountSummaryEventRepository eventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestData testData;
+
+    @Value("${app.reference.node-id:0}")
+    private int nodeId;
+
+    @Test
+    void postingUpdatesTheCachedSummariesWithoutReadingThemAgain() {
+        User owner = testData.user();
+        Account account = testData.account(owner, "100.00");
+        assertThat(balanceOf(account)).isEqualTo(100_00);
+        long loads = loads();
+        double writeThroughs = meterRegistry.get("account.summaries.updates").tag("source", "write-through").counter().count();
+
+        postingService.deposit(account.getId(), new BigDecimal("25.00"), null);
+
+        assertThat(balanceOf(account)).isEqualTo(125_00);
+        assertThat(loads()).isEqualTo(loads);
+        assertThat(meterRegistry.get("account.summaries.updates").tag("source", "write-through").counter().count())
+                .isEqualTo(writeThroughs + 1);
+    }
+
+    @Test
+    void dropsTheSummariesOfAUserChangedOnAnotherInstance() {
+        User owner = testData.user();
+        Account account = testData.account(owner, "100.00");
+        assertThat(balanceOf(account)).isEqualTo(100_00);
+
+        // Another instance posts to the account: it changes the row and records an event in the same transaction.
+        jdbcTemplate.update("update accounts set balance = ? where id = ?", new BigDecimal("40.00"), account.getId());
+        recordEvent(owner, nodeId);
+        accountSummaryCache.pollEvents();
+        assertThat(balanceOf(account)).as("events of this instance are not acted on").isEqualTo(100_00);
+
+        recordEvent(owner, nodeId + 1);
+        accountSummaryCache.pollEvents();
+        assertThat(balanceOf(account)).isEqualTo(40_00);
+    }
+
+    @Test
+    void readersSeeAllAccountsOfAUserAsOfOnePointInTime() throws Exception {
+        User owner = testData.user();
+        Account first = testData.account(owner, "100.00");
+        Account second = testData.account(owner, "100.00");
+        accountSummaryCache.getAccounts(owner.getId());
+
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> transfers = executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 200; i++) {
+                        boolean forth = i % 2 == 0;
+                        postingService.transfer(forth ? first.getId() : second.getId(),
+                                forth ? second.getId() : first.getId(), new BigDecimal("7.00"), null);
+                        if (i % 20 == 0) {
+                            accountSummaryCache.evictAll();
+                        }
+                    }
+                } finally {
+                    done.set(true);
+                }
+            });
+            int reads = 0;
+            while (!done.get() || reads == 0) {
+                List<AccountSummary> summaries = accountSummaryCache.getAccounts(owner.getId());
+                assertThat(summaries).hasSize(2);
+                assertThat(summaries.stream().mapToLong(summary -> summary.balance().minorUnits()).sum())
+                        .as("total of a snapshot").isEqualTo(200_00);
+                reads++;
+            }
+            transfers.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(balanceOf(first)).isEqualTo(100_00);
+        assertThat(balanceOf(second)).isEqualTo(100_00);
+    }
+
+    private void recordEvent(User owner, int originNode) {
+        eventRepository.save(AccountSummaryEvent.builder()
+                .userId(owner.getId())
+                .originNode(originNode)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    private long balanceOf(Account account) {
+        return accountSummaryCache.getAccounts(account.getUser().getId()).stream()
+                .filter(summary -> summary.id().equals(account.getId()))
+                .findFirst()
+                .orElseThrow()
+                .balance()
+                .minorUnits();
+    }
+
+    private long loads() {
+        return meterRegistry.get("account.summaries.load").timer().count();
+    }
+}
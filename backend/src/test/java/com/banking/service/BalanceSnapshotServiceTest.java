@@ -0,0 +1,170 @@
+package com.banking.service;
+
+import com.banking.TestData;
+import com.banking.model.Account;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Posts to accounts opened with 100.00 on days in the past, the way the posting paths do: the
+ * balance, the transaction row and the snapshots change in one transaction.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BalanceSnapshotServiceTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2025, 3, 10);
+    private static final LocalDate DAY_2 = DAY_1.plusDays(1);
+    private static final LocalDate DAY_3 = DAY_1.plusDays(2);
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private TransactionFactory transactionFactory;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void keepsOneSnapshotPerDayWithTheClosingBalance() {
+        Account account = testData.account(testData.user(), "100.00");
+
+        post(account, Transaction.Direction.CREDIT, "10.00", DAY_1.atTime(9, 0));
+        post(account, Transaction.Direction.CREDIT, "5.00", DAY_1.atTime(17, 0));
+        assertThat(snapshots(account)).containsExactly(Map.entry(DAY_1, "115.00"));
+
+        post(account, Transaction.Direction.DEBIT, "20.00", DAY_2.atTime(8, 0));
+        assertThat(snapshots(account)).containsExactly(Map.entry(DAY_1, "115.00"), Map.entry(DAY_2, "95.00"));
+    }
+
+    @Test
+    void aBackdatedPostingShiftsTheSnapshotsOfLaterDays() {
+        Account account = testData.account(testData.user(), "100.00");
+        post(account, Transaction.Direction.CREDIT, "10.00", DAY_1.atTime(9, 0));
+        post(account, Transaction.Direction.DEBIT, "30.00", DAY_3.atTime(9, 0));
+
+        post(account, Transaction.Direction.CREDIT, "7.00", DAY_2.atTime(23, 59, 59));
+        post(account, Transaction.Direction.DEBIT, "1.00", DAY_1.atTime(8, 0));
+
+        assertThat(snapshots(account)).containsExactly(
+                Map.entry(DAY_1, "109.00"), Map.entry(DAY_2, "116.00"), Map.entry(DAY_3, "86.00"));
+    }
+
+    @Test
+    void answersBalancesFromTheNearestSnapshotAndOneDayOfTransactions() {
+        Account account = testData.account(testData.user(), "100.00");
+        post(account, Transaction.Direction.CREDIT, "10.00", DAY_1.atTime(9, 0));
+        post(account, Transaction.Direction.CREDIT, "5.00", DAY_1.atTime(17, 0));
+        post(account, Transaction.Direction.DEBIT, "20.00", DAY_2.atTime(8, 0));
+        post(account, Transaction.Direction.CREDIT, "1.00", DAY_3.atStartOfDay());
+
+        assertBalances(account);
+    }
+
+    @Test
+    void backfillRebuildsTheSnapshotsFromTheTransactions() {
+        Account account = testData.account(testData.user(), "100.00");
+        post(account, Transaction.Direction.CREDIT, "10.00", DAY_1.atTime(9, 0));
+        post(account, Transaction.Direction.CREDIT, "5.00", DAY_1.atTime(17, 0));
+        post(account, Transaction.Direction.DEBIT, "20.00", DAY_2.atTime(8, 0));
+        post(account, Transaction.Direction.CREDIT, "1.00", DAY_3.atStartOfDay());
+        Map<LocalDate, String> recorded = snapshots(account);
+        // A lost snapshot and a wrong one, as left by rows written before snapshots existed.
+        jdbcTemplate.update("delete from daily_balance_snapshots where account_id = ? and balance_date = ?",
+                account.getId(), DAY_2);
+        jdbcTemplate.update("update daily_balance_snapshots set closing_balance = 0 where account_id = ? and balance_date = ?",
+                account.getId(), DAY_1);
+
+        assertThat(balanceSnapshotService.backfill(account.getId())).isEqualTo(3);
+
+        assertThat(snapshots(account)).isEqualTo(recorded);
+        assertBalances(account);
+    }
+
+    @Test
+    void backfillJobRebuildsEveryAccount() {
+        Account account = testData.account(testData.user(), "100.00");
+        post(account, Transaction.Direction.CREDIT, "10.00", DAY_1.atTime(9, 0));
+        post(account, Transaction.Direction.DEBIT, "20.00", DAY_2.atTime(8, 0));
+        Map<LocalDate, String> recorded = snapshots(account);
+        jdbcTemplate.update("delete from daily_balance_snapshots where account_id = ?", account.getId());
+
+        assertThat(balanceSnapshotService.backfillAll()).isGreaterThanOrEqualTo(2);
+
+        assertThat(snapshots(account)).isEqualTo(recorded);
+    }
+
+    /**
+     * Check the balances of an account opened with 100.00 that received 10.00 and 5.00 on day 1,
+     * paid 20.00 on day 2 and received 1.00 at midnight starting day 3.
+     */
+    private void assertBalances(Account account) {
+        // Before the first snapshot: worked back from it.
+        assertThat(balanceAt(account, DAY_1.minusDays(5).atStartOfDay())).isEqualTo("100.00");
+        assertThat(balanceAt(account, DAY_1.atTime(9, 0))).isEqualTo("100.00");
+        assertThat(balanceAt(account, DAY_1.atTime(12, 0))).isEqualTo("110.00");
+        // The previous day's snapshot plus the transactions of the requested day so far.
+        assertThat(balanceAt(account, DAY_2.atStartOfDay())).isEqualTo("115.00");
+        assertThat(balanceAt(account, DAY_2.atTime(8, 0, 1))).isEqualTo("95.00");
+        // Transactions dated exactly at the requested time are not included yet.
+        assertThat(balanceAt(account, DAY_3.atStartOfDay())).isEqualTo("95.00");
+        assertThat(balanceAt(account, DAY_3.atTime(0, 0, 1))).isEqualTo("96.00");
+        assertThat(balanceAt(account, DAY_3.plusDays(30).atStartOfDay())).isEqualTo("96.00");
+    }
+
+    private String balanceAt(Account account, LocalDateTime at) {
+        return balanceSnapshotService.balanceAt(account.getId(), at).balance().toBigDecimal().toPlainString();
+    }
+
+    private void post(Account account, Transaction.Direction direction, String amount, LocalDateTime date) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account current = accountRepository.findById(account.getId()).orElseThrow();
+            Money money = Money.of(new BigDecimal(amount), "USD");
+            current.setBalance(direction == Transaction.Direction.CREDIT
+                    ? current.getBalance().plus(money) : current.getBalance().minus(money));
+            Transaction row = transactionRepository.save(transactionFactory.build(current, "DEPOSIT", direction, money,
+                    null, transactionFactory.newReference(), date));
+            balanceSnapshotService.recordPostings(current, List.of(row));
+        });
+    }
+
+    private Map<LocalDate, String> snapshots(Account account) {
+        Map<LocalDate, String> snapshots = new LinkedHashMap<>();
+        jdbcTemplate.query("select balance_date, closing_balance from daily_balance_snapshots where account_id = ? "
+                        + "order by balance_date",
+                row -> {
+                    snapshots.put(row.getObject(1, LocalDate.class), row.getBigDecimal(2).setScale(2).toPlainString());
+                }, account.getId());
+        return snapshots;
+    }
+}
@@ -0,0 +1,81 @@
+package com.banking.service;
+
+import com.banking.model.IdempotencyRecord;
+import com.banking.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    private static final long USER_ID = 42L;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Test
+    void replaysACompletedRequest() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+
+        ResponseEntity<?> first = execute(key, executions);
+        ResponseEntity<?> second = execute(key, executions);
+
+        assertThat(executions).hasValue(1);
+        assertThat(second.getStatusCode()).isEqualTo(first.getStatusCode());
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+    }
+
+    @Test
+    void neverExecutesAnExpiredInProgressKeyAgain() {
+        String key = UUID.randomUUID().toString();
+        String recordKey = USER_ID + ":" + key;
+        // A request that claimed the key and stopped before its response was stored.
+        recordRepository.save(IdempotencyRecord.builder()
+                .recordKey(recordKey)
+                .requestFingerprint("0".repeat(64))
+                .status(IdempotencyRecord.Status.IN_PROGRESS)
+                .createdAt(LocalDateTime.now().minusHours(1))
+                .expiresAt(LocalDateTime.now().minusMinutes(1))
+                .build());
+        AtomicInteger executions = new AtomicInteger();
+
+        ResponseEntity<?> retry = execute(key, executions);
+        idempotencyService.purgeExpired();
+
+        assertThat(executions).hasValue(0);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(retry.getHeaders().containsKey(HttpHeaders.RETRY_AFTER)).isFalse();
+        assertThat(recordRepository.existsById(recordKey)).isTrue();
+        assertThat(idempotencyService.unresolved())
+                .extracting(IdempotencyRecord::getRecordKey)
+                .contains(recordKey);
+
+        assertThat(idempotencyService.resolve(recordKey)).isTrue();
+        ResponseEntity<?> afterResolve = execute(key, executions);
+
+        assertThat(executions).hasValue(1);
+        assertThat(afterResolve.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(idempotencyService.resolve(recordKey)).isFalse();
+    }
+
+    private ResponseEntity<?> execute(String key, AtomicInteger executions) {
+        return idempotencyService.execute(key, USER_ID, "POST /test", "body",
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("executed " + executions.incrementAndGet()));
+    }
+}
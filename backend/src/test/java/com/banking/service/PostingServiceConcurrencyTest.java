@@ -0,0 +1,130 @@
+package com.banking.service;
+
+import com.banking.TestData;
+import com.banking.model.Account;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs transfers between a small set of accounts from many threads, so most transfers contend
+ * for the same locks, and checks that no money is created, lost or overwritten.
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+class PostingServiceConcurrencyTest {
+
+    private static final int ACCOUNTS = 8;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final long OPENING_MINOR_UNITS = 1_000_00;
+
+    @Autowired
+    private PostingService postingService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void concurrentTransfersConserveBalancesAndLoseNoUpdates() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads : new int[]{1, Math.max(2, cores), Math.max(4, cores * 2)}) {
+            runTransfers(threads);
+        }
+    }
+
+    private void runTransfers(int threads) throws Exception {
+        User owner = testData.user();
+        List<Long> accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds.add(testData.account(owner, "1000.00").getId());
+        }
+        // Net change per account as seen by the callers; the database must end up agreeing.
+        Map<Long, AtomicLong> expected = new ConcurrentHashMap<>();
+        accountIds.forEach(id -> expected.put(id, new AtomicLong(OPENING_MINOR_UNITS)));
+        AtomicLong posted = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        long minorUnits = 1 + random.nextInt(50_00);
+                        try {
+                            postingService.transfer(accountIds.get(from), accountIds.get(to),
+                                    BigDecimal.valueOf(minorUnits, 2), null);
+                        } catch (IllegalArgumentException e) {
+                            // Insufficient funds: nothing may have moved.
+                            refused.incrementAndGet();
+                            continue;
+                        }
+                        expected.get(accountIds.get(from)).addAndGet(-minorUnits);
+                        expected.get(accountIds.get(to)).addAndGet(minorUnits);
+                        posted.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("{} threads: {} transfers ({} refused) in {} s, {} transfers/s", threads, posted.get(), refused.get(),
+                String.format("%.2f", seconds), Math.round(posted.get() / seconds));
+
+        long total = 0;
+        for (Long id : accountIds) {
+            Account account = accountRepository.findById(id).orElseThrow();
+            long balance = account.getBalance().minorUnits();
+            assertThat(balance).as("balance of account %d", id).isEqualTo(expected.get(id).get());
+            assertThat(balance).isNotNegative();
+            BigDecimal ledger = transactionRepository.sumSignedAmountFrom(id, LocalDateTime.of(2000, 1, 1, 0, 0));
+            assertThat(ledger.movePointRight(2).longValueExact())
+                    .as("ledger of account %d", id)
+                    .isEqualTo(balance - OPENING_MINOR_UNITS);
+            total += balance;
+        }
+        assertThat(total).isEqualTo(ACCOUNTS * OPENING_MINOR_UNITS);
+        assertThat(posted.get() + refused.get()).isEqualTo((long) threads * TRANSFERS_PER_THREAD);
+        Long rows = jdbcTemplate.queryForObject("select count(*) from transactions where account_id in ("
+                + String.join(",", accountIds.stream().map(String::valueOf).toList()) + ")", Long.class);
+        assertThat(rows).isEqualTo(2 * posted.get());
+    }
+}
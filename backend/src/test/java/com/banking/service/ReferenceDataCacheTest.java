@@ -0,0 +1,96 @@
+package com.banking.service;
+
+import com.banking.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReferenceDataCacheTest {
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void takesATransactionTypeCreatedConcurrentlyUnderTheSameName() throws Exception {
+        String name = "RACE-" + System.nanoTime();
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Another instance inserts the name and commits only once our insert waits on its row.
+            Future<?> other = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("insert into transaction_types (name, created_at, updated_at) values (?, ?, ?)",
+                        name, LocalDateTime.now(), LocalDateTime.now());
+                inserted.countDown();
+                await(commit);
+            }));
+            assertThat(inserted.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<TransactionType> created = executor.submit(() -> transactionTemplate.execute(status ->
+                    referenceDataCache.transactionType(name)));
+            Thread.sleep(500);
+            commit.countDown();
+            other.get(10, TimeUnit.SECONDS);
+
+            Long id = jdbcTemplate.queryForObject("select id from transaction_types where name = ?", Long.class, name);
+            assertThat(created.get(10, TimeUnit.SECONDS).getId()).isEqualTo(id);
+        } finally {
+            commit.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentCallersGetOneTransactionTypePerName() throws Exception {
+        String name = "CONCURRENT-" + System.nanoTime();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> ids = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                ids.add(executor.submit(() -> {
+                    await(start);
+                    return transactionTemplate.execute(status -> referenceDataCache.transactionType(name).getId());
+                }));
+            }
+            start.countDown();
+            for (Future<Long> id : ids) {
+                assertThat(id.get(10, TimeUnit.SECONDS)).isEqualTo(ids.get(0).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(jdbcTemplate.queryForObject("select count(*) from transaction_types where name = ?", Integer.class, name))
+                .isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
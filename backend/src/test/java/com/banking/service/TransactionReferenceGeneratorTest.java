@@ -0,0 +1,151 @@
+package com.banking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionReferenceGeneratorTest {
+
+    private static final long NOW = TransactionReferenceGenerator.EPOCH + 86_400_000L;
+
+    @Test
+    void idsAreUniqueAndIncreasingAcrossThreads() throws Exception {
+        AtomicLong clock = new AtomicLong(NOW);
+        TransactionReferenceGenerator generator = new TransactionReferenceGenerator(7, () -> {
+            // Ticks forward and steps back by a second every 10,000 reads.
+            long now = clock.incrementAndGet();
+            return now % 10_000 == 0 ? clock.addAndGet(-1_000) : now;
+        });
+        int threads = 8;
+        int perThread = 50_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        Set<String> references = new HashSet<>();
+        for (Future<long[]> result : results) {
+            long[] ids = result.get();
+            for (int i = 0; i < ids.length; i++) {
+                if (i > 0) {
+                    assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                }
+                assertThat(TransactionReferenceGenerator.nodeOf(ids[i])).isEqualTo(7);
+                references.add(TransactionReferenceGenerator.encode(ids[i]));
+            }
+        }
+        executor.shutdown();
+
+        assertThat(references).hasSize(threads * perThread);
+    }
+
+    @Test
+    void keepsIncreasingWhenTheClockStepsBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        TransactionReferenceGenerator generator = new TransactionReferenceGenerator(1, clock::get);
+
+        long before = generator.nextId();
+        clock.addAndGet(-60_000);
+        long after = generator.nextId();
+
+        assertThat(after).isGreaterThan(before);
+        assertThat(TransactionReferenceGenerator.encode(after))
+                .isGreaterThan(TransactionReferenceGenerator.encode(before));
+    }
+
+    @Test
+    void borrowsTheNextMillisecondWhenTheSequenceIsExhausted() {
+        TransactionReferenceGenerator generator = new TransactionReferenceGenerator(1, () -> NOW);
+
+        long last = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(last);
+            last = id;
+        }
+
+        assertThat(TransactionReferenceGenerator.timestampOf(last)).isGreaterThan(NOW);
+    }
+
+    @Test
+    void resumesAfterTheLastIdOfAPreviousRun() {
+        // The first run borrowed milliseconds from the future, then the instance restarted with
+        // its clock stepped back.
+        TransactionReferenceGenerator firstRun = new TransactionReferenceGenerator(1, () -> NOW);
+        long last = 0;
+        for (int i = 0; i < 10_000; i++) {
+            last = firstRun.nextId();
+        }
+        TransactionReferenceGenerator restarted = new TransactionReferenceGenerator(1, () -> NOW - 5_000);
+
+        restarted.resumeAfter(last);
+
+        assertThat(restarted.nextId()).isGreaterThan(last);
+    }
+
+    @Test
+    void resumingDoesNotMoveTheGeneratorBack() {
+        TransactionReferenceGenerator generator = new TransactionReferenceGenerator(1, () -> NOW);
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        generator.resumeAfter(first);
+
+        assertThat(generator.nextId()).isGreaterThan(second);
+    }
+
+    @Test
+    void decodesWhatItEncodes() {
+        TransactionReferenceGenerator generator = new TransactionReferenceGenerator(1023, () -> NOW);
+
+        long id = generator.nextId();
+        String reference = TransactionReferenceGenerator.encode(id);
+
+        assertThat(reference).startsWith(TransactionReferenceGenerator.PREFIX).hasSize(15);
+        assertThat(TransactionReferenceGenerator.decode(reference)).isEqualTo(id);
+        assertThat(TransactionReferenceGenerator.nodeOf(id)).isEqualTo(1023);
+        assertThat(TransactionReferenceGenerator.timestampOf(id)).isEqualTo(NOW);
+    }
+
+    @Test
+    void decodesTheBaseOfATransferLeg() {
+        TransactionReferenceGenerator generator = new TransactionReferenceGenerator(3, () -> NOW);
+        long id = generator.nextId();
+        String reference = TransactionReferenceGenerator.encode(id);
+
+        assertThat(TransactionReferenceGenerator.decodeLeg(reference + "-D")).isEqualTo(id);
+        assertThat(TransactionReferenceGenerator.decodeLeg(reference + "-R")).isEqualTo(id);
+        assertThat(TransactionReferenceGenerator.decodeLeg(reference)).isEqualTo(id);
+        assertThatThrownBy(() -> TransactionReferenceGenerator.decodeLeg(reference + "-X"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void firstReferenceAtSortsAfterEverythingGeneratedEarlier() {
+        TransactionReferenceGenerator generator = new TransactionReferenceGenerator(1023, () -> NOW - 1);
+        String earlier = TransactionReferenceGenerator.encode(generator.nextId());
+        String later = TransactionReferenceGenerator.encode(new TransactionReferenceGenerator(0, () -> NOW).nextId());
+
+        String first = TransactionReferenceGenerator.firstReferenceAt(NOW);
+
+        assertThat(earlier + "-D").isLessThan(first);
+        assertThat(later).isGreaterThanOrEqualTo(first);
+    }
+}
@@ -0,0 +1,86 @@
+package com.banking.service;
+
+import com.banking.TestData;
+import com.banking.model.Account;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionReferenceResumerTest {
+
+    @Autowired
+    private TransactionReferenceResumer resumer;
+
+    @Autowired
+    private TransactionReferenceGenerator referenceGenerator;
+
+    @Autowired
+    private TransactionFactory transactionFactory;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void resumesAfterAStoredReferenceFromTheFuture() {
+        // Issued before a restart by an instance whose clock was an hour ahead.
+        long future = generatorAhead(3_600_000L).nextId();
+        String stored = TransactionReferenceGenerator.encode(future);
+        Account account = testData.account(testData.user(), "0.00");
+        save(account, stored);
+        save(account, "TXZZZZZZZZZZZZZ");
+
+        resumer.start();
+
+        assertThat(referenceGenerator.nextReference()).isGreaterThan(stored);
+    }
+
+    @Test
+    void resumesAfterTransferLegsFillingTheNewestReferences() {
+        // The newest rows are all legs of transfers issued by an instance two hours ahead.
+        TransactionReferenceGenerator ahead = generatorAhead(7_200_000L);
+        Account account = testData.account(testData.user(), "0.00");
+        String latest = null;
+        for (int i = 0; i < 40; i++) {
+            latest = ahead.nextReference();
+            save(account, latest + "-D");
+            save(account, latest + "-C");
+        }
+
+        resumer.start();
+
+        assertThat(referenceGenerator.nextReference()).isGreaterThan(latest);
+    }
+
+    @Test
+    void ignoresAClientReferenceFarInTheFuture() {
+        String farFuture = generatorAhead(3_650L * 24 * 3_600_000L).nextReference();
+        Account account = testData.account(testData.user(), "0.00");
+        save(account, farFuture);
+
+        resumer.start();
+
+        assertThat(referenceGenerator.nextReference()).isLessThan(farFuture);
+    }
+
+    private static TransactionReferenceGenerator generatorAhead(long millis) {
+        return new TransactionReferenceGenerator(0, () -> System.currentTimeMillis() + millis);
+    }
+
+    private void save(Account account, String reference) {
+        transactionRepository.save(transactionFactory.build(account, "DEPOSIT", Transaction.Direction.CREDIT,
+                Money.ofMinor(100, "USD"), null, reference, LocalDateTime.now()));
+    }
+}
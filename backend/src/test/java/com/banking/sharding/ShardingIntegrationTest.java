@@ -0,0 +1,284 @@
+package com.banking.sharding;
+
+import com.banking.dto.RebalanceResult;
+import com.banking.dto.TransferResult;
+import com.banking.model.Account;
+import com.banking.model.AccountType;
+import com.banking.model.CrossShardTransfer;
+import com.banking.model.Money;
+import com.banking.model.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.CrossShardTransferRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.repository.UserRepository;
+import com.banking.service.PostingService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the cross-shard saga, its recovery and a rebalance against a directory and two shards, each
+ * its own in-memory H2 database. Users are spread over shards 1 and 2 in ranges of five.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding-test-0;DB_CLOSE_DELAY=-1",
+        "app.sharding.enabled=true",
+        "app.sharding.urls=jdbc:h2:mem:sharding-test-1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:sharding-test-2;DB_CLOSE_DELAY=-1",
+        "app.sharding.ranges=1:1,6:2,11:1,16:2,21:1,26:2,31:1,36:2,41:1,46:2",
+        "app.sharding.rebalance-drain=PT0S",
+        "app.sharding.transfer-retry-delay=PT0S",
+        "app.sharding.transfer-recovery-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class ShardingIntegrationTest {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardCopier shardCopier;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private CrossShardTransferRecovery crossShardTransferRecovery;
+
+    @Autowired
+    private PostingService postingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CrossShardTransferRepository crossShardTransferRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private AccountType accountType;
+
+    @BeforeEach
+    void createAccountType() throws SQLException {
+        if (accountType != null) {
+            return;
+        }
+        accountType = transactionTemplate.execute(status -> {
+            AccountType type = AccountType.builder().name("CHECKING-" + SEQUENCE.incrementAndGet())
+                    .minimumBalance(BigDecimal.ZERO).interestRate(BigDecimal.ZERO).monthlyFee(BigDecimal.ZERO)
+                    .build();
+            entityManager.persist(type);
+            return type;
+        });
+        try (Connection directory = shardRouter.dataSource(ShardRouter.DIRECTORY).getConnection()) {
+            for (int shard : List.of(1, 2)) {
+                try (Connection target = shardRouter.dataSource(shard).getConnection()) {
+                    ShardRows.copyMissing(directory, target, "account_types", "id = ?", List.of(accountType.getId()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void transfersBetweenShards() {
+        Account source = account(userOn(1), "100.00");
+        Account destination = account(userOn(2), "10.00");
+
+        TransferResult result = postingService.transfer(source.getId(), destination.getId(),
+                new BigDecimal("40.00"), "Cross-shard");
+
+        assertThat(result.pending()).isFalse();
+        assertThat(balance(source)).isEqualTo(60_00);
+        assertThat(balance(destination)).isEqualTo(50_00);
+        assertThat(rowsOn(1, result.debitReference())).isEqualTo(1);
+        assertThat(rowsOn(2, result.creditReference())).isEqualTo(1);
+        assertThat(rowsOn(1, result.creditReference())).isZero();
+        assertThat(transferStatus(1, result.debitReference().replace("-D", ""))).isEqualTo(CrossShardTransfer.Status.COMPLETED);
+    }
+
+    @Test
+    void refusesAnInactiveDestinationBeforeDebiting() {
+        Account source = account(userOn(1), "100.00");
+        Account destination = account(userOn(2), "0.00");
+        deactivate(destination);
+
+        assertThatThrownBy(() -> postingService.transfer(source.getId(), destination.getId(),
+                new BigDecimal("30.00"), "Refused"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not active");
+
+        assertThat(balance(source)).isEqualTo(100_00);
+        assertThat(countOn(1, "select count(*) from cross_shard_transfers where source_account_id = ?",
+                source.getId())).isZero();
+    }
+
+    @Test
+    void recoveryCreditsOrReversesTransfersLeftDebited() {
+        Account source = account(userOn(1), "100.00");
+        Account credited = account(userOn(2), "0.00");
+        Account refusing = account(userOn(2), "0.00");
+        deactivate(refusing);
+        // The instance stopped after debiting the source and before crediting the destination.
+        String completed = debitOnly(source, credited, "25.00");
+        String reversed = debitOnly(source, refusing, "15.00");
+        assertThat(balance(source)).isEqualTo(60_00);
+
+        crossShardTransferRecovery.recover();
+
+        assertThat(transferStatus(1, completed)).isEqualTo(CrossShardTransfer.Status.COMPLETED);
+        assertThat(transferStatus(1, reversed)).isEqualTo(CrossShardTransfer.Status.REVERSED);
+        assertThat(balance(credited)).isEqualTo(25_00);
+        assertThat(balance(refusing)).isZero();
+        assertThat(balance(source)).isEqualTo(75_00);
+        assertThat(rowsOn(2, completed + "-C")).isEqualTo(1);
+
+        crossShardTransferRecovery.recover();
+
+        assertThat(balance(credited)).isEqualTo(25_00);
+        assertThat(balance(source)).isEqualTo(75_00);
+    }
+
+    @Test
+    void rebalanceMovesARangeWithItsAccountsAndLedger() {
+        User moved = userOn(1);
+        Account account = account(moved, "0.00");
+        postingService.deposit(account.getId(), new BigDecimal("12.00"), "Before the move");
+        postingService.deposit(account.getId(), new BigDecimal("8.00"), "Before the move");
+        Account other = account(userOn(2), "0.00");
+        long firstUserId = moved.getId();
+
+        RebalanceResult result = shardRebalancer.rebalance(firstUserId, firstUserId + 1, 2);
+
+        assertThat(result.sourceShard()).isEqualTo(1);
+        assertThat(shardRouter.shardOfUser(moved.getId())).isEqualTo(2);
+        assertThat(shardRouter.shardOfAccount(account.getId())).isEqualTo(2);
+        assertThat(countOn(1, "select count(*) from accounts where id = ?", account.getId())).isZero();
+        assertThat(countOn(2, "select count(*) from accounts where id = ?", account.getId())).isEqualTo(1);
+        assertThat(countOn(2, "select count(*) from transactions where account_id = ?", account.getId())).isEqualTo(2);
+        assertThat(balance(account)).isEqualTo(20_00);
+
+        // Now on one shard with the destination, the transfer is local.
+        TransferResult transfer = postingService.transfer(account.getId(), other.getId(),
+                new BigDecimal("5.00"), "After the move");
+        assertThat(balance(account)).isEqualTo(15_00);
+        assertThat(balance(other)).isEqualTo(5_00);
+        assertThat(rowsOn(2, transfer.debitReference())).isEqualTo(1);
+    }
+
+    /**
+     * Register users on the directory and copy them to their shard until one lands on the wanted shard.
+     */
+    private User userOn(int shard) {
+        while (true) {
+            long n = SEQUENCE.incrementAndGet();
+            User user = transactionTemplate.execute(status -> {
+                User saved = userRepository.save(User.builder().firstName("Shard").lastName("User" + n)
+                        .email("shard" + n + "@example.com").password("{noop}unused").role(User.Role.USER).build());
+                userRepository.flush();
+                shardCopier.copyUser(saved.getId());
+                return saved;
+            });
+            if (shardRouter.shardOfUser(user.getId()) == shard) {
+                return user;
+            }
+            if (user.getId() > 100) {
+                throw new IllegalStateException("No user id on shard " + shard);
+            }
+        }
+    }
+
+    private Account account(User owner, String balance) {
+        return shardRouter.onUserShard(owner.getId(), () -> transactionTemplate.execute(status ->
+                accountRepository.save(Account.builder()
+                        .accountNumber("S" + SEQUENCE.incrementAndGet())
+                        .user(entityManager.getReference(User.class, owner.getId()))
+                        .accountType(entityManager.getReference(AccountType.class, accountType.getId()))
+                        .balance(Money.of(new BigDecimal(balance), "USD"))
+                        .isActive(true)
+                        .openedDate(LocalDateTime.now())
+                        .build())));
+    }
+
+    private void deactivate(Account account) {
+        shardRouter.onAccountShard(account.getId(), () -> transactionTemplate.execute(status -> {
+            accountRepository.findById(account.getId()).orElseThrow().setActive(false);
+            return null;
+        }));
+    }
+
+    /**
+     * Debit the source of a cross-shard transfer and record it, as the first step of the saga does.
+     *
+     * @return the transfer reference
+     */
+    private String debitOnly(Account source, Account destination, String amount) {
+        String reference = "XS" + SEQUENCE.incrementAndGet();
+        LocalDateTime past = LocalDateTime.now().minusMinutes(5);
+        onShard(1, () -> transactionTemplate.execute(status -> {
+            Account account = accountRepository.findById(source.getId()).orElseThrow();
+            account.withdraw(Money.of(new BigDecimal(amount), "USD"));
+            return crossShardTransferRepository.save(CrossShardTransfer.builder()
+                    .reference(reference)
+                    .sourceAccountId(source.getId())
+                    .destinationAccountId(destination.getId())
+                    .amount(new BigDecimal(amount))
+                    .currency("USD")
+                    .status(CrossShardTransfer.Status.DEBITED)
+                    .createdAt(past)
+                    .updatedAt(past)
+                    .build());
+        }));
+        return reference;
+    }
+
+    private long balance(Account account) {
+        return shardRouter.onAccountShard(account.getId(), () -> transactionTemplate.execute(status ->
+                accountRepository.findById(account.getId()).orElseThrow().getBalance().minorUnits()));
+    }
+
+    private CrossShardTransfer.Status transferStatus(int shard, String reference) {
+        return onShard(shard, () -> transactionTemplate.execute(status -> crossShardTransferRepository.findAll().stream()
+                .filter(transfer -> transfer.getReference().equals(reference))
+                .findFirst().orElseThrow().getStatus()));
+    }
+
+    private long rowsOn(int shard, String reference) {
+        return countOn(shard, "select count(*) from transactions where transaction_reference = ?", reference);
+    }
+
+    private long countOn(int shard, String sql, Object parameter) {
+        return new JdbcTemplate(shardRouter.dataSource(shard)).queryForObject(sql, Long.class, parameter);
+    }
+
+    private <T> T onShard(int shard, Supplier<T> work) {
+        return shardRouter.onShard(shard, work);
+    }
+}
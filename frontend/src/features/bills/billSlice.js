@@ -24,6 +24,35 @@ export const fetchBills = createAsyncThunk(
   }
 );
 
+// Revalidates with the entity tag of the previous summary, so an unchanged summary costs a 304
+export const fetchBillSummary = createAsyncThunk(
+  'bills/fetchBillSummary',
+  async (days = 7, { rejectWithValue, getState }) => {
+    try {
+      const { auth, bills } = getState();
+      const headers = {
+        'Authorization': `Bearer ${auth.token}`,
+        'Content-Type': 'application/json',
+      };
+      if (bills.summaryEtag && bills.summary && bills.summary.upcomingDays === days) {
+        headers['If-None-Match'] = bills.summaryEtag;
+      }
+      const response = await fetch(`/bills/summary?days=${days}`, { headers });
+
+      if (response.status === 304) {
+        return { summary: bills.summary, etag: bills.summaryEtag };
+      }
+      if (!response.ok) {
+        throw new Error('Failed to fetch bill summary');
+      }
+
+      return { summary: await response.json(), etag: response.headers.get('ETag') };
+    } catch (error) {
+      return rejectWithValue(error.message);
+    }
+  }
+);
+
 export const payBill = createAsyncThunk(
   'bills/payBill',
   async ({ billId, accountId }, { rejectWithValue, getState }) => {
@@ -125,6 +154,8 @@ export const deleteBill = createAsyncThunk(
 
 const initialState = {
   bills: [],
+  summary: null,
+  summaryEtag: null,
   isLoading: false,
   error: null,
   paymentStatus: null,
@@ -156,6 +187,14 @@ const billSlice = createSlice({
         state.isLoading = false;
         state.error = action.payload;
       })
+      // Fetch bill summary cases
+      .addCase(fetchBillSummary.fulfilled, (state, action) => {
+        state.summary = action.payload.summary;
+        state.summaryEtag = action.payload.etag;
+      })
+      .addCase(fetchBillSummary.rejected, (state, action) => {
+        state.error = action.payload;
+      })
       // Pay bill cases
       .addCase(payBill.pending, (state) => {
         state.isLoading = true;
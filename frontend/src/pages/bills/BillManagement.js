@@ -47,16 +47,21 @@ import {
   Receipt,
 } from '@mui/icons-material';
 import { useSelector, useDispatch } from 'react-redux';
-import { fetchBills, createBill, updateBill, deleteBill } from '../../features/bills/billSlice';
+import { fetchBills, fetchBillSummary, createBill, updateBill, deleteBill } from '../../features/bills/billSlice';
 
 const BillManagement = () => {
   const dispatch = useDispatch();
-  const { bills } = useSelector((state) => state.bills || { bills: [] });
+  const { bills, summary } = useSelector((state) => state.bills || { bills: [], summary: null });
   const { accounts } = useSelector((state) => state.accounts);
   
   useEffect(() => {
     dispatch(fetchBills());
   }, [dispatch]);
+
+  // Revalidated whenever the bills change; an unchanged summary comes back as a 304
+  useEffect(() => {
+    dispatch(fetchBillSummary(7));
+  }, [dispatch, bills]);
   
   const [anchorEl, setAnchorEl] = useState(null);
   const [selectedBill, setSelectedBill] = useState(null);
@@ -333,7 +338,7 @@ const BillManagement = () => {
           <Card>
             <CardContent>
               <Typography variant="h6" color="warning.main">
-                {formatCurrency(billsList.reduce((sum, bill) => sum + bill.amount, 0))}
+                {formatCurrency(summary ? summary.amount : billsList.reduce((sum, bill) => sum + bill.amount, 0))}
               </Typography>
               <Typography variant="body2" color="text.secondary">
                 Monthly Total
@@ -345,7 +350,7 @@ const BillManagement = () => {
           <Card>
             <CardContent>
               <Typography variant="h6" color="error.main">
-                {billsList.filter(b => new Date(b.nextDue) <= new Date(Date.now() + 7 * 24 * 60 * 60 * 1000)).length}
+                {summary ? summary.upcomingCount : billsList.filter(b => new Date(b.nextDue) <= new Date(Date.now() + 7 * 24 * 60 * 60 * 1000)).length}
               </Typography>
               <Typography variant="body2" color="text.secondary">
                 Due This Week